@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.benchmarks;
+
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.dialect.DatabaseDialects;
+import io.confluent.connect.jdbc.sink.BufferedRecords;
+import io.confluent.connect.jdbc.sink.DbStructure;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.confluent.connect.jdbc.util.TableId;
+
+/**
+ * Measures writing a batch of records through {@link BufferedRecords} into a SQLite database,
+ * from adding the records to committing the transaction, as the sink task does for each table.
+ *
+ * <p>In {@code upsert} mode the same batch is written repeatedly, updating the same rows. In
+ * {@code insert} mode the table has no primary key, so the same batch is appended each time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BufferedRecordsBenchmark {
+
+  @Param({"100", "1000"})
+  public int batchSize;
+
+  @Param({"insert", "upsert"})
+  public String insertMode;
+
+  private File databaseFile;
+  private DatabaseDialect dialect;
+  private Connection connection;
+  private BufferedRecords buffer;
+  private List<SinkRecord> batch;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, SQLException {
+    databaseFile = File.createTempFile("jdbc-sink-benchmark", ".db");
+    final String url = "jdbc:sqlite:" + databaseFile.getAbsolutePath();
+    final Map<String, String> props = RadarRecords.sinkProps(url);
+    props.put(JdbcSinkConfig.INSERT_MODE, insertMode);
+    if (insertMode.equals("insert")) {
+      props.put(JdbcSinkConfig.PK_MODE, "none");
+      props.remove(JdbcSinkConfig.PK_FIELDS);
+    }
+    props.put(JdbcSinkConfig.BATCH_SIZE, String.valueOf(batchSize));
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+
+    dialect = DatabaseDialects.findBestFor(url, config);
+    connection = DriverManager.getConnection(url);
+    connection.setAutoCommit(false);
+    buffer = new BufferedRecords(
+        config,
+        new TableId(null, null, RadarRecords.TOPIC),
+        dialect,
+        new DbStructure(dialect),
+        connection
+    );
+    batch = RadarRecords.records(0, 0, batchSize);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    try {
+      buffer.close();
+      connection.close();
+      dialect.close();
+    } finally {
+      if (!databaseFile.delete()) {
+        databaseFile.deleteOnExit();
+      }
+    }
+  }
+
+  /**
+   * Add a full batch, which the buffer flushes when its last record is added, and commit it.
+   */
+  @Benchmark
+  public int writeBatch() throws SQLException {
+    int flushed = 0;
+    for (SinkRecord record : batch) {
+      flushed += buffer.add(record).size();
+    }
+    flushed += buffer.flush().size();
+    connection.commit();
+    return flushed;
+  }
+}
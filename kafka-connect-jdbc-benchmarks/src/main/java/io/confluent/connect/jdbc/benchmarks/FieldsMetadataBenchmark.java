@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
+import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
+
+/**
+ * Measures extracting the key and non-key fields of a record schema, which the sink does each
+ * time the schema of the records written to a table changes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FieldsMetadataBenchmark {
+
+  private JdbcSinkConfig config;
+  private SchemaPair schemaPair;
+
+  @Setup
+  public void setUp() {
+    config = new JdbcSinkConfig(RadarRecords.sinkProps("jdbc:bogus:something"));
+    schemaPair = new SchemaPair(RadarRecords.KEY_SCHEMA, RadarRecords.VALUE_SCHEMA);
+  }
+
+  @Benchmark
+  public FieldsMetadata extract() {
+    return FieldsMetadata.extract(
+        RadarRecords.TOPIC,
+        config.pkMode,
+        config.pkFields,
+        config.fieldsWhitelist,
+        schemaPair
+    );
+  }
+}
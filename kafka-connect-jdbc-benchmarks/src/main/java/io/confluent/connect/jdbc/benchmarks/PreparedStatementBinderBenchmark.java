@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.benchmarks;
+
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.dialect.GenericDatabaseDialect;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.confluent.connect.jdbc.sink.PreparedStatementBinder;
+import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
+import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
+
+/**
+ * Compares binding records with the compiled {@link PreparedStatementBinder} against looking up
+ * every field by name and binding it through {@link DatabaseDialect#bindField}, which is how
+ * records were bound before the binders were compiled.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PreparedStatementBinderBenchmark {
+
+  private static final int RECORD_COUNT = 1024;
+
+  private DatabaseDialect dialect;
+  private PreparedStatement statement;
+  private FieldsMetadata fieldsMetadata;
+  private PreparedStatementBinder binder;
+  private List<SinkRecord> records;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    final JdbcSinkConfig config =
+        new JdbcSinkConfig(RadarRecords.sinkProps("jdbc:bogus:something"));
+    dialect = new GenericDatabaseDialect(config);
+    statement = new NoopPreparedStatement();
+    records = RadarRecords.records(0, 0, RECORD_COUNT);
+
+    final SchemaPair schemaPair =
+        new SchemaPair(RadarRecords.KEY_SCHEMA, RadarRecords.VALUE_SCHEMA);
+    fieldsMetadata = FieldsMetadata.extract(
+        RadarRecords.TOPIC,
+        config.pkMode,
+        config.pkFields,
+        config.fieldsWhitelist,
+        schemaPair
+    );
+    binder = new PreparedStatementBinder(
+        dialect,
+        statement,
+        config.pkMode,
+        schemaPair,
+        fieldsMetadata,
+        config.insertMode
+    );
+  }
+
+  @Benchmark
+  public int compiledBinder() throws SQLException {
+    return binder.bindRecord(1, nextRecord());
+  }
+
+  @Benchmark
+  public int bindFieldByName() throws SQLException {
+    final SinkRecord record = nextRecord();
+    final Struct value = (Struct) record.value();
+    int index = 1;
+    for (String fieldName : fieldsMetadata.keyFieldNames) {
+      final Field field = record.valueSchema().field(fieldName);
+      dialect.bindField(statement, index++, field.schema(), value.get(field));
+    }
+    for (String fieldName : fieldsMetadata.nonKeyFieldNames) {
+      final Field field = record.valueSchema().field(fieldName);
+      dialect.bindField(statement, index++, field.schema(), value.get(field));
+    }
+    return index;
+  }
+
+  private SinkRecord nextRecord() {
+    next = (next + 1) % RECORD_COUNT;
+    return records.get(next);
+  }
+}
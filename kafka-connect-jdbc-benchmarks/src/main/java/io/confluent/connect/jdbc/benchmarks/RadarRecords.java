@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.benchmarks;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+
+/**
+ * Records shaped like those that the RADAR TimescaleDB sink writes: the observation key merged
+ * into the value, measurement times and a few numbers, written with upserts keyed on the time,
+ * user and project as in {@code docker/sink-timescale.properties.template}.
+ */
+final class RadarRecords {
+
+  static final String TOPIC = "android_phone_acceleration";
+
+  static final Schema KEY_SCHEMA = SchemaBuilder.struct()
+      .name("org.radarcns.kafka.ObservationKey")
+      .field("projectId", Schema.OPTIONAL_STRING_SCHEMA)
+      .field("userId", Schema.STRING_SCHEMA)
+      .field("sourceId", Schema.STRING_SCHEMA)
+      .build();
+
+  static final Schema VALUE_SCHEMA = SchemaBuilder.struct()
+      .name("org.radarcns.passive.phone.PhoneAcceleration")
+      .field("projectId", Schema.OPTIONAL_STRING_SCHEMA)
+      .field("userId", Schema.STRING_SCHEMA)
+      .field("sourceId", Schema.STRING_SCHEMA)
+      .field("time", Timestamp.SCHEMA)
+      .field("timeReceived", Timestamp.SCHEMA)
+      .field("x", Schema.FLOAT32_SCHEMA)
+      .field("y", Schema.FLOAT32_SCHEMA)
+      .field("z", Schema.FLOAT32_SCHEMA)
+      .field("accuracy", Schema.OPTIONAL_FLOAT64_SCHEMA)
+      .build();
+
+  private static final long START_TIME = 1577836800000L;
+
+  private RadarRecords() {
+  }
+
+  /**
+   * @return the record at the given offset, with a time that is unique within the partition
+   */
+  static SinkRecord record(int partition, long offset) {
+    final String userId = "user-" + partition;
+    final String sourceId = "source-" + partition;
+    final Struct key = new Struct(KEY_SCHEMA)
+        .put("projectId", "radar-test")
+        .put("userId", userId)
+        .put("sourceId", sourceId);
+    final long time = START_TIME + offset * 20;
+    final Struct value = new Struct(VALUE_SCHEMA)
+        .put("projectId", "radar-test")
+        .put("userId", userId)
+        .put("sourceId", sourceId)
+        .put("time", new java.util.Date(time))
+        .put("timeReceived", new java.util.Date(time + 1500))
+        .put("x", (float) Math.sin(offset))
+        .put("y", (float) Math.cos(offset))
+        .put("z", 9.81f)
+        .put("accuracy", offset % 10 == 0 ? null : 0.5);
+    return new SinkRecord(TOPIC, partition, KEY_SCHEMA, key, VALUE_SCHEMA, value, offset);
+  }
+
+  /**
+   * @return consecutive records of a single partition
+   */
+  static List<SinkRecord> records(int partition, long firstOffset, int count) {
+    final List<SinkRecord> records = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      records.add(record(partition, firstOffset + i));
+    }
+    return records;
+  }
+
+  /**
+   * @return the properties of the RADAR TimescaleDB sink for the given database, which upserts
+   *     the records keyed on their time, user and project
+   */
+  static Map<String, String> sinkProps(String connectionUrl) {
+    final Map<String, String> props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, connectionUrl);
+    props.put(JdbcSinkConfig.INSERT_MODE, "upsert");
+    props.put(JdbcSinkConfig.PK_MODE, "record_value");
+    props.put(JdbcSinkConfig.PK_FIELDS, "time,userId,projectId");
+    props.put(JdbcSinkConfig.AUTO_CREATE, "true");
+    return props;
+  }
+}
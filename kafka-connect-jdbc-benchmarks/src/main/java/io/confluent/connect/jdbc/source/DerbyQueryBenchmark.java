@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.source;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.dialect.DatabaseDialects;
+
+/**
+ * Measures polling all rows of a table in an embedded, in-memory Derby database, from preparing
+ * the query to converting the last row to a source record, as the source task does when it
+ * starts without an offset.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DerbyQueryBenchmark {
+
+  private static final String URL = "jdbc:derby:memory:benchmarks;create=true";
+  private static final int ROW_COUNT = 1000;
+
+  @Param({SourceTables.NARROW, SourceTables.WIDE})
+  public String table;
+
+  private DatabaseDialect dialect;
+  private Connection connection;
+
+  @Setup(Level.Trial)
+  public void setUp() throws SQLException {
+    connection = DriverManager.getConnection(URL);
+    // Like the source task, which commits the read transaction after each query
+    connection.setAutoCommit(false);
+    SourceTables.createDerbyTable(connection, table, SourceTables.columns(table), ROW_COUNT);
+    connection.commit();
+    dialect = DatabaseDialects.findBestFor(URL, SourceTables.config(URL));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.executeUpdate("DROP TABLE \"" + table + "\"");
+      connection.commit();
+    } finally {
+      connection.close();
+      dialect.close();
+    }
+  }
+
+  @Benchmark
+  public int pollTable(Blackhole blackhole) throws SQLException {
+    final TimestampIncrementingTableQuerier querier = SourceTables.querier(dialect, table);
+    int rows = 0;
+    try {
+      querier.maybeStartQuery(connection);
+      while (querier.next()) {
+        blackhole.consume(querier.extractRecord());
+        rows++;
+      }
+    } finally {
+      querier.reset(0L);
+    }
+    return rows;
+  }
+}
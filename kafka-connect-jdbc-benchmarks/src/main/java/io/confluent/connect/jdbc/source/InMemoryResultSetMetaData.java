@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.source;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+import io.confluent.connect.jdbc.source.SourceTables.Column;
+
+/**
+ * The metadata of the columns of a benchmark table, as a driver would describe them.
+ */
+class InMemoryResultSetMetaData implements ResultSetMetaData {
+
+  private final String tableName;
+  private final List<Column> columns;
+
+  InMemoryResultSetMetaData(String tableName, List<Column> columns) {
+    this.tableName = tableName;
+    this.columns = columns;
+  }
+
+  @Override
+  public int getColumnCount() {
+    return columns.size();
+  }
+
+  @Override
+  public boolean isAutoIncrement(int column) {
+    return column(column).name.equals(SourceTables.ID);
+  }
+
+  @Override
+  public boolean isCaseSensitive(int column) {
+    return column(column).javaType == String.class;
+  }
+
+  @Override
+  public boolean isSearchable(int column) {
+    return true;
+  }
+
+  @Override
+  public boolean isCurrency(int column) {
+    return false;
+  }
+
+  @Override
+  public int isNullable(int column) {
+    return column(column).optional ? columnNullable : columnNoNulls;
+  }
+
+  @Override
+  public boolean isSigned(int column) {
+    return Number.class.isAssignableFrom(column(column).javaType);
+  }
+
+  @Override
+  public int getColumnDisplaySize(int column) {
+    return column(column).precision;
+  }
+
+  @Override
+  public String getColumnLabel(int column) {
+    return column(column).name;
+  }
+
+  @Override
+  public String getColumnName(int column) {
+    return column(column).name;
+  }
+
+  @Override
+  public String getSchemaName(int column) {
+    return "";
+  }
+
+  @Override
+  public int getPrecision(int column) {
+    return column(column).precision;
+  }
+
+  @Override
+  public int getScale(int column) {
+    return column(column).scale;
+  }
+
+  @Override
+  public String getTableName(int column) {
+    return tableName;
+  }
+
+  @Override
+  public String getCatalogName(int column) {
+    return "";
+  }
+
+  @Override
+  public int getColumnType(int column) {
+    return column(column).type;
+  }
+
+  @Override
+  public String getColumnTypeName(int column) {
+    return column(column).typeName;
+  }
+
+  @Override
+  public boolean isReadOnly(int column) {
+    return true;
+  }
+
+  @Override
+  public boolean isWritable(int column) {
+    return false;
+  }
+
+  @Override
+  public boolean isDefinitelyWritable(int column) {
+    return false;
+  }
+
+  @Override
+  public String getColumnClassName(int column) {
+    final Column definition = column(column);
+    return definition.type == Types.OTHER ? Object.class.getName() : definition.javaType.getName();
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> iface) throws SQLException {
+    throw new SQLException("Not a wrapper");
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> iface) {
+    return false;
+  }
+
+  private Column column(int column) {
+    return columns.get(column - 1);
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.source;
+
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.source.SchemaMapping.FieldSetter;
+import io.confluent.connect.jdbc.source.SourceTables.Column;
+import io.confluent.connect.jdbc.util.ColumnId;
+import io.confluent.connect.jdbc.util.TableId;
+
+/**
+ * Measures converting a row of a result set held in memory to a source record, which bounds the
+ * throughput of a source task once the database has returned the rows. Each benchmark converts
+ * a single row.
+ *
+ * <p>{@link #setFields()} only runs the column converters of the dialect,
+ * {@link #extractValues()} only extracts the offset from a converted row, and
+ * {@link #extractRecord()} does both and creates the record, as the source task does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowConversionBenchmark {
+
+  private static final int ROW_COUNT = 1024;
+
+  @Param({SourceTables.NARROW, SourceTables.WIDE})
+  public String table;
+
+  @Param({"generic", "postgresql"})
+  public String dialectName;
+
+  private SchemaMapping schemaMapping;
+  private ResultSet resultSet;
+  private TimestampIncrementingTableQuerier querier;
+  private TimestampIncrementingCriteria criteria;
+  private Struct convertedRow;
+
+  @Setup
+  public void setUp() throws SQLException, IOException {
+    final DatabaseDialect dialect = SourceTables.inMemoryDialect(dialectName);
+    final List<Column> columns = SourceTables.columns(table);
+    final List<Object[]> rows = SourceTables.rows(columns, 0, ROW_COUNT);
+
+    resultSet = SourceTables.resultSet(table, columns, rows);
+    schemaMapping = SchemaMapping.create(table, resultSet.getMetaData(), dialect);
+    querier = SourceTables.inMemoryQuerier(
+        dialect,
+        table,
+        SourceTables.resultSet(table, columns, rows)
+    );
+
+    final TableId tableId = new TableId(null, null, table);
+    criteria = new TimestampIncrementingCriteria(
+        new ColumnId(tableId, SourceTables.ID),
+        Collections.singletonList(new ColumnId(tableId, SourceTables.MODIFIED)),
+        TimeZone.getTimeZone("UTC")
+    );
+    convertedRow = setFields();
+  }
+
+  @Benchmark
+  public Struct setFields() throws SQLException, IOException {
+    resultSet.next();
+    final Struct struct = new Struct(schemaMapping.schema());
+    for (FieldSetter setter : schemaMapping.fieldSetters()) {
+      setter.setField(struct, resultSet);
+    }
+    return struct;
+  }
+
+  @Benchmark
+  public TimestampIncrementingOffset extractValues() {
+    return criteria.extractValues(schemaMapping.schema(), convertedRow, null);
+  }
+
+  @Benchmark
+  public SourceRecord extractRecord() throws SQLException {
+    querier.next();
+    return querier.extractRecord();
+  }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.source;
+
+import org.apache.kafka.common.config.AbstractConfig;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.function.LongFunction;
+
+import io.confluent.connect.jdbc.benchmarks.InMemoryResultSet;
+import io.confluent.connect.jdbc.benchmarks.NoopPreparedStatement;
+import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.dialect.GenericDatabaseDialect;
+import io.confluent.connect.jdbc.dialect.PostgreSqlDatabaseDialect;
+import io.confluent.connect.jdbc.source.TableQuerier.QueryMode;
+import io.confluent.connect.jdbc.util.JdbcDriverInfo;
+
+/**
+ * The tables that the source benchmarks read, either held in memory or created in an embedded
+ * Derby database. Both tables are polled in {@code timestamp+incrementing} mode on their
+ * {@value #MODIFIED} and {@value #ID} columns.
+ *
+ * <p>The narrow table has a handful of columns, like a table of measurements. The wide table has
+ * {@value #WIDE_COLUMN_COUNT} columns of all the common types. Both have a {@code bit(1)} and a
+ * {@code jsonb} column that are converted differently by the PostgreSQL dialect; these are left
+ * out of the Derby tables, since Derby does not have these types.
+ */
+final class SourceTables {
+
+  static final String NARROW = "narrow";
+  static final String WIDE = "wide";
+  static final String ID = "id";
+  static final String MODIFIED = "modified";
+  static final int WIDE_COLUMN_COUNT = 200;
+
+  private static final long START_TIME = 1577836800000L;
+  private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+  private static final JdbcDriverInfo IN_MEMORY_DRIVER =
+      new JdbcDriverInfo(4, 2, "in-memory", "in-memory", "1.0");
+
+  private static final Column[] COLUMN_TYPES = {
+      new Column("int", Types.INTEGER, "INTEGER", 10, 0, "INTEGER", Integer.class,
+          row -> (int) row),
+      new Column("bigint", Types.BIGINT, "BIGINT", 19, 0, "BIGINT", Long.class,
+          row -> row * 31),
+      new Column("double", Types.DOUBLE, "DOUBLE", 15, 0, "DOUBLE", Double.class,
+          Math::sin),
+      new Column("real", Types.REAL, "REAL", 7, 0, "REAL", Float.class,
+          row -> (float) Math.cos(row)),
+      new Column("varchar", Types.VARCHAR, "VARCHAR", 64, 0, "VARCHAR(64)", String.class,
+          row -> "value-" + row),
+      new Column("decimal", Types.DECIMAL, "DECIMAL", 10, 2, "DECIMAL(10,2)", BigDecimal.class,
+          row -> BigDecimal.valueOf(row, 2)),
+      new Column("smallint", Types.SMALLINT, "SMALLINT", 5, 0, "SMALLINT", Short.class,
+          row -> (short) (row % 1000)),
+      new Column("boolean", Types.BOOLEAN, "BOOLEAN", 1, 0, "BOOLEAN", Boolean.class,
+          row -> row % 2 == 0),
+      new Column("date", Types.DATE, "DATE", 10, 0, "DATE", Date.class,
+          row -> new Date(START_TIME + row * 86400000L)),
+      new Column("timestamp", Types.TIMESTAMP, "TIMESTAMP", 26, 0, "TIMESTAMP",
+          Timestamp.class, row -> new Timestamp(START_TIME + row * 1000L)),
+      new Column("bit", Types.BIT, "bit", 1, 0, null, Boolean.class,
+          row -> row % 3 == 0),
+      new Column("json", Types.OTHER, "jsonb", Integer.MAX_VALUE, 0, null, String.class,
+          row -> "{\"row\":" + row + "}"),
+  };
+
+  private SourceTables() {
+  }
+
+  /**
+   * A column of a benchmark table.
+   */
+  static final class Column {
+    final String name;
+    final int type;
+    final String typeName;
+    final int precision;
+    final int scale;
+    final String derbyType;
+    final Class<?> javaType;
+    final boolean optional;
+    final LongFunction<Object> values;
+
+    Column(String name, int type, String typeName, int precision, int scale, String derbyType,
+        Class<?> javaType, LongFunction<Object> values) {
+      this(name, type, typeName, precision, scale, derbyType, javaType, true, values);
+    }
+
+    private Column(String name, int type, String typeName, int precision, int scale,
+        String derbyType, Class<?> javaType, boolean optional, LongFunction<Object> values) {
+      this.name = name;
+      this.type = type;
+      this.typeName = typeName;
+      this.precision = precision;
+      this.scale = scale;
+      this.derbyType = derbyType;
+      this.javaType = javaType;
+      this.optional = optional;
+      this.values = values;
+    }
+
+    Column named(String name) {
+      return new Column(name, type, typeName, precision, scale, derbyType, javaType, optional,
+          values);
+    }
+
+    Column required() {
+      return new Column(name, type, typeName, precision, scale, derbyType, javaType, false,
+          values);
+    }
+  }
+
+  /**
+   * @return the columns of the {@value #NARROW} or {@value #WIDE} table
+   */
+  static List<Column> columns(String table) {
+    final List<Column> columns = new ArrayList<>();
+    columns.add(new Column(ID, Types.BIGINT, "BIGINT", 19, 0, "BIGINT", Long.class,
+        row -> row + 1).required());
+    columns.add(new Column(MODIFIED, Types.TIMESTAMP, "TIMESTAMP", 26, 0, "TIMESTAMP",
+        Timestamp.class, row -> new Timestamp(START_TIME + row * 20)).required());
+    switch (table) {
+      case NARROW:
+        columns.add(COLUMN_TYPES[4].named("user_id").required());
+        columns.add(COLUMN_TYPES[2].named("x"));
+        columns.add(COLUMN_TYPES[2].named("y"));
+        columns.add(COLUMN_TYPES[2].named("z"));
+        columns.add(COLUMN_TYPES[10].named("active"));
+        columns.add(COLUMN_TYPES[11].named("payload"));
+        break;
+      case WIDE:
+        for (int i = columns.size(); i < WIDE_COLUMN_COUNT; i++) {
+          final Column type = COLUMN_TYPES[i % COLUMN_TYPES.length];
+          columns.add(type.named(type.name + "_" + i));
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown table " + table);
+    }
+    return columns;
+  }
+
+  /**
+   * @return consecutive rows of the given columns, in which every tenth value of optional
+   *     columns is null
+   */
+  static List<Object[]> rows(List<Column> columns, long firstRow, int count) {
+    final List<Object[]> rows = new ArrayList<>(count);
+    for (long row = firstRow; row < firstRow + count; row++) {
+      final Object[] values = new Object[columns.size()];
+      for (int i = 0; i < values.length; i++) {
+        final Column column = columns.get(i);
+        if (!column.optional || (row + i) % 10 != 0) {
+          values[i] = column.values.apply(row);
+        }
+      }
+      rows.add(values);
+    }
+    return rows;
+  }
+
+  /**
+   * @return a result set that returns the given rows over and over again
+   */
+  static InMemoryResultSet resultSet(String table, List<Column> columns, List<Object[]> rows) {
+    return new InMemoryResultSet(new InMemoryResultSetMetaData(table, columns), rows);
+  }
+
+  /**
+   * Create the table in a Derby database and fill it with rows. Columns of types that Derby does
+   * not support are left out.
+   */
+  static void createDerbyTable(
+      Connection connection,
+      String table,
+      List<Column> columns,
+      int rowCount
+  ) throws SQLException {
+    final List<Column> derbyColumns = new ArrayList<>();
+    final StringBuilder create = new StringBuilder("CREATE TABLE \"" + table + "\" (");
+    final StringBuilder insert = new StringBuilder("INSERT INTO \"" + table + "\" VALUES (");
+    for (Column column : columns) {
+      if (column.derbyType == null) {
+        continue;
+      }
+      if (!derbyColumns.isEmpty()) {
+        insert.append(", ");
+      }
+      derbyColumns.add(column);
+      create.append('"').append(column.name).append("\" ").append(column.derbyType);
+      create.append(column.optional ? ", " : " NOT NULL, ");
+      insert.append('?');
+    }
+    create.append("PRIMARY KEY (\"").append(ID).append("\"))");
+    insert.append(')');
+
+    try (Statement statement = connection.createStatement()) {
+      statement.executeUpdate(create.toString());
+    }
+    try (PreparedStatement statement = connection.prepareStatement(insert.toString())) {
+      for (Object[] row : rows(derbyColumns, 0, rowCount)) {
+        for (int i = 0; i < row.length; i++) {
+          statement.setObject(i + 1, row[i]);
+        }
+        statement.addBatch();
+      }
+      statement.executeBatch();
+    }
+  }
+
+  /**
+   * @return the source connector configuration for the given database
+   */
+  static JdbcSourceConnectorConfig config(String connectionUrl) {
+    final Map<String, String> props = new HashMap<>();
+    props.put(JdbcSourceConnectorConfig.CONNECTION_URL_CONFIG, connectionUrl);
+    props.put(JdbcSourceConnectorConfig.MODE_CONFIG,
+        JdbcSourceConnectorConfig.MODE_TIMESTAMP_INCREMENTING);
+    props.put(JdbcSourceConnectorConfig.TIMESTAMP_COLUMN_NAME_CONFIG, MODIFIED);
+    props.put(JdbcSourceConnectorConfig.INCREMENTING_COLUMN_NAME_CONFIG, ID);
+    props.put(JdbcSourceConnectorConfig.TOPIC_PREFIX_CONFIG, "benchmark-");
+    return new JdbcSourceConnectorConfig(props);
+  }
+
+  /**
+   * @return the {@code generic} or {@code postgresql} dialect, for use without a database
+   */
+  static DatabaseDialect inMemoryDialect(String name) {
+    final AbstractConfig config = config("jdbc:bogus:something");
+    switch (name) {
+      case "generic":
+        return new GenericDatabaseDialect(config) {
+          @Override
+          protected JdbcDriverInfo jdbcDriverInfo() {
+            return IN_MEMORY_DRIVER;
+          }
+        };
+      case "postgresql":
+        return new PostgreSqlDatabaseDialect(config) {
+          @Override
+          protected JdbcDriverInfo jdbcDriverInfo() {
+            return IN_MEMORY_DRIVER;
+          }
+        };
+      default:
+        throw new IllegalArgumentException("Unknown dialect " + name);
+    }
+  }
+
+  /**
+   * @return a querier of the table that reads the given rows instead of querying a database
+   */
+  static TimestampIncrementingTableQuerier inMemoryQuerier(
+      DatabaseDialect dialect,
+      String table,
+      ResultSet rows
+  ) throws SQLException {
+    final TimestampIncrementingTableQuerier querier = new TimestampIncrementingTableQuerier(
+        dialect, QueryMode.TABLE, table, "benchmark-", Collections.singletonList(MODIFIED), ID,
+        null, 0L, UTC, "") {
+      @Override
+      protected ResultSet executeQuery() {
+        return rows;
+      }
+    };
+    querier.maybeStartQuery(noopConnection());
+    return querier;
+  }
+
+  /**
+   * @return a querier of the table in a database, which starts at the first row
+   */
+  static TimestampIncrementingTableQuerier querier(DatabaseDialect dialect, String table) {
+    return new TimestampIncrementingTableQuerier(
+        dialect, QueryMode.TABLE, table, "benchmark-", Collections.singletonList(MODIFIED), ID,
+        null, 0L, UTC, "");
+  }
+
+  /**
+   * @return a connection that only prepares statements that do nothing
+   */
+  private static Connection noopConnection() {
+    return (Connection) Proxy.newProxyInstance(
+        SourceTables.class.getClassLoader(),
+        new Class<?>[]{Connection.class},
+        (proxy, method, args) -> {
+          if (method.getName().equals("prepareStatement")) {
+            return new NoopPreparedStatement();
+          }
+          throw new UnsupportedOperationException(method.getName());
+        }
+    );
+  }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.dialect;
+
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.confluent.connect.jdbc.util.TableId;
+
+/**
+ * Chooses the chunk time interval of hypertables from the rate at which they are written, so that
+ * a chunk holds about the target number of bytes.
+ *
+ * <p>For each table, the tuner collects the time range of the rows written by this task. Once it
+ * has seen enough rows, it measures the size of the newest rows in that time range, including
+ * the rows written by other tasks, and sets the chunk time interval of the hypertable once. The
+ * interval applies to chunks created after that. Once the transaction that set it is committed,
+ * the interval is kept so that the records written later are grouped by the chunks they fall in;
+ * if the transaction is rolled back instead, the tuner collects a new sample. Time columns hold
+ * either timestamps or integer milliseconds since the epoch.
+ */
+class ChunkIntervalTuner {
+  private static final Logger log = LoggerFactory.getLogger(ChunkIntervalTuner.class);
+
+  static final int MIN_SAMPLE_ROWS = 10000;
+  static final long MIN_CHUNK_TIME_INTERVAL_MS = TimeUnit.MINUTES.toMillis(10);
+  static final long MAX_CHUNK_TIME_INTERVAL_MS = TimeUnit.DAYS.toMillis(365);
+  /**
+   * The maximum number of rows that are measured, so that a sample with an outlying time does not
+   * make the measurement scan the whole hypertable.
+   */
+  static final int MAX_MEASURED_ROWS = 10 * MIN_SAMPLE_ROWS;
+
+  private final TimescaleDBDatabaseDialect dialect;
+  private final long targetBytes;
+  private final Map<TableId, Sample> samples = new ConcurrentHashMap<>();
+  private final Map<TableId, Long> intervals = new ConcurrentHashMap<>();
+  private final Map<Connection, Map<TableId, Long>> uncommittedIntervals =
+      new ConcurrentHashMap<>();
+
+  ChunkIntervalTuner(TimescaleDBDatabaseDialect dialect, long targetBytes) {
+    this.dialect = dialect;
+    this.targetBytes = targetBytes;
+  }
+
+  /**
+   * @return the chunk time interval that this tuner set for the table in a committed transaction,
+   *     or empty if it did not
+   */
+  OptionalLong intervalMs(TableId tableId) {
+    final Long intervalMs = intervals.get(tableId);
+    return intervalMs != null ? OptionalLong.of(intervalMs) : OptionalLong.empty();
+  }
+
+  /**
+   * Add the written records to the sample of the table, and set the chunk time interval of the
+   * table when the sample is complete. A failure to do so is logged, and does not affect the
+   * transaction of the written records.
+   *
+   * @throws SQLException if the connection cannot set or release a savepoint
+   */
+  void afterWrite(
+      Connection connection,
+      TableId tableId,
+      String timeColumn,
+      Collection<SinkRecord> records
+  ) throws SQLException {
+    final Sample sample = samples.computeIfAbsent(tableId, t -> new Sample());
+    if (!sample.add(timeColumn, records)) {
+      return;
+    }
+    final Savepoint savepoint = connection.setSavepoint();
+    try {
+      final OptionalLong intervalMs = chunkTimeIntervalMs(connection, tableId, timeColumn, sample);
+      if (intervalMs.isPresent()) {
+        log.info(
+            "Setting the chunk time interval of hypertable {} to {} ms",
+            tableId,
+            intervalMs.getAsLong()
+        );
+        try (Statement statement = connection.createStatement()) {
+          statement.execute(dialect.buildSetChunkTimeIntervalStatement(
+              tableId,
+              intervalMs.getAsLong(),
+              sample.integerTime
+          ));
+        }
+      }
+      connection.releaseSavepoint(savepoint);
+      intervalMs.ifPresent(ms -> uncommittedIntervals
+          .computeIfAbsent(connection, c -> new ConcurrentHashMap<>())
+          .put(tableId, ms));
+    } catch (SQLException e) {
+      log.warn("Failed to set the chunk time interval of hypertable {}", tableId, e);
+      connection.rollback(savepoint);
+    }
+  }
+
+  /**
+   * Keep the chunk time intervals set in the transaction of the connection, once it is committed.
+   */
+  void committed(Connection connection) {
+    final Map<TableId, Long> uncommitted = uncommittedIntervals.remove(connection);
+    if (uncommitted != null) {
+      intervals.putAll(uncommitted);
+    }
+  }
+
+  /**
+   * Forget the chunk time intervals set in the transaction of the connection, when it is rolled
+   * back, possibly only to a savepoint. Their tables are sampled again.
+   */
+  void rolledBack(Connection connection) {
+    final Map<TableId, Long> uncommitted = uncommittedIntervals.remove(connection);
+    if (uncommitted != null) {
+      uncommitted.keySet().forEach(samples::remove);
+    }
+  }
+
+  /**
+   * @return the interval for chunks of the target size at the rate that rows were written in the
+   *     time range of the sample, or empty if no rows were found. If there are more than
+   *     {@link #MAX_MEASURED_ROWS} rows in that range, the rate is that of the newest of them.
+   */
+  private OptionalLong chunkTimeIntervalMs(
+      Connection connection,
+      TableId tableId,
+      String timeColumn,
+      Sample sample
+  ) throws SQLException {
+    final String sql = dialect.buildRowSizeQuery(tableId, timeColumn);
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      if (sample.integerTime) {
+        statement.setLong(1, sample.minTimeMs);
+        statement.setLong(2, sample.maxTimeMs);
+      } else {
+        statement.setObject(1, offsetDateTime(sample.minTimeMs));
+        statement.setObject(2, offsetDateTime(sample.maxTimeMs));
+      }
+      statement.setInt(3, MAX_MEASURED_ROWS);
+      try (ResultSet rs = statement.executeQuery()) {
+        if (!rs.next() || rs.getLong(2) <= 0) {
+          return OptionalLong.empty();
+        }
+        final long rangeMs = rs.getLong(1) < MAX_MEASURED_ROWS
+                             ? sample.maxTimeMs - sample.minTimeMs
+                             : measuredRangeMs(rs, sample.integerTime);
+        log.debug(
+            "Hypertable {} has {} rows of {} bytes in {} ms",
+            tableId,
+            rs.getLong(1),
+            rs.getLong(2),
+            rangeMs
+        );
+        return rangeMs > 0
+               ? OptionalLong.of(chunkTimeIntervalMs(rs.getLong(2), rangeMs))
+               : OptionalLong.empty();
+      }
+    }
+  }
+
+  /**
+   * @return the time range of the measured rows
+   */
+  private static long measuredRangeMs(ResultSet rs, boolean integerTime) throws SQLException {
+    if (integerTime) {
+      return rs.getLong(4) - rs.getLong(3);
+    }
+    return rs.getTimestamp(4).getTime() - rs.getTimestamp(3).getTime();
+  }
+
+  /**
+   * @return the interval for chunks of the target size when the given number of bytes is written
+   *     per time range, within the minimum and maximum interval
+   */
+  long chunkTimeIntervalMs(long bytes, long rangeMs) {
+    final double intervalMs = (double) targetBytes * rangeMs / bytes;
+    return (long) Math.max(
+        MIN_CHUNK_TIME_INTERVAL_MS,
+        Math.min(MAX_CHUNK_TIME_INTERVAL_MS, intervalMs)
+    );
+  }
+
+  private static OffsetDateTime offsetDateTime(long timeMs) {
+    return OffsetDateTime.ofInstant(Instant.ofEpochMilli(timeMs), ZoneOffset.UTC);
+  }
+
+  /**
+   * The time range of the rows written by this task, until it is complete.
+   */
+  private static final class Sample {
+    private long rows;
+    private long minTimeMs = Long.MAX_VALUE;
+    private long maxTimeMs = Long.MIN_VALUE;
+    private boolean integerTime;
+    private boolean complete;
+
+    /**
+     * @return whether the sample became complete with the given records
+     */
+    synchronized boolean add(String timeColumn, Collection<SinkRecord> records) {
+      if (complete) {
+        return false;
+      }
+      for (SinkRecord record : records) {
+        final Object time = timeValue(record, timeColumn);
+        final long timeMs = TimescaleDBDatabaseDialect.timeMs(time);
+        if (timeMs != Long.MIN_VALUE) {
+          integerTime = time instanceof Number;
+          minTimeMs = Math.min(minTimeMs, timeMs);
+          maxTimeMs = Math.max(maxTimeMs, timeMs);
+          rows++;
+        }
+      }
+      complete = rows >= MIN_SAMPLE_ROWS && maxTimeMs > minTimeMs;
+      return complete;
+    }
+
+    private static Object timeValue(SinkRecord record, String timeColumn) {
+      if (!(record.value() instanceof Struct)) {
+        return null;
+      }
+      final Struct value = (Struct) record.value();
+      return value.schema().field(timeColumn) != null ? value.get(timeColumn) : null;
+    }
+  }
+}
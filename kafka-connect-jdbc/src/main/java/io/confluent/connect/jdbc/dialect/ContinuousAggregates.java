@@ -0,0 +1,293 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.dialect;
+
+import org.apache.kafka.connect.data.Schema;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.confluent.connect.jdbc.sink.metadata.SinkRecordField;
+import io.confluent.connect.jdbc.util.ExpressionBuilder;
+import io.confluent.connect.jdbc.util.TableId;
+
+/**
+ * Builds the statements that create the continuous aggregates of a hypertable, one for each
+ * configured time bucket width, with a refresh policy each.
+ *
+ * <p>The aggregates are created without data, since that is not possible in the transaction of
+ * the writes. They are created with {@code timescaledb.materialized_only = false}, which is not
+ * the default since TimescaleDB 2.13, so that buckets that are not materialized yet are
+ * aggregated from the hypertable when the aggregate is queried. The refresh policy materializes
+ * the buckets within the refresh window.
+ *
+ * <p>When an aggregated column is added to the hypertable, its aggregates are dropped and created
+ * again with the new column. This discards all their materialized buckets and their refresh
+ * policy. A one-off job is scheduled for each aggregate, which materializes all its buckets again
+ * once the transaction is committed. Until that job has run, the buckets older than the refresh
+ * window may be missing from the aggregate. The buckets of data that a retention policy has
+ * already dropped from the hypertable are lost.
+ */
+class ContinuousAggregates {
+
+  private static final Set<Schema.Type> NUMERIC_TYPES = EnumSet.of(
+      Schema.Type.INT8,
+      Schema.Type.INT16,
+      Schema.Type.INT32,
+      Schema.Type.INT64,
+      Schema.Type.FLOAT32,
+      Schema.Type.FLOAT64
+  );
+
+  static final String BUCKET_COLUMN = "bucket";
+  static final String COUNT_COLUMN = "row_count";
+  static final String BACKFILL_PROCEDURE = "refresh_continuous_aggregate_once";
+
+  private final TimescaleDBDatabaseDialect dialect;
+  private final JdbcSinkConfig config;
+
+  ContinuousAggregates(TimescaleDBDatabaseDialect dialect, JdbcSinkConfig config) {
+    this.dialect = dialect;
+    this.config = config;
+  }
+
+  /**
+   * @return whether the field is aggregated, because it is a number that is not part of the
+   *     primary key
+   */
+  static boolean isAggregated(SinkRecordField field) {
+    return !field.isPrimaryKey()
+        && field.schemaName() == null
+        && NUMERIC_TYPES.contains(field.schemaType());
+  }
+
+  /**
+   * Build the statements that create the continuous aggregates of the given new hypertable. If
+   * its time column holds integers, the statements of
+   * {@link TimescaleDBDatabaseDialect#buildIntegerNowStatements} must run first.
+   *
+   * @param table  the identifier of the hypertable; may not be null
+   * @param fields all fields of the hypertable; may not be null
+   * @return the statements, which are empty if the table is not aggregated; never null
+   */
+  List<String> buildCreateStatements(TableId table, Collection<SinkRecordField> fields) {
+    return buildStatements(table, fields, false);
+  }
+
+  /**
+   * Build the statements that create the continuous aggregates of the given hypertable again,
+   * if any of the fields added to it are aggregated, and that schedule the materialization of
+   * all their buckets. Otherwise the definition of the aggregates does not change, and they are
+   * kept as they are. If the time column of the hypertable holds integers, its current time is
+   * set as well.
+   *
+   * @param table         the identifier of the hypertable; may not be null
+   * @param missingFields the fields added to the hypertable; may not be null
+   * @param allFields     all fields of the hypertable; may not be null
+   * @return the statements, which are empty if the aggregates do not change; never null
+   */
+  List<String> buildAmendStatements(
+      TableId table,
+      Collection<SinkRecordField> missingFields,
+      Collection<SinkRecordField> allFields
+  ) {
+    if (missingFields.stream().noneMatch(ContinuousAggregates::isAggregated)) {
+      return new ArrayList<>();
+    }
+    return buildStatements(table, allFields, true);
+  }
+
+  private List<String> buildStatements(
+      TableId table,
+      Collection<SinkRecordField> fields,
+      boolean recreate
+  ) {
+    final List<String> sqlQueries = new ArrayList<>();
+    if (!config.hypertableAggregateTables.contains(table.tableName())) {
+      return sqlQueries;
+    }
+    final List<String> valueColumns = new ArrayList<>();
+    for (SinkRecordField field : fields) {
+      if (isAggregated(field)) {
+        valueColumns.add(field.name());
+      }
+    }
+    if (valueColumns.isEmpty()) {
+      return sqlQueries;
+    }
+    final List<String> keyColumns = dialect.keyColumns(table, fields);
+    final boolean integerTime = dialect.hasIntegerTime(table, fields);
+    final TableId procedure = backfillProcedureId(table);
+    if (recreate) {
+      // The hypertable may have been created without the current time its refresh policies need
+      sqlQueries.addAll(dialect.buildIntegerNowStatements(table, fields));
+      sqlQueries.add(buildBackfillProcedureStatement(procedure));
+    }
+    for (long bucketMs : config.hypertableAggregateBucketsMs) {
+      final TableId view = aggregateId(table, bucketMs);
+      if (recreate) {
+        sqlQueries.add(dialect.expressionBuilder()
+            .append("DROP MATERIALIZED VIEW IF EXISTS ")
+            .append(view)
+            .toString());
+      }
+      sqlQueries.add(
+          buildCreateStatement(table, view, bucketMs, integerTime, keyColumns, valueColumns)
+      );
+      sqlQueries.add(buildPolicyStatement(view, bucketMs, integerTime));
+      if (recreate) {
+        sqlQueries.add(buildBackfillJobStatement(procedure, view));
+      }
+    }
+    return sqlQueries;
+  }
+
+  private String buildCreateStatement(
+      TableId table,
+      TableId view,
+      long bucketMs,
+      boolean integerTime,
+      List<String> keyColumns,
+      List<String> valueColumns
+  ) {
+    final ExpressionBuilder builder = dialect.expressionBuilder();
+    builder.append("CREATE MATERIALIZED VIEW ");
+    builder.append(view);
+    builder.append(" WITH (timescaledb.continuous, timescaledb.materialized_only = false)");
+    builder.append(" AS SELECT time_bucket(");
+    TimescaleDBDatabaseDialect.appendInterval(builder, bucketMs, integerTime);
+    builder.append(", ");
+    builder.appendColumnName(dialect.timeColumn(table));
+    builder.append(") AS ");
+    builder.appendColumnName(BUCKET_COLUMN);
+    for (String keyColumn : keyColumns) {
+      builder.append(", ");
+      builder.appendColumnName(keyColumn);
+    }
+    for (String valueColumn : valueColumns) {
+      for (String function : new String[] {"avg", "min", "max"}) {
+        builder.append(", ").append(function).append("(");
+        builder.appendColumnName(valueColumn);
+        builder.append(") AS ");
+        builder.appendColumnName(valueColumn + "_" + function);
+      }
+    }
+    builder.append(", count(*) AS ");
+    builder.appendColumnName(COUNT_COLUMN);
+    builder.append(" FROM ");
+    builder.append(table);
+    builder.append(" GROUP BY ");
+    builder.appendColumnName(BUCKET_COLUMN);
+    for (String keyColumn : keyColumns) {
+      builder.append(", ");
+      builder.appendColumnName(keyColumn);
+    }
+    builder.append(" WITH NO DATA");
+    return builder.toString();
+  }
+
+  /**
+   * Refresh the buckets within the refresh window once per bucket width, except the current
+   * bucket, which is still being written. The window covers at least two buckets, as TimescaleDB
+   * requires.
+   */
+  private String buildPolicyStatement(TableId view, long bucketMs, boolean integerTime) {
+    final ExpressionBuilder builder = dialect.expressionBuilder();
+    builder.append("SELECT add_continuous_aggregate_policy('");
+    builder.append(view);
+    builder.append("', start_offset => ");
+    TimescaleDBDatabaseDialect.appendInterval(
+        builder,
+        Math.max(config.hypertableAggregateRefreshWindowMs, 3 * bucketMs),
+        integerTime
+    );
+    builder.append(", end_offset => ");
+    TimescaleDBDatabaseDialect.appendInterval(builder, bucketMs, integerTime);
+    builder.append(", schedule_interval => ");
+    // The schedule is a period of wall clock time, whatever the type of the time column
+    TimescaleDBDatabaseDialect.appendInterval(builder, bucketMs, false);
+    builder.append(")");
+    return builder.toString();
+  }
+
+  /**
+   * Create the procedure of the jobs that materialize all buckets of an aggregate once, and then
+   * unschedule themselves. It runs as a job, since a refresh cannot run in a transaction.
+   */
+  private String buildBackfillProcedureStatement(TableId procedure) {
+    final ExpressionBuilder builder = dialect.expressionBuilder();
+    builder.append("CREATE OR REPLACE PROCEDURE ");
+    builder.append(procedure);
+    builder.append("(job_id INT, config JSONB) LANGUAGE plpgsql AS $$ BEGIN ");
+    builder.append("CALL refresh_continuous_aggregate(");
+    builder.append("(config ->> 'view')::regclass, NULL, NULL); ");
+    builder.append("PERFORM alter_job(job_id, scheduled => false); ");
+    builder.append("END $$");
+    return builder.toString();
+  }
+
+  /**
+   * Schedule a job that materializes all buckets of the given aggregate once, as soon as the
+   * transaction is committed.
+   */
+  private String buildBackfillJobStatement(TableId procedure, TableId view) {
+    final ExpressionBuilder builder = dialect.expressionBuilder();
+    builder.append("SELECT add_job('");
+    builder.append(procedure);
+    builder.append("', INTERVAL '1 day', config => '{\"view\": \"");
+    // The quotes of the identifiers are escaped in the JSON string
+    builder.append(dialect.expressionBuilder().append(view).toString().replace("\"", "\\\""));
+    builder.append("\"}')");
+    return builder.toString();
+  }
+
+  /**
+   * @return the identifier of the procedure of the backfill jobs, in the schema of the table
+   */
+  static TableId backfillProcedureId(TableId table) {
+    return new TableId(table.catalogName(), table.schemaName(), BACKFILL_PROCEDURE);
+  }
+
+  /**
+   * @return the identifier of the aggregate of the table with the given bucket width, for example
+   *     {@code heart_rate_1h}
+   */
+  static TableId aggregateId(TableId table, long bucketMs) {
+    return new TableId(
+        table.catalogName(),
+        table.schemaName(),
+        table.tableName() + "_" + bucketSuffix(bucketMs)
+    );
+  }
+
+  private static String bucketSuffix(long bucketMs) {
+    if (bucketMs % TimeUnit.DAYS.toMillis(1) == 0) {
+      return TimeUnit.MILLISECONDS.toDays(bucketMs) + "d";
+    } else if (bucketMs % TimeUnit.HOURS.toMillis(1) == 0) {
+      return TimeUnit.MILLISECONDS.toHours(bucketMs) + "h";
+    } else if (bucketMs % TimeUnit.MINUTES.toMillis(1) == 0) {
+      return TimeUnit.MILLISECONDS.toMinutes(bucketMs) + "m";
+    } else if (bucketMs % TimeUnit.SECONDS.toMillis(1) == 0) {
+      return TimeUnit.MILLISECONDS.toSeconds(bucketMs) + "s";
+    }
+    return bucketMs + "ms";
+  }
+}
@@ -24,8 +24,11 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalInt;
+import java.util.TreeSet;
 
 import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
 import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
@@ -259,6 +262,33 @@ public interface DatabaseDialect extends ConnectionProvider {
    */
   TableDefinition describeTable(Connection connection, TableId tableId) throws SQLException;
 
+  /**
+   * Get the definitions of the specified tables, for example to fill a cache of definitions with
+   * fewer round trips than describing each table.
+   *
+   * <p>By default this describes the tables one by one.
+   *
+   * @param connection the database connection; may not be null
+   * @param tableIds   the identifiers of the tables; may not be null
+   * @return the definitions of the tables that exist, keyed by the given identifiers; never null
+   * @throws SQLException if there is an error accessing the metadata
+   */
+  default Map<TableId, TableDefinition> describeTables(
+      Connection connection,
+      Collection<TableId> tableIds
+  ) throws SQLException {
+    final Map<TableId, TableDefinition> definitions = new HashMap<>();
+    for (TableId tableId : tableIds) {
+      if (tableExists(connection, tableId)) {
+        final TableDefinition definition = describeTable(connection, tableId);
+        if (definition != null) {
+          definitions.put(tableId, definition);
+        }
+      }
+    }
+    return definitions;
+  }
+
   /**
    * Create the definition for the columns in the result set returned when querying the table. This
    * may not work if the table is empty.
@@ -308,6 +338,48 @@ public interface DatabaseDialect extends ConnectionProvider {
    */
   void applyDdlStatements(Connection connection, List<String> statements) throws SQLException;
 
+  /**
+   * Take a lock that keeps other connections from changing the structure of the given table until
+   * the current transaction ends, so that tasks of the sink racing to create or alter the same
+   * table run their DDL statements one after the other. The caller must read the definition of
+   * the table again after taking the lock, since another connection may have changed it while
+   * this one was waiting.
+   *
+   * <p>By default no lock is taken.
+   *
+   * @param connection the connection to use, which must not be in autocommit mode
+   * @param tableId    the identifier of the table; may not be null
+   * @return whether a lock was taken
+   * @throws SQLException if there is an error taking the lock
+   */
+  default boolean lockForDdl(Connection connection, TableId tableId) throws SQLException {
+    return false;
+  }
+
+  /**
+   * Take the locks of {@link #lockForDdl(Connection, TableId)} for all the given tables at once,
+   * in an order that is the same for every connection. Since the locks are held until the
+   * transaction ends, connections that take the locks of several tables one at a time in
+   * different orders could deadlock.
+   *
+   * <p>By default the locks are taken in the order of the table identifiers.
+   *
+   * @param connection the connection to use, which must not be in autocommit mode
+   * @param tableIds   the identifiers of the tables; may not be null
+   * @return whether any lock was taken
+   * @throws SQLException if there is an error taking the locks
+   */
+  default boolean lockForDdl(
+      Connection connection,
+      Collection<TableId> tableIds
+  ) throws SQLException {
+    boolean locked = false;
+    for (TableId tableId : new TreeSet<>(tableIds)) {
+      locked |= lockForDdl(connection, tableId);
+    }
+    return locked;
+  }
+
   /**
    * Build the INSERT prepared statement expression for the given table and its columns.
    *
@@ -324,6 +396,33 @@ public interface DatabaseDialect extends ConnectionProvider {
       Collection<ColumnId> nonKeyColumns
   );
 
+  /**
+   * Build the INSERT prepared statement expression for the given table and its columns, with a
+   * VALUES clause that has variables for the given number of rows. The variables for each row
+   * appear in the same order as in the single row statement.
+   *
+   * @param table         the identifier of the table; may not be null
+   * @param keyColumns    the identifiers of the columns in the primary/unique key; may not be null
+   *                      but may be empty
+   * @param nonKeyColumns the identifiers of the other columns in the table; may not be null but may
+   *                      be empty
+   * @param rows          the number of rows; must be positive
+   * @return the INSERT statement; may not be null
+   * @throws UnsupportedOperationException if the dialect does not support multi-row inserts
+   * @see #maxBindParameters()
+   */
+  default String buildInsertStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      int rows
+  ) {
+    if (rows == 1) {
+      return buildInsertStatement(table, keyColumns, nonKeyColumns);
+    }
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * Build the UPDATE prepared statement expression for the given table and its columns. Variables
    * for each key column should also appear in the WHERE clause of the statement.
@@ -360,6 +459,47 @@ public interface DatabaseDialect extends ConnectionProvider {
       Collection<ColumnId> nonKeyColumns
   );
 
+  /**
+   * Build the UPSERT or MERGE prepared statement expression for the given table and its columns,
+   * with variables for the given number of rows. The variables for each row appear in the same
+   * order as in the single row statement. The rows in a single statement never have the same key.
+   *
+   * @param table         the identifier of the table; may not be null
+   * @param keyColumns    the identifiers of the columns in the primary/unique key; may not be null
+   *                      but may be empty
+   * @param nonKeyColumns the identifiers of the other columns in the table; may not be null but may
+   *                      be empty
+   * @param rows          the number of rows; must be positive
+   * @return the upsert/merge statement; may not be null
+   * @throws UnsupportedOperationException if the dialect does not support multi-row upserts
+   * @see #maxBindParameters()
+   */
+  default String buildUpsertQueryStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      int rows
+  ) {
+    if (rows == 1) {
+      return buildUpsertQueryStatement(table, keyColumns, nonKeyColumns);
+    }
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Get the maximum number of variables that can be bound in a single prepared statement. This
+   * limits the number of rows in the multi-row INSERT and UPSERT statements.
+   *
+   * <p>Dialects that return a positive number must implement the multi-row variants of
+   * {@link #buildInsertStatement(TableId, Collection, Collection, int)} and
+   * {@link #buildUpsertQueryStatement(TableId, Collection, Collection, int)}.
+   *
+   * @return the maximum number of variables, or 0 if multi-row statements should not be used
+   */
+  default int maxBindParameters() {
+    return 0;
+  }
+
   /**
    * Build the DELETE prepared statement expression for the given table and its columns. Variables
    * for each key column should also appear in the WHERE clause of the statement.
@@ -413,6 +553,26 @@ public interface DatabaseDialect extends ConnectionProvider {
    */
   List<String> buildAlterTable(TableId table, Collection<SinkRecordField> fields);
 
+  /**
+   * Build the statements that add missing columns to the given table, and that update any objects
+   * derived from the table to include them.
+   *
+   * <p>By default this returns the {@link #buildAlterTable ALTER TABLE} statements.
+   *
+   * @param table         the identifier of the table; may not be null
+   * @param missingFields the fields to add to the table; may not be null
+   * @param allFields     all fields in the sink records, including the missing fields; may not
+   *                      be null
+   * @return the DDL statements; may not be null
+   */
+  default List<String> buildAmendTableStatements(
+      TableId table,
+      Collection<SinkRecordField> missingFields,
+      Collection<SinkRecordField> allFields
+  ) {
+    return buildAlterTable(table, missingFields);
+  }
+
   /**
    * Create a component that can bind record values into the supplied prepared statement.
    *
@@ -432,6 +592,130 @@ public interface DatabaseDialect extends ConnectionProvider {
       JdbcSinkConfig.InsertMode insertMode
   );
 
+  /**
+   * Create a component that can bind record values into the supplied prepared statement, which
+   * writes to the table with the given definition. The definition lets the dialect bind each
+   * value in the way that suits the type of its column.
+   *
+   * <p>By default this ignores the table definition.
+   *
+   * @param statement      the prepared statement
+   * @param pkMode         the primary key mode; may not be null
+   * @param schemaPair     the key and value schemas; may not be null
+   * @param fieldsMetadata the field metadata; may not be null
+   * @param tableDefn      the definition of the destination table; may be null if not known
+   * @param insertMode     the insert mode; may not be null
+   * @return the statement binder; may not be null
+   * @see #valueBinder(Schema, ColumnDefinition)
+   */
+  default StatementBinder statementBinder(
+      PreparedStatement statement,
+      JdbcSinkConfig.PrimaryKeyMode pkMode,
+      SchemaPair schemaPair,
+      FieldsMetadata fieldsMetadata,
+      TableDefinition tableDefn,
+      JdbcSinkConfig.InsertMode insertMode
+  ) {
+    return statementBinder(statement, pkMode, schemaPair, fieldsMetadata, insertMode);
+  }
+
+  /**
+   * Create a component that writes whole batches of records into the given table using a bulk
+   * loading mechanism of the database, such as PostgreSQL's {@code COPY}, instead of a batch of
+   * prepared statements. The columns are written in the same order as the INSERT statement, with
+   * the key columns first followed by the non-key columns.
+   *
+   * <p>By default this returns null, meaning that the dialect does not support bulk writes with
+   * the given insert mode and connector configuration.
+   *
+   * @param connection     the database connection; may not be null
+   * @param tableDefn      the definition of the destination table; may not be null
+   * @param pkMode         the primary key mode; may not be null
+   * @param schemaPair     the key and value schemas; may not be null
+   * @param fieldsMetadata the field metadata; may not be null
+   * @param insertMode     the insert mode; may not be null
+   * @return the bulk writer, or null if bulk writes are not supported
+   * @throws SQLException if there is an error accessing the connection
+   */
+  default BulkWriter bulkWriter(
+      Connection connection,
+      TableDefinition tableDefn,
+      JdbcSinkConfig.PrimaryKeyMode pkMode,
+      SchemaPair schemaPair,
+      FieldsMetadata fieldsMetadata,
+      JdbcSinkConfig.InsertMode insertMode
+  ) throws SQLException {
+    return null;
+  }
+
+  /**
+   * Order the records that are about to be written to the given table in one batch, so that the
+   * rows that the database stores together are written together.
+   *
+   * <p>By default this returns the records in the order they were given.
+   *
+   * @param tableId the identifier of the table; may not be null
+   * @param records the records to write, excluding deletes; may not be null
+   * @return the same records in the order to write them; never null
+   */
+  default List<SinkRecord> orderForWrite(TableId tableId, List<SinkRecord> records) {
+    return records;
+  }
+
+  /**
+   * Count the time ranges of the storage of the given table, such as the chunks of a hypertable,
+   * that the given records are written to.
+   *
+   * <p>By default this returns empty.
+   *
+   * @param tableId the identifier of the table; may not be null
+   * @param records the records to write, excluding deletes; may not be null
+   * @return the number of time ranges, or empty if the table is not partitioned by time
+   */
+  default OptionalInt countTimeBuckets(TableId tableId, Collection<SinkRecord> records) {
+    return OptionalInt.empty();
+  }
+
+  /**
+   * Called after records were written to the given table, before the transaction is committed,
+   * so that the dialect may adapt the table to the data written to it.
+   *
+   * <p>By default this does nothing.
+   *
+   * @param connection the database connection; may not be null
+   * @param tableId    the identifier of the table; may not be null
+   * @param records    the records that were written, excluding deletes; may not be null
+   * @throws SQLException if there is an error adapting the table
+   */
+  default void afterWrite(
+      Connection connection,
+      TableId tableId,
+      Collection<SinkRecord> records
+  ) throws SQLException {
+  }
+
+  /**
+   * Called once the transaction of the connection, in which records may have been written with
+   * {@link #afterWrite}, is committed.
+   *
+   * <p>By default this does nothing.
+   *
+   * @param connection the database connection; may not be null
+   */
+  default void committed(Connection connection) {
+  }
+
+  /**
+   * Called when the transaction of the connection is rolled back, or only its part since a
+   * savepoint, which undoes any changes made by {@link #afterWrite} in it.
+   *
+   * <p>By default this does nothing.
+   *
+   * @param connection the database connection; may not be null
+   */
+  default void rolledBack(Connection connection) {
+  }
+
   /**
    * Method that binds a value with the given schema at the specified variable within a prepared
    * statement.
@@ -451,9 +735,53 @@ public interface DatabaseDialect extends ConnectionProvider {
   ) throws SQLException;
 
   /**
-   * A function to bind the values from a sink record into a prepared statement.
+   * Create a function that binds values with the given schema at a variable within a prepared
+   * statement. Statement binders create one for each column when they are created, so that the
+   * way to bind a value is decided once per schema rather than once per value.
+   *
+   * <p>By default this delegates every value to {@link #bindField}.
+   *
+   * @param schema the schema for the values; may not be null
+   * @return the value binder; may not be null
+   */
+  default ValueBinder valueBinder(Schema schema) {
+    return (statement, index, value) -> bindField(statement, index, schema, value);
+  }
+
+  /**
+   * Create a function that binds values with the given schema at a variable of the given column
+   * within a prepared statement.
+   *
+   * <p>By default this ignores the column definition.
+   *
+   * @param schema the schema for the values; may not be null
+   * @param column the definition of the column; may be null if not known
+   * @return the value binder; may not be null
+   */
+  default ValueBinder valueBinder(Schema schema, ColumnDefinition column) {
+    return valueBinder(schema);
+  }
+
+  /**
+   * A function to bind values of a single schema into a prepared statement.
    */
   @FunctionalInterface
+  interface ValueBinder {
+
+    /**
+     * Bind the value at the specified variable within the prepared statement.
+     *
+     * @param statement the prepared statement; never null
+     * @param index     the 1-based index of the variable within the prepared statement
+     * @param value     the value to be bound to the variable; may be null
+     * @throws SQLException if there is a problem binding the value into the statement
+     */
+    void bind(PreparedStatement statement, int index, Object value) throws SQLException;
+  }
+
+  /**
+   * A function to bind the values from a sink record into a prepared statement.
+   */
   interface StatementBinder {
 
     /**
@@ -463,6 +791,41 @@ public interface DatabaseDialect extends ConnectionProvider {
      * @throws SQLException if there is a problem binding values into the statement
      */
     void bindRecord(SinkRecord record) throws SQLException;
+
+    /**
+     * Bind the values in the supplied record starting at the given variable, without adding the
+     * statement to the batch. This is used to bind several records into a multi-row statement.
+     *
+     * @param index  the 1-based index of the first variable to bind
+     * @param record the sink record with values to be bound into the statement; never null
+     * @return the index of the variable following the last one that was bound
+     * @throws SQLException if there is a problem binding values into the statement
+     */
+    int bindRecord(int index, SinkRecord record) throws SQLException;
+  }
+
+  /**
+   * A function to write a batch of sink records into a table in a single bulk operation.
+   */
+  @FunctionalInterface
+  interface BulkWriter {
+
+    /**
+     * Write all the supplied records, none of which may be a delete.
+     *
+     * @param records the sink records to write; never null
+     * @return the number of rows written
+     * @throws SQLException if there is a problem writing the records
+     */
+    long write(Collection<SinkRecord> records) throws SQLException;
+
+    /**
+     * Release any database resources held by this writer.
+     *
+     * @throws SQLException if there is a problem releasing the resources
+     */
+    default void close() throws SQLException {
+    }
   }
 
   /**
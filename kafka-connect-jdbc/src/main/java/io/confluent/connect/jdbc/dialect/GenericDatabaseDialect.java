@@ -30,6 +30,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.net.URL;
 import java.nio.ByteBuffer;
@@ -140,6 +141,7 @@ public class GenericDatabaseDialect implements DatabaseDialect {
   private volatile JdbcDriverInfo jdbcDriverInfo;
   private final int batchMaxRows;
   private final TimeZone timeZone;
+  private final boolean customBinding;
 
   /**
    * Create a new dialect instance with the given connector configuration.
@@ -196,6 +198,7 @@ public class GenericDatabaseDialect implements DatabaseDialect {
     } else {
       timeZone = TimeZone.getTimeZone(ZoneOffset.UTC);
     }
+    customBinding = overridesFieldBinding();
   }
 
   @Override
@@ -1443,6 +1446,16 @@ public class GenericDatabaseDialect implements DatabaseDialect {
       TableId table,
       Collection<ColumnId> keyColumns,
       Collection<ColumnId> nonKeyColumns
+  ) {
+    return buildInsertStatement(table, keyColumns, nonKeyColumns, 1);
+  }
+
+  @Override
+  public String buildInsertStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      int rows
   ) {
     ExpressionBuilder builder = expressionBuilder();
     builder.append("INSERT INTO ");
@@ -1452,12 +1465,30 @@ public class GenericDatabaseDialect implements DatabaseDialect {
            .delimitedBy(",")
            .transformedBy(ExpressionBuilder.columnNames())
            .of(keyColumns, nonKeyColumns);
-    builder.append(") VALUES(");
-    builder.appendMultiple(",", "?", keyColumns.size() + nonKeyColumns.size());
-    builder.append(")");
+    builder.append(") VALUES");
+    appendValueRows(builder, keyColumns.size() + nonKeyColumns.size(), rows);
     return builder.toString();
   }
 
+  /**
+   * Append the variables for the given number of rows of a VALUES clause, each row enclosed in
+   * parentheses.
+   *
+   * @param builder the expression builder; may not be null
+   * @param columns the number of columns in each row
+   * @param rows    the number of rows
+   */
+  protected void appendValueRows(ExpressionBuilder builder, int columns, int rows) {
+    for (int row = 0; row < rows; row++) {
+      if (row > 0) {
+        builder.append(",");
+      }
+      builder.append("(");
+      builder.appendMultiple(",", "?", columns);
+      builder.append(")");
+    }
+  }
+
   @Override
   public String buildUpdateStatement(
       TableId table,
@@ -1516,6 +1547,18 @@ public class GenericDatabaseDialect implements DatabaseDialect {
       SchemaPair schemaPair,
       FieldsMetadata fieldsMetadata,
       InsertMode insertMode
+  ) {
+    return statementBinder(statement, pkMode, schemaPair, fieldsMetadata, null, insertMode);
+  }
+
+  @Override
+  public StatementBinder statementBinder(
+      PreparedStatement statement,
+      PrimaryKeyMode pkMode,
+      SchemaPair schemaPair,
+      FieldsMetadata fieldsMetadata,
+      TableDefinition tableDefn,
+      InsertMode insertMode
   ) {
     return new PreparedStatementBinder(
         this,
@@ -1523,6 +1566,7 @@ public class GenericDatabaseDialect implements DatabaseDialect {
         pkMode,
         schemaPair,
         fieldsMetadata,
+        tableDefn,
         insertMode
     );
   }
@@ -1547,88 +1591,165 @@ public class GenericDatabaseDialect implements DatabaseDialect {
     }
   }
 
+  @Override
+  public ValueBinder valueBinder(Schema schema) {
+    return valueBinder(schema, null);
+  }
+
+  @Override
+  public ValueBinder valueBinder(Schema schema, ColumnDefinition column) {
+    ValueBinder binder = null;
+    if (!customBinding) {
+      binder = logicalBinder(schema, column);
+      if (binder == null) {
+        binder = primitiveBinder(schema);
+      }
+    }
+    if (binder == null) {
+      // Either a subclass decides how to bind values, or the type is not supported
+      return DatabaseDialect.super.valueBinder(schema);
+    }
+    final ValueBinder nonNullBinder = binder;
+    return (statement, index, value) -> {
+      if (value == null) {
+        statement.setObject(index, null);
+      } else {
+        nonNullBinder.bind(statement, index, value);
+      }
+    };
+  }
+
   protected boolean maybeBindPrimitive(
       PreparedStatement statement,
       int index,
       Schema schema,
       Object value
   ) throws SQLException {
+    final ValueBinder binder = primitiveBinder(schema);
+    if (binder == null) {
+      return false;
+    }
+    binder.bind(statement, index, value);
+    return true;
+  }
+
+  protected boolean maybeBindLogical(
+      PreparedStatement statement,
+      int index,
+      Schema schema,
+      Object value
+  ) throws SQLException {
+    final ValueBinder binder = logicalBinder(schema);
+    if (binder == null) {
+      return false;
+    }
+    binder.bind(statement, index, value);
+    return true;
+  }
+
+  private ValueBinder primitiveBinder(Schema schema) {
     switch (schema.type()) {
       case INT8:
-        statement.setByte(index, (Byte) value);
-        break;
+        return (statement, index, value) -> statement.setByte(index, (Byte) value);
       case INT16:
-        statement.setShort(index, (Short) value);
-        break;
+        return (statement, index, value) -> statement.setShort(index, (Short) value);
       case INT32:
-        statement.setInt(index, (Integer) value);
-        break;
+        return (statement, index, value) -> statement.setInt(index, (Integer) value);
       case INT64:
-        statement.setLong(index, (Long) value);
-        break;
+        return (statement, index, value) -> statement.setLong(index, (Long) value);
       case FLOAT32:
-        statement.setFloat(index, (Float) value);
-        break;
+        return (statement, index, value) -> statement.setFloat(index, (Float) value);
       case FLOAT64:
-        statement.setDouble(index, (Double) value);
-        break;
+        return (statement, index, value) -> statement.setDouble(index, (Double) value);
       case BOOLEAN:
-        statement.setBoolean(index, (Boolean) value);
-        break;
+        return (statement, index, value) -> statement.setBoolean(index, (Boolean) value);
       case STRING:
-        statement.setString(index, (String) value);
-        break;
+        return (statement, index, value) -> statement.setString(index, (String) value);
       case BYTES:
-        final byte[] bytes;
-        if (value instanceof ByteBuffer) {
-          final ByteBuffer buffer = ((ByteBuffer) value).slice();
-          bytes = new byte[buffer.remaining()];
-          buffer.get(bytes);
-        } else {
-          bytes = (byte[]) value;
-        }
-        statement.setBytes(index, bytes);
-        break;
+        return (statement, index, value) -> {
+          final byte[] bytes;
+          if (value instanceof ByteBuffer) {
+            final ByteBuffer buffer = ((ByteBuffer) value).slice();
+            bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+          } else {
+            bytes = (byte[]) value;
+          }
+          statement.setBytes(index, bytes);
+        };
       default:
-        return false;
+        return null;
     }
-    return true;
   }
 
-  protected boolean maybeBindLogical(
-      PreparedStatement statement,
-      int index,
-      Schema schema,
-      Object value
-  ) throws SQLException {
-    if (schema.name() != null) {
-      switch (schema.name()) {
-        case Date.LOGICAL_NAME:
-          statement.setDate(
-              index,
-              new java.sql.Date(((java.util.Date) value).getTime()),
-              DateTimeUtils.getTimeZoneCalendar(timeZone)
-          );
-          return true;
-        case Decimal.LOGICAL_NAME:
-          statement.setBigDecimal(index, (BigDecimal) value);
-          return true;
-        case Time.LOGICAL_NAME:
-          statement.setTime(
-              index,
-              new java.sql.Time(((java.util.Date) value).getTime()),
-              DateTimeUtils.getTimeZoneCalendar(timeZone)
-          );
-          return true;
-        case org.apache.kafka.connect.data.Timestamp.LOGICAL_NAME:
-          statement.setTimestamp(
-              index,
-              new java.sql.Timestamp(((java.util.Date) value).getTime()),
-              DateTimeUtils.getTimeZoneCalendar(timeZone)
-          );
-          return true;
-        default:
-          return false;
+  /**
+   * Return the function that binds values of the given logical schema. Subclasses may override
+   * this to bind logical types differently, which applies both to {@link #bindField} and to the
+   * binders returned by {@link #valueBinder}.
+   *
+   * @param schema the schema for the values; may not be null
+   * @return the value binder for non-null values, or null if the schema is not a logical type
+   */
+  protected ValueBinder logicalBinder(Schema schema) {
+    if (schema.name() == null) {
+      return null;
+    }
+    switch (schema.name()) {
+      case Date.LOGICAL_NAME:
+        return (statement, index, value) -> statement.setDate(
+            index,
+            new java.sql.Date(((java.util.Date) value).getTime()),
+            DateTimeUtils.getTimeZoneCalendar(timeZone)
+        );
+      case Decimal.LOGICAL_NAME:
+        return (statement, index, value) -> statement.setBigDecimal(index, (BigDecimal) value);
+      case Time.LOGICAL_NAME:
+        return (statement, index, value) -> statement.setTime(
+            index,
+            new java.sql.Time(((java.util.Date) value).getTime()),
+            DateTimeUtils.getTimeZoneCalendar(timeZone)
+        );
+      case org.apache.kafka.connect.data.Timestamp.LOGICAL_NAME:
+        return (statement, index, value) -> statement.setTimestamp(
+            index,
+            new java.sql.Timestamp(((java.util.Date) value).getTime()),
+            DateTimeUtils.getTimeZoneCalendar(timeZone)
+        );
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Return the function that binds values of the given logical schema at a variable of the given
+   * column. Subclasses may override this to bind logical types according to the type of the
+   * column, which applies only to the binders returned by {@link #valueBinder}.
+   *
+   * <p>By default this ignores the column and returns {@link #logicalBinder(Schema)}.
+   *
+   * @param schema the schema for the values; may not be null
+   * @param column the definition of the column; may be null if not known
+   * @return the value binder for non-null values, or null if the schema is not a logical type
+   */
+  protected ValueBinder logicalBinder(Schema schema, ColumnDefinition column) {
+    return logicalBinder(schema);
+  }
+
+  /**
+   * @return whether this dialect is a subclass that overrides how single fields are bound, in
+   *     which case {@link #valueBinder} must delegate every value to {@link #bindField}
+   */
+  private boolean overridesFieldBinding() {
+    for (Class<?> c = getClass(); c != GenericDatabaseDialect.class; c = c.getSuperclass()) {
+      for (Method method : c.getDeclaredMethods()) {
+        switch (method.getName()) {
+          case "bindField":
+          case "maybeBindPrimitive":
+          case "maybeBindLogical":
+            return true;
+          default:
+            break;
+        }
       }
     }
     return false;
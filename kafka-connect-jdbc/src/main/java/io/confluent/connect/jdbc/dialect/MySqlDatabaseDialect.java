@@ -129,6 +129,16 @@ public class MySqlDatabaseDialect extends GenericDatabaseDialect {
       TableId table,
       Collection<ColumnId> keyColumns,
       Collection<ColumnId> nonKeyColumns
+  ) {
+    return buildUpsertQueryStatement(table, keyColumns, nonKeyColumns, 1);
+  }
+
+  @Override
+  public String buildUpsertQueryStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      int rows
   ) {
     //MySql doesn't support SQL 2003:merge so here how the upsert is handled
     final Transform<ColumnId> transform = (builder, col) -> {
@@ -146,9 +156,9 @@ public class MySqlDatabaseDialect extends GenericDatabaseDialect {
            .delimitedBy(",")
            .transformedBy(ExpressionBuilder.columnNames())
            .of(keyColumns, nonKeyColumns);
-    builder.append(") values(");
-    builder.appendMultiple(",", "?", keyColumns.size() + nonKeyColumns.size());
-    builder.append(") on duplicate key update ");
+    builder.append(") values");
+    appendValueRows(builder, keyColumns.size() + nonKeyColumns.size(), rows);
+    builder.append(" on duplicate key update ");
     builder.appendList()
            .delimitedBy(",")
            .transformedBy(transform)
@@ -156,6 +166,15 @@ public class MySqlDatabaseDialect extends GenericDatabaseDialect {
     return builder.toString();
   }
 
+  /**
+   * The MySQL client/server protocol counts the parameters of a prepared statement with an
+   * unsigned 16-bit integer.
+   */
+  @Override
+  public int maxBindParameters() {
+    return 65535;
+  }
+
   @Override
   protected String sanitizedUrl(String url) {
     // MySQL can also have "username:password@" at the beginning of the host list and
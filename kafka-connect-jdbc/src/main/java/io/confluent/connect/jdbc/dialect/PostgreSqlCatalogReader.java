@@ -0,0 +1,202 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.dialect;
+
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.TypeInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import io.confluent.connect.jdbc.util.ColumnDefinition;
+import io.confluent.connect.jdbc.util.ColumnDefinition.Mutability;
+import io.confluent.connect.jdbc.util.ColumnDefinition.Nullability;
+import io.confluent.connect.jdbc.util.ColumnId;
+import io.confluent.connect.jdbc.util.TableDefinition;
+import io.confluent.connect.jdbc.util.TableId;
+import io.confluent.connect.jdbc.util.TableType;
+
+/**
+ * Reads the definitions of many PostgreSQL tables with a single query on the system catalogs,
+ * rather than the several {@link java.sql.DatabaseMetaData} calls per table of
+ * {@link GenericDatabaseDialect#describeTable}.
+ *
+ * <p>The columns are described as the PostgreSQL driver describes them in
+ * {@link java.sql.DatabaseMetaData#getColumns}: domains as their base type, with the JDBC type,
+ * precision and scale of the driver's type info. Tables without a schema are looked up on the
+ * search path.
+ */
+class PostgreSqlCatalogReader {
+
+  private static final Logger log = LoggerFactory.getLogger(PostgreSqlCatalogReader.class);
+
+  private static final String DESCRIBE_TABLES_QUERY =
+      "SELECT t.schema_name, t.table_name, n.nspname, c.relkind, a.attname, "
+      + "COALESCE(bt.oid, ty.oid) AS type_oid, "
+      + "CASE WHEN ty.typtype = 'd' THEN ty.typtypmod ELSE a.atttypmod END AS type_mod, "
+      + "COALESCE(bt.typname, ty.typname) AS type_name, "
+      + "COALESCE(bt.typtype, ty.typtype) AS type_type, "
+      + "a.attnotnull OR ty.typnotnull AS not_null, "
+      + "COALESCE(pg_catalog.pg_get_expr(d.adbin, d.adrelid) LIKE '%%nextval(%%', FALSE) "
+      + "AS auto_increment, "
+      + "EXISTS (SELECT 1 FROM pg_catalog.pg_index i WHERE i.indrelid = c.oid "
+      + "AND i.indisprimary AND a.attnum = ANY (i.indkey)) AS primary_key "
+      + "FROM unnest(?::text[], ?::text[]) AS t(schema_name, table_name) "
+      + "JOIN pg_catalog.pg_class c ON c.relname = t.table_name "
+      + "JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace "
+      + "JOIN pg_catalog.pg_attribute a ON a.attrelid = c.oid "
+      + "JOIN pg_catalog.pg_type ty ON ty.oid = a.atttypid "
+      + "LEFT JOIN pg_catalog.pg_type bt ON ty.typtype = 'd' AND bt.oid = ty.typbasetype "
+      + "LEFT JOIN pg_catalog.pg_attrdef d ON d.adrelid = c.oid AND d.adnum = a.attnum "
+      + "WHERE c.relkind IN (%s) "
+      + "AND (n.nspname = t.schema_name "
+      + "OR t.schema_name IS NULL AND pg_catalog.pg_table_is_visible(c.oid)) "
+      + "AND a.attnum > 0 AND NOT a.attisdropped "
+      + "ORDER BY t.schema_name, t.table_name, a.attnum";
+
+  private final GenericDatabaseDialect dialect;
+
+  PostgreSqlCatalogReader(GenericDatabaseDialect dialect) {
+    this.dialect = dialect;
+  }
+
+  /**
+   * @return the definitions of the tables that exist, keyed by the given identifiers
+   * @throws SQLException if the catalogs could not be queried
+   */
+  Map<TableId, TableDefinition> describeTables(
+      Connection connection,
+      Collection<TableId> tableIds
+  ) throws SQLException {
+    // The catalog of a table is its database, which is always the one connected to
+    final Map<TableId, TableId> requested = new HashMap<>();
+    final String[] schemaNames = new String[tableIds.size()];
+    final String[] tableNames = new String[tableIds.size()];
+    int i = 0;
+    for (TableId tableId : tableIds) {
+      requested.put(new TableId(null, tableId.schemaName(), tableId.tableName()), tableId);
+      schemaNames[i] = tableId.schemaName();
+      tableNames[i] = tableId.tableName();
+      i++;
+    }
+    log.info("Describing {} tables with the {} dialect", tableIds.size(), dialect);
+
+    final TypeInfo typeInfo = connection.unwrap(BaseConnection.class).getTypeInfo();
+    final Map<TableId, List<ColumnDefinition>> columns = new LinkedHashMap<>();
+    final Map<TableId, TableType> types = new HashMap<>();
+    final Array schemas = connection.createArrayOf("text", schemaNames);
+    final Array tables = connection.createArrayOf("text", tableNames);
+    try (PreparedStatement statement = connection.prepareStatement(
+        String.format(DESCRIBE_TABLES_QUERY, relationKinds()))) {
+      statement.setArray(1, schemas);
+      statement.setArray(2, tables);
+      try (ResultSet rs = statement.executeQuery()) {
+        while (rs.next()) {
+          final TableId tableId =
+              requested.get(new TableId(null, rs.getString(1), rs.getString(2)));
+          final TableId actualId = new TableId(null, rs.getString(3), tableId.tableName());
+          types.put(tableId, "v".equals(rs.getString(4)) ? TableType.VIEW : TableType.TABLE);
+          columns.computeIfAbsent(tableId, t -> new ArrayList<>())
+              .add(columnDefinition(rs, typeInfo, actualId));
+        }
+      }
+    } finally {
+      schemas.free();
+      tables.free();
+    }
+
+    final Map<TableId, TableDefinition> definitions = new HashMap<>();
+    for (Map.Entry<TableId, List<ColumnDefinition>> entry : columns.entrySet()) {
+      definitions.put(
+          entry.getKey(),
+          new TableDefinition(entry.getKey(), entry.getValue(), types.get(entry.getKey()))
+      );
+    }
+    return definitions;
+  }
+
+  private ColumnDefinition columnDefinition(
+      ResultSet rs,
+      TypeInfo typeInfo,
+      TableId tableId
+  ) throws SQLException {
+    final ColumnId columnId = new ColumnId(tableId, rs.getString(5));
+    final int typeOid = (int) rs.getLong(6);
+    final int typeMod = rs.getInt(7);
+    final String typeType = rs.getString(9);
+    final int jdbcType;
+    if ("c".equals(typeType)) {
+      jdbcType = Types.STRUCT;
+    } else if ("e".equals(typeType)) {
+      jdbcType = Types.VARCHAR;
+    } else {
+      jdbcType = typeInfo.getSQLType(typeOid);
+    }
+    int precision = typeInfo.getPrecision(typeOid, typeMod);
+    if (precision == 0) {
+      precision = typeInfo.getDisplaySize(typeOid, typeMod);
+    }
+    final boolean primaryKey = rs.getBoolean(12);
+    return dialect.columnDefinition(
+        rs,
+        columnId,
+        jdbcType,
+        rs.getString(8),
+        null,
+        rs.getBoolean(10) || primaryKey ? Nullability.NOT_NULL : Nullability.NULL,
+        Mutability.UNKNOWN,
+        precision,
+        typeInfo.getScale(typeOid, typeMod),
+        null,
+        null,
+        rs.getBoolean(11),
+        null,
+        null,
+        null,
+        primaryKey
+    );
+  }
+
+  /**
+   * @return the {@code pg_class.relkind} values of the configured table types
+   */
+  private String relationKinds() {
+    final Set<String> tableTypes = dialect.tableTypes;
+    final StringJoiner kinds = new StringJoiner(", ");
+    if (tableTypes.contains(TableType.TABLE.jdbcName())) {
+      // Ordinary and partitioned tables
+      kinds.add("'r'").add("'p'");
+    }
+    if (tableTypes.contains(TableType.VIEW.jdbcName())) {
+      kinds.add("'v'");
+    }
+    return kinds.length() == 0 ? "NULL" : kinds.toString();
+  }
+}
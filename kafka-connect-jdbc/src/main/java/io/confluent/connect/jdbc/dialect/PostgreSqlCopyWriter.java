@@ -0,0 +1,591 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.dialect;
+
+import org.apache.kafka.connect.data.Date;
+import org.apache.kafka.connect.data.Decimal;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Time;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.function.Function;
+
+import io.confluent.connect.jdbc.dialect.DatabaseDialect.BulkWriter;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.CopyFormat;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.PrimaryKeyMode;
+import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
+import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
+import io.confluent.connect.jdbc.util.ColumnDefinition;
+import io.confluent.connect.jdbc.util.ColumnId;
+import io.confluent.connect.jdbc.util.DateTimeUtils;
+import io.confluent.connect.jdbc.util.TableDefinition;
+import io.confluent.connect.jdbc.util.TableId;
+
+/**
+ * A {@link BulkWriter} that streams batches of records into a PostgreSQL table using
+ * {@code COPY ... FROM STDIN}, in either the text or the binary format.
+ *
+ * <p>Values are extracted in the same column order and with the same time zone semantics as the
+ * {@link io.confluent.connect.jdbc.sink.PreparedStatementBinder}, so that the rows written are
+ * identical to those written with batched INSERT statements.
+ */
+public class PostgreSqlCopyWriter implements BulkWriter {
+
+  private static final Logger log = LoggerFactory.getLogger(PostgreSqlCopyWriter.class);
+
+  private static final int BUFFER_SIZE = 65536;
+  private static final long MILLIS_PER_DAY = 86400000L;
+  // Milliseconds between the Unix epoch and the PostgreSQL epoch of 2000-01-01T00:00:00Z
+  private static final long POSTGRES_EPOCH_MILLIS = 946684800000L;
+  private static final long POSTGRES_EPOCH_DAYS = POSTGRES_EPOCH_MILLIS / MILLIS_PER_DAY;
+  private static final byte[] BINARY_SIGNATURE = {
+      'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0
+  };
+  private static final short NUMERIC_POSITIVE = 0x0000;
+  private static final short NUMERIC_NEGATIVE = 0x4000;
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private final TableId tableId;
+  private final CopyManager copyManager;
+  private final TimeZone timeZone;
+  private final CopyFormat format;
+  private final String copySql;
+  private final List<Column> columns;
+  private final StringBuilder textRow = new StringBuilder();
+
+  public PostgreSqlCopyWriter(
+      PostgreSqlDatabaseDialect dialect,
+      Connection connection,
+      TableDefinition tableDefn,
+      PrimaryKeyMode pkMode,
+      SchemaPair schemaPair,
+      FieldsMetadata fieldsMetadata,
+      CopyFormat format,
+      TimeZone timeZone
+  ) throws SQLException {
+    this(
+        dialect,
+        connection,
+        tableDefn,
+        tableDefn.id(),
+        pkMode,
+        schemaPair,
+        fieldsMetadata,
+        format,
+        timeZone
+    );
+  }
+
+  /**
+   * Create a writer that copies into a table with the same column types as the given table
+   * definition, such as a staging table created from it.
+   */
+  PostgreSqlCopyWriter(
+      PostgreSqlDatabaseDialect dialect,
+      Connection connection,
+      TableDefinition tableDefn,
+      TableId tableId,
+      PrimaryKeyMode pkMode,
+      SchemaPair schemaPair,
+      FieldsMetadata fieldsMetadata,
+      CopyFormat format,
+      TimeZone timeZone
+  ) throws SQLException {
+    this.tableId = tableId;
+    this.copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+    this.timeZone = timeZone;
+    this.columns = columns(tableDefn, pkMode, schemaPair, fieldsMetadata);
+    this.format = format == CopyFormat.BINARY && !supportsBinary() ? CopyFormat.TEXT : format;
+
+    final List<ColumnId> columnIds = new ArrayList<>(columns.size());
+    for (Column column : columns) {
+      columnIds.add(new ColumnId(tableId, column.name));
+    }
+    this.copySql = dialect.buildCopyStatement(tableId, columnIds, this.format);
+    log.debug("Writing batches to {} with: {}", tableId, copySql);
+  }
+
+  @Override
+  public long write(Collection<SinkRecord> records) throws SQLException {
+    final CopyIn copyIn = copyManager.copyIn(copySql);
+    try {
+      final PGCopyOutputStream stream = new PGCopyOutputStream(copyIn, BUFFER_SIZE);
+      final DataOutputStream out = new DataOutputStream(stream);
+      if (format == CopyFormat.BINARY) {
+        out.write(BINARY_SIGNATURE);
+        out.writeInt(0);
+        out.writeInt(0);
+        for (SinkRecord record : records) {
+          writeBinaryRow(out, record);
+        }
+        out.writeShort(-1);
+      } else {
+        for (SinkRecord record : records) {
+          writeTextRow(out, record);
+        }
+      }
+      out.flush();
+      return stream.endCopy();
+    } catch (IOException e) {
+      throw new SQLException("Failed to stream COPY data to " + tableId, e);
+    } finally {
+      if (copyIn.isActive()) {
+        try {
+          copyIn.cancelCopy();
+        } catch (SQLException e) {
+          log.warn("Ignoring error cancelling COPY to {}", tableId, e);
+        }
+      }
+    }
+  }
+
+  private void writeTextRow(DataOutputStream out, SinkRecord record) throws IOException {
+    textRow.setLength(0);
+    for (int i = 0; i < columns.size(); i++) {
+      if (i > 0) {
+        textRow.append('\t');
+      }
+      final Column column = columns.get(i);
+      appendText(column.schema, column.extractor.apply(record));
+    }
+    textRow.append('\n');
+    out.write(textRow.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void writeBinaryRow(DataOutputStream out, SinkRecord record) throws IOException {
+    out.writeShort(columns.size());
+    for (Column column : columns) {
+      final Object value = column.extractor.apply(record);
+      if (value == null) {
+        out.writeInt(-1);
+      } else {
+        try {
+          column.encoder.encode(out, value);
+        } catch (ClassCastException e) {
+          throw new DataException(String.format(
+              "Cannot write value of type %s to column %s of type %s",
+              value.getClass().getName(),
+              column.name,
+              column.typeName
+          ), e);
+        }
+      }
+    }
+  }
+
+  private void appendText(Schema schema, Object value) {
+    if (value == null) {
+      textRow.append("\\N");
+      return;
+    }
+    if (schema.name() != null) {
+      switch (schema.name()) {
+        case Decimal.LOGICAL_NAME:
+          textRow.append(((BigDecimal) value).toPlainString());
+          return;
+        case Date.LOGICAL_NAME:
+          textRow.append(DateTimeUtils.formatDate((java.util.Date) value, timeZone));
+          return;
+        case Time.LOGICAL_NAME:
+          textRow.append(DateTimeUtils.formatTime((java.util.Date) value, timeZone));
+          return;
+        case Timestamp.LOGICAL_NAME:
+          // The offset is ignored by TIMESTAMP columns, which then get the local time in the
+          // configured time zone, and honoured by TIMESTAMPTZ columns
+          textRow.append(DateTimeUtils.formatTimestamptz((java.util.Date) value, timeZone));
+          return;
+        default:
+          // fall through to the primitive types
+      }
+    }
+    switch (schema.type()) {
+      case INT8:
+      case INT16:
+      case INT32:
+      case INT64:
+      case FLOAT32:
+      case FLOAT64:
+        textRow.append(value);
+        break;
+      case BOOLEAN:
+        textRow.append((Boolean) value ? 't' : 'f');
+        break;
+      case STRING:
+        appendEscaped((String) value);
+        break;
+      case BYTES:
+        // The bytea hex format, with the leading backslash escaped for COPY
+        textRow.append("\\\\x");
+        for (byte b : bytes(value)) {
+          textRow.append(HEX_DIGITS[(b >> 4) & 0xf]).append(HEX_DIGITS[b & 0xf]);
+        }
+        break;
+      default:
+        throw new ConnectException("Unsupported source data type: " + schema.type());
+    }
+  }
+
+  private void appendEscaped(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      switch (c) {
+        case '\\':
+          textRow.append("\\\\");
+          break;
+        case '\n':
+          textRow.append("\\n");
+          break;
+        case '\r':
+          textRow.append("\\r");
+          break;
+        case '\t':
+          textRow.append("\\t");
+          break;
+        default:
+          textRow.append(c);
+      }
+    }
+  }
+
+  private boolean supportsBinary() {
+    for (Column column : columns) {
+      if (column.encoder == null) {
+        log.warn(
+            "Field {} of type {} cannot be written to column {} of type {} in the binary COPY "
+            + "format, using the text format instead",
+            column.name,
+            column.schema.name() != null ? column.schema.name() : column.schema.type(),
+            tableId,
+            column.typeName
+        );
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Whether values of the given schema can be written in the binary format of the column type.
+   * Unlike INSERT and text COPY, binary COPY does not cast values on the server, so this is only
+   * the case for the column type that the schema maps to.
+   */
+  static boolean supportsBinary(Schema schema, String typeName) {
+    if (typeName == null) {
+      return false;
+    }
+    final String type = typeName.toLowerCase(Locale.ROOT);
+    if (schema.name() != null) {
+      switch (schema.name()) {
+        case Decimal.LOGICAL_NAME:
+          return type.equals("numeric");
+        case Date.LOGICAL_NAME:
+          return type.equals("date");
+        case Time.LOGICAL_NAME:
+          return type.equals("time");
+        case Timestamp.LOGICAL_NAME:
+          return type.equals("timestamp") || type.equals("timestamptz");
+        default:
+          // fall through to the primitive types
+      }
+    }
+    switch (schema.type()) {
+      case BOOLEAN:
+        return type.equals("bool");
+      case INT8:
+      case INT16:
+        return type.equals("int2");
+      case INT32:
+        return type.equals("int4");
+      case INT64:
+        return type.equals("int8");
+      case FLOAT32:
+        return type.equals("float4");
+      case FLOAT64:
+        return type.equals("float8");
+      case STRING:
+        return type.equals("text") || type.equals("varchar") || type.equals("bpchar")
+               || type.equals("json") || type.equals("jsonb");
+      case BYTES:
+        return type.equals("bytea");
+      default:
+        return false;
+    }
+  }
+
+  private List<Column> columns(
+      TableDefinition tableDefn,
+      PrimaryKeyMode pkMode,
+      SchemaPair schemaPair,
+      FieldsMetadata fieldsMetadata
+  ) {
+    final List<Column> result = new ArrayList<>(fieldsMetadata.allFields.size());
+    final List<String> keyFieldNames = new ArrayList<>(fieldsMetadata.keyFieldNames);
+    switch (pkMode) {
+      case NONE:
+        break;
+
+      case KAFKA:
+        assert keyFieldNames.size() == 3;
+        result.add(new Column(tableDefn, keyFieldNames.get(0), Schema.STRING_SCHEMA,
+            SinkRecord::topic));
+        result.add(new Column(tableDefn, keyFieldNames.get(1), Schema.INT32_SCHEMA,
+            SinkRecord::kafkaPartition));
+        result.add(new Column(tableDefn, keyFieldNames.get(2), Schema.INT64_SCHEMA,
+            SinkRecord::kafkaOffset));
+        break;
+
+      case RECORD_KEY:
+        if (schemaPair.keySchema.type().isPrimitive()) {
+          assert keyFieldNames.size() == 1;
+          result.add(new Column(tableDefn, keyFieldNames.get(0), schemaPair.keySchema,
+              SinkRecord::key));
+        } else {
+          for (String fieldName : keyFieldNames) {
+            final Field field = schemaPair.keySchema.field(fieldName);
+            result.add(new Column(tableDefn, fieldName, field.schema(),
+                record -> ((Struct) record.key()).get(field)));
+          }
+        }
+        break;
+
+      case RECORD_VALUE:
+        for (String fieldName : keyFieldNames) {
+          final Field field = schemaPair.valueSchema.field(fieldName);
+          result.add(new Column(tableDefn, fieldName, field.schema(),
+              record -> ((Struct) record.value()).get(field)));
+        }
+        break;
+
+      default:
+        throw new ConnectException("Unknown primary key mode: " + pkMode);
+    }
+    for (String fieldName : fieldsMetadata.nonKeyFieldNames) {
+      final Field field = schemaPair.valueSchema.field(fieldName);
+      result.add(new Column(tableDefn, fieldName, field.schema(),
+          record -> ((Struct) record.value()).get(field)));
+    }
+    return result;
+  }
+
+  private ColumnEncoder binaryEncoder(String typeName) {
+    if (typeName == null) {
+      return null;
+    }
+    switch (typeName.toLowerCase(Locale.ROOT)) {
+      case "bool":
+        return (out, value) -> {
+          out.writeInt(1);
+          out.writeByte((Boolean) value ? 1 : 0);
+        };
+      case "int2":
+        return (out, value) -> {
+          out.writeInt(2);
+          out.writeShort(((Number) value).shortValue());
+        };
+      case "int4":
+        return (out, value) -> {
+          out.writeInt(4);
+          out.writeInt((Integer) value);
+        };
+      case "int8":
+        return (out, value) -> {
+          out.writeInt(8);
+          out.writeLong((Long) value);
+        };
+      case "float4":
+        return (out, value) -> {
+          out.writeInt(4);
+          out.writeFloat((Float) value);
+        };
+      case "float8":
+        return (out, value) -> {
+          out.writeInt(8);
+          out.writeDouble((Double) value);
+        };
+      case "numeric":
+        return (out, value) -> writeNumeric(out, (BigDecimal) value);
+      case "text":
+      case "varchar":
+      case "bpchar":
+      case "json":
+        return (out, value) -> {
+          final byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+          out.writeInt(bytes.length);
+          out.write(bytes);
+        };
+      case "jsonb":
+        return (out, value) -> {
+          final byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+          out.writeInt(bytes.length + 1);
+          out.writeByte(1);
+          out.write(bytes);
+        };
+      case "bytea":
+        return (out, value) -> {
+          final byte[] bytes = bytes(value);
+          out.writeInt(bytes.length);
+          out.write(bytes);
+        };
+      case "date":
+        return (out, value) -> {
+          out.writeInt(4);
+          out.writeInt((int) (Math.floorDiv(localMillis(value), MILLIS_PER_DAY)
+                              - POSTGRES_EPOCH_DAYS));
+        };
+      case "time":
+        return (out, value) -> {
+          out.writeInt(8);
+          out.writeLong(Math.floorMod(localMillis(value), MILLIS_PER_DAY) * 1000L);
+        };
+      case "timestamp":
+        return (out, value) -> {
+          out.writeInt(8);
+          out.writeLong((localMillis(value) - POSTGRES_EPOCH_MILLIS) * 1000L);
+        };
+      case "timestamptz":
+        return (out, value) -> {
+          out.writeInt(8);
+          out.writeLong((((java.util.Date) value).getTime() - POSTGRES_EPOCH_MILLIS) * 1000L);
+        };
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Get the wall-clock time of the given date in the configured time zone, matching how the JDBC
+   * driver binds dates, times and timestamps with a time zone calendar.
+   */
+  private long localMillis(Object value) {
+    final long millis = ((java.util.Date) value).getTime();
+    return millis + timeZone.getOffset(millis);
+  }
+
+  private static byte[] bytes(Object value) {
+    if (value instanceof ByteBuffer) {
+      final ByteBuffer buffer = ((ByteBuffer) value).slice();
+      final byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      return bytes;
+    }
+    return (byte[]) value;
+  }
+
+  /**
+   * Write a decimal in the binary format of the PostgreSQL NUMERIC type, which stores the
+   * absolute value as base-10000 digits with the weight of the first digit, the sign and the
+   * display scale.
+   */
+  static void writeNumeric(DataOutputStream out, BigDecimal value) throws IOException {
+    final BigDecimal abs = value.abs();
+    final String plain = abs.toPlainString();
+    final int point = plain.indexOf('.');
+    String integerPart = point < 0 ? plain : plain.substring(0, point);
+    String fractionPart = point < 0 ? "" : plain.substring(point + 1);
+    if (integerPart.equals("0")) {
+      integerPart = "";
+    }
+    integerPart = repeat('0', (4 - integerPart.length() % 4) % 4) + integerPart;
+    fractionPart = fractionPart + repeat('0', (4 - fractionPart.length() % 4) % 4);
+
+    final String digitString = integerPart + fractionPart;
+    final List<Short> digits = new ArrayList<>(digitString.length() / 4);
+    for (int i = 0; i < digitString.length(); i += 4) {
+      digits.add(Short.valueOf(digitString.substring(i, i + 4)));
+    }
+    int weight = integerPart.length() / 4 - 1;
+    while (!digits.isEmpty() && digits.get(0) == 0) {
+      digits.remove(0);
+      weight--;
+    }
+    while (!digits.isEmpty() && digits.get(digits.size() - 1) == 0) {
+      digits.remove(digits.size() - 1);
+    }
+    if (digits.isEmpty()) {
+      weight = 0;
+    }
+
+    out.writeInt(8 + 2 * digits.size());
+    out.writeShort(digits.size());
+    out.writeShort(weight);
+    out.writeShort(value.signum() < 0 ? NUMERIC_NEGATIVE : NUMERIC_POSITIVE);
+    out.writeShort(Math.max(abs.scale(), 0));
+    for (short digit : digits) {
+      out.writeShort(digit);
+    }
+  }
+
+  private static String repeat(char c, int count) {
+    final StringBuilder builder = new StringBuilder(count);
+    for (int i = 0; i < count; i++) {
+      builder.append(c);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * A function that writes a non-null value as a length-prefixed field in the binary format.
+   */
+  @FunctionalInterface
+  private interface ColumnEncoder {
+    void encode(DataOutputStream out, Object value) throws IOException;
+  }
+
+  private final class Column {
+    private final String name;
+    private final String typeName;
+    private final Schema schema;
+    private final Function<SinkRecord, Object> extractor;
+    private final ColumnEncoder encoder;
+
+    private Column(
+        TableDefinition tableDefn,
+        String name,
+        Schema schema,
+        Function<SinkRecord, Object> extractor
+    ) {
+      final ColumnDefinition columnDefn = tableDefn.definitionForColumn(name);
+      this.name = name;
+      this.typeName = columnDefn != null ? columnDefn.typeName() : null;
+      this.schema = schema;
+      this.extractor = extractor;
+      this.encoder = supportsBinary(schema, typeName) ? binaryEncoder(typeName) : null;
+    }
+  }
+}
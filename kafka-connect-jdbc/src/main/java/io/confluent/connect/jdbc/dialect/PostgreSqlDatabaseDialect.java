@@ -24,15 +24,28 @@ import org.apache.kafka.connect.data.Schema.Type;
 import org.apache.kafka.connect.data.SchemaBuilder;
 import org.apache.kafka.connect.data.Time;
 import org.apache.kafka.connect.data.Timestamp;
+import org.postgresql.core.BaseConnection;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialectProvider.SubprotocolBasedProvider;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.CopyFormat;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.InsertMode;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.PrimaryKeyMode;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.UpsertStrategy;
+import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
+import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
 import io.confluent.connect.jdbc.sink.metadata.SinkRecordField;
 import io.confluent.connect.jdbc.source.ColumnMapping;
 import io.confluent.connect.jdbc.util.ColumnDefinition;
@@ -40,7 +53,9 @@ import io.confluent.connect.jdbc.util.ColumnId;
 import io.confluent.connect.jdbc.util.ExpressionBuilder;
 import io.confluent.connect.jdbc.util.ExpressionBuilder.Transform;
 import io.confluent.connect.jdbc.util.IdentifierRules;
+import io.confluent.connect.jdbc.util.TableDefinition;
 import io.confluent.connect.jdbc.util.TableId;
+import io.confluent.connect.jdbc.util.TableType;
 
 /**
  * A {@link DatabaseDialect} for PostgreSQL.
@@ -64,6 +79,18 @@ public class PostgreSqlDatabaseDialect extends GenericDatabaseDialect {
   static final String JSON_TYPE_NAME = "json";
   static final String JSONB_TYPE_NAME = "jsonb";
 
+  static final String STAGING_SEQUENCE_COLUMN = "__connect_seq";
+
+  /**
+   * The first key of the advisory locks taken for DDL statements, which separates them from the
+   * locks of other applications that use the single key form.
+   */
+  static final int DDL_LOCK_CLASS = 0x4a444243;
+  static final String DDL_LOCK_STATEMENT = "SELECT pg_advisory_xact_lock(?, ?)";
+
+  private final CopyFormat copyFormat;
+  private final UpsertStrategy upsertStrategy;
+
   /**
    * Create a new dialect instance with the given connector configuration.
    *
@@ -71,6 +98,13 @@ public class PostgreSqlDatabaseDialect extends GenericDatabaseDialect {
    */
   public PostgreSqlDatabaseDialect(AbstractConfig config) {
     super(config, new IdentifierRules(".", "\"", "\""));
+    if (config instanceof JdbcSinkConfig) {
+      copyFormat = ((JdbcSinkConfig) config).copyFormat;
+      upsertStrategy = ((JdbcSinkConfig) config).upsertStrategy;
+    } else {
+      copyFormat = CopyFormat.NONE;
+      upsertStrategy = UpsertStrategy.STATEMENT;
+    }
   }
 
   /**
@@ -228,12 +262,16 @@ public class PostgreSqlDatabaseDialect extends GenericDatabaseDialect {
       Collection<ColumnId> keyColumns,
       Collection<ColumnId> nonKeyColumns
   ) {
-    final Transform<ColumnId> transform = (builder, col) -> {
-      builder.appendColumnName(col.name())
-             .append("=EXCLUDED.")
-             .appendColumnName(col.name());
-    };
+    return buildUpsertQueryStatement(table, keyColumns, nonKeyColumns, 1);
+  }
 
+  @Override
+  public String buildUpsertQueryStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      int rows
+  ) {
     ExpressionBuilder builder = expressionBuilder();
     builder.append("INSERT INTO ");
     builder.append(table);
@@ -242,9 +280,169 @@ public class PostgreSqlDatabaseDialect extends GenericDatabaseDialect {
            .delimitedBy(",")
            .transformedBy(ExpressionBuilder.columnNames())
            .of(keyColumns, nonKeyColumns);
-    builder.append(") VALUES (");
-    builder.appendMultiple(",", "?", keyColumns.size() + nonKeyColumns.size());
-    builder.append(") ON CONFLICT (");
+    builder.append(") VALUES ");
+    appendValueRows(builder, keyColumns.size() + nonKeyColumns.size(), rows);
+    appendOnConflict(builder, keyColumns, nonKeyColumns);
+    return builder.toString();
+  }
+
+  /**
+   * PostgreSQL limits the number of parameters in a statement to the range of a 16-bit integer.
+   */
+  @Override
+  public int maxBindParameters() {
+    return Short.MAX_VALUE;
+  }
+
+  /**
+   * Describe all tables with a single query on the system catalogs, unless the connection is not
+   * one of the PostgreSQL driver.
+   */
+  @Override
+  public Map<TableId, TableDefinition> describeTables(
+      Connection connection,
+      Collection<TableId> tableIds
+  ) throws SQLException {
+    if (tableIds.isEmpty() || !connection.isWrapperFor(BaseConnection.class)) {
+      return super.describeTables(connection, tableIds);
+    }
+    return new PostgreSqlCatalogReader(this).describeTables(connection, tableIds);
+  }
+
+  /**
+   * Take a transaction-level advisory lock on the schema of the table, or on the table itself if
+   * it has no schema. All tables of a schema share the lock, since creating any of them may also
+   * create the schema.
+   */
+  @Override
+  public boolean lockForDdl(Connection connection, TableId tableId) throws SQLException {
+    return lockForDdl(connection, Collections.singleton(tableId));
+  }
+
+  /**
+   * Take the advisory locks of the schemas of the tables in the order of their keys.
+   */
+  @Override
+  public boolean lockForDdl(
+      Connection connection,
+      Collection<TableId> tableIds
+  ) throws SQLException {
+    final SortedSet<Integer> keys = new TreeSet<>();
+    for (TableId tableId : tableIds) {
+      keys.add(ddlLockKey(tableId));
+    }
+    try (PreparedStatement statement = connection.prepareStatement(DDL_LOCK_STATEMENT)) {
+      for (int key : keys) {
+        statement.setInt(1, DDL_LOCK_CLASS);
+        statement.setInt(2, key);
+        statement.execute();
+      }
+    }
+    return !keys.isEmpty();
+  }
+
+  private static int ddlLockKey(TableId tableId) {
+    final String name = tableId.schemaName() != null ? tableId.schemaName() : tableId.tableName();
+    return name.hashCode();
+  }
+
+  /**
+   * Build the statements that create a temporary staging table with the given columns of the
+   * destination table, plus a sequence column recording the order in which rows were copied.
+   *
+   * @param stagingTable the identifier of the staging table; may not be null
+   * @param table        the identifier of the destination table; may not be null
+   * @param columns      the columns to copy from the destination table; may not be null
+   * @return the DDL statements; never null
+   */
+  public List<String> buildCreateStagingTableStatements(
+      TableId stagingTable,
+      TableId table,
+      Collection<ColumnId> columns
+  ) {
+    ExpressionBuilder create = expressionBuilder();
+    create.append("CREATE TEMPORARY TABLE ");
+    create.append(stagingTable);
+    create.append(" AS SELECT ");
+    create.appendList()
+          .delimitedBy(",")
+          .transformedBy(ExpressionBuilder.columnNames())
+          .of(columns);
+    create.append(" FROM ");
+    create.append(table);
+    create.append(" WITH NO DATA");
+
+    ExpressionBuilder alter = expressionBuilder();
+    alter.append("ALTER TABLE ");
+    alter.append(stagingTable);
+    alter.append(" ADD COLUMN ");
+    alter.appendColumnName(STAGING_SEQUENCE_COLUMN);
+    alter.append(" BIGSERIAL");
+    return Arrays.asList(create.toString(), alter.toString());
+  }
+
+  /**
+   * Build the statement that upserts the rows of a staging table into the destination table,
+   * keeping only the row that was copied last for each key.
+   *
+   * @param table         the identifier of the destination table; may not be null
+   * @param stagingTable  the identifier of the staging table; may not be null
+   * @param keyColumns    the identifiers of the columns in the primary/unique key; may not be
+   *                      null or empty
+   * @param nonKeyColumns the identifiers of the other columns in the table; may not be null but
+   *                      may be empty
+   * @return the merge statement; never null
+   */
+  public String buildMergeFromStagingStatement(
+      TableId table,
+      TableId stagingTable,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns
+  ) {
+    ExpressionBuilder builder = expressionBuilder();
+    builder.append("INSERT INTO ");
+    builder.append(table);
+    builder.append(" (");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns, nonKeyColumns);
+    builder.append(") SELECT DISTINCT ON (");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns);
+    builder.append(") ");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns, nonKeyColumns);
+    builder.append(" FROM ");
+    builder.append(stagingTable);
+    builder.append(" ORDER BY ");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns);
+    builder.append(",");
+    builder.appendColumnName(STAGING_SEQUENCE_COLUMN);
+    builder.append(" DESC");
+    appendOnConflict(builder, keyColumns, nonKeyColumns);
+    return builder.toString();
+  }
+
+  private void appendOnConflict(
+      ExpressionBuilder builder,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns
+  ) {
+    final Transform<ColumnId> transform = (b, col) -> {
+      b.appendColumnName(col.name())
+       .append("=EXCLUDED.")
+       .appendColumnName(col.name());
+    };
+
+    builder.append(" ON CONFLICT (");
     builder.appendList()
            .delimitedBy(",")
            .transformedBy(ExpressionBuilder.columnNames())
@@ -258,6 +456,79 @@ public class PostgreSqlDatabaseDialect extends GenericDatabaseDialect {
               .transformedBy(transform)
               .of(nonKeyColumns);
     }
+  }
+
+  /**
+   * Create a {@link PostgreSqlCopyWriter} that writes batches with {@code COPY ... FROM STDIN}
+   * when the connector is configured with a COPY format and the insert mode is
+   * {@link InsertMode#INSERT}, or a {@link PostgreSqlStagingUpsertWriter} when the insert mode is
+   * {@link InsertMode#UPSERT} with the staging strategy. Views cannot be the target of a COPY, so
+   * these are always written with individual statements.
+   */
+  @Override
+  public BulkWriter bulkWriter(
+      Connection connection,
+      TableDefinition tableDefn,
+      PrimaryKeyMode pkMode,
+      SchemaPair schemaPair,
+      FieldsMetadata fieldsMetadata,
+      InsertMode insertMode
+  ) throws SQLException {
+    if (tableDefn.type() != TableType.TABLE) {
+      return null;
+    }
+    if (insertMode == InsertMode.INSERT && copyFormat != CopyFormat.NONE) {
+      return new PostgreSqlCopyWriter(
+          this,
+          connection,
+          tableDefn,
+          pkMode,
+          schemaPair,
+          fieldsMetadata,
+          copyFormat,
+          timeZone()
+      );
+    }
+    if (insertMode == InsertMode.UPSERT && upsertStrategy == UpsertStrategy.STAGING) {
+      return new PostgreSqlStagingUpsertWriter(
+          this,
+          connection,
+          tableDefn,
+          pkMode,
+          schemaPair,
+          fieldsMetadata,
+          copyFormat == CopyFormat.NONE ? CopyFormat.BINARY : copyFormat,
+          timeZone()
+      );
+    }
+    return null;
+  }
+
+  /**
+   * Build the {@code COPY ... FROM STDIN} statement for the given table and columns.
+   *
+   * @param table   the identifier of the table; may not be null
+   * @param columns the identifiers of the columns, in the order they are written; may not be null
+   * @param format  the format of the data; may not be null or {@link CopyFormat#NONE}
+   * @return the COPY statement; never null
+   */
+  public String buildCopyStatement(
+      TableId table,
+      Collection<ColumnId> columns,
+      CopyFormat format
+  ) {
+    ExpressionBuilder builder = expressionBuilder();
+    builder.append("COPY ");
+    builder.append(table);
+    builder.append(" (");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(columns);
+    builder.append(") FROM STDIN");
+    if (format == CopyFormat.BINARY) {
+      builder.append(" WITH (FORMAT binary)");
+    }
     return builder.toString();
   }
 
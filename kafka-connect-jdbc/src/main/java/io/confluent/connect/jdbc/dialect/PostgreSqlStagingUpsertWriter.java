@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.dialect;
+
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.confluent.connect.jdbc.dialect.DatabaseDialect.BulkWriter;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.CopyFormat;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.PrimaryKeyMode;
+import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
+import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
+import io.confluent.connect.jdbc.util.ColumnId;
+import io.confluent.connect.jdbc.util.TableDefinition;
+import io.confluent.connect.jdbc.util.TableId;
+
+/**
+ * A {@link BulkWriter} that upserts batches of records into a PostgreSQL table by copying them
+ * into a temporary staging table, and then merging the staging table into the destination table
+ * with a single {@code INSERT ... SELECT ... ON CONFLICT} statement.
+ *
+ * <p>The staging table mirrors the written columns of the destination table and lives as long as
+ * this writer, which is kept per destination table until the record schema changes. It is
+ * truncated after every batch, and dropped when the writer is closed. Since dropping it fails in
+ * an aborted transaction, a failed transaction must be rolled back before closing the writer.
+ */
+public class PostgreSqlStagingUpsertWriter implements BulkWriter {
+
+  private static final Logger log = LoggerFactory.getLogger(PostgreSqlStagingUpsertWriter.class);
+
+  private static final AtomicLong STAGING_TABLE_COUNTER = new AtomicLong();
+
+  private final Connection connection;
+  private final TableId stagingTable;
+  private final PostgreSqlCopyWriter copyWriter;
+  private final String mergeSql;
+  private final String truncateSql;
+  private final String dropSql;
+
+  public PostgreSqlStagingUpsertWriter(
+      PostgreSqlDatabaseDialect dialect,
+      Connection connection,
+      TableDefinition tableDefn,
+      PrimaryKeyMode pkMode,
+      SchemaPair schemaPair,
+      FieldsMetadata fieldsMetadata,
+      CopyFormat format,
+      TimeZone timeZone
+  ) throws SQLException {
+    final TableId tableId = tableDefn.id();
+    this.connection = connection;
+    this.stagingTable = new TableId(
+        null,
+        null,
+        "connect_stage_" + STAGING_TABLE_COUNTER.incrementAndGet()
+    );
+
+    final List<ColumnId> keyColumns = asColumns(tableId, fieldsMetadata.keyFieldNames);
+    final List<ColumnId> nonKeyColumns = asColumns(tableId, fieldsMetadata.nonKeyFieldNames);
+    final List<ColumnId> columns = new ArrayList<>(keyColumns);
+    columns.addAll(nonKeyColumns);
+    final List<String> createSql = dialect.buildCreateStagingTableStatements(
+        stagingTable,
+        tableId,
+        columns
+    );
+    log.debug("Creating staging table for {} with: {}", tableId, createSql);
+    dialect.applyDdlStatements(connection, createSql);
+
+    this.copyWriter = new PostgreSqlCopyWriter(
+        dialect,
+        connection,
+        tableDefn,
+        stagingTable,
+        pkMode,
+        schemaPair,
+        fieldsMetadata,
+        format,
+        timeZone
+    );
+    this.mergeSql = dialect.buildMergeFromStagingStatement(
+        tableId,
+        stagingTable,
+        keyColumns,
+        nonKeyColumns
+    );
+    this.truncateSql = "TRUNCATE " + dialect.expressionBuilder().append(stagingTable);
+    this.dropSql = "DROP TABLE IF EXISTS " + dialect.expressionBuilder().append(stagingTable);
+    log.debug("Merging batches into {} with: {}", tableId, mergeSql);
+  }
+
+  @Override
+  public long write(Collection<SinkRecord> records) throws SQLException {
+    copyWriter.write(records);
+    try (Statement statement = connection.createStatement()) {
+      final long count = statement.executeUpdate(mergeSql);
+      statement.executeUpdate(truncateSql);
+      return count;
+    }
+  }
+
+  @Override
+  public void close() throws SQLException {
+    log.debug("Dropping staging table {}", stagingTable);
+    try (Statement statement = connection.createStatement()) {
+      statement.executeUpdate(dropSql);
+    }
+  }
+
+  private static List<ColumnId> asColumns(TableId tableId, Collection<String> names) {
+    final List<ColumnId> columns = new ArrayList<>(names.size());
+    for (String name : names) {
+      columns.add(new ColumnId(tableId, name));
+    }
+    return columns;
+  }
+}
@@ -116,6 +116,16 @@ public class SqliteDatabaseDialect extends GenericDatabaseDialect {
       TableId table,
       Collection<ColumnId> keyColumns,
       Collection<ColumnId> nonKeyColumns
+  ) {
+    return buildUpsertQueryStatement(table, keyColumns, nonKeyColumns, 1);
+  }
+
+  @Override
+  public String buildUpsertQueryStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      int rows
   ) {
     ExpressionBuilder builder = expressionBuilder();
     builder.append("INSERT OR REPLACE INTO ");
@@ -125,12 +135,19 @@ public class SqliteDatabaseDialect extends GenericDatabaseDialect {
            .delimitedBy(",")
            .transformedBy(ExpressionBuilder.columnNames())
            .of(keyColumns, nonKeyColumns);
-    builder.append(") VALUES(");
-    builder.appendMultiple(",", "?", keyColumns.size() + nonKeyColumns.size());
-    builder.append(")");
+    builder.append(") VALUES");
+    appendValueRows(builder, keyColumns.size() + nonKeyColumns.size(), rows);
     return builder.toString();
   }
 
+  /**
+   * The default maximum number of host parameters of SQLite.
+   */
+  @Override
+  public int maxBindParameters() {
+    return 999;
+  }
+
   @Override
   protected String currentTimestampDatabaseQuery() {
     return "SELECT strftime('%Y-%m-%d %H:%M:%S.%f','now')";
@@ -16,20 +16,37 @@
 package io.confluent.connect.jdbc.dialect;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialectProvider.SubprotocolBasedProvider;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
 import io.confluent.connect.jdbc.sink.metadata.SinkRecordField;
+import io.confluent.connect.jdbc.util.ColumnDefinition;
 import io.confluent.connect.jdbc.util.DateTimeUtils;
 import io.confluent.connect.jdbc.util.ExpressionBuilder;
 import io.confluent.connect.jdbc.util.TableId;
 import org.apache.kafka.common.config.AbstractConfig;
 import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.Set;
 
 /**
  * A {@link DatabaseDialect} for TimescaleDB.
@@ -50,9 +67,16 @@ public class TimescaleDBDatabaseDialect extends PostgreSqlDatabaseDialect {
     }
   }
 
-  static final int CHUNK_TIME_INTERVAL = 86400000;
+  static final long CHUNK_TIME_INTERVAL = 86400000L;
+  static final String TIME_COLUMN = "time";
   static final String DELIMITER = ";";
-  static final String HYPERTABLE_WARNING = "A result was returned when none was expected";
+  static final String INTEGER_NOW_FUNCTION = "unix_now_ms";
+  // The type name that the catalog reports for TIMESTAMP WITH TIME ZONE columns
+  private static final String TIMESTAMPTZ_TYPE = "timestamptz";
+
+  private final JdbcSinkConfig sinkConfig;
+  private final ChunkIntervalTuner chunkIntervalTuner;
+  private final ContinuousAggregates continuousAggregates;
 
   /**
    * Create a new dialect instance with the given connector configuration.
@@ -61,6 +85,15 @@ public class TimescaleDBDatabaseDialect extends PostgreSqlDatabaseDialect {
    */
   public TimescaleDBDatabaseDialect(AbstractConfig config) {
     super(config);
+    if (config instanceof JdbcSinkConfig) {
+      sinkConfig = (JdbcSinkConfig) config;
+      chunkIntervalTuner = new ChunkIntervalTuner(this, sinkConfig.hypertableChunkTargetBytes);
+      continuousAggregates = new ContinuousAggregates(this, sinkConfig);
+    } else {
+      sinkConfig = null;
+      chunkIntervalTuner = null;
+      continuousAggregates = null;
+    }
   }
 
   @Override
@@ -74,25 +107,516 @@ public class TimescaleDBDatabaseDialect extends PostgreSqlDatabaseDialect {
       sqlQueries.add(buildCreateSchemaStatement(table));
     }
     sqlQueries.add(super.buildCreateTableStatement(table, fields));
-    sqlQueries.add(buildCreateHyperTableStatement(table));
+    sqlQueries.add(buildCreateHyperTableStatement(table, fields));
+    Optional<String> partitionColumn = partitionColumn(table);
+    if (partitionColumn.isPresent()
+        && fields.stream().anyMatch(f -> f.name().equals(partitionColumn.get()))) {
+      sqlQueries.add(buildAddDimensionStatement(table, partitionColumn.get()));
+    }
+    List<String> policyQueries = new ArrayList<>(buildHyperTablePolicyStatements(table, fields));
+    if (continuousAggregates != null) {
+      policyQueries.addAll(continuousAggregates.buildCreateStatements(table, fields));
+    }
+    if (!policyQueries.isEmpty()) {
+      sqlQueries.addAll(buildIntegerNowStatements(table, fields));
+    }
+    sqlQueries.addAll(policyQueries);
+
+    return sqlQueries;
+  }
+
+  /**
+   * Also create the continuous aggregates of the hypertable again if any of the added columns
+   * are aggregated, which discards their materialized data until a scheduled job has refreshed
+   * them.
+   */
+  @Override
+  public List<String> buildAmendTableStatements(
+          TableId table,
+          Collection<SinkRecordField> missingFields,
+          Collection<SinkRecordField> allFields
+  ) {
+    List<String> sqlQueries = new ArrayList<>(buildAlterTable(table, missingFields));
+    if (continuousAggregates != null) {
+      sqlQueries.addAll(continuousAggregates.buildAmendStatements(table, missingFields, allFields));
+    }
+    return sqlQueries;
+  }
+
+  /**
+   * Build the statements that enable compression and add the compression and retention policies
+   * configured for the given hypertable. If its time column holds integers, the statements of
+   * {@link #buildIntegerNowStatements} must run first.
+   *
+   * @param table  the identifier of the hypertable; may not be null
+   * @param fields the fields of the hypertable; may not be null
+   * @return the statements, which may be empty; never null
+   */
+  public List<String> buildHyperTablePolicyStatements(
+          TableId table,
+          Collection<SinkRecordField> fields
+  ) {
+    List<String> sqlQueries = new ArrayList<>();
+    if (sinkConfig == null) {
+      return sqlQueries;
+    }
+    boolean integerTime = hasIntegerTime(table, fields);
+    OptionalLong compressAfterMs = sinkConfig.hypertableCompressAfterMs(table.tableName());
+    if (compressAfterMs.isPresent()) {
+      sqlQueries.add(buildEnableCompressionStatement(table, fields));
+      sqlQueries.add(buildPolicyStatement(
+          "add_compression_policy",
+          table,
+          compressAfterMs.getAsLong(),
+          integerTime
+      ));
+    }
+    OptionalLong retentionMs = sinkConfig.hypertableRetentionMs(table.tableName());
+    if (retentionMs.isPresent()) {
+      sqlQueries.add(buildPolicyStatement(
+          "add_retention_policy",
+          table,
+          retentionMs.getAsLong(),
+          integerTime
+      ));
+    }
+    return sqlQueries;
+  }
+
+  /**
+   * Build the statements that tell TimescaleDB the current time of a hypertable with an integer
+   * time column, which its policies need to find the chunks older than some interval. The time
+   * column is taken to hold milliseconds since the epoch.
+   *
+   * @param table  the identifier of the hypertable; may not be null
+   * @param fields the fields of the hypertable; may not be null
+   * @return the statements, which are empty if the time column holds timestamps; never null
+   * @throws ConnectException if the time column is too narrow for milliseconds since the epoch
+   */
+  public List<String> buildIntegerNowStatements(
+          TableId table,
+          Collection<SinkRecordField> fields
+  ) {
+    List<String> sqlQueries = new ArrayList<>();
+    if (!hasIntegerTime(table, fields)) {
+      return sqlQueries;
+    }
+    String timeColumn = timeColumn(table);
+    for (SinkRecordField field : fields) {
+      if (field.name().equals(timeColumn) && field.schemaType() != Schema.Type.INT64) {
+        throw new ConnectException(String.format(
+            "The policies of hypertable %s need its time column %s to hold milliseconds since "
+                + "the epoch, which do not fit in %s",
+            table,
+            timeColumn,
+            field.schemaType()
+        ));
+      }
+    }
+    TableId function = integerNowFunctionId(table);
 
+    ExpressionBuilder builder = expressionBuilder();
+    builder.append("CREATE OR REPLACE FUNCTION ");
+    builder.append(function);
+    builder.append("() RETURNS BIGINT LANGUAGE SQL STABLE AS ");
+    builder.append("$$ SELECT (extract(epoch FROM now()) * 1000)::BIGINT $$");
+    sqlQueries.add(builder.toString());
+
+    builder = expressionBuilder();
+    builder.append("SELECT set_integer_now_func('");
+    builder.append(table);
+    builder.append("', '");
+    builder.append(function);
+    builder.append("', replace_if_exists => TRUE)");
+    sqlQueries.add(builder.toString());
     return sqlQueries;
   }
 
+  /**
+   * @return the identifier of the function of the current time in milliseconds since the epoch,
+   *     in the schema of the table
+   */
+  static TableId integerNowFunctionId(TableId table) {
+    return new TableId(table.catalogName(), table.schemaName(), INTEGER_NOW_FUNCTION);
+  }
+
+  private String buildEnableCompressionStatement(
+          TableId table,
+          Collection<SinkRecordField> fields
+  ) {
+    ExpressionBuilder builder = expressionBuilder();
+
+    builder.append("ALTER TABLE ");
+    builder.append(table);
+    builder.append(" SET (timescaledb.compress");
+    List<String> segmentBy = compressSegmentBy(table, fields);
+    if (!segmentBy.isEmpty()) {
+      builder.append(", timescaledb.compress_segmentby = '");
+      builder.appendList()
+          .delimitedBy(", ")
+          .<String>transformedBy((b, name) -> b.appendColumnName(name))
+          .of(segmentBy);
+      builder.append("'");
+    }
+    if (!sinkConfig.hypertableCompressOrderBy.isEmpty()) {
+      builder.append(", timescaledb.compress_orderby = ");
+      builder.appendStringQuoted(sinkConfig.hypertableCompressOrderBy.replace("'", "''"));
+    }
+    builder.append(")");
+    return builder.toString();
+  }
+
+  /**
+   * @return the configured columns to segment compressed data by, or else the primary key
+   *     columns other than the time column
+   */
+  private List<String> compressSegmentBy(TableId table, Collection<SinkRecordField> fields) {
+    if (!sinkConfig.hypertableCompressSegmentBy.isEmpty()) {
+      return sinkConfig.hypertableCompressSegmentBy;
+    }
+    return keyColumns(table, fields);
+  }
+
+  /**
+   * @return the names of the primary key columns other than the time column
+   */
+  List<String> keyColumns(TableId table, Collection<SinkRecordField> fields) {
+    String timeColumn = timeColumn(table);
+    List<String> keyColumns = new ArrayList<>();
+    for (SinkRecordField field : fields) {
+      if (field.isPrimaryKey() && !field.name().equals(timeColumn)) {
+        keyColumns.add(field.name());
+      }
+    }
+    return keyColumns;
+  }
+
+  private String buildPolicyStatement(
+          String function,
+          TableId table,
+          long afterMs,
+          boolean integerTime
+  ) {
+    ExpressionBuilder builder = expressionBuilder();
+
+    builder.append("SELECT ");
+    builder.append(function);
+    builder.append("('");
+    builder.append(table);
+    builder.append("', ");
+    appendInterval(builder, afterMs, integerTime);
+    builder.append(")");
+    return builder.toString();
+  }
+
 
   public String buildCreateHyperTableStatement(
           TableId table
+  ) {
+    return buildCreateHyperTableStatement(table, Collections.emptyList());
+  }
+
+  /**
+   * Build the statement that converts a new table into a hypertable, partitioned by time.
+   *
+   * @param table  the identifier of the table; may not be null
+   * @param fields the fields of the table, which decide whether the time column holds integers;
+   *               may not be null
+   * @return the statement; never null
+   */
+  public String buildCreateHyperTableStatement(
+          TableId table,
+          Collection<SinkRecordField> fields
   ) {
     ExpressionBuilder builder = expressionBuilder();
 
     builder.append("SELECT create_hypertable('");
     builder.append(table);
-    builder.append("', 'time', migrate_data => TRUE, chunk_time_interval => ");
-    builder.append(CHUNK_TIME_INTERVAL);
+    builder.append("', ");
+    builder.appendStringQuoted(timeColumn(table));
+    builder.append(", migrate_data => TRUE, chunk_time_interval => ");
+    appendInterval(
+        builder,
+        chunkTimeIntervalMs(table).orElse(CHUNK_TIME_INTERVAL),
+        hasIntegerTime(table, fields)
+    );
     builder.append(");");
     return builder.toString();
   }
 
+  /**
+   * Build the statement that hash partitions a new hypertable by the given column, into the
+   * configured number of partitions.
+   *
+   * @param table  the identifier of the hypertable; may not be null
+   * @param column the name of the column; may not be null
+   * @return the statement; never null
+   */
+  public String buildAddDimensionStatement(
+          TableId table,
+          String column
+  ) {
+    ExpressionBuilder builder = expressionBuilder();
+
+    builder.append("SELECT add_dimension('");
+    builder.append(table);
+    builder.append("', ");
+    builder.appendStringQuoted(column);
+    builder.append(", number_partitions => ");
+    builder.append(sinkConfig.hypertablePartitions);
+    builder.append(")");
+    return builder.toString();
+  }
+
+  /**
+   * Build the statement that sets the time range of the chunks that are created from now on.
+   *
+   * @param table       the identifier of the hypertable; may not be null
+   * @param intervalMs  the chunk time interval in milliseconds
+   * @param integerTime whether the time column holds milliseconds since the epoch
+   * @return the statement; never null
+   */
+  public String buildSetChunkTimeIntervalStatement(
+          TableId table,
+          long intervalMs,
+          boolean integerTime
+  ) {
+    ExpressionBuilder builder = expressionBuilder();
+
+    builder.append("SELECT set_chunk_time_interval('");
+    builder.append(table);
+    builder.append("', ");
+    appendInterval(builder, intervalMs, integerTime);
+    builder.append(")");
+    return builder.toString();
+  }
+
+  /**
+   * Build the query of the number, the size in bytes and the first and last time of the newest
+   * rows of a table with a time between the first and the second parameter. The third parameter
+   * is the maximum number of rows, so that only the newest chunks are read.
+   *
+   * @param table      the identifier of the table; may not be null
+   * @param timeColumn the name of the time column; may not be null
+   * @return the query; never null
+   */
+  String buildRowSizeQuery(
+          TableId table,
+          String timeColumn
+  ) {
+    ExpressionBuilder builder = expressionBuilder();
+
+    builder.append("SELECT count(*), COALESCE(sum(pg_column_size(t.*)), 0), min(t.");
+    builder.appendColumnName(timeColumn);
+    builder.append("), max(t.");
+    builder.appendColumnName(timeColumn);
+    builder.append(") FROM (SELECT * FROM ");
+    builder.append(table);
+    builder.append(" WHERE ");
+    builder.appendColumnName(timeColumn);
+    builder.append(" BETWEEN ? AND ? ORDER BY ");
+    builder.appendColumnName(timeColumn);
+    builder.append(" DESC LIMIT ?) AS t");
+    return builder.toString();
+  }
+
+  /**
+   * Choose the chunk time interval of hypertables that are configured to do so automatically
+   * from the rate at which they are written.
+   */
+  @Override
+  public void afterWrite(
+          Connection connection,
+          TableId tableId,
+          Collection<SinkRecord> records
+  ) throws SQLException {
+    if (chunkIntervalTuner != null && !chunkTimeIntervalMs(tableId).isPresent()) {
+      chunkIntervalTuner.afterWrite(connection, tableId, timeColumn(tableId), records);
+    }
+  }
+
+  @Override
+  public void committed(Connection connection) {
+    if (chunkIntervalTuner != null) {
+      chunkIntervalTuner.committed(connection);
+    }
+  }
+
+  @Override
+  public void rolledBack(Connection connection) {
+    if (chunkIntervalTuner != null) {
+      chunkIntervalTuner.rolledBack(connection);
+    }
+  }
+
+  /**
+   * Sort the records by the chunk time range they fall in, then by the value of the partition
+   * column, then by time, if configured to do so. Otherwise only group the records by the value
+   * of the partition column of the hypertable, so that each group is written to the chunks of
+   * one hash partition. Records that compare equal stay in the order they were given.
+   */
+  @Override
+  public List<SinkRecord> orderForWrite(TableId tableId, List<SinkRecord> records) {
+    Optional<String> partitionColumn = partitionColumn(tableId);
+    if (records.size() < 2) {
+      return records;
+    } else if (sinkConfig != null && sinkConfig.hypertableSortWrites) {
+      String timeColumn = timeColumn(tableId);
+      long intervalMs = bucketIntervalMs(tableId);
+      List<SinkRecord> sorted = new ArrayList<>(records);
+      sorted.sort(
+          Comparator.comparingLong((SinkRecord r) -> timeBucket(r, timeColumn, intervalMs))
+              .thenComparing(r -> partitionKey(r, partitionColumn))
+              .thenComparingLong(r -> timeMs(r, timeColumn))
+      );
+      return sorted;
+    } else if (!partitionColumn.isPresent()) {
+      return records;
+    }
+    Map<Object, List<SinkRecord>> partitions = new LinkedHashMap<>();
+    for (SinkRecord record : records) {
+      partitions
+          .computeIfAbsent(fieldValue(record, partitionColumn.get()), v -> new ArrayList<>())
+          .add(record);
+    }
+    List<SinkRecord> ordered = new ArrayList<>(records.size());
+    partitions.values().forEach(ordered::addAll);
+    return ordered;
+  }
+
+  /**
+   * Count the chunk time ranges of the hypertable that the records fall in. Chunks of different
+   * hash partitions are not distinguished.
+   */
+  @Override
+  public OptionalInt countTimeBuckets(TableId tableId, Collection<SinkRecord> records) {
+    if (sinkConfig == null) {
+      return OptionalInt.empty();
+    }
+    String timeColumn = timeColumn(tableId);
+    long intervalMs = bucketIntervalMs(tableId);
+    Set<Long> buckets = new HashSet<>();
+    for (SinkRecord record : records) {
+      buckets.add(timeBucket(record, timeColumn, intervalMs));
+    }
+    return OptionalInt.of(buckets.size());
+  }
+
+  private static long timeBucket(SinkRecord record, String timeColumn, long intervalMs) {
+    return Math.floorDiv(timeMs(record, timeColumn), intervalMs);
+  }
+
+  /**
+   * @return the time of the record in milliseconds, or the lowest value if it has no time
+   */
+  private static long timeMs(SinkRecord record, String timeColumn) {
+    return timeMs(fieldValue(record, timeColumn));
+  }
+
+  /**
+   * @return the time in milliseconds of a value of a time column, which is either a timestamp or
+   *     an integer number of milliseconds since the epoch, or the lowest value if it is neither
+   */
+  static long timeMs(Object time) {
+    if (time instanceof java.util.Date) {
+      return ((java.util.Date) time).getTime();
+    } else if (time instanceof Number) {
+      return ((Number) time).longValue();
+    }
+    return Long.MIN_VALUE;
+  }
+
+  private static String partitionKey(SinkRecord record, Optional<String> partitionColumn) {
+    return partitionColumn.map(c -> String.valueOf(fieldValue(record, c))).orElse("");
+  }
+
+  /**
+   * @return the value of the named field of the record value, or else of the record key, or null
+   *     if neither has such a field
+   */
+  static Object fieldValue(SinkRecord record, String fieldName) {
+    for (Object struct : new Object[] {record.value(), record.key()}) {
+      if (struct instanceof Struct && ((Struct) struct).schema().field(fieldName) != null) {
+        return ((Struct) struct).get(fieldName);
+      }
+    }
+    return null;
+  }
+
+  private Optional<String> partitionColumn(TableId table) {
+    return sinkConfig != null
+        ? sinkConfig.hypertablePartitionColumn(table.tableName())
+        : Optional.empty();
+  }
+
+  String timeColumn(TableId table) {
+    return sinkConfig != null ? sinkConfig.hypertableTimeColumn(table.tableName()) : TIME_COLUMN;
+  }
+
+  private OptionalLong chunkTimeIntervalMs(TableId table) {
+    return sinkConfig != null
+        ? sinkConfig.hypertableChunkTimeIntervalMs(table.tableName())
+        : OptionalLong.of(CHUNK_TIME_INTERVAL);
+  }
+
+  /**
+   * @return the configured chunk time interval of the table, or else the one that the tuner set,
+   *     or else the default
+   */
+  private long bucketIntervalMs(TableId table) {
+    OptionalLong intervalMs = chunkTimeIntervalMs(table);
+    if (!intervalMs.isPresent() && chunkIntervalTuner != null) {
+      intervalMs = chunkIntervalTuner.intervalMs(table);
+    }
+    return intervalMs.orElse(CHUNK_TIME_INTERVAL);
+  }
+
+  /**
+   * @return whether the time column among the given fields holds integers rather than timestamps
+   */
+  boolean hasIntegerTime(TableId table, Collection<SinkRecordField> fields) {
+    String timeColumn = timeColumn(table);
+    for (SinkRecordField field : fields) {
+      if (field.name().equals(timeColumn)) {
+        return isIntegerTime(field.schema());
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return whether values of the schema are stored in an integer time column, which TimescaleDB
+   *     partitions by integer intervals in the same unit as the column
+   */
+  static boolean isIntegerTime(Schema schema) {
+    if (schema.name() != null) {
+      return false;
+    }
+    switch (schema.type()) {
+      case INT16:
+      case INT32:
+      case INT64:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Append an interval of the time column of a hypertable. Integer time columns are taken to hold
+   * milliseconds since the epoch, so their intervals are plain numbers of milliseconds.
+   */
+  static void appendInterval(ExpressionBuilder builder, long intervalMs, boolean integerTime) {
+    if (integerTime) {
+      builder.append(intervalMs);
+      return;
+    }
+    // A number would be taken as microseconds for time columns of a timestamp type
+    builder.append("INTERVAL '");
+    builder.append(intervalMs);
+    builder.append(" milliseconds'");
+  }
+
   public String buildCreateSchemaStatement(
           TableId table
   ) {
@@ -108,13 +632,11 @@ public class TimescaleDBDatabaseDialect extends PostgreSqlDatabaseDialect {
           Connection connection,
           List<String> statements
   ) throws SQLException {
-    // This overrides the function by catching 'result was returned' error thrown by PSQL
-    // when creating hypertables
-    try {
-      super.applyDdlStatements(connection, statements);
-    } catch (SQLException e) {
-      if (!e.getMessage().contains(HYPERTABLE_WARNING)) {
-        throw e;
+    // TimescaleDB functions such as create_hypertable are called with a SELECT, which returns a
+    // result that executeUpdate would reject
+    try (Statement statement = connection.createStatement()) {
+      for (String ddlStatement : statements) {
+        statement.execute(ddlStatement);
       }
     }
   }
@@ -128,6 +650,28 @@ public class TimescaleDBDatabaseDialect extends PostgreSqlDatabaseDialect {
     }
   }
 
+  @Override
+  protected ValueBinder logicalBinder(Schema schema, ColumnDefinition column) {
+    if (Timestamp.LOGICAL_NAME.equals(schema.name())
+        && column != null
+        && TIMESTAMPTZ_TYPE.equalsIgnoreCase(column.typeName())) {
+      // A TIMESTAMPTZ column stores the instant, so bind it as a java.time value rather than
+      // converting it to a java.sql.Timestamp in the time zone of a calendar. Other columns,
+      // such as TIMESTAMP WITHOUT TIME ZONE, keep the calendar of db.timezone.
+      return (statement, index, value) -> statement.setObject(index, utcDateTime(value));
+    }
+    return super.logicalBinder(schema, column);
+  }
+
+  private static OffsetDateTime utcDateTime(Object value) {
+    final long millis = ((java.util.Date) value).getTime();
+    return LocalDateTime.ofEpochSecond(
+        Math.floorDiv(millis, 1000L),
+        (int) Math.floorMod(millis, 1000L) * 1000000,
+        ZoneOffset.UTC
+    ).atOffset(ZoneOffset.UTC);
+  }
+
   @Override
   protected void formatColumnValue(
           ExpressionBuilder builder,
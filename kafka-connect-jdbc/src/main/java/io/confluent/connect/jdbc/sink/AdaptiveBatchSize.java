@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The number of records at which the buffered records of a table are flushed.
+ *
+ * <p>With {@code adaptive.flush.enabled}, the size is adjusted after each flush in the manner of
+ * additive-increase/multiplicative-decrease: it grows by a tenth of {@code batch.size} after a
+ * full batch that was executed no slower per record than the average of the previous flushes,
+ * and it is halved after a flush that was much slower per record, or that failed waiting for a
+ * lock. The size stays within {@code batch.size.min} and {@code batch.size.max}. Otherwise, it is
+ * always {@code batch.size}.
+ *
+ * <p>Instances are thread-safe, since the same table may be flushed on several connections.
+ */
+class AdaptiveBatchSize {
+
+  /**
+   * SQL states of failures caused by waiting for locks held by other transactions: serialization
+   * failure, deadlock and lock timeout.
+   */
+  private static final Set<String> LOCK_WAIT_STATES =
+      Collections.unmodifiableSet(new HashSet<>(Arrays.asList("40001", "40P01", "55P03")));
+
+  /**
+   * The weight of the latest flush in the average execute time per record.
+   */
+  private static final double LATENCY_WEIGHT = 0.2;
+
+  /**
+   * How much slower per record than the average a flush may be before the size is reduced.
+   */
+  private static final double BACKOFF_THRESHOLD = 1.5;
+
+  private final boolean enabled;
+  private final int min;
+  private final int max;
+  private final int increment;
+  private final SinkMetrics.TableMetrics metrics;
+  private int size;
+  private double averageNanosPerRecord = -1;
+  private boolean congested;
+
+  AdaptiveBatchSize(JdbcSinkConfig config, SinkMetrics.TableMetrics metrics) {
+    this.enabled = config.adaptiveFlushEnabled;
+    this.min = config.batchSizeMin;
+    this.max = config.batchSizeMax;
+    this.increment = Math.max(1, config.batchSize / 10);
+    this.metrics = metrics;
+    this.size = enabled ? Math.min(max, Math.max(min, config.batchSize)) : config.batchSize;
+    metrics.recordBatchSize(size);
+  }
+
+  /**
+   * @return the number of records at which the table is flushed
+   */
+  synchronized int current() {
+    return size;
+  }
+
+  /**
+   * @return whether the latest flush was slow or waited for a lock
+   */
+  synchronized boolean isCongested() {
+    return congested;
+  }
+
+  /**
+   * Adjust the size to the time it took to execute the statements of a flush.
+   */
+  synchronized void onFlush(int records, long executeNanos) {
+    // Flushes of a few records, for example at the end of a batch or after a schema change,
+    // are dominated by the cost per statement and say little about the load of the database
+    if (!enabled || records * 2 < size) {
+      return;
+    }
+    final double nanosPerRecord = (double) executeNanos / records;
+    if (averageNanosPerRecord < 0) {
+      averageNanosPerRecord = nanosPerRecord;
+      congested = false;
+      return;
+    }
+    congested = nanosPerRecord > averageNanosPerRecord * BACKOFF_THRESHOLD;
+    if (congested) {
+      decrease();
+    } else if (records >= size && nanosPerRecord <= averageNanosPerRecord) {
+      resize(size + increment);
+    }
+    averageNanosPerRecord += LATENCY_WEIGHT * (nanosPerRecord - averageNanosPerRecord);
+  }
+
+  /**
+   * Adjust the size to a failed flush.
+   */
+  synchronized void onFailure(SQLException e) {
+    congested = isLockWait(e);
+    if (enabled && congested) {
+      decrease();
+    }
+  }
+
+  private void decrease() {
+    resize(size / 2);
+    metrics.recordBatchSizeBackoff();
+  }
+
+  private void resize(int newSize) {
+    size = Math.min(max, Math.max(min, newSize));
+    metrics.recordBatchSize(size);
+  }
+
+  /**
+   * @return whether the failure, or any of the exceptions chained to it, was caused by waiting
+   *     for a lock
+   */
+  static boolean isLockWait(SQLException e) {
+    for (Throwable t : e) {
+      if (t instanceof SQLException
+          && LOCK_WAIT_STATES.contains(((SQLException) t).getSQLState())) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
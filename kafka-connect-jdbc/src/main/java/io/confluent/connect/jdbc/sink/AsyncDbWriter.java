@@ -0,0 +1,212 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Writes batches of records on a background thread, so that the task can fetch and convert the
+ * next batch while the previous one is written to the database.
+ *
+ * <p>Batches are written in the order they were submitted. Failed writes are retried on the
+ * background thread; once the retries are exhausted the writer stops and the failure is rethrown
+ * to the task on its next call.
+ */
+class AsyncDbWriter {
+  private static final Logger log = LoggerFactory.getLogger(AsyncDbWriter.class);
+
+  private final JdbcSinkConfig config;
+  private final Supplier<JdbcDbWriter> writerFactory;
+  private final SinkMetrics metrics;
+  private final BlockingQueue<List<SinkRecord>> queue;
+  private final Map<TopicPartition, Long> committedOffsets = new ConcurrentHashMap<>();
+  private final Thread thread;
+  private JdbcDbWriter writer;
+  private int pendingBatches;
+  private volatile boolean running = true;
+  private volatile Throwable failure;
+
+  AsyncDbWriter(
+      JdbcSinkConfig config,
+      JdbcDbWriter writer,
+      Supplier<JdbcDbWriter> writerFactory,
+      SinkMetrics metrics
+  ) {
+    this.config = config;
+    this.writer = writer;
+    this.writerFactory = writerFactory;
+    this.metrics = metrics;
+    this.queue = new ArrayBlockingQueue<>(config.writeQueueSize);
+    this.thread = new Thread(this::run, "jdbc-sink-writer");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Queue the records to be written, waiting for space in the queue if it is full.
+   *
+   * @throws ConnectException if an earlier batch could not be written
+   */
+  void submit(Collection<SinkRecord> records) throws InterruptedException {
+    checkFailure();
+    synchronized (this) {
+      pendingBatches++;
+    }
+    queue.put(new ArrayList<>(records));
+  }
+
+  /**
+   * @return whether submitting another batch would have to wait for space in the queue
+   */
+  boolean isFull() {
+    return queue.remainingCapacity() == 0;
+  }
+
+  /**
+   * @return the offset after the last record that was committed to the database, for each topic
+   *     partition that had records written
+   */
+  Map<TopicPartition, Long> committedOffsets() {
+    return committedOffsets;
+  }
+
+  /**
+   * Wait until all submitted batches have been written.
+   *
+   * @throws ConnectException if a batch could not be written
+   */
+  void awaitIdle() throws InterruptedException {
+    synchronized (this) {
+      while (pendingBatches > 0 && failure == null) {
+        wait();
+      }
+    }
+    checkFailure();
+  }
+
+  /**
+   * @throws ConnectException if a batch could not be written
+   */
+  void checkFailure() {
+    final Throwable error = failure;
+    if (error != null) {
+      throw new ConnectException("Writing records in the background failed", error);
+    }
+  }
+
+  void stop() {
+    running = false;
+    thread.interrupt();
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    writer.closeQuietly();
+  }
+
+  private void run() {
+    while (running && failure == null) {
+      final List<SinkRecord> batch;
+      try {
+        batch = queue.take();
+      } catch (InterruptedException e) {
+        break;
+      }
+      try {
+        write(batch);
+        for (SinkRecord record : batch) {
+          committedOffsets.merge(
+              new TopicPartition(record.topic(), record.kafkaPartition()),
+              record.kafkaOffset() + 1,
+              Math::max
+          );
+        }
+      } catch (InterruptedException e) {
+        log.info("Stopped while writing a batch of {} records", batch.size());
+      } catch (Throwable t) {
+        log.error("Failed to write a batch of {} records, stopping", batch.size(), t);
+        failure = t;
+      } finally {
+        synchronized (this) {
+          pendingBatches--;
+          notifyAll();
+        }
+      }
+    }
+  }
+
+  /**
+   * Write the batch, retrying only the records of the failed tables when the other tables were
+   * committed.
+   */
+  private void write(List<SinkRecord> batch) throws SQLException, InterruptedException {
+    List<SinkRecord> records = batch;
+    int remainingRetries = config.maxRetries;
+    while (true) {
+      try {
+        writer.write(records);
+        return;
+      } catch (TableWriteException e) {
+        if (remainingRetries == 0) {
+          throw e;
+        }
+        log.warn(
+            "Write of records to tables {} failed, remainingRetries={}",
+            e.failedTables(),
+            remainingRetries,
+            e
+        );
+        final List<SinkRecord> failedRecords = new ArrayList<>();
+        for (SinkRecord record : records) {
+          if (e.failedTables().contains(writer.destinationTable(record))) {
+            failedRecords.add(record);
+          }
+        }
+        records = failedRecords;
+      } catch (SQLException e) {
+        if (remainingRetries == 0) {
+          throw e;
+        }
+        log.warn(
+            "Write of {} records failed, remainingRetries={}",
+            records.size(),
+            remainingRetries,
+            e
+        );
+        writer.closeQuietly();
+        writer = writerFactory.get();
+      }
+      remainingRetries--;
+      metrics.recordRetry();
+      Thread.sleep(config.retryBackoffMs);
+    }
+  }
+}
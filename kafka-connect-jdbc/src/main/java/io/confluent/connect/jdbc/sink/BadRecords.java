@@ -0,0 +1,180 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.stream.Collectors;
+
+import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.InsertMode;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.PrimaryKeyMode;
+import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
+import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
+import io.confluent.connect.jdbc.util.ColumnId;
+import io.confluent.connect.jdbc.util.TableId;
+
+/**
+ * Reports the records that could not be written, by logging them and writing them to the
+ * configured bad records table, if any.
+ */
+class BadRecords {
+  private static final Logger log = LoggerFactory.getLogger(BadRecords.class);
+
+  static final Schema SCHEMA = SchemaBuilder.struct()
+      .name("io.confluent.connect.jdbc.BadRecord")
+      .field("topic", Schema.STRING_SCHEMA)
+      .field("partition", Schema.INT32_SCHEMA)
+      .field("offset", Schema.INT64_SCHEMA)
+      .field("key", Schema.OPTIONAL_STRING_SCHEMA)
+      .field("value", Schema.OPTIONAL_STRING_SCHEMA)
+      .field("error", Schema.STRING_SCHEMA)
+      .field("time", Timestamp.SCHEMA)
+      .build();
+
+  private final JdbcSinkConfig config;
+  private final DatabaseDialect dbDialect;
+  private final DbStructure dbStructure;
+  private final SinkMetrics metrics;
+  private final TableId tableId;
+
+  BadRecords(
+      JdbcSinkConfig config,
+      DatabaseDialect dbDialect,
+      DbStructure dbStructure,
+      SinkMetrics metrics
+  ) {
+    this.config = config;
+    this.dbDialect = dbDialect;
+    this.dbStructure = dbStructure;
+    this.metrics = metrics;
+    this.tableId = config.badRecordsTable.isEmpty()
+                   ? null
+                   : dbDialect.parseTableIdentifier(config.badRecordsTable);
+  }
+
+  /**
+   * @return the table that bad records are reported to, or null if they are only logged
+   */
+  TableId tableId() {
+    return tableId;
+  }
+
+  /**
+   * @return whether the failure is caused by the values written rather than by the table or the
+   *     connection, so that writing the other records may succeed
+   */
+  static boolean isBadRecordFailure(SQLException failure) {
+    for (Throwable e : failure) {
+      if (e instanceof SQLException) {
+        final String state = ((SQLException) e).getSQLState();
+        // Data exception or integrity constraint violation
+        if (state != null && (state.startsWith("22") || state.startsWith("23"))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Report a record that failed to be written to the given table. The record is written to the
+   * bad records table in the transaction of the connection.
+   *
+   * @throws SQLException if the record could not be written to the bad records table
+   */
+  void report(
+      Connection connection,
+      TableId failedTable,
+      SinkRecord record,
+      SQLException failure
+  ) throws SQLException {
+    log.error(
+        "Skipping record {}-{}-{} that could not be written to table {}",
+        record.topic(),
+        record.kafkaPartition(),
+        record.kafkaOffset(),
+        failedTable,
+        failure
+    );
+    metrics.table(failedTable).recordBadRecord();
+    if (tableId == null) {
+      return;
+    }
+    final Struct value = new Struct(SCHEMA)
+        .put("topic", record.topic())
+        .put("partition", record.kafkaPartition())
+        .put("offset", record.kafkaOffset())
+        .put("key", record.key() != null ? record.key().toString() : null)
+        .put("value", record.value() != null ? record.value().toString() : null)
+        .put("error", String.valueOf(failure.getMessage()))
+        .put("time", new Date());
+    write(connection, new SinkRecord(
+        record.topic(),
+        record.kafkaPartition(),
+        null,
+        null,
+        SCHEMA,
+        value,
+        record.kafkaOffset()
+    ));
+  }
+
+  private void write(Connection connection, SinkRecord badRecord) throws SQLException {
+    final SchemaPair schemaPair = new SchemaPair(null, SCHEMA);
+    final FieldsMetadata fieldsMetadata = FieldsMetadata.extract(
+        tableId.tableName(),
+        PrimaryKeyMode.NONE,
+        Collections.emptyList(),
+        Collections.emptySet(),
+        schemaPair
+    );
+    dbStructure.createOrAmendIfNecessary(config, connection, tableId, fieldsMetadata);
+    final String sql = dbDialect.buildInsertStatement(
+        tableId,
+        Collections.emptyList(),
+        asColumns(fieldsMetadata.nonKeyFieldNames)
+    );
+    try (PreparedStatement statement = dbDialect.createPreparedStatement(connection, sql)) {
+      dbDialect.statementBinder(
+          statement,
+          PrimaryKeyMode.NONE,
+          schemaPair,
+          fieldsMetadata,
+          InsertMode.INSERT
+      ).bindRecord(badRecord);
+      statement.executeBatch();
+    }
+  }
+
+  private Collection<ColumnId> asColumns(Collection<String> names) {
+    return names.stream()
+        .map(name -> new ColumnId(tableId, name))
+        .collect(Collectors.toList());
+  }
+}
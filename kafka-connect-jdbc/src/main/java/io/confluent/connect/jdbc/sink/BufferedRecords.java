@@ -27,19 +27,27 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.dialect.DatabaseDialect.BulkWriter;
 import io.confluent.connect.jdbc.dialect.DatabaseDialect.StatementBinder;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.PrimaryKeyMode;
 import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
 import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
 import io.confluent.connect.jdbc.util.ColumnId;
+import io.confluent.connect.jdbc.util.TableDefinition;
 import io.confluent.connect.jdbc.util.TableId;
 
 import static io.confluent.connect.jdbc.sink.JdbcSinkConfig.InsertMode.INSERT;
+import static io.confluent.connect.jdbc.sink.JdbcSinkConfig.InsertMode.UPDATE;
+import static io.confluent.connect.jdbc.sink.JdbcSinkConfig.InsertMode.UPSERT;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
@@ -51,6 +59,8 @@ public class BufferedRecords {
   private final DatabaseDialect dbDialect;
   private final DbStructure dbStructure;
   private final Connection connection;
+  private final SinkMetrics.TableMetrics metrics;
+  private final AdaptiveBatchSize batchSize;
 
   private List<SinkRecord> records = new ArrayList<>();
   private Schema keySchema;
@@ -61,6 +71,9 @@ public class BufferedRecords {
   private PreparedStatement deletePreparedStatement;
   private StatementBinder updateStatementBinder;
   private StatementBinder deleteStatementBinder;
+  private BulkWriter bulkWriter;
+  private MultiRowStatements multiRowStatements;
+  private long schemaFlushesAvoided;
   private boolean deletesInBatch = false;
 
   public BufferedRecords(
@@ -69,12 +82,52 @@ public class BufferedRecords {
       DatabaseDialect dbDialect,
       DbStructure dbStructure,
       Connection connection
+  ) {
+    this(
+        config,
+        tableId,
+        dbDialect,
+        dbStructure,
+        connection,
+        SinkMetrics.inMemory().table(tableId)
+    );
+  }
+
+  public BufferedRecords(
+      JdbcSinkConfig config,
+      TableId tableId,
+      DatabaseDialect dbDialect,
+      DbStructure dbStructure,
+      Connection connection,
+      SinkMetrics.TableMetrics metrics
+  ) {
+    this(
+        config,
+        tableId,
+        dbDialect,
+        dbStructure,
+        connection,
+        metrics,
+        new AdaptiveBatchSize(config, metrics)
+    );
+  }
+
+  BufferedRecords(
+      JdbcSinkConfig config,
+      TableId tableId,
+      DatabaseDialect dbDialect,
+      DbStructure dbStructure,
+      Connection connection,
+      SinkMetrics.TableMetrics metrics,
+      AdaptiveBatchSize batchSize
   ) {
     this.tableId = tableId;
     this.config = config;
     this.dbDialect = dbDialect;
     this.dbStructure = dbStructure;
     this.connection = connection;
+    this.metrics = metrics;
+    this.batchSize = batchSize;
     this.recordValidator = RecordValidator.create(config);
   }
 
@@ -87,31 +140,44 @@ public class BufferedRecords {
       keySchema = record.keySchema();
       schemaChanged = true;
     }
-    if (isNull(record.valueSchema())) {
-      // For deletes, value and optionally value schema come in as null.
-      // We don't want to treat this as a schema change if key schemas is the same
-      // otherwise we flush unnecessarily.
-      if (config.deleteEnabled) {
-        deletesInBatch = true;
-      }
-    } else if (Objects.equals(valueSchema, record.valueSchema())) {
-      if (config.deleteEnabled && deletesInBatch) {
-        // flush so an insert after a delete of same record isn't lost
-        flushed.addAll(flush());
+    // For deletes, value and optionally value schema come in as null.
+    // We don't want to treat this as a schema change if key schemas is the same
+    // otherwise we flush unnecessarily.
+    boolean schemaWidened = false;
+    if (nonNull(record.valueSchema()) && !Objects.equals(valueSchema, record.valueSchema())) {
+      final Schema superset = config.schemaSupersetEnabled && nonNull(valueSchema)
+                              ? SchemaSuperset.merge(valueSchema, record.valueSchema())
+                              : null;
+      if (isNull(superset)) {
+        // value schema is not null and has changed. This is a real schema change.
+        valueSchema = record.valueSchema();
+        schemaChanged = true;
+      } else {
+        // compatible version of the value schema, keep the batch with the superset of both
+        if (!records.isEmpty()) {
+          schemaFlushesAvoided++;
+          metrics.recordSchemaFlushAvoided();
+          log.debug("Kept batch of {} records for compatible value schema", records.size());
+        }
+        if (superset != valueSchema) {
+          valueSchema = superset;
+          schemaWidened = true;
+        }
       }
-    } else {
-      // value schema is not null and has changed. This is a real schema change.
-      valueSchema = record.valueSchema();
-      schemaChanged = true;
     }
-    if (schemaChanged || updateStatementBinder == null) {
+    if (schemaChanged || !hasUpdateWriter()) {
       // Each batch needs to have the same schemas, so get the buffered records out
+      if (schemaChanged && !records.isEmpty()) {
+        metrics.recordSchemaChangeFlush();
+      }
       flushed.addAll(flush());
-
-      // re-initialize everything that depends on the record schema
+    }
+    if (schemaChanged || schemaWidened || !hasUpdateWriter()) {
+      // re-initialize everything that depends on the record schema; buffered records are only
+      // bound when flushed, so they are written with the new statements
       final SchemaPair schemaPair = new SchemaPair(
           record.keySchema(),
-          record.valueSchema()
+          nonNull(record.valueSchema()) ? valueSchema : null
       );
       fieldsMetadata = FieldsMetadata.extract(
           tableId.tableName(),
@@ -136,14 +202,41 @@ public class BufferedRecords {
           fieldsMetadata
       );
       close();
-      updatePreparedStatement = dbDialect.createPreparedStatement(connection, insertSql);
-      updateStatementBinder = dbDialect.statementBinder(
-          updatePreparedStatement,
-          config.pkMode,
-          schemaPair,
-          fieldsMetadata,
-          config.insertMode
-      );
+      final TableDefinition tableDefn = dbStructure.tableDefinition(connection, tableId);
+      if (nonNull(tableDefn)) {
+        bulkWriter = dbDialect.bulkWriter(
+            connection,
+            tableDefn,
+            config.pkMode,
+            schemaPair,
+            fieldsMetadata,
+            config.insertMode
+        );
+      }
+      if (isNull(bulkWriter)) {
+        multiRowStatements = MultiRowStatements.create(
+            config,
+            tableId,
+            dbDialect,
+            connection,
+            schemaPair,
+            fieldsMetadata,
+            tableDefn,
+            asColumns(fieldsMetadata.keyFieldNames),
+            asColumns(fieldsMetadata.nonKeyFieldNames)
+        );
+      }
+      if (isNull(bulkWriter) && isNull(multiRowStatements)) {
+        updatePreparedStatement = dbDialect.createPreparedStatement(connection, insertSql);
+        updateStatementBinder = dbDialect.statementBinder(
+            updatePreparedStatement,
+            config.pkMode,
+            schemaPair,
+            fieldsMetadata,
+            tableDefn,
+            config.insertMode
+        );
+      }
       if (config.deleteEnabled && nonNull(deleteSql)) {
         deletePreparedStatement = dbDialect.createPreparedStatement(connection, deleteSql);
         deleteStatementBinder = dbDialect.statementBinder(
@@ -151,19 +244,24 @@ public class BufferedRecords {
             config.pkMode,
             schemaPair,
             fieldsMetadata,
+            tableDefn,
             config.insertMode
         );
       }
     }
-    
-    // set deletesInBatch if schema value is not null
-    if (isNull(record.value()) && config.deleteEnabled) {
-      deletesInBatch = true;
+
+    if (config.deleteEnabled && !isCompacted()) {
+      if (isNull(record.value())) {
+        deletesInBatch = true;
+      } else if (deletesInBatch) {
+        // flush so an insert after a delete of the same record isn't lost
+        flushed.addAll(flush());
+      }
     }
 
     records.add(record);
 
-    if (records.size() >= config.batchSize) {
+    if (records.size() >= batchSize.current()) {
       flushed.addAll(flush());
     }
     return flushed;
@@ -175,17 +273,63 @@ public class BufferedRecords {
       return new ArrayList<>();
     }
     log.debug("Flushing {} buffered records", records.size());
+    final List<SinkRecord> batch = new ArrayList<>(records.size());
     for (SinkRecord record : records) {
-      if (isNull(record.value()) && nonNull(deleteStatementBinder)) {
-        deleteStatementBinder.bindRecord(record);
-      } else {
+      batch.add(SchemaSuperset.project(record, valueSchema));
+    }
+    final List<SinkRecord> deleteRecords = new ArrayList<>();
+    final List<SinkRecord> unorderedRecords = new ArrayList<>();
+    if (isCompacted()) {
+      compact(batch, deleteRecords, unorderedRecords);
+    } else {
+      for (SinkRecord record : batch) {
+        if (isDelete(record)) {
+          deleteRecords.add(record);
+        } else {
+          unorderedRecords.add(record);
+        }
+      }
+      if (config.deleteCompactionEnabled) {
+        compactDeletes(deleteRecords);
+      }
+    }
+    final List<SinkRecord> updateRecords = dbDialect.orderForWrite(tableId, unorderedRecords);
+    dbDialect.countTimeBuckets(tableId, updateRecords)
+        .ifPresent(metrics::recordFlushTimeBuckets);
+    final long bindStart = System.nanoTime();
+    for (SinkRecord record : deleteRecords) {
+      deleteStatementBinder.bindRecord(record);
+    }
+    if (isNull(bulkWriter) && isNull(multiRowStatements)) {
+      for (SinkRecord record : updateRecords) {
         updateStatementBinder.bindRecord(record);
       }
     }
-    Optional<Long> totalUpdateCount = executeUpdates();
-    long totalDeleteCount = executeDeletes();
+    final long executeStart = System.nanoTime();
+    final long totalDeleteCount;
+    final Optional<Long> totalUpdateCount;
+    try {
+      if (isCompacted()) {
+        // Deletes go first, so that a record written after a delete of the same key is kept
+        totalDeleteCount = executeDeletes();
+        totalUpdateCount = writeUpdates(updateRecords);
+      } else {
+        // The batch is flushed before any record that follows a delete, so deletes go last
+        totalUpdateCount = writeUpdates(updateRecords);
+        totalDeleteCount = executeDeletes();
+      }
+    } catch (SQLException e) {
+      batchSize.onFailure(e);
+      throw e;
+    }
+    final long executeNanos = System.nanoTime() - executeStart;
+    metrics.recordFlush(records.size(), executeStart - bindStart, executeNanos);
+    batchSize.onFlush(records.size(), executeNanos);
+    if (!updateRecords.isEmpty()) {
+      dbDialect.afterWrite(connection, tableId, updateRecords);
+    }
 
-    final long expectedCount = updateRecordCount();
+    final long expectedCount = updateRecords.size();
     log.trace("{} records:{} resulting in totalUpdateCount:{} totalDeleteCount:{}",
         config.insertMode, records.size(), totalUpdateCount, totalDeleteCount
     );
@@ -211,6 +355,19 @@ public class BufferedRecords {
     return flushedRecords;
   }
 
+  /**
+   * @return an optional count of all updated rows or an empty optional if no info is available
+   */
+  private Optional<Long> writeUpdates(List<SinkRecord> updateRecords) throws SQLException {
+    if (nonNull(bulkWriter)) {
+      return Optional.of(updateRecords.isEmpty() ? 0L : bulkWriter.write(updateRecords));
+    } else if (nonNull(multiRowStatements)) {
+      return multiRowStatements.execute(updateRecords);
+    } else {
+      return executeUpdates();
+    }
+  }
+
   /**
    * @return an optional count of all updated rows or an empty optional if no info is available
    */
@@ -238,12 +395,116 @@ public class BufferedRecords {
     return totalDeleteCount;
   }
 
-  private long updateRecordCount() {
-    return records
-        .stream()
-        // ignore deletes
-        .filter(record -> nonNull(record.value()) || !config.deleteEnabled)
-        .count();
+  private boolean isDelete(SinkRecord record) {
+    return isNull(record.value()) && nonNull(deleteStatementBinder);
+  }
+
+  /**
+   * @return whether only the last of the buffered records for each key is written, which is the
+   *     case for upserts and updates of records with a key. Inserts are not compacted, so that
+   *     records with the same key still fail on the primary key.
+   */
+  private boolean isCompacted() {
+    return (config.insertMode == UPSERT || config.insertMode == UPDATE)
+        && (config.pkMode == PrimaryKeyMode.RECORD_KEY
+            || config.pkMode == PrimaryKeyMode.RECORD_VALUE);
+  }
+
+  /**
+   * Collapse repeated deletes of the same key to the last one, which deletes the same row.
+   */
+  private void compactDeletes(List<SinkRecord> deleteRecords) {
+    final Map<List<Object>, SinkRecord> lastDeletes = new LinkedHashMap<>();
+    final List<SinkRecord> unkeyed = new ArrayList<>();
+    for (SinkRecord record : deleteRecords) {
+      final List<Object> key = RecordKeys.keyValues(config.pkMode, fieldsMetadata, record);
+      if (isNull(key)) {
+        unkeyed.add(record);
+      } else {
+        lastDeletes.put(key, record);
+      }
+    }
+    log.debug("Compacted {} buffered deletes to {}", deleteRecords.size(),
+        unkeyed.size() + lastDeletes.size());
+    deleteRecords.clear();
+    deleteRecords.addAll(unkeyed);
+    deleteRecords.addAll(lastDeletes.values());
+  }
+
+  /**
+   * Collapse the buffered records to the last record for each key. If that record is not a delete
+   * but the key was deleted earlier in the batch, the last delete is kept as well, since
+   * the columns that the record does not write must not keep their previous values.
+   *
+   * @param batch         the buffered records
+   * @param deleteRecords the list to add the records to delete to
+   * @param updateRecords the list to add the records to write to
+   */
+  private void compact(
+      List<SinkRecord> batch,
+      List<SinkRecord> deleteRecords,
+      List<SinkRecord> updateRecords
+  ) {
+    final Map<List<Object>, SinkRecord> lastRecords = new LinkedHashMap<>();
+    final Map<List<Object>, SinkRecord> lastDeletes = new HashMap<>();
+    for (SinkRecord record : batch) {
+      final List<Object> key = RecordKeys.keyValues(config.pkMode, fieldsMetadata, record);
+      if (isNull(key)) {
+        updateRecords.add(record);
+        continue;
+      }
+      if (isDelete(record)) {
+        lastDeletes.put(key, record);
+      }
+      lastRecords.put(key, record);
+    }
+    for (Map.Entry<List<Object>, SinkRecord> entry : lastRecords.entrySet()) {
+      final SinkRecord record = entry.getValue();
+      if (isDelete(record)) {
+        deleteRecords.add(record);
+      } else {
+        final SinkRecord delete = lastDeletes.get(entry.getKey());
+        if (nonNull(delete)) {
+          deleteRecords.add(delete);
+        }
+        updateRecords.add(record);
+      }
+    }
+    log.debug(
+        "Compacted {} buffered records to {} deletes and {} writes",
+        batch.size(),
+        deleteRecords.size(),
+        updateRecords.size()
+    );
+  }
+
+  /**
+   * @return the number of prepared statements currently held open by this buffer
+   */
+  public int openStatementCount() {
+    int count = 0;
+    if (nonNull(updatePreparedStatement)) {
+      count++;
+    }
+    if (nonNull(deletePreparedStatement)) {
+      count++;
+    }
+    if (nonNull(multiRowStatements)) {
+      count += multiRowStatements.openStatementCount();
+    }
+    return count;
+  }
+
+  /**
+   * @return the number of times a record with a different but compatible value schema was added
+   *     to the buffered records instead of flushing them first
+   */
+  public long schemaFlushesAvoided() {
+    return schemaFlushesAvoided;
+  }
+
+  private boolean hasUpdateWriter() {
+    return nonNull(updateStatementBinder) || nonNull(bulkWriter) || nonNull(multiRowStatements);
   }
 
   public void close() throws SQLException {
@@ -260,6 +521,16 @@ public class BufferedRecords {
       deletePreparedStatement.close();
       deletePreparedStatement = null;
     }
+    if (nonNull(bulkWriter)) {
+      bulkWriter.close();
+      bulkWriter = null;
+    }
+    if (nonNull(multiRowStatements)) {
+      multiRowStatements.close();
+      multiRowStatements = null;
+    }
+    updateStatementBinder = null;
+    deleteStatementBinder = null;
   }
 
   private String getInsertSql() {
@@ -21,10 +21,14 @@ import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialect;
 import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
@@ -34,15 +38,162 @@ import io.confluent.connect.jdbc.util.TableDefinitions;
 import io.confluent.connect.jdbc.util.TableId;
 import io.confluent.connect.jdbc.util.TableType;
 
+/**
+ * Creates and amends the destination tables, and keeps their definitions.
+ *
+ * <p>The definitions of tables that were created or altered in a transaction that is not yet
+ * committed are kept apart for the connection of that transaction. They only replace the
+ * definitions in the {@link TableDefinitions}, which may be shared with other tasks, when
+ * {@link #committed} is called, and are discarded by {@link #rolledBack}.
+ */
 public class DbStructure {
   private static final Logger log = LoggerFactory.getLogger(DbStructure.class);
 
   private final DatabaseDialect dbDialect;
   private final TableDefinitions tableDefns;
+  private final SinkMetrics metrics;
+  private final Map<Connection, Map<TableId, TableDefinition>> uncommittedDefns =
+      new ConcurrentHashMap<>();
 
   public DbStructure(DatabaseDialect dbDialect) {
+    this(dbDialect, SinkMetrics.inMemory());
+  }
+
+  public DbStructure(DatabaseDialect dbDialect, SinkMetrics metrics) {
+    this(dbDialect, metrics, new TableDefinitions(dbDialect));
+  }
+
+  public DbStructure(
+      DatabaseDialect dbDialect,
+      SinkMetrics metrics,
+      TableDefinitions tableDefns
+  ) {
     this.dbDialect = dbDialect;
-    this.tableDefns = new TableDefinitions(dbDialect);
+    this.tableDefns = tableDefns;
+    this.metrics = metrics;
+  }
+
+  /**
+   * @return the definition of the table as seen by the transaction of the connection, or null if
+   *     there is no such table
+   * @throws SQLException if there is any problem using the connection
+   */
+  public TableDefinition tableDefinition(
+      final Connection connection,
+      final TableId tableId
+  ) throws SQLException {
+    final Map<TableId, TableDefinition> uncommitted = uncommittedDefns.get(connection);
+    if (uncommitted != null && uncommitted.containsKey(tableId)) {
+      return uncommitted.get(tableId);
+    }
+    return tableDefns.get(connection, tableId);
+  }
+
+  /**
+   * Make the definitions of the tables created or altered in the transaction of the connection
+   * available to all users of the cached definitions, once that transaction is committed. The
+   * dialect is told as well.
+   */
+  public void committed(final Connection connection) {
+    dbDialect.committed(connection);
+    final Map<TableId, TableDefinition> uncommitted = uncommittedDefns.remove(connection);
+    if (uncommitted == null) {
+      return;
+    }
+    for (Map.Entry<TableId, TableDefinition> entry : uncommitted.entrySet()) {
+      if (entry.getValue() != null) {
+        tableDefns.put(entry.getValue());
+      } else {
+        tableDefns.invalidate(entry.getKey());
+      }
+    }
+  }
+
+  /**
+   * Discard the definitions of the tables created or altered in the transaction of the
+   * connection, before that transaction is rolled back. The cached definitions of those tables
+   * are invalidated as well, so that they are read from the database again. The dialect is told
+   * as well.
+   */
+  public void rolledBack(final Connection connection) {
+    dbDialect.rolledBack(connection);
+    final Map<TableId, TableDefinition> uncommitted = uncommittedDefns.remove(connection);
+    if (uncommitted != null) {
+      uncommitted.keySet().forEach(tableDefns::invalidate);
+    }
+  }
+
+  /**
+   * @return the definitions of the tables created or altered so far in the transaction of the
+   *     connection, to pass to {@link #rolledBackTo} when rolling back to a savepoint set now
+   */
+  public Map<TableId, TableDefinition> uncommittedDefinitions(final Connection connection) {
+    final Map<TableId, TableDefinition> uncommitted = uncommittedDefns.get(connection);
+    return uncommitted == null ? new HashMap<>() : new HashMap<>(uncommitted);
+  }
+
+  /**
+   * Discard the definitions of the tables created or altered in the transaction of the connection
+   * since a savepoint, when the transaction is rolled back to that savepoint. The cached
+   * definitions of those tables are invalidated as well, so that they are read from the database
+   * again. The dialect is told as well.
+   *
+   * @param atSavepoint the result of {@link #uncommittedDefinitions} when the savepoint was set
+   */
+  public void rolledBackTo(
+      final Connection connection,
+      final Map<TableId, TableDefinition> atSavepoint
+  ) {
+    dbDialect.rolledBack(connection);
+    final Map<TableId, TableDefinition> uncommitted = uncommittedDefns.get(connection);
+    if (uncommitted == null) {
+      return;
+    }
+    for (TableId tableId : uncommitted.keySet()) {
+      if (!atSavepoint.containsKey(tableId)) {
+        tableDefns.invalidate(tableId);
+      }
+    }
+    uncommitted.clear();
+    uncommitted.putAll(atSavepoint);
+  }
+
+  /**
+   * Read the definitions of the tables that are not cached yet, with fewer round trips than one
+   * table at a time where the dialect supports it.
+   *
+   * @throws SQLException if there is any problem using the connection
+   */
+  public void prefetchTableDefinitions(
+      final Connection connection,
+      final Collection<TableId> tableIds
+  ) throws SQLException {
+    tableDefns.prefetch(connection, tableIds);
+  }
+
+  /**
+   * Take the DDL locks of the dialect for those of the given tables that do not exist or lack
+   * columns for some of the given fields, all at once before any of the tables is written. The
+   * locks are held until the transaction ends, so taking them one at a time as the tables are
+   * written could deadlock with another task that writes the same tables in another order.
+   *
+   * @param fieldNamesByTable the names of the fields to write to each table
+   * @throws SQLException if there is any problem using the connection
+   */
+  public void lockForDdl(
+      final Connection connection,
+      final Map<TableId, Set<String>> fieldNamesByTable
+  ) throws SQLException {
+    final List<TableId> tableIds = new ArrayList<>();
+    for (Map.Entry<TableId, Set<String>> entry : fieldNamesByTable.entrySet()) {
+      final TableDefinition tableDefn = tableDefinition(connection, entry.getKey());
+      if (tableDefn == null || !hasColumns(tableDefn.columnNames(), entry.getValue())) {
+        tableIds.add(entry.getKey());
+      }
+    }
+    if (!tableIds.isEmpty() && dbDialect.lockForDdl(connection, tableIds)) {
+      log.debug("Locked tables {} for DDL statements", tableIds);
+    }
   }
 
   /**
@@ -55,14 +206,15 @@ public class DbStructure {
       final TableId tableId,
       final FieldsMetadata fieldsMetadata
   ) throws SQLException {
-    if (tableDefns.get(connection, tableId) == null) {
+    if (tableDefinition(connection, tableId) == null
+        && lockAndGet(connection, tableId, null) == null) {
       // Table does not yet exist, so attempt to create it ...
       try {
         create(config, connection, tableId, fieldsMetadata);
       } catch (SQLException sqle) {
         log.warn("Create failed, will attempt amend if table already exists", sqle);
         try {
-          TableDefinition newDefn = tableDefns.refresh(connection, tableId);
+          TableDefinition newDefn = refresh(connection, tableId);
           if (newDefn == null) {
             throw sqle;
           }
@@ -91,7 +243,7 @@ public class DbStructure {
     List<String> sql = dbDialect.buildCreateTableStatements(tableId,
             fieldsMetadata.allFields.values());
     log.info("Creating table with sql: {}", sql);
-    dbDialect.applyDdlStatements(connection, sql);
+    applyDdlStatements(connection, tableId, sql);
   }
 
   /**
@@ -110,7 +262,7 @@ public class DbStructure {
     //   a case we check for here.
     //   We also don't check if the data types for columns that do line-up are compatible.
 
-    final TableDefinition tableDefn = tableDefns.get(connection, tableId);
+    final TableDefinition tableDefn = tableDefinition(connection, tableId);
 
     // FIXME: SQLite JDBC driver seems to not always return the PK column names?
     //    if (!tableMetadata.getPrimaryKeyColumnNames().equals(fieldsMetadata.keyFieldNames)) {
@@ -120,7 +272,7 @@ public class DbStructure {
     //      ));
     //    }
 
-    final Set<SinkRecordField> missingFields = missingFields(
+    Set<SinkRecordField> missingFields = missingFields(
         fieldsMetadata.allFields.values(),
         tableDefn.columnNames()
     );
@@ -130,7 +282,68 @@ public class DbStructure {
     }
 
     // At this point there are missing fields
-    TableType type = tableDefn.type();
+    final TableType type = tableDefn.type();
+    checkAmendable(config, tableId, type, missingFields);
+
+    final TableDefinition lockedDefn = lockAndGet(connection, tableId, tableDefn);
+    if (lockedDefn != tableDefn) {
+      missingFields = missingFields(fieldsMetadata.allFields.values(), lockedDefn.columnNames());
+      if (missingFields.isEmpty()) {
+        log.info("Fields were added to {} {} by another task", type, tableId);
+        return false;
+      }
+    }
+
+    final List<String> amendTableQueries = dbDialect.buildAmendTableStatements(
+        tableId,
+        missingFields,
+        fieldsMetadata.allFields.values()
+    );
+    log.info(
+        "Amending {} to add missing fields:{} maxRetries:{} with SQL: {}",
+        type,
+        missingFields,
+        maxRetries,
+        amendTableQueries
+    );
+    try {
+      applyDdlStatements(connection, tableId, amendTableQueries);
+    } catch (SQLException sqle) {
+      if (maxRetries <= 0) {
+        throw new ConnectException(
+            String.format(
+                "Failed to amend %s '%s' to add missing fields: %s",
+                type,
+                tableId,
+                missingFields
+            ),
+            sqle
+        );
+      }
+      log.warn("Amend failed, re-attempting", sqle);
+      refresh(connection, tableId);
+      // Perhaps there was a race with other tasks to add the columns
+      return amendIfNecessary(
+          config,
+          connection,
+          tableId,
+          fieldsMetadata,
+          maxRetries - 1
+      );
+    }
+
+    return true;
+  }
+
+  /**
+   * @throws ConnectException if the missing fields cannot or may not be added to the table
+   */
+  private void checkAmendable(
+      final JdbcSinkConfig config,
+      final TableId tableId,
+      final TableType type,
+      final Set<SinkRecordField> missingFields
+  ) {
     switch (type) {
       case TABLE:
         // Rather than embed the logic and change lots of lines, just break out
@@ -168,45 +381,94 @@ public class DbStructure {
           missingFields
       ));
     }
+  }
 
-    final List<String> amendTableQueries = dbDialect.buildAlterTable(tableId, missingFields);
-    log.info(
-        "Amending {} to add missing fields:{} maxRetries:{} with SQL: {}",
-        type,
-        missingFields,
-        maxRetries,
-        amendTableQueries
-    );
-    try {
-      dbDialect.applyDdlStatements(connection, amendTableQueries);
-    } catch (SQLException sqle) {
-      if (maxRetries <= 0) {
-        throw new ConnectException(
-            String.format(
-                "Failed to amend %s '%s' to add missing fields: %s",
-                type,
-                tableId,
-                missingFields
-            ),
-            sqle
-        );
-      }
-      log.warn("Amend failed, re-attempting", sqle);
-      tableDefns.refresh(connection, tableId);
-      // Perhaps there was a race with other tasks to add the columns
-      return amendIfNecessary(
-          config,
-          connection,
-          tableId,
-          fieldsMetadata,
-          maxRetries - 1
-      );
+  /**
+   * Take the lock of the dialect for DDL statements on the given table, if it has one, and read
+   * the definition of the table again once the lock is held.
+   *
+   * @param known the definition read before taking the lock; may be null
+   * @return the definition of the table once the lock is held, or null if there is no such table
+   * @throws SQLException if there is any problem using the connection
+   */
+  private TableDefinition lockAndGet(
+      final Connection connection,
+      final TableId tableId,
+      final TableDefinition known
+  ) throws SQLException {
+    if (!dbDialect.lockForDdl(connection, tableId)) {
+      return known;
+    }
+    // Another task may have changed the table while this one waited for the lock
+    if (isUncommitted(connection, tableId)) {
+      return refresh(connection, tableId);
     }
+    tableDefns.invalidate(tableId);
+    return tableDefns.get(connection, tableId);
+  }
 
-    tableDefns.refresh(connection, tableId);
+  /**
+   * Read the definition of the table again. The definition of a table that was created or
+   * altered in the transaction of the connection is kept with that transaction, as it does not
+   * exist for other connections until the transaction is committed.
+   *
+   * @return the definition of the table, or null if there is no such table
+   * @throws SQLException if there is any problem using the connection
+   */
+  private TableDefinition refresh(
+      final Connection connection,
+      final TableId tableId
+  ) throws SQLException {
+    if (!isUncommitted(connection, tableId)) {
+      return tableDefns.refresh(connection, tableId);
+    }
+    final TableDefinition dbTable = dbDialect.describeTable(connection, tableId);
+    uncommittedDefns.get(connection).put(tableId, dbTable);
+    return dbTable;
+  }
+
+  /**
+   * @return whether there is a column for each of the fields, ignoring case like
+   *     {@link #missingFields}
+   */
+  private static boolean hasColumns(final Set<String> columnNames, final Set<String> fieldNames) {
+    Set<String> columnNamesLowerCase = null;
+    for (String fieldName : fieldNames) {
+      if (columnNames.contains(fieldName)) {
+        continue;
+      }
+      if (columnNamesLowerCase == null) {
+        columnNamesLowerCase = new HashSet<>();
+        for (String columnName : columnNames) {
+          columnNamesLowerCase.add(columnName.toLowerCase());
+        }
+      }
+      if (!columnNamesLowerCase.contains(fieldName.toLowerCase())) {
+        return false;
+      }
+    }
     return true;
   }
 
+  private boolean isUncommitted(final Connection connection, final TableId tableId) {
+    final Map<TableId, TableDefinition> uncommitted = uncommittedDefns.get(connection);
+    return uncommitted != null && uncommitted.containsKey(tableId);
+  }
+
+  private void applyDdlStatements(
+      final Connection connection,
+      final TableId tableId,
+      final List<String> statements
+  ) throws SQLException {
+    final long start = System.nanoTime();
+    // The table may already be changed by the statements that succeed before one fails, so its
+    // definition is kept with the transaction from now on
+    uncommittedDefns.computeIfAbsent(connection, c -> new HashMap<>()).put(tableId, null);
+    dbDialect.applyDdlStatements(connection, statements);
+    metrics.table(tableId).recordDdl(System.nanoTime() - start);
+    refresh(connection, tableId);
+  }
+
   Set<SinkRecordField> missingFields(
       Collection<SinkRecordField> fields,
       Set<String> dbColumnNames
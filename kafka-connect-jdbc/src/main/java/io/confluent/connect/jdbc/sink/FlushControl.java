@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.confluent.connect.jdbc.util.TableId;
+
+/**
+ * The batch sizes of the tables of a task and the number of tables it may flush at a time. It
+ * outlives the writers of the task, so that what was learned about the database is kept when a
+ * writer is replaced after a failure.
+ *
+ * <p>With {@code adaptive.flush.enabled}, the number of concurrent flushes starts at
+ * {@code table.flush.parallelism}. It is halved when a flush is slow or waits for a lock, and
+ * grows by one after as many flushes as the current limit completed without either. Otherwise,
+ * it is always {@code table.flush.parallelism}. The batch size of each table is controlled by
+ * {@link AdaptiveBatchSize}. The batch sizes of at most {@code table.metadata.max.tables} tables
+ * are kept, and the least recently used one is dropped to make room for another table.
+ */
+class FlushControl {
+
+  private final JdbcSinkConfig config;
+  private final SinkMetrics metrics;
+  private final Map<TableId, AdaptiveBatchSize> batchSizes =
+      new LinkedHashMap<>(16, 0.75f, true);
+  private int concurrencyLimit;
+  private int inFlight;
+  private int uncongestedFlushes;
+
+  FlushControl(JdbcSinkConfig config, SinkMetrics metrics) {
+    this.config = config;
+    this.metrics = metrics;
+    this.concurrencyLimit = config.tableFlushParallelism;
+    metrics.recordFlushConcurrencyLimit(concurrencyLimit);
+  }
+
+  /**
+   * @return the batch size of the given table, which is created on first use
+   */
+  AdaptiveBatchSize batchSize(TableId tableId) {
+    synchronized (batchSizes) {
+      AdaptiveBatchSize batchSize = batchSizes.get(tableId);
+      if (batchSize == null) {
+        batchSize = new AdaptiveBatchSize(config, metrics.table(tableId));
+        batchSizes.put(tableId, batchSize);
+        final Iterator<TableId> eldest = batchSizes.keySet().iterator();
+        while (batchSizes.size() > config.tableMetadataMaxTables) {
+          eldest.next();
+          eldest.remove();
+        }
+      }
+      return batchSize;
+    }
+  }
+
+  /**
+   * @return the number of tables that may be flushed at a time
+   */
+  synchronized int concurrencyLimit() {
+    return concurrencyLimit;
+  }
+
+  /**
+   * Wait until another table may be flushed.
+   */
+  synchronized void acquire() throws InterruptedException {
+    while (inFlight >= concurrencyLimit) {
+      wait();
+    }
+    inFlight++;
+  }
+
+  /**
+   * Record that a flush completed.
+   *
+   * @param congested whether the flush was slow or waited for a lock
+   */
+  synchronized void release(boolean congested) {
+    inFlight--;
+    if (config.adaptiveFlushEnabled) {
+      if (congested) {
+        uncongestedFlushes = 0;
+        resize(concurrencyLimit / 2);
+      } else if (++uncongestedFlushes >= concurrencyLimit) {
+        uncongestedFlushes = 0;
+        resize(concurrencyLimit + 1);
+      }
+    }
+    notifyAll();
+  }
+
+  private void resize(int limit) {
+    concurrencyLimit = Math.min(config.tableFlushParallelism, Math.max(1, limit));
+    metrics.recordFlushConcurrencyLimit(concurrencyLimit);
+  }
+}
@@ -15,15 +15,28 @@
 
 package io.confluent.connect.jdbc.sink;
 
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.errors.ConnectException;
 import org.apache.kafka.connect.sink.SinkRecord;
 
-import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -39,48 +52,199 @@ public class JdbcDbWriter {
 
   private final JdbcSinkConfig config;
   private final DatabaseDialect dbDialect;
-  private final DbStructure dbStructure;
+  private final SinkMetrics metrics;
+  private final FlushControl flushControl;
   final CachedConnectionProvider cachedConnectionProvider;
 
+  /**
+   * All connections of this writer with their table writers. The first one is used for writing
+   * all tables in a single transaction; when tables are flushed concurrently, each flush takes
+   * an idle one from {@link #idleWriters} for the duration of its transaction.
+   */
+  private final List<TableWriters> tableWriters = new ArrayList<>();
+  private final BlockingQueue<TableWriters> idleWriters;
+  private final ExecutorService flushExecutor;
+
   JdbcDbWriter(final JdbcSinkConfig config, DatabaseDialect dbDialect, DbStructure dbStructure) {
+    this(config, dbDialect, dbStructure, SinkMetrics.inMemory());
+  }
+
+  JdbcDbWriter(
+      final JdbcSinkConfig config,
+      DatabaseDialect dbDialect,
+      DbStructure dbStructure,
+      SinkMetrics metrics
+  ) {
+    this(config, dbDialect, dbStructure, metrics, new FlushControl(config, metrics), null);
+  }
+
+  /**
+   * @param committedOffsets the next offsets to consume that are committed to the offsets table,
+   *     kept up to date by this writer when records are delivered exactly once; null otherwise
+   */
+  JdbcDbWriter(
+      final JdbcSinkConfig config,
+      DatabaseDialect dbDialect,
+      DbStructure dbStructure,
+      SinkMetrics metrics,
+      FlushControl flushControl,
+      Map<TopicPartition, Long> committedOffsets
+  ) {
     this.config = config;
     this.dbDialect = dbDialect;
-    this.dbStructure = dbStructure;
+    this.metrics = metrics;
+    this.flushControl = flushControl;
 
-    this.cachedConnectionProvider = new CachedConnectionProvider(this.dbDialect) {
-      @Override
-      protected void onConnect(Connection connection) throws SQLException {
-        log.info("JdbcDbWriter Connected");
-        connection.setAutoCommit(false);
-      }
-    };
+    for (int i = 0; i < config.tableFlushParallelism; i++) {
+      tableWriters.add(new TableWriters(
+          config,
+          dbDialect,
+          dbStructure,
+          metrics,
+          flushControl,
+          committedOffsets
+      ));
+    }
+    this.cachedConnectionProvider = tableWriters.get(0).cachedConnectionProvider;
+    if (config.tableFlushParallelism > 1) {
+      this.idleWriters = new ArrayBlockingQueue<>(tableWriters.size(), false, tableWriters);
+      final AtomicInteger threadCount = new AtomicInteger();
+      this.flushExecutor = Executors.newFixedThreadPool(config.tableFlushParallelism, r -> {
+        Thread thread = new Thread(r, "jdbc-sink-flush-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    } else {
+      this.idleWriters = null;
+      this.flushExecutor = null;
+    }
   }
 
+  /**
+   * Write the records to their destination tables.
+   *
+   * @throws TableWriteException if the records of some tables could not be written while those
+   *     of the other tables were committed; only when tables are flushed concurrently
+   * @throws SQLException if the records could not be written; none of them are committed
+   */
   void write(final Collection<SinkRecord> records) throws SQLException {
-    final Connection connection = cachedConnectionProvider.getConnection();
-
-    final Map<TableId, BufferedRecords> bufferByTable = new HashMap<>();
+    final Map<TableId, List<SinkRecord>> recordsByTable = new LinkedHashMap<>();
     for (SinkRecord record : records) {
-      final TableId tableId = destinationTable(record);
-      BufferedRecords buffer = bufferByTable.get(tableId);
-      if (buffer == null) {
-        buffer = new BufferedRecords(config, tableId, dbDialect, dbStructure, connection);
-        bufferByTable.put(tableId, buffer);
+      recordsByTable.computeIfAbsent(destinationTable(record), t -> new ArrayList<>()).add(record);
+    }
+    write(recordsByTable);
+  }
+
+  /**
+   * Write records that are already grouped by their destination table.
+   *
+   * @see #write(Collection)
+   */
+  void write(final Map<TableId, List<SinkRecord>> recordsByTable) throws SQLException {
+    final long flushCount = metrics.flushCount();
+    if (flushExecutor == null) {
+      tableWriters.get(0).write(recordsByTable);
+    } else {
+      writeConcurrently(recordsByTable);
+    }
+    metrics.recordFlushesPerWrite(metrics.flushCount() - flushCount);
+  }
+
+  /**
+   * Flush each table in its own transaction, with at most the configured number of tables at a
+   * time, or fewer while the flush control has reduced it. Waits for all tables, so that the
+   * failure of one does not affect the others.
+   */
+  private void writeConcurrently(
+      final Map<TableId, List<SinkRecord>> recordsByTable
+  ) throws SQLException {
+    final Map<TableId, Future<Void>> flushes = new LinkedHashMap<>();
+    for (Map.Entry<TableId, List<SinkRecord>> entry : recordsByTable.entrySet()) {
+      final TableId tableId = entry.getKey();
+      final Map<TableId, List<SinkRecord>> tableRecords =
+          Collections.singletonMap(tableId, entry.getValue());
+      flushes.put(tableId, flushExecutor.submit(() -> {
+        flushControl.acquire();
+        boolean congested = false;
+        try {
+          final TableWriters writers = idleWriters.take();
+          try {
+            writers.write(tableRecords);
+          } finally {
+            idleWriters.add(writers);
+          }
+          congested = flushControl.batchSize(tableId).isCongested();
+        } catch (SQLException e) {
+          congested = AdaptiveBatchSize.isLockWait(e);
+          throw e;
+        } finally {
+          flushControl.release(congested);
+        }
+        return null;
+      }));
+    }
+
+    final Set<TableId> failedTables = new LinkedHashSet<>();
+    final Map<TopicPartition, Long> failedOffsets = new HashMap<>();
+    SQLException firstFailure = null;
+    RuntimeException firstError = null;
+    for (Map.Entry<TableId, Future<Void>> entry : flushes.entrySet()) {
+      final TableId tableId = entry.getKey();
+      try {
+        entry.getValue().get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ConnectException("Interrupted while flushing table " + tableId, e);
+      } catch (ExecutionException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof SQLException) {
+          log.warn("Failed to write records to table ID: {}", tableId, cause);
+          failedTables.add(tableId);
+          for (SinkRecord record : recordsByTable.get(tableId)) {
+            failedOffsets.merge(
+                new TopicPartition(record.topic(), record.kafkaPartition()),
+                record.kafkaOffset(),
+                Math::min
+            );
+          }
+          if (firstFailure == null) {
+            firstFailure = (SQLException) cause;
+          }
+        } else if (firstError == null) {
+          firstError = cause instanceof RuntimeException
+                       ? (RuntimeException) cause
+                       : new ConnectException(cause);
+        }
       }
-      buffer.add(record);
     }
-    for (Map.Entry<TableId, BufferedRecords> entry : bufferByTable.entrySet()) {
-      TableId tableId = entry.getKey();
-      BufferedRecords buffer = entry.getValue();
-      log.debug("Flushing records in JDBC Writer for table ID: {}", tableId);
-      buffer.flush();
-      buffer.close();
+    if (firstError != null) {
+      throw firstError;
+    }
+    if (firstFailure != null) {
+      throw new TableWriteException(failedTables, failedOffsets, firstFailure);
     }
-    connection.commit();
+  }
+
+  /**
+   * @return the cached writer for the given table, or null if there is none
+   */
+  BufferedRecords cachedWriter(TableId tableId) {
+    for (TableWriters writers : tableWriters) {
+      final BufferedRecords buffer = writers.cachedWriter(tableId);
+      if (buffer != null) {
+        return buffer;
+      }
+    }
+    return null;
   }
 
   void closeQuietly() {
-    cachedConnectionProvider.close();
+    if (flushExecutor != null) {
+      flushExecutor.shutdownNow();
+    }
+    for (TableWriters writers : tableWriters) {
+      writers.closeQuietly();
+    }
   }
 
   TableId destinationTable(SinkRecord record) {
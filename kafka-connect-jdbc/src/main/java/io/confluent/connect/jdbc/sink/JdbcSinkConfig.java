@@ -20,11 +20,15 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 import io.confluent.connect.jdbc.source.JdbcSourceConnectorConfig;
@@ -59,6 +63,17 @@ public class JdbcSinkConfig extends AbstractConfig {
     RECORD_VALUE;
   }
 
+  public enum CopyFormat {
+    NONE,
+    TEXT,
+    BINARY;
+  }
+
+  public enum UpsertStrategy {
+    STATEMENT,
+    STAGING;
+  }
+
   public static final List<String> DEFAULT_KAFKA_PK_NAMES = Collections.unmodifiableList(
       Arrays.asList(
           "__connect_topic",
@@ -109,6 +124,25 @@ public class JdbcSinkConfig extends AbstractConfig {
       "The maximum number of times to retry on errors before failing the task.";
   private static final String MAX_RETRIES_DISPLAY = "Maximum Retries";
 
+  public static final String BAD_RECORDS_ISOLATE = "bad.records.isolate";
+  private static final boolean BAD_RECORDS_ISOLATE_DEFAULT = false;
+  private static final String BAD_RECORDS_ISOLATE_DOC =
+      "Whether to find the records that cannot be written when writing a table fails with a data "
+      + "exception or constraint violation (SQLSTATE class 22 or 23), rather than retrying the "
+      + "whole batch. The records are rolled back to a savepoint and written again in halves, "
+      + "until the failing records are found. Those are logged and written to ``"
+      + "bad.records.table`` if set, and the other records are committed.";
+  private static final String BAD_RECORDS_ISOLATE_DISPLAY = "Isolate Bad Records";
+
+  public static final String BAD_RECORDS_TABLE = "bad.records.table";
+  private static final String BAD_RECORDS_TABLE_DEFAULT = "";
+  private static final String BAD_RECORDS_TABLE_DOC =
+      "The table to write the records that ``" + BAD_RECORDS_ISOLATE + "`` found to, with their "
+      + "topic, partition, offset, key, value and error, in the same transaction as the other "
+      + "records. It is created if ``auto.create`` is enabled. By default, bad records are only "
+      + "logged.";
+  private static final String BAD_RECORDS_TABLE_DISPLAY = "Bad Records Table";
+
   public static final String RETRY_BACKOFF_MS = "retry.backoff.ms";
   private static final int RETRY_BACKOFF_MS_DEFAULT = 3000;
   private static final String RETRY_BACKOFF_MS_DOC =
@@ -122,6 +156,19 @@ public class JdbcSinkConfig extends AbstractConfig {
       + " table, when possible.";
   private static final String BATCH_SIZE_DISPLAY = "Batch Size";
 
+  public static final String PREPARED_STATEMENT_CACHE_SIZE = "prepared.statement.cache.size";
+  private static final int PREPARED_STATEMENT_CACHE_SIZE_DEFAULT = 200;
+  private static final String PREPARED_STATEMENT_CACHE_SIZE_DOC =
+      "The maximum number of prepared statements that are kept open across ``put()`` calls. "
+      + "Writers for each destination table keep their statements until the record schema "
+      + "changes, the connection is re-established, or the least recently used writers are "
+      + "evicted to stay within this limit. The limit applies to the whole task: with a "
+      + "``table.flush.parallelism`` above 1, each connection may keep an equal share of it, and "
+      + "a table written on several connections has statements open on each of them. Set to 0 "
+      + "to close all statements after every write.";
+  private static final String PREPARED_STATEMENT_CACHE_SIZE_DISPLAY =
+      "Prepared Statement Cache Size";
+
   public static final String DELETE_ENABLED = "delete.enabled";
   private static final String DELETE_ENABLED_DEFAULT = "false";
   private static final String DELETE_ENABLED_DOC =
@@ -129,6 +176,15 @@ public class JdbcSinkConfig extends AbstractConfig {
       + "to be ``record_key``.";
   private static final String DELETE_ENABLED_DISPLAY = "Enable deletes";
 
+  public static final String DELETE_COMPACTION_ENABLED = "delete.compaction.enabled";
+  private static final boolean DELETE_COMPACTION_ENABLED_DEFAULT = false;
+  private static final String DELETE_COMPACTION_ENABLED_DOC =
+      "Whether to collapse repeated deletes of the same key within a batch into a single delete "
+      + "in ``insert`` mode. Inserted records are never compacted in ``insert`` mode, so that "
+      + "records with the same key still fail on the primary key. Batches in ``upsert`` and "
+      + "``update`` mode are always compacted to the last record of each key.";
+  private static final String DELETE_COMPACTION_ENABLED_DISPLAY = "Compact Deletes";
+
   public static final String AUTO_CREATE = "auto.create";
   private static final String AUTO_CREATE_DEFAULT = "true";
   private static final String AUTO_CREATE_DOC =
@@ -143,6 +199,186 @@ public class JdbcSinkConfig extends AbstractConfig {
       + "to the record schema by issuing ``ALTER``.";
   private static final String AUTO_EVOLVE_DISPLAY = "Auto-Evolve";
 
+  public static final String TABLE_METADATA_TTL_MS = "table.metadata.ttl.ms";
+  private static final long TABLE_METADATA_TTL_MS_DEFAULT = 10 * 60 * 1000L;
+  private static final String TABLE_METADATA_TTL_MS_DOC =
+      "How long in milliseconds the definition of a destination table is cached before it is "
+      + "read from the database again, to notice changes made by other clients. The cache is "
+      + "shared by all running tasks in the worker that connect to the same database with the same "
+      + "user and the same cache settings, and is updated when a task creates or alters a table.";
+  private static final String TABLE_METADATA_TTL_MS_DISPLAY = "Table Metadata TTL (millis)";
+
+  public static final String TABLE_METADATA_MAX_TABLES = "table.metadata.max.tables";
+  private static final int TABLE_METADATA_MAX_TABLES_DEFAULT = 10000;
+  private static final String TABLE_METADATA_MAX_TABLES_DOC =
+      "The maximum number of table definitions in the cache described by ``"
+      + TABLE_METADATA_TTL_MS + "``. The least recently used definitions are evicted first. It "
+      + "also bounds the number of tables whose metrics and adaptive batch sizes each task keeps.";
+  private static final String TABLE_METADATA_MAX_TABLES_DISPLAY = "Table Metadata Cache Size";
+
+  public static final String HYPERTABLE_TIME_COLUMN = "hypertable.time.column";
+  private static final String HYPERTABLE_TIME_COLUMN_DEFAULT = "time";
+  private static final String HYPERTABLE_TIME_COLUMN_DOC =
+      "The column that the TimescaleDB dialect partitions new hypertables by.";
+  private static final String HYPERTABLE_TIME_COLUMN_DISPLAY = "Hypertable Time Column";
+
+  public static final String HYPERTABLE_TIME_COLUMN_OVERRIDES = "hypertable.time.column.overrides";
+  private static final String HYPERTABLE_TIME_COLUMN_OVERRIDES_DEFAULT = "";
+  private static final String HYPERTABLE_TIME_COLUMN_OVERRIDES_DOC =
+      "List of ``<table>=<column>`` pairs that replace ``" + HYPERTABLE_TIME_COLUMN + "`` for "
+      + "the given tables. The table is named without its schema, which is the topic name with "
+      + "the default ``" + TABLE_NAME_FORMAT + "``.";
+  private static final String HYPERTABLE_TIME_COLUMN_OVERRIDES_DISPLAY =
+      "Hypertable Time Column Overrides";
+
+  public static final String CHUNK_TIME_INTERVAL_AUTO = "auto";
+
+  public static final String HYPERTABLE_CHUNK_TIME_INTERVAL = "hypertable.chunk.time.interval";
+  private static final String HYPERTABLE_CHUNK_TIME_INTERVAL_DEFAULT = "86400000";
+  private static final String HYPERTABLE_CHUNK_TIME_INTERVAL_DOC =
+      "The time range in milliseconds that each chunk of a new hypertable covers, or ``"
+      + CHUNK_TIME_INTERVAL_AUTO + "`` to choose it from the rate at which the table is written. "
+      + "Automatic hypertables are created with chunks of one day. Once enough rows have been "
+      + "written, the interval is set so that a chunk holds about ``"
+      + "hypertable.chunk.target.bytes``, also on hypertables that already existed.";
+  private static final String HYPERTABLE_CHUNK_TIME_INTERVAL_DISPLAY =
+      "Hypertable Chunk Time Interval";
+
+  public static final String HYPERTABLE_CHUNK_TIME_INTERVAL_OVERRIDES =
+      "hypertable.chunk.time.interval.overrides";
+  private static final String HYPERTABLE_CHUNK_TIME_INTERVAL_OVERRIDES_DEFAULT = "";
+  private static final String HYPERTABLE_CHUNK_TIME_INTERVAL_OVERRIDES_DOC =
+      "List of ``<table>=<interval>`` pairs that replace ``" + HYPERTABLE_CHUNK_TIME_INTERVAL
+      + "`` for the given tables, with the interval in milliseconds or ``"
+      + CHUNK_TIME_INTERVAL_AUTO + "``. For example, ``questionnaire_response=2592000000,"
+      + "android_empatica_e4_acceleration=auto``.";
+  private static final String HYPERTABLE_CHUNK_TIME_INTERVAL_OVERRIDES_DISPLAY =
+      "Hypertable Chunk Time Interval Overrides";
+
+  public static final String HYPERTABLE_CHUNK_TARGET_BYTES = "hypertable.chunk.target.bytes";
+  private static final long HYPERTABLE_CHUNK_TARGET_BYTES_DEFAULT = 256 * 1024 * 1024L;
+  private static final String HYPERTABLE_CHUNK_TARGET_BYTES_DOC =
+      "The size in bytes of the rows of a chunk that automatic chunk time intervals aim for, as "
+      + "estimated from the written records. Chunks should fit in memory together with their "
+      + "indexes and the chunks of other hypertables that are written at the same time.";
+  private static final String HYPERTABLE_CHUNK_TARGET_BYTES_DISPLAY =
+      "Hypertable Chunk Target Size (bytes)";
+
+  public static final String HYPERTABLE_COMPRESS_AFTER_MS = "hypertable.compress.after.ms";
+  private static final long HYPERTABLE_COMPRESS_AFTER_MS_DEFAULT = -1L;
+  private static final String HYPERTABLE_COMPRESS_AFTER_MS_DOC =
+      "The age in milliseconds after which chunks of hypertables created by the connector are "
+      + "compressed by a TimescaleDB compression policy, or -1 to not enable compression.";
+  private static final String HYPERTABLE_COMPRESS_AFTER_MS_DISPLAY = "Hypertable Compress After";
+
+  public static final String HYPERTABLE_COMPRESS_AFTER_MS_OVERRIDES =
+      "hypertable.compress.after.ms.overrides";
+  private static final String HYPERTABLE_COMPRESS_AFTER_MS_OVERRIDES_DEFAULT = "";
+  private static final String HYPERTABLE_COMPRESS_AFTER_MS_OVERRIDES_DOC =
+      "List of ``<table>=<milliseconds>`` pairs that replace ``" + HYPERTABLE_COMPRESS_AFTER_MS
+      + "`` for the given tables.";
+  private static final String HYPERTABLE_COMPRESS_AFTER_MS_OVERRIDES_DISPLAY =
+      "Hypertable Compress After Overrides";
+
+  public static final String HYPERTABLE_COMPRESS_SEGMENT_BY = "hypertable.compress.segment.by";
+  private static final String HYPERTABLE_COMPRESS_SEGMENT_BY_DEFAULT = "";
+  private static final String HYPERTABLE_COMPRESS_SEGMENT_BY_DOC =
+      "List of columns that compressed hypertables are segmented by. If empty, the primary key "
+      + "columns other than the time column are used.";
+  private static final String HYPERTABLE_COMPRESS_SEGMENT_BY_DISPLAY =
+      "Hypertable Compression Segment By";
+
+  public static final String HYPERTABLE_COMPRESS_ORDER_BY = "hypertable.compress.order.by";
+  private static final String HYPERTABLE_COMPRESS_ORDER_BY_DEFAULT = "";
+  private static final String HYPERTABLE_COMPRESS_ORDER_BY_DOC =
+      "The ``ORDER BY`` expression of the rows in a compressed segment of a hypertable, for "
+      + "example ``\"time\" DESC``. If empty, TimescaleDB orders by the time column.";
+  private static final String HYPERTABLE_COMPRESS_ORDER_BY_DISPLAY =
+      "Hypertable Compression Order By";
+
+  public static final String HYPERTABLE_RETENTION_MS = "hypertable.retention.ms";
+  private static final long HYPERTABLE_RETENTION_MS_DEFAULT = -1L;
+  private static final String HYPERTABLE_RETENTION_MS_DOC =
+      "The age in milliseconds after which chunks of hypertables created by the connector are "
+      + "dropped by a TimescaleDB retention policy, or -1 to keep them.";
+  private static final String HYPERTABLE_RETENTION_MS_DISPLAY = "Hypertable Retention";
+
+  public static final String HYPERTABLE_RETENTION_MS_OVERRIDES =
+      "hypertable.retention.ms.overrides";
+  private static final String HYPERTABLE_RETENTION_MS_OVERRIDES_DEFAULT = "";
+  private static final String HYPERTABLE_RETENTION_MS_OVERRIDES_DOC =
+      "List of ``<table>=<milliseconds>`` pairs that replace ``" + HYPERTABLE_RETENTION_MS
+      + "`` for the given tables.";
+  private static final String HYPERTABLE_RETENTION_MS_OVERRIDES_DISPLAY =
+      "Hypertable Retention Overrides";
+
+  public static final String HYPERTABLE_AGGREGATE_TABLES = "hypertable.aggregate.tables";
+  private static final String HYPERTABLE_AGGREGATE_TABLES_DEFAULT = "";
+  private static final String HYPERTABLE_AGGREGATE_TABLES_DOC =
+      "List of tables, named without their schema, for which the TimescaleDB dialect creates "
+      + "continuous aggregates when it creates the hypertable. Each aggregate is named after the "
+      + "table and its bucket width, for example ``heart_rate_1h``, and holds the average, "
+      + "minimum and maximum of each numeric column that is not part of the primary key, grouped "
+      + "by the other primary key columns. Buckets that are not materialized yet are aggregated "
+      + "from the table when queried. When numeric columns are added to the table, its aggregates "
+      + "are dropped and created again, which discards their materialized buckets. A one-off job "
+      + "then materializes them again, except for data that a retention policy already dropped.";
+  private static final String HYPERTABLE_AGGREGATE_TABLES_DISPLAY = "Continuous Aggregate Tables";
+
+  public static final String HYPERTABLE_AGGREGATE_BUCKETS_MS = "hypertable.aggregate.buckets.ms";
+  private static final String HYPERTABLE_AGGREGATE_BUCKETS_MS_DEFAULT = "60000,3600000";
+  private static final String HYPERTABLE_AGGREGATE_BUCKETS_MS_DOC =
+      "List of the time bucket widths in milliseconds of the continuous aggregates of each table "
+      + "in ``" + HYPERTABLE_AGGREGATE_TABLES + "``.";
+  private static final String HYPERTABLE_AGGREGATE_BUCKETS_MS_DISPLAY =
+      "Continuous Aggregate Buckets";
+
+  public static final String HYPERTABLE_AGGREGATE_REFRESH_WINDOW_MS =
+      "hypertable.aggregate.refresh.window.ms";
+  private static final long HYPERTABLE_AGGREGATE_REFRESH_WINDOW_MS_DEFAULT =
+      7 * 24 * 60 * 60 * 1000L;
+  private static final String HYPERTABLE_AGGREGATE_REFRESH_WINDOW_MS_DOC =
+      "How far back in milliseconds the refresh policy of a continuous aggregate updates it, to "
+      + "include late data. Each aggregate is refreshed once per bucket width. Late data that is "
+      + "older than the window is not included in the aggregate.";
+  private static final String HYPERTABLE_AGGREGATE_REFRESH_WINDOW_MS_DISPLAY =
+      "Continuous Aggregate Refresh Window";
+
+  public static final String HYPERTABLE_PARTITION_COLUMN = "hypertable.partition.column";
+  private static final String HYPERTABLE_PARTITION_COLUMN_DEFAULT = "";
+  private static final String HYPERTABLE_PARTITION_COLUMN_DOC =
+      "The column that the TimescaleDB dialect hash partitions new hypertables by, in addition to "
+      + "the time column, for example ``userId``. Records of the same value are then written "
+      + "together in each batch, so that parallel writers land in different chunks. The column "
+      + "must be part of the primary key, if the table has one. By default, hypertables are only "
+      + "partitioned by time.";
+  private static final String HYPERTABLE_PARTITION_COLUMN_DISPLAY = "Hypertable Partition Column";
+
+  public static final String HYPERTABLE_PARTITION_COLUMN_OVERRIDES =
+      "hypertable.partition.column.overrides";
+  private static final String HYPERTABLE_PARTITION_COLUMN_OVERRIDES_DEFAULT = "";
+  private static final String HYPERTABLE_PARTITION_COLUMN_OVERRIDES_DOC =
+      "List of ``<table>=<column>`` pairs that replace ``" + HYPERTABLE_PARTITION_COLUMN
+      + "`` for the given tables.";
+  private static final String HYPERTABLE_PARTITION_COLUMN_OVERRIDES_DISPLAY =
+      "Hypertable Partition Column Overrides";
+
+  public static final String HYPERTABLE_PARTITIONS = "hypertable.partitions";
+  private static final int HYPERTABLE_PARTITIONS_DEFAULT = 4;
+  private static final String HYPERTABLE_PARTITIONS_DOC =
+      "The number of hash partitions of new hypertables with a ``" + HYPERTABLE_PARTITION_COLUMN
+      + "``. Each time range then has this many chunks.";
+  private static final String HYPERTABLE_PARTITIONS_DISPLAY = "Hypertable Partitions";
+
+  public static final String HYPERTABLE_SORT_WRITES = "hypertable.sort.writes";
+  private static final boolean HYPERTABLE_SORT_WRITES_DEFAULT = false;
+  private static final String HYPERTABLE_SORT_WRITES_DOC =
+      "Whether the TimescaleDB dialect sorts the records of each batch by the chunk time range "
+      + "they fall in, then by the value of the ``" + HYPERTABLE_PARTITION_COLUMN + "``, then by "
+      + "time, so that the rows are written chunk by chunk. This helps when records arrive out "
+      + "of time order, for example after a device was offline.";
+  private static final String HYPERTABLE_SORT_WRITES_DISPLAY = "Sort Hypertable Writes";
+
   public static final String INSERT_MODE = "insert.mode";
   private static final String INSERT_MODE_DEFAULT = "insert";
   private static final String INSERT_MODE_DOC =
@@ -157,6 +393,138 @@ public class JdbcSinkConfig extends AbstractConfig {
       + "the connector, e.g. ``UPDATE``.";
   private static final String INSERT_MODE_DISPLAY = "Insert Mode";
 
+  public static final String INSERT_COPY_FORMAT = "insert.copy.format";
+  private static final String INSERT_COPY_FORMAT_DEFAULT = "none";
+  private static final String INSERT_COPY_FORMAT_DOC =
+      "The encoding to use when writing batches with ``COPY ... FROM STDIN`` in ``insert`` mode, "
+      + "for dialects that support it (PostgreSQL and TimescaleDB). Supported formats are:\n"
+      + "``none``\n"
+      + "    Do not use ``COPY``; write batches with ``INSERT`` statements.\n"
+      + "``text``\n"
+      + "    Stream rows in the PostgreSQL text format.\n"
+      + "``binary``\n"
+      + "    Stream rows in the PostgreSQL binary format. Falls back to the text format for "
+      + "tables with column types that cannot be encoded in binary, or that differ from the "
+      + "type of their field, since binary values are not cast by the database.";
+  private static final String INSERT_COPY_FORMAT_DISPLAY = "Insert COPY Format";
+
+  public static final String UPSERT_STRATEGY = "upsert.strategy";
+  private static final String UPSERT_STRATEGY_DEFAULT = "statement";
+  private static final String UPSERT_STRATEGY_DOC =
+      "How batches are written in ``upsert`` mode. Supported strategies are:\n"
+      + "``statement``\n"
+      + "    Execute the upsert statement of the dialect once for every record.\n"
+      + "``staging``\n"
+      + "    For dialects that support it (PostgreSQL and TimescaleDB), ``COPY`` the batch into a "
+      + "temporary staging table and merge it into the destination table with a single "
+      + "``INSERT ... SELECT ... ON CONFLICT`` statement, keeping only the last record for each "
+      + "key. The ``insert.copy.format`` is used for the ``COPY``, or ``binary`` if it is "
+      + "``none``.";
+  private static final String UPSERT_STRATEGY_DISPLAY = "Upsert Strategy";
+
+  public static final String INSERT_MULTI_ROW_ENABLED = "insert.multi.row.enabled";
+  private static final String INSERT_MULTI_ROW_ENABLED_DEFAULT = "false";
+  private static final String INSERT_MULTI_ROW_ENABLED_DOC =
+      "Whether to write records in ``insert`` and ``upsert`` mode with statements that have a "
+      + "``VALUES`` clause for many rows, rather than one statement execution per record. The "
+      + "number of rows per statement is limited by ``batch.size`` and by the maximum number of "
+      + "bind parameters of the database. Only supported by some dialects, such as PostgreSQL, "
+      + "MySQL and SQLite.";
+  private static final String INSERT_MULTI_ROW_ENABLED_DISPLAY = "Multi-Row Statements";
+
+  public static final String TABLE_FLUSH_PARALLELISM = "table.flush.parallelism";
+  private static final int TABLE_FLUSH_PARALLELISM_DEFAULT = 1;
+  private static final String TABLE_FLUSH_PARALLELISM_DOC =
+      "The maximum number of destination tables to flush concurrently. With the default of 1, "
+      + "all tables in a batch are written in a single transaction on one connection. With a "
+      + "larger value, each table is written in its own transaction on a pool of this many "
+      + "connections, so a slow or locked table does not delay the others. If writing to a table "
+      + "fails, the offsets of the topic partitions that fed it are not committed and those "
+      + "records are delivered again, which may also write them again to the other tables of "
+      + "the same partitions.";
+  private static final String TABLE_FLUSH_PARALLELISM_DISPLAY = "Table Flush Parallelism";
+
+  public static final String WRITE_QUEUE_SIZE = "write.queue.size";
+  private static final int WRITE_QUEUE_SIZE_DEFAULT = 0;
+  private static final String WRITE_QUEUE_SIZE_DOC =
+      "The number of batches that may wait to be written to the database by a background "
+      + "thread, so that the next batch is fetched from Kafka while the previous one is written. "
+      + "When the queue is full, the task pauses consumption until there is space again. Only "
+      + "offsets of records that were committed to the database are committed to Kafka. With "
+      + "the default of 0, each batch is written before the next one is fetched.";
+  private static final String WRITE_QUEUE_SIZE_DISPLAY = "Write Queue Size";
+
+  public static final String SCHEMA_SUPERSET_ENABLED = "schema.superset.enabled";
+  private static final String SCHEMA_SUPERSET_ENABLED_DEFAULT = "false";
+  private static final String SCHEMA_SUPERSET_ENABLED_DOC =
+      "Whether records with different but compatible versions of a value schema are written in "
+      + "the same batch, instead of flushing the batch whenever the value schema changes. Two "
+      + "versions are compatible if their common fields have the same schema and all other "
+      + "fields are optional or have a default value. The table is amended once with the fields "
+      + "of all versions, and fields that a record does not have are written as their default "
+      + "value or NULL. Note that in ``upsert`` mode this overwrites those columns of existing "
+      + "rows.";
+  private static final String SCHEMA_SUPERSET_ENABLED_DISPLAY = "Schema Superset Batching";
+
+  public static final String LINGER_MS = "linger.ms";
+  private static final long LINGER_MS_DEFAULT = 0;
+  private static final String LINGER_MS_DOC =
+      "The maximum time in milliseconds that records are held back to be written together with "
+      + "records of later ``put()`` calls. Records are written once a destination table has "
+      + "``batch.size`` records, the records take up ``buffer.memory.bytes``, or the oldest "
+      + "record has waited this long. Offsets of records that were not written yet are not "
+      + "committed. With the default of 0, the records of each ``put()`` call are written "
+      + "before it returns.";
+  private static final String LINGER_MS_DISPLAY = "Linger Time (millis)";
+
+  public static final String BUFFER_MEMORY_BYTES = "buffer.memory.bytes";
+  private static final long BUFFER_MEMORY_BYTES_DEFAULT = 32 * 1024 * 1024L;
+  private static final String BUFFER_MEMORY_BYTES_DOC =
+      "The estimated size in bytes of the records held back by ``linger.ms`` at which they are "
+      + "written, regardless of how long they have waited.";
+  private static final String BUFFER_MEMORY_BYTES_DISPLAY = "Buffer Memory (bytes)";
+
+  public static final String ADAPTIVE_FLUSH_ENABLED = "adaptive.flush.enabled";
+  private static final String ADAPTIVE_FLUSH_ENABLED_DEFAULT = "false";
+  private static final String ADAPTIVE_FLUSH_ENABLED_DOC =
+      "Whether to adjust the batch size of each table and the number of tables flushed at a time "
+      + "to the latency of the database. Starting from ``batch.size``, the batch size grows while "
+      + "full batches execute no slower per record than before, and is halved when a flush is "
+      + "much slower per record or fails waiting for a lock, within ``batch.size.min`` and "
+      + "``batch.size.max``. Likewise, the number of concurrent flushes is halved on a slow or "
+      + "blocked flush and grows again up to ``table.flush.parallelism``. The current values are "
+      + "reported as the ``batch-size`` and ``flush-concurrency-limit`` metrics.";
+  private static final String ADAPTIVE_FLUSH_ENABLED_DISPLAY = "Adaptive Flushing";
+
+  public static final String BATCH_SIZE_MIN = "batch.size.min";
+  private static final int BATCH_SIZE_MIN_DEFAULT = 100;
+  private static final String BATCH_SIZE_MIN_DOC =
+      "The smallest batch size that ``adaptive.flush.enabled`` reduces the batch size to.";
+  private static final String BATCH_SIZE_MIN_DISPLAY = "Minimum Batch Size";
+
+  public static final String BATCH_SIZE_MAX = "batch.size.max";
+  private static final int BATCH_SIZE_MAX_DEFAULT = 30000;
+  private static final String BATCH_SIZE_MAX_DOC =
+      "The largest batch size that ``adaptive.flush.enabled`` grows the batch size to.";
+  private static final String BATCH_SIZE_MAX_DISPLAY = "Maximum Batch Size";
+
+  public static final String EXACTLY_ONCE_ENABLED = "exactly.once.enabled";
+  private static final boolean EXACTLY_ONCE_ENABLED_DEFAULT = false;
+  private static final String EXACTLY_ONCE_ENABLED_DOC =
+      "Whether to write each record exactly once, by storing the offsets of the consumed topic "
+      + "partitions in ``exactly.once.offsets.table``, in the same transaction as the records. "
+      + "Partitions resume from the stored offsets when they are assigned to a task, and records "
+      + "below them are skipped, so that plain inserts do not write records twice after a "
+      + "rebalance or crash. Requires ``table.flush.parallelism`` of 1.";
+  private static final String EXACTLY_ONCE_ENABLED_DISPLAY = "Exactly Once";
+
+  public static final String EXACTLY_ONCE_OFFSETS_TABLE = "exactly.once.offsets.table";
+  private static final String EXACTLY_ONCE_OFFSETS_TABLE_DEFAULT = "kafka_connect_offsets";
+  private static final String EXACTLY_ONCE_OFFSETS_TABLE_DOC =
+      "The table that stores the next offset to consume of each topic partition, by connector, "
+      + "with ``" + EXACTLY_ONCE_ENABLED + "``. It is created if ``auto.create`` is enabled.";
+  private static final String EXACTLY_ONCE_OFFSETS_TABLE_DISPLAY = "Exactly Once Offsets Table";
+
   public static final String PK_FIELDS = "pk.fields";
   private static final String PK_FIELDS_DEFAULT = "";
   private static final String PK_FIELDS_DOC =
@@ -207,6 +575,7 @@ public class JdbcSinkConfig extends AbstractConfig {
   private static final String DATAMAPPING_GROUP = "Data Mapping";
   private static final String DDL_GROUP = "DDL Support";
   private static final String RETRIES_GROUP = "Retries";
+  private static final String HYPERTABLE_GROUP = "Hypertables";
 
   public static final String DIALECT_NAME_CONFIG = "dialect.name";
   private static final String DIALECT_NAME_DISPLAY = "Database Dialect";
@@ -346,6 +715,180 @@ public class JdbcSinkConfig extends AbstractConfig {
             ConfigDef.Width.MEDIUM,
             TABLE_TYPES_DISPLAY
         )
+        .define(
+            PREPARED_STATEMENT_CACHE_SIZE,
+            ConfigDef.Type.INT,
+            PREPARED_STATEMENT_CACHE_SIZE_DEFAULT,
+            NON_NEGATIVE_INT_VALIDATOR,
+            ConfigDef.Importance.LOW,
+            PREPARED_STATEMENT_CACHE_SIZE_DOC,
+            WRITES_GROUP,
+            5,
+            ConfigDef.Width.SHORT,
+            PREPARED_STATEMENT_CACHE_SIZE_DISPLAY
+        )
+        .define(
+            INSERT_COPY_FORMAT,
+            ConfigDef.Type.STRING,
+            INSERT_COPY_FORMAT_DEFAULT,
+            EnumValidator.in(CopyFormat.values()),
+            ConfigDef.Importance.LOW,
+            INSERT_COPY_FORMAT_DOC,
+            WRITES_GROUP,
+            6,
+            ConfigDef.Width.SHORT,
+            INSERT_COPY_FORMAT_DISPLAY
+        )
+        .define(
+            UPSERT_STRATEGY,
+            ConfigDef.Type.STRING,
+            UPSERT_STRATEGY_DEFAULT,
+            EnumValidator.in(UpsertStrategy.values()),
+            ConfigDef.Importance.LOW,
+            UPSERT_STRATEGY_DOC,
+            WRITES_GROUP,
+            7,
+            ConfigDef.Width.SHORT,
+            UPSERT_STRATEGY_DISPLAY
+        )
+        .define(
+            INSERT_MULTI_ROW_ENABLED,
+            ConfigDef.Type.BOOLEAN,
+            INSERT_MULTI_ROW_ENABLED_DEFAULT,
+            ConfigDef.Importance.LOW,
+            INSERT_MULTI_ROW_ENABLED_DOC,
+            WRITES_GROUP,
+            8,
+            ConfigDef.Width.SHORT,
+            INSERT_MULTI_ROW_ENABLED_DISPLAY
+        )
+        .define(
+            TABLE_FLUSH_PARALLELISM,
+            ConfigDef.Type.INT,
+            TABLE_FLUSH_PARALLELISM_DEFAULT,
+            ConfigDef.Range.atLeast(1),
+            ConfigDef.Importance.LOW,
+            TABLE_FLUSH_PARALLELISM_DOC,
+            WRITES_GROUP,
+            9,
+            ConfigDef.Width.SHORT,
+            TABLE_FLUSH_PARALLELISM_DISPLAY
+        )
+        .define(
+            WRITE_QUEUE_SIZE,
+            ConfigDef.Type.INT,
+            WRITE_QUEUE_SIZE_DEFAULT,
+            NON_NEGATIVE_INT_VALIDATOR,
+            ConfigDef.Importance.LOW,
+            WRITE_QUEUE_SIZE_DOC,
+            WRITES_GROUP,
+            10,
+            ConfigDef.Width.SHORT,
+            WRITE_QUEUE_SIZE_DISPLAY
+        )
+        .define(
+            SCHEMA_SUPERSET_ENABLED,
+            ConfigDef.Type.BOOLEAN,
+            SCHEMA_SUPERSET_ENABLED_DEFAULT,
+            ConfigDef.Importance.LOW,
+            SCHEMA_SUPERSET_ENABLED_DOC,
+            WRITES_GROUP,
+            11,
+            ConfigDef.Width.SHORT,
+            SCHEMA_SUPERSET_ENABLED_DISPLAY
+        )
+        .define(
+            LINGER_MS,
+            ConfigDef.Type.LONG,
+            LINGER_MS_DEFAULT,
+            ConfigDef.Range.atLeast(0),
+            ConfigDef.Importance.LOW,
+            LINGER_MS_DOC,
+            WRITES_GROUP,
+            12,
+            ConfigDef.Width.SHORT,
+            LINGER_MS_DISPLAY
+        )
+        .define(
+            BUFFER_MEMORY_BYTES,
+            ConfigDef.Type.LONG,
+            BUFFER_MEMORY_BYTES_DEFAULT,
+            ConfigDef.Range.atLeast(1),
+            ConfigDef.Importance.LOW,
+            BUFFER_MEMORY_BYTES_DOC,
+            WRITES_GROUP,
+            13,
+            ConfigDef.Width.MEDIUM,
+            BUFFER_MEMORY_BYTES_DISPLAY
+        )
+        .define(
+            ADAPTIVE_FLUSH_ENABLED,
+            ConfigDef.Type.BOOLEAN,
+            ADAPTIVE_FLUSH_ENABLED_DEFAULT,
+            ConfigDef.Importance.LOW,
+            ADAPTIVE_FLUSH_ENABLED_DOC,
+            WRITES_GROUP,
+            14,
+            ConfigDef.Width.SHORT,
+            ADAPTIVE_FLUSH_ENABLED_DISPLAY
+        )
+        .define(
+            BATCH_SIZE_MIN,
+            ConfigDef.Type.INT,
+            BATCH_SIZE_MIN_DEFAULT,
+            ConfigDef.Range.atLeast(1),
+            ConfigDef.Importance.LOW,
+            BATCH_SIZE_MIN_DOC,
+            WRITES_GROUP,
+            15,
+            ConfigDef.Width.SHORT,
+            BATCH_SIZE_MIN_DISPLAY
+        )
+        .define(
+            BATCH_SIZE_MAX,
+            ConfigDef.Type.INT,
+            BATCH_SIZE_MAX_DEFAULT,
+            ConfigDef.Range.atLeast(1),
+            ConfigDef.Importance.LOW,
+            BATCH_SIZE_MAX_DOC,
+            WRITES_GROUP,
+            16,
+            ConfigDef.Width.SHORT,
+            BATCH_SIZE_MAX_DISPLAY
+        )
+        .define(
+            EXACTLY_ONCE_ENABLED,
+            ConfigDef.Type.BOOLEAN,
+            EXACTLY_ONCE_ENABLED_DEFAULT,
+            ConfigDef.Importance.MEDIUM,
+            EXACTLY_ONCE_ENABLED_DOC,
+            WRITES_GROUP,
+            17,
+            ConfigDef.Width.SHORT,
+            EXACTLY_ONCE_ENABLED_DISPLAY
+        )
+        .define(
+            EXACTLY_ONCE_OFFSETS_TABLE,
+            ConfigDef.Type.STRING,
+            EXACTLY_ONCE_OFFSETS_TABLE_DEFAULT,
+            ConfigDef.Importance.LOW,
+            EXACTLY_ONCE_OFFSETS_TABLE_DOC,
+            WRITES_GROUP,
+            18,
+            ConfigDef.Width.MEDIUM,
+            EXACTLY_ONCE_OFFSETS_TABLE_DISPLAY
+        )
+        .define(
+            DELETE_COMPACTION_ENABLED,
+            ConfigDef.Type.BOOLEAN,
+            DELETE_COMPACTION_ENABLED_DEFAULT,
+            ConfigDef.Importance.LOW,
+            DELETE_COMPACTION_ENABLED_DOC,
+            WRITES_GROUP,
+            19,
+            ConfigDef.Width.SHORT,
+            DELETE_COMPACTION_ENABLED_DISPLAY
+        )
         // Data Mapping
         .define(
             TABLE_NAME_FORMAT,
@@ -446,6 +989,234 @@ public class JdbcSinkConfig extends AbstractConfig {
             QUOTE_SQL_IDENTIFIERS_DISPLAY,
             QUOTE_METHOD_RECOMMENDER
         )
+        .define(
+            TABLE_METADATA_TTL_MS,
+            ConfigDef.Type.LONG,
+            TABLE_METADATA_TTL_MS_DEFAULT,
+            ConfigDef.Range.atLeast(1),
+            ConfigDef.Importance.LOW,
+            TABLE_METADATA_TTL_MS_DOC,
+            DDL_GROUP,
+            4,
+            ConfigDef.Width.SHORT,
+            TABLE_METADATA_TTL_MS_DISPLAY
+        )
+        .define(
+            TABLE_METADATA_MAX_TABLES,
+            ConfigDef.Type.INT,
+            TABLE_METADATA_MAX_TABLES_DEFAULT,
+            ConfigDef.Range.atLeast(1),
+            ConfigDef.Importance.LOW,
+            TABLE_METADATA_MAX_TABLES_DOC,
+            DDL_GROUP,
+            5,
+            ConfigDef.Width.SHORT,
+            TABLE_METADATA_MAX_TABLES_DISPLAY
+        )
+        // Hypertables
+        .define(
+            HYPERTABLE_TIME_COLUMN,
+            ConfigDef.Type.STRING,
+            HYPERTABLE_TIME_COLUMN_DEFAULT,
+            ConfigDef.Importance.LOW,
+            HYPERTABLE_TIME_COLUMN_DOC,
+            HYPERTABLE_GROUP,
+            1,
+            ConfigDef.Width.SHORT,
+            HYPERTABLE_TIME_COLUMN_DISPLAY
+        )
+        .define(
+            HYPERTABLE_TIME_COLUMN_OVERRIDES,
+            ConfigDef.Type.LIST,
+            HYPERTABLE_TIME_COLUMN_OVERRIDES_DEFAULT,
+            ConfigDef.Importance.LOW,
+            HYPERTABLE_TIME_COLUMN_OVERRIDES_DOC,
+            HYPERTABLE_GROUP,
+            2,
+            ConfigDef.Width.LONG,
+            HYPERTABLE_TIME_COLUMN_OVERRIDES_DISPLAY
+        )
+        .define(
+            HYPERTABLE_CHUNK_TIME_INTERVAL,
+            ConfigDef.Type.STRING,
+            HYPERTABLE_CHUNK_TIME_INTERVAL_DEFAULT,
+            ConfigDef.Importance.LOW,
+            HYPERTABLE_CHUNK_TIME_INTERVAL_DOC,
+            HYPERTABLE_GROUP,
+            3,
+            ConfigDef.Width.SHORT,
+            HYPERTABLE_CHUNK_TIME_INTERVAL_DISPLAY
+        )
+        .define(
+            HYPERTABLE_CHUNK_TIME_INTERVAL_OVERRIDES,
+            ConfigDef.Type.LIST,
+            HYPERTABLE_CHUNK_TIME_INTERVAL_OVERRIDES_DEFAULT,
+            ConfigDef.Importance.LOW,
+            HYPERTABLE_CHUNK_TIME_INTERVAL_OVERRIDES_DOC,
+            HYPERTABLE_GROUP,
+            4,
+            ConfigDef.Width.LONG,
+            HYPERTABLE_CHUNK_TIME_INTERVAL_OVERRIDES_DISPLAY
+        )
+        .define(
+            HYPERTABLE_CHUNK_TARGET_BYTES,
+            ConfigDef.Type.LONG,
+            HYPERTABLE_CHUNK_TARGET_BYTES_DEFAULT,
+            ConfigDef.Range.atLeast(1),
+            ConfigDef.Importance.LOW,
+            HYPERTABLE_CHUNK_TARGET_BYTES_DOC,
+            HYPERTABLE_GROUP,
+            5,
+            ConfigDef.Width.SHORT,
+            HYPERTABLE_CHUNK_TARGET_BYTES_DISPLAY
+        )
+        .define(
+            HYPERTABLE_COMPRESS_AFTER_MS,
+            ConfigDef.Type.LONG,
+            HYPERTABLE_COMPRESS_AFTER_MS_DEFAULT,
+            ConfigDef.Range.atLeast(-1),
+            ConfigDef.Importance.LOW,
+            HYPERTABLE_COMPRESS_AFTER_MS_DOC,
+            HYPERTABLE_GROUP,
+            6,
+            ConfigDef.Width.SHORT,
+            HYPERTABLE_COMPRESS_AFTER_MS_DISPLAY
+        )
+        .define(
+            HYPERTABLE_COMPRESS_AFTER_MS_OVERRIDES,
+            ConfigDef.Type.LIST,
+            HYPERTABLE_COMPRESS_AFTER_MS_OVERRIDES_DEFAULT,
+            ConfigDef.Importance.LOW,
+            HYPERTABLE_COMPRESS_AFTER_MS_OVERRIDES_DOC,
+            HYPERTABLE_GROUP,
+            7,
+            ConfigDef.Width.LONG,
+            HYPERTABLE_COMPRESS_AFTER_MS_OVERRIDES_DISPLAY
+        )
+        .define(
+            HYPERTABLE_COMPRESS_SEGMENT_BY,
+            ConfigDef.Type.LIST,
+            HYPERTABLE_COMPRESS_SEGMENT_BY_DEFAULT,
+            ConfigDef.Importance.LOW,
+            HYPERTABLE_COMPRESS_SEGMENT_BY_DOC,
+            HYPERTABLE_GROUP,
+            8,
+            ConfigDef.Width.LONG,
+            HYPERTABLE_COMPRESS_SEGMENT_BY_DISPLAY
+        )
+        .define(
+            HYPERTABLE_COMPRESS_ORDER_BY,
+            ConfigDef.Type.STRING,
+            HYPERTABLE_COMPRESS_ORDER_BY_DEFAULT,
+            ConfigDef.Importance.LOW,
+            HYPERTABLE_COMPRESS_ORDER_BY_DOC,
+            HYPERTABLE_GROUP,
+            9,
+            ConfigDef.Width.MEDIUM,
+            HYPERTABLE_COMPRESS_ORDER_BY_DISPLAY
+        )
+        .define(
+            HYPERTABLE_RETENTION_MS,
+            ConfigDef.Type.LONG,
+            HYPERTABLE_RETENTION_MS_DEFAULT,
+            ConfigDef.Range.atLeast(-1),
+            ConfigDef.Importance.LOW,
+            HYPERTABLE_RETENTION_MS_DOC,
+            HYPERTABLE_GROUP,
+            10,
+            ConfigDef.Width.SHORT,
+            HYPERTABLE_RETENTION_MS_DISPLAY
+        )
+        .define(
+            HYPERTABLE_RETENTION_MS_OVERRIDES,
+            ConfigDef.Type.LIST,
+            HYPERTABLE_RETENTION_MS_OVERRIDES_DEFAULT,
+            ConfigDef.Importance.LOW,
+            HYPERTABLE_RETENTION_MS_OVERRIDES_DOC,
+            HYPERTABLE_GROUP,
+            11,
+            ConfigDef.Width.LONG,
+            HYPERTABLE_RETENTION_MS_OVERRIDES_DISPLAY
+        )
+        .define(
+            HYPERTABLE_AGGREGATE_TABLES,
+            ConfigDef.Type.LIST,
+            HYPERTABLE_AGGREGATE_TABLES_DEFAULT,
+            ConfigDef.Importance.LOW,
+            HYPERTABLE_AGGREGATE_TABLES_DOC,
+            HYPERTABLE_GROUP,
+            12,
+            ConfigDef.Width.LONG,
+            HYPERTABLE_AGGREGATE_TABLES_DISPLAY
+        )
+        .define(
+            HYPERTABLE_AGGREGATE_BUCKETS_MS,
+            ConfigDef.Type.LIST,
+            HYPERTABLE_AGGREGATE_BUCKETS_MS_DEFAULT,
+            ConfigDef.Importance.LOW,
+            HYPERTABLE_AGGREGATE_BUCKETS_MS_DOC,
+            HYPERTABLE_GROUP,
+            13,
+            ConfigDef.Width.MEDIUM,
+            HYPERTABLE_AGGREGATE_BUCKETS_MS_DISPLAY
+        )
+        .define(
+            HYPERTABLE_AGGREGATE_REFRESH_WINDOW_MS,
+            ConfigDef.Type.LONG,
+            HYPERTABLE_AGGREGATE_REFRESH_WINDOW_MS_DEFAULT,
+            ConfigDef.Range.atLeast(1),
+            ConfigDef.Importance.LOW,
+            HYPERTABLE_AGGREGATE_REFRESH_WINDOW_MS_DOC,
+            HYPERTABLE_GROUP,
+            14,
+            ConfigDef.Width.SHORT,
+            HYPERTABLE_AGGREGATE_REFRESH_WINDOW_MS_DISPLAY
+        )
+        .define(
+            HYPERTABLE_PARTITION_COLUMN,
+            ConfigDef.Type.STRING,
+            HYPERTABLE_PARTITION_COLUMN_DEFAULT,
+            ConfigDef.Importance.LOW,
+            HYPERTABLE_PARTITION_COLUMN_DOC,
+            HYPERTABLE_GROUP,
+            15,
+            ConfigDef.Width.MEDIUM,
+            HYPERTABLE_PARTITION_COLUMN_DISPLAY
+        )
+        .define(
+            HYPERTABLE_PARTITION_COLUMN_OVERRIDES,
+            ConfigDef.Type.LIST,
+            HYPERTABLE_PARTITION_COLUMN_OVERRIDES_DEFAULT,
+            ConfigDef.Importance.LOW,
+            HYPERTABLE_PARTITION_COLUMN_OVERRIDES_DOC,
+            HYPERTABLE_GROUP,
+            16,
+            ConfigDef.Width.LONG,
+            HYPERTABLE_PARTITION_COLUMN_OVERRIDES_DISPLAY
+        )
+        .define(
+            HYPERTABLE_PARTITIONS,
+            ConfigDef.Type.INT,
+            HYPERTABLE_PARTITIONS_DEFAULT,
+            ConfigDef.Range.atLeast(1),
+            ConfigDef.Importance.LOW,
+            HYPERTABLE_PARTITIONS_DOC,
+            HYPERTABLE_GROUP,
+            17,
+            ConfigDef.Width.SHORT,
+            HYPERTABLE_PARTITIONS_DISPLAY
+        )
+        .define(
+            HYPERTABLE_SORT_WRITES,
+            ConfigDef.Type.BOOLEAN,
+            HYPERTABLE_SORT_WRITES_DEFAULT,
+            ConfigDef.Importance.LOW,
+            HYPERTABLE_SORT_WRITES_DOC,
+            HYPERTABLE_GROUP,
+            18,
+            ConfigDef.Width.SHORT,
+            HYPERTABLE_SORT_WRITES_DISPLAY
+        )
         // Retries
         .define(
             MAX_RETRIES,
@@ -470,6 +1241,28 @@ public class JdbcSinkConfig extends AbstractConfig {
             2,
             ConfigDef.Width.SHORT,
             RETRY_BACKOFF_MS_DISPLAY
+        )
+        .define(
+            BAD_RECORDS_ISOLATE,
+            ConfigDef.Type.BOOLEAN,
+            BAD_RECORDS_ISOLATE_DEFAULT,
+            ConfigDef.Importance.LOW,
+            BAD_RECORDS_ISOLATE_DOC,
+            RETRIES_GROUP,
+            3,
+            ConfigDef.Width.SHORT,
+            BAD_RECORDS_ISOLATE_DISPLAY
+        )
+        .define(
+            BAD_RECORDS_TABLE,
+            ConfigDef.Type.STRING,
+            BAD_RECORDS_TABLE_DEFAULT,
+            ConfigDef.Importance.LOW,
+            BAD_RECORDS_TABLE_DOC,
+            RETRIES_GROUP,
+            4,
+            ConfigDef.Width.MEDIUM,
+            BAD_RECORDS_TABLE_DISPLAY
         );
 
   public final String connectorName;
@@ -479,18 +1272,55 @@ public class JdbcSinkConfig extends AbstractConfig {
   public final String tableNameFormat;
   public final String schemaNameFormat;
   public final int batchSize;
+  public final int preparedStatementCacheSize;
   public final boolean deleteEnabled;
+  public final boolean deleteCompactionEnabled;
   public final int maxRetries;
   public final int retryBackoffMs;
+  public final boolean badRecordsIsolate;
+  public final String badRecordsTable;
   public final boolean autoCreate;
   public final boolean autoEvolve;
+  public final long tableMetadataTtlMs;
+  public final int tableMetadataMaxTables;
+  public final String hypertableTimeColumn;
+  public final OptionalLong hypertableChunkTimeIntervalMs;
+  public final long hypertableChunkTargetBytes;
+  public final List<String> hypertableCompressSegmentBy;
+  public final String hypertableCompressOrderBy;
+  public final Set<String> hypertableAggregateTables;
+  public final List<Long> hypertableAggregateBucketsMs;
+  public final long hypertableAggregateRefreshWindowMs;
+  public final int hypertablePartitions;
+  public final boolean hypertableSortWrites;
   public final InsertMode insertMode;
+  public final CopyFormat copyFormat;
+  public final UpsertStrategy upsertStrategy;
+  public final boolean multiRowEnabled;
+  public final int tableFlushParallelism;
+  public final int writeQueueSize;
+  public final boolean schemaSupersetEnabled;
+  public final long lingerMs;
+  public final long bufferMemoryBytes;
+  public final boolean adaptiveFlushEnabled;
+  public final int batchSizeMin;
+  public final int batchSizeMax;
+  public final boolean exactlyOnceEnabled;
+  public final String exactlyOnceOffsetsTable;
   public final PrimaryKeyMode pkMode;
   public final List<String> pkFields;
   public final Set<String> fieldsWhitelist;
   public final String dialectName;
   public final TimeZone timeZone;
   public final EnumSet<TableType> tableTypes;
+  private final Map<String, String> hypertableTimeColumns;
+  private final Map<String, OptionalLong> hypertableChunkTimeIntervalsMs;
+  private final OptionalLong hypertableCompressAfterMs;
+  private final Map<String, OptionalLong> hypertableCompressAfterMsOverrides;
+  private final OptionalLong hypertableRetentionMs;
+  private final Map<String, OptionalLong> hypertableRetentionMsOverrides;
+  private final String hypertablePartitionColumn;
+  private final Map<String, String> hypertablePartitionColumns;
 
   public JdbcSinkConfig(Map<?, ?> props) {
     super(CONFIG_DEF, props);
@@ -501,12 +1331,72 @@ public class JdbcSinkConfig extends AbstractConfig {
     tableNameFormat = getString(TABLE_NAME_FORMAT).trim();
     schemaNameFormat = getString(SCHEMA_NAME_FORMAT).trim();
     batchSize = getInt(BATCH_SIZE);
+    preparedStatementCacheSize = getInt(PREPARED_STATEMENT_CACHE_SIZE);
     deleteEnabled = getBoolean(DELETE_ENABLED);
+    deleteCompactionEnabled = getBoolean(DELETE_COMPACTION_ENABLED);
     maxRetries = getInt(MAX_RETRIES);
     retryBackoffMs = getInt(RETRY_BACKOFF_MS);
+    badRecordsIsolate = getBoolean(BAD_RECORDS_ISOLATE);
+    badRecordsTable = getString(BAD_RECORDS_TABLE).trim();
     autoCreate = getBoolean(AUTO_CREATE);
     autoEvolve = getBoolean(AUTO_EVOLVE);
+    tableMetadataTtlMs = getLong(TABLE_METADATA_TTL_MS);
+    tableMetadataMaxTables = getInt(TABLE_METADATA_MAX_TABLES);
+    hypertableTimeColumn = getString(HYPERTABLE_TIME_COLUMN).trim();
+    hypertableTimeColumns = tableOverrides(HYPERTABLE_TIME_COLUMN_OVERRIDES);
+    hypertableChunkTimeIntervalMs = parseChunkTimeInterval(
+        HYPERTABLE_CHUNK_TIME_INTERVAL,
+        getString(HYPERTABLE_CHUNK_TIME_INTERVAL)
+    );
+    hypertableChunkTimeIntervalsMs = tableOverrides(
+        HYPERTABLE_CHUNK_TIME_INTERVAL_OVERRIDES,
+        JdbcSinkConfig::parseChunkTimeInterval
+    );
+    hypertableChunkTargetBytes = getLong(HYPERTABLE_CHUNK_TARGET_BYTES);
+    hypertableCompressAfterMs = optionalMs(getLong(HYPERTABLE_COMPRESS_AFTER_MS));
+    hypertableCompressAfterMsOverrides = tableOverrides(
+        HYPERTABLE_COMPRESS_AFTER_MS_OVERRIDES,
+        JdbcSinkConfig::parseOptionalMs
+    );
+    hypertableCompressSegmentBy = getList(HYPERTABLE_COMPRESS_SEGMENT_BY);
+    hypertableCompressOrderBy = getString(HYPERTABLE_COMPRESS_ORDER_BY).trim();
+    hypertableRetentionMs = optionalMs(getLong(HYPERTABLE_RETENTION_MS));
+    hypertableRetentionMsOverrides = tableOverrides(
+        HYPERTABLE_RETENTION_MS_OVERRIDES,
+        JdbcSinkConfig::parseOptionalMs
+    );
+    hypertableAggregateTables = new HashSet<>(getList(HYPERTABLE_AGGREGATE_TABLES));
+    hypertableAggregateBucketsMs = new ArrayList<>();
+    for (String bucket : getList(HYPERTABLE_AGGREGATE_BUCKETS_MS)) {
+      final OptionalLong bucketMs = parseOptionalMs(HYPERTABLE_AGGREGATE_BUCKETS_MS, bucket);
+      if (!bucketMs.isPresent() || bucketMs.getAsLong() <= 0) {
+        throw new ConfigException(
+            HYPERTABLE_AGGREGATE_BUCKETS_MS,
+            bucket,
+            "Expected a positive number of milliseconds"
+        );
+      }
+      hypertableAggregateBucketsMs.add(bucketMs.getAsLong());
+    }
+    hypertableAggregateRefreshWindowMs = getLong(HYPERTABLE_AGGREGATE_REFRESH_WINDOW_MS);
+    hypertablePartitionColumn = getString(HYPERTABLE_PARTITION_COLUMN).trim();
+    hypertablePartitionColumns = tableOverrides(HYPERTABLE_PARTITION_COLUMN_OVERRIDES);
+    hypertablePartitions = getInt(HYPERTABLE_PARTITIONS);
+    hypertableSortWrites = getBoolean(HYPERTABLE_SORT_WRITES);
     insertMode = InsertMode.valueOf(getString(INSERT_MODE).toUpperCase());
+    copyFormat = CopyFormat.valueOf(getString(INSERT_COPY_FORMAT).toUpperCase());
+    upsertStrategy = UpsertStrategy.valueOf(getString(UPSERT_STRATEGY).toUpperCase());
+    multiRowEnabled = getBoolean(INSERT_MULTI_ROW_ENABLED);
+    tableFlushParallelism = getInt(TABLE_FLUSH_PARALLELISM);
+    writeQueueSize = getInt(WRITE_QUEUE_SIZE);
+    schemaSupersetEnabled = getBoolean(SCHEMA_SUPERSET_ENABLED);
+    lingerMs = getLong(LINGER_MS);
+    bufferMemoryBytes = getLong(BUFFER_MEMORY_BYTES);
+    adaptiveFlushEnabled = getBoolean(ADAPTIVE_FLUSH_ENABLED);
+    batchSizeMin = getInt(BATCH_SIZE_MIN);
+    batchSizeMax = getInt(BATCH_SIZE_MAX);
+    exactlyOnceEnabled = getBoolean(EXACTLY_ONCE_ENABLED);
+    exactlyOnceOffsetsTable = getString(EXACTLY_ONCE_OFFSETS_TABLE).trim();
     pkMode = PrimaryKeyMode.valueOf(getString(PK_MODE).toUpperCase());
     pkFields = getList(PK_FIELDS);
     dialectName = getString(DIALECT_NAME_CONFIG);
@@ -518,6 +1408,14 @@ public class JdbcSinkConfig extends AbstractConfig {
       throw new ConfigException(
           "Primary key mode must be 'record_key' when delete support is enabled");
     }
+    if (batchSizeMin > batchSizeMax) {
+      throw new ConfigException(
+          "The minimum batch size must not be larger than the maximum batch size");
+    }
+    if (exactlyOnceEnabled && tableFlushParallelism > 1) {
+      throw new ConfigException(
+          "Table flush parallelism must be 1 when exactly once delivery is enabled");
+    }
     tableTypes = TableType.parse(getList(TABLE_TYPES_CONFIG));
   }
 
@@ -541,6 +1439,116 @@ public class JdbcSinkConfig extends AbstractConfig {
     return tableTypes().stream().map(TableType::toString).collect(Collectors.toSet());
   }
 
+  /**
+   * @param tableName the name of the table without its schema; may not be null
+   * @return the column to partition the hypertable with the given name by
+   */
+  public String hypertableTimeColumn(String tableName) {
+    return hypertableTimeColumns.getOrDefault(tableName, hypertableTimeColumn);
+  }
+
+  /**
+   * @param tableName the name of the table without its schema; may not be null
+   * @return the chunk time interval in milliseconds of the hypertable with the given name, or
+   *     empty if it is chosen automatically
+   */
+  public OptionalLong hypertableChunkTimeIntervalMs(String tableName) {
+    return hypertableChunkTimeIntervalsMs.getOrDefault(tableName, hypertableChunkTimeIntervalMs);
+  }
+
+  /**
+   * @param tableName the name of the table without its schema; may not be null
+   * @return the age in milliseconds after which chunks of the hypertable with the given name are
+   *     compressed, or empty if it is not compressed
+   */
+  public OptionalLong hypertableCompressAfterMs(String tableName) {
+    return hypertableCompressAfterMsOverrides.getOrDefault(tableName, hypertableCompressAfterMs);
+  }
+
+  /**
+   * @param tableName the name of the table without its schema; may not be null
+   * @return the age in milliseconds after which chunks of the hypertable with the given name are
+   *     dropped, or empty if they are kept
+   */
+  public OptionalLong hypertableRetentionMs(String tableName) {
+    return hypertableRetentionMsOverrides.getOrDefault(tableName, hypertableRetentionMs);
+  }
+
+  /**
+   * @param tableName the name of the table without its schema; may not be null
+   * @return the column to hash partition the hypertable with the given name by, or empty if it
+   *     is only partitioned by time
+   */
+  public Optional<String> hypertablePartitionColumn(String tableName) {
+    final String column =
+        hypertablePartitionColumns.getOrDefault(tableName, hypertablePartitionColumn);
+    return column.isEmpty() ? Optional.empty() : Optional.of(column);
+  }
+
+  /**
+   * @return the parsed values of a list of {@code <table>=<value>} pairs, by table name
+   */
+  private Map<String, OptionalLong> tableOverrides(
+      String key,
+      BiFunction<String, String, OptionalLong> parse
+  ) {
+    final Map<String, OptionalLong> overrides = new HashMap<>();
+    for (Map.Entry<String, String> entry : tableOverrides(key).entrySet()) {
+      overrides.put(entry.getKey(), parse.apply(key, entry.getValue()));
+    }
+    return overrides;
+  }
+
+  /**
+   * @return the values of a list of {@code <table>=<value>} pairs, by table name
+   */
+  private Map<String, String> tableOverrides(String key) {
+    final Map<String, String> overrides = new HashMap<>();
+    for (String entry : getList(key)) {
+      final int separator = entry.indexOf('=');
+      if (separator <= 0 || separator == entry.length() - 1) {
+        throw new ConfigException(key, entry, "Expected a pair of the form <table>=<value>");
+      }
+      overrides.put(entry.substring(0, separator).trim(), entry.substring(separator + 1).trim());
+    }
+    return overrides;
+  }
+
+  private static OptionalLong parseOptionalMs(String key, String value) {
+    try {
+      final long ms = Long.parseLong(value.trim());
+      if (ms >= -1) {
+        return optionalMs(ms);
+      }
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    throw new ConfigException(key, value, "Expected a number of milliseconds or -1");
+  }
+
+  private static OptionalLong optionalMs(long ms) {
+    return ms == -1 ? OptionalLong.empty() : OptionalLong.of(ms);
+  }
+
+  private static OptionalLong parseChunkTimeInterval(String key, String value) {
+    if (CHUNK_TIME_INTERVAL_AUTO.equalsIgnoreCase(value.trim())) {
+      return OptionalLong.empty();
+    }
+    try {
+      final long intervalMs = Long.parseLong(value.trim());
+      if (intervalMs > 0) {
+        return OptionalLong.of(intervalMs);
+      }
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    throw new ConfigException(
+        key,
+        value,
+        "Expected a positive number of milliseconds or '" + CHUNK_TIME_INTERVAL_AUTO + "'"
+    );
+  }
+
   private static class EnumValidator implements ConfigDef.Validator {
     private final List<String> canonicalValues;
     private final Set<String> validValues;
@@ -17,6 +17,7 @@ package io.confluent.connect.jdbc.sink;
 
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Time;
 import org.apache.kafka.connect.errors.ConnectException;
 import org.apache.kafka.connect.errors.RetriableException;
 import org.apache.kafka.connect.sink.SinkRecord;
@@ -24,12 +25,22 @@ import org.apache.kafka.connect.sink.SinkTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialect;
 import io.confluent.connect.jdbc.dialect.DatabaseDialects;
+import io.confluent.connect.jdbc.util.TableDefinitions;
+import io.confluent.connect.jdbc.util.TableId;
 
 public class JdbcSinkTask extends SinkTask {
   private static final Logger log = LoggerFactory.getLogger(JdbcSinkTask.class);
@@ -37,14 +48,76 @@ public class JdbcSinkTask extends SinkTask {
   DatabaseDialect dialect;
   JdbcSinkConfig config;
   JdbcDbWriter writer;
+  SinkMetrics metrics;
+  FlushControl flushControl;
   int remainingRetries;
 
+  /**
+   * The offsets that partitions were rewound to after writing some of their records failed,
+   * until the records from those offsets are delivered again. The offsets of these partitions
+   * must not be committed in the meantime.
+   */
+  final Map<TopicPartition, Long> rewoundOffsets = new HashMap<>();
+
+  /**
+   * Writes the records in the background when a write queue is configured; null otherwise.
+   */
+  AsyncDbWriter asyncWriter;
+  boolean paused;
+
+  /**
+   * Collects records across calls to {@link #put} when {@code linger.ms} is set; null otherwise.
+   */
+  RecordAccumulator accumulator;
+
+  /**
+   * The next offsets to consume that are committed to the offsets table, of the assigned
+   * partitions that have one, when records are delivered exactly once; null otherwise.
+   */
+  Map<TopicPartition, Long> committedOffsets;
+
+  /**
+   * The table definitions shared with the other tasks of this worker, until the task is stopped.
+   */
+  private TableDefinitions tableDefinitions;
+
   @Override
   public void start(final Map<String, String> props) {
     log.info("Starting JDBC Sink task");
     config = new JdbcSinkConfig(props);
+    metrics = SinkMetrics.register(config);
+    flushControl = new FlushControl(config, metrics);
+    if (config.exactlyOnceEnabled) {
+      committedOffsets = new ConcurrentHashMap<>();
+    }
     initWriter();
     remainingRetries = config.maxRetries;
+    if (config.lingerMs > 0) {
+      accumulator = new RecordAccumulator(
+          config,
+          record -> writer.destinationTable(record),
+          tableId -> flushControl.batchSize(tableId).current(),
+          metrics,
+          Time.SYSTEM
+      );
+    }
+    if (config.writeQueueSize > 0) {
+      log.info("Writing records in the background with a queue of {} batches",
+          config.writeQueueSize);
+      asyncWriter = new AsyncDbWriter(
+          config,
+          writer,
+          () -> new JdbcDbWriter(
+              config,
+              dialect,
+              newDbStructure(),
+              metrics,
+              flushControl,
+              committedOffsets
+          ),
+          metrics
+      );
+    }
   }
 
   void initWriter() {
@@ -53,13 +126,43 @@ public class JdbcSinkTask extends SinkTask {
     } else {
       dialect = DatabaseDialects.findBestFor(config.connectionUrl, config);
     }
-    final DbStructure dbStructure = new DbStructure(dialect);
     log.info("Initializing writer using SQL dialect: {}", dialect.getClass().getSimpleName());
-    writer = new JdbcDbWriter(config, dialect, dbStructure);
+    writer = new JdbcDbWriter(
+        config,
+        dialect,
+        newDbStructure(),
+        metrics,
+        flushControl,
+        committedOffsets
+    );
+  }
+
+  /**
+   * @return the structure of the destination tables, with table definitions that are cached for
+   *     all tasks of this worker that write to the same database as the same user
+   */
+  private DbStructure newDbStructure() {
+    if (tableDefinitions == null) {
+      tableDefinitions = TableDefinitions.shared(
+          config.connectionUrl + " as " + config.connectionUser,
+          dialect,
+          config.tableMetadataTtlMs,
+          config.tableMetadataMaxTables
+      );
+    }
+    return new DbStructure(dialect, metrics, tableDefinitions);
   }
 
   @Override
   public void put(Collection<SinkRecord> records) {
+    if (asyncWriter != null) {
+      putAsync(records);
+      return;
+    }
+    if (accumulator != null) {
+      putCollected(records);
+      return;
+    }
     if (records.isEmpty()) {
       return;
     }
@@ -70,8 +173,60 @@ public class JdbcSinkTask extends SinkTask {
         + "database...",
         recordsCount, first.topic(), first.kafkaPartition(), first.kafkaOffset()
     );
+    clearRewoundOffsets(records);
+    write(records, null);
+  }
+
+  /**
+   * Collect the records, and write all collected records once they are ready.
+   */
+  private void putCollected(Collection<SinkRecord> records) {
+    clearRewoundOffsets(records);
+    final Map<TableId, List<SinkRecord>> recordsByTable = collect(records);
+    if (recordsByTable.isEmpty()) {
+      return;
+    }
+    final List<SinkRecord> batch = flatten(recordsByTable);
+    log.debug("Writing {} records collected for {} tables to the database...",
+        batch.size(), recordsByTable.size());
+    write(batch, recordsByTable);
+  }
+
+  /**
+   * Write the records, retrying them on failure.
+   *
+   * @param recordsByTable the records grouped by destination table if they were collected over
+   *     several calls to {@link #put}, or null if they are the records of the current call
+   */
+  private void write(
+      Collection<SinkRecord> records,
+      Map<TableId, List<SinkRecord>> recordsByTable
+  ) {
     try {
-      writer.write(records);
+      if (recordsByTable != null) {
+        writer.write(recordsByTable);
+      } else {
+        writer.write(records);
+      }
+    } catch (TableWriteException e) {
+      log.warn(
+          "Write of records to tables {} failed, rewinding partitions to {}, remainingRetries={}",
+          e.failedTables(),
+          e.failedOffsets(),
+          remainingRetries,
+          e
+      );
+      if (remainingRetries == 0) {
+        throw new ConnectException(e);
+      }
+      remainingRetries--;
+      metrics.recordRetry();
+      context.timeout(config.retryBackoffMs);
+      // The records of the other tables were committed, so only the partitions that fed the
+      // failed tables are delivered again
+      rewoundOffsets.putAll(e.failedOffsets());
+      context.offset(e.failedOffsets());
+      return;
     } catch (SQLException sqle) {
       log.warn(
           "Write of {} records failed, remainingRetries={}",
@@ -91,22 +246,225 @@ public class JdbcSinkTask extends SinkTask {
         writer.closeQuietly();
         initWriter();
         remainingRetries--;
+        metrics.recordRetry();
         context.timeout(config.retryBackoffMs);
+        if (recordsByTable != null) {
+          // Retrying this call would not deliver the records of earlier calls again, so rewind
+          // the partitions to their first record that was not written instead
+          final Map<TopicPartition, Long> firstOffsets = firstOffsets(records);
+          rewoundOffsets.putAll(firstOffsets);
+          context.offset(firstOffsets);
+          return;
+        }
         throw new RetriableException(sqlAllMessagesException);
       }
     }
     remainingRetries = config.maxRetries;
   }
 
+  /**
+   * Collect the records until they should be written.
+   *
+   * @return all collected records grouped by destination table once they are ready to be
+   *     written; an empty map otherwise
+   */
+  private Map<TableId, List<SinkRecord>> collect(Collection<SinkRecord> records) {
+    accumulator.add(records);
+    if (accumulator.isReady()) {
+      return accumulator.drain();
+    }
+    if (!accumulator.isEmpty()) {
+      // Get called again by the time the oldest record has waited long enough
+      context.timeout(accumulator.lingerRemainingMs());
+    }
+    return Collections.emptyMap();
+  }
+
+  private static List<SinkRecord> flatten(Map<TableId, List<SinkRecord>> recordsByTable) {
+    final List<SinkRecord> records = new ArrayList<>();
+    for (List<SinkRecord> tableRecords : recordsByTable.values()) {
+      records.addAll(tableRecords);
+    }
+    return records;
+  }
+
+  private static Map<TopicPartition, Long> firstOffsets(Collection<SinkRecord> records) {
+    final Map<TopicPartition, Long> offsets = new HashMap<>();
+    for (SinkRecord record : records) {
+      offsets.merge(
+          new TopicPartition(record.topic(), record.kafkaPartition()),
+          record.kafkaOffset(),
+          Math::min
+      );
+    }
+    return offsets;
+  }
+
+  /**
+   * Forget the offsets of rewound partitions once their records are delivered again.
+   */
+  private void clearRewoundOffsets(Collection<SinkRecord> records) {
+    if (rewoundOffsets.isEmpty()) {
+      return;
+    }
+    for (SinkRecord record : records) {
+      final TopicPartition partition = new TopicPartition(record.topic(), record.kafkaPartition());
+      final Long rewoundOffset = rewoundOffsets.get(partition);
+      if (rewoundOffset != null && record.kafkaOffset() <= rewoundOffset) {
+        rewoundOffsets.remove(partition);
+      }
+    }
+  }
+
+  /**
+   * Queue the records for the background writer, and pause consumption while the queue is full.
+   * Connect keeps calling this method without records while all partitions are paused.
+   */
+  private void putAsync(Collection<SinkRecord> records) {
+    try {
+      final Collection<SinkRecord> batch =
+          accumulator != null ? flatten(collect(records)) : records;
+      if (!batch.isEmpty()) {
+        log.debug("Received {} records. Queueing them to be written to the database...",
+            batch.size());
+        asyncWriter.submit(batch);
+      } else {
+        asyncWriter.checkFailure();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ConnectException("Interrupted while queueing records", e);
+    }
+    final TopicPartition[] assignment = context.assignment().toArray(new TopicPartition[0]);
+    if (asyncWriter.isFull()) {
+      if (!paused) {
+        log.debug("Write queue is full, pausing consumption");
+        context.pause(assignment);
+        paused = true;
+      }
+      // Check again soon, rather than waiting for the full poll timeout
+      context.timeout(config.retryBackoffMs);
+    } else if (paused) {
+      log.debug("Write queue has space, resuming consumption");
+      context.resume(assignment);
+      paused = false;
+    }
+  }
+
+  @Override
+  public void open(Collection<TopicPartition> partitions) {
+    if (asyncWriter != null && asyncWriter.isFull()) {
+      // Newly assigned partitions are not paused yet, while the others may already be
+      log.debug("Write queue is full, pausing consumption of the assigned partitions");
+      final Set<TopicPartition> assignment = new LinkedHashSet<>(context.assignment());
+      assignment.addAll(partitions);
+      context.pause(assignment.toArray(new TopicPartition[0]));
+      paused = true;
+    }
+    if (committedOffsets == null) {
+      return;
+    }
+    // Continue from the offsets committed with the records, rather than those of the consumer
+    final Map<TopicPartition, Long> offsets;
+    try (Connection connection = dialect.getConnection()) {
+      offsets = new OffsetsTable(config, dialect, newDbStructure(), committedOffsets)
+          .read(connection, partitions);
+    } catch (SQLException e) {
+      throw new ConnectException("Failed to read the offsets of " + partitions, e);
+    }
+    if (!offsets.isEmpty()) {
+      log.info("Resuming from the offsets written with the records: {}", offsets);
+      context.offset(offsets);
+    }
+  }
+
   @Override
   public void flush(Map<TopicPartition, OffsetAndMetadata> map) {
     // Not necessary
   }
 
+  @Override
+  public Map<TopicPartition, OffsetAndMetadata> preCommit(
+      Map<TopicPartition, OffsetAndMetadata> currentOffsets
+  ) {
+    if (committedOffsets != null) {
+      // Follow the offsets table, which was committed together with the records
+      return committedOnly(currentOffsets, committedOffsets);
+    }
+    if (asyncWriter != null) {
+      // Only commit the offsets of records that the background writer committed
+      return committedOnly(currentOffsets, asyncWriter.committedOffsets());
+    }
+    if (rewoundOffsets.isEmpty() && (accumulator == null || accumulator.isEmpty())) {
+      return currentOffsets;
+    }
+    final Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>(currentOffsets);
+    offsets.keySet().removeAll(rewoundOffsets.keySet());
+    if (accumulator != null) {
+      // Collected records that were not written yet must be delivered again after a restart
+      for (Map.Entry<TopicPartition, Long> entry : accumulator.firstOffsets().entrySet()) {
+        offsets.computeIfPresent(
+            entry.getKey(),
+            (partition, offset) -> new OffsetAndMetadata(entry.getValue())
+        );
+      }
+    }
+    return offsets;
+  }
+
+  private static Map<TopicPartition, OffsetAndMetadata> committedOnly(
+      Map<TopicPartition, OffsetAndMetadata> currentOffsets,
+      Map<TopicPartition, Long> committed
+  ) {
+    final Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+    for (TopicPartition partition : currentOffsets.keySet()) {
+      final Long offset = committed.get(partition);
+      if (offset != null) {
+        offsets.put(partition, new OffsetAndMetadata(offset));
+      }
+    }
+    return offsets;
+  }
+
+  @Override
+  public void close(Collection<TopicPartition> partitions) {
+    rewoundOffsets.keySet().removeAll(partitions);
+    if (accumulator != null) {
+      // Their offsets were not committed, so the records are delivered again to the new owner
+      accumulator.discard(partitions);
+    }
+    if (asyncWriter != null) {
+      // Do not write records of these partitions once they may be assigned to another task
+      try {
+        asyncWriter.awaitIdle();
+        if (paused) {
+          // The queue is empty now, so consume the partitions that remain assigned again
+          final Set<TopicPartition> remaining = new LinkedHashSet<>(context.assignment());
+          remaining.removeAll(partitions);
+          context.resume(remaining.toArray(new TopicPartition[0]));
+          paused = false;
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ConnectException("Interrupted while writing queued records", e);
+      } finally {
+        asyncWriter.committedOffsets().keySet().removeAll(partitions);
+      }
+    }
+    if (committedOffsets != null) {
+      // Read again from the offsets table if the partitions are assigned to this task again
+      committedOffsets.keySet().removeAll(partitions);
+    }
+  }
+
   public void stop() {
     log.info("Stopping task");
     try {
-      writer.closeQuietly();
+      if (asyncWriter != null) {
+        asyncWriter.stop();
+      } else {
+        writer.closeQuietly();
+      }
     } finally {
       try {
         if (dialect != null) {
@@ -116,6 +474,14 @@ public class JdbcSinkTask extends SinkTask {
         log.warn("Error while closing the {} dialect: ", dialect.name(), t);
       } finally {
         dialect = null;
+        if (tableDefinitions != null) {
+          tableDefinitions.release();
+          tableDefinitions = null;
+        }
+        if (metrics != null) {
+          metrics.close();
+          metrics = null;
+        }
       }
     }
   }
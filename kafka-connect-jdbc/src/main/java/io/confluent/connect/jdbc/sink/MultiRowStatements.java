@@ -0,0 +1,250 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.dialect.DatabaseDialect.StatementBinder;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.InsertMode;
+import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
+import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
+import io.confluent.connect.jdbc.util.ColumnId;
+import io.confluent.connect.jdbc.util.TableDefinition;
+import io.confluent.connect.jdbc.util.TableId;
+
+/**
+ * Writes records with INSERT or UPSERT statements that have a VALUES clause for many rows, so
+ * that a whole batch takes only a few statement executions.
+ *
+ * <p>Full statements have as many rows as fit within the bind parameter limit of the dialect and
+ * the batch size. Any remaining records are written with statements for a power-of-two number of
+ * rows, so at most a handful of prepared statements are kept for each table. In UPSERT mode the
+ * records are split wherever a key repeats, since databases like PostgreSQL reject a statement
+ * that affects the same row twice.
+ */
+class MultiRowStatements {
+
+  private static final Logger log = LoggerFactory.getLogger(MultiRowStatements.class);
+
+  private final JdbcSinkConfig config;
+  private final TableId tableId;
+  private final DatabaseDialect dbDialect;
+  private final Connection connection;
+  private final SchemaPair schemaPair;
+  private final FieldsMetadata fieldsMetadata;
+  private final TableDefinition tableDefn;
+  private final Collection<ColumnId> keyColumns;
+  private final Collection<ColumnId> nonKeyColumns;
+  private final int maxRows;
+  private final Map<Integer, PreparedStatement> statements = new HashMap<>();
+  private final Map<Integer, StatementBinder> binders = new HashMap<>();
+
+  /**
+   * Create the multi-row statements for a table, if they are enabled and supported. Dialects that
+   * support them have a positive {@link DatabaseDialect#maxBindParameters()}.
+   *
+   * @param tableDefn the definition of the table; may be null if not known
+   * @return the multi-row statements, or null if records should be written one row at a time
+   */
+  static MultiRowStatements create(
+      JdbcSinkConfig config,
+      TableId tableId,
+      DatabaseDialect dbDialect,
+      Connection connection,
+      SchemaPair schemaPair,
+      FieldsMetadata fieldsMetadata,
+      TableDefinition tableDefn,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns
+  ) {
+    if (!config.multiRowEnabled || config.insertMode == InsertMode.UPDATE) {
+      return null;
+    }
+    final int columns = keyColumns.size() + nonKeyColumns.size();
+    final int maxRows = columns == 0
+                        ? 0
+                        : Math.min(config.batchSize, dbDialect.maxBindParameters() / columns);
+    if (maxRows < 2) {
+      return null;
+    }
+    return new MultiRowStatements(
+        config,
+        tableId,
+        dbDialect,
+        connection,
+        schemaPair,
+        fieldsMetadata,
+        tableDefn,
+        keyColumns,
+        nonKeyColumns,
+        maxRows
+    );
+  }
+
+  private MultiRowStatements(
+      JdbcSinkConfig config,
+      TableId tableId,
+      DatabaseDialect dbDialect,
+      Connection connection,
+      SchemaPair schemaPair,
+      FieldsMetadata fieldsMetadata,
+      TableDefinition tableDefn,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      int maxRows
+  ) {
+    this.config = config;
+    this.tableId = tableId;
+    this.dbDialect = dbDialect;
+    this.connection = connection;
+    this.schemaPair = schemaPair;
+    this.fieldsMetadata = fieldsMetadata;
+    this.tableDefn = tableDefn;
+    this.keyColumns = keyColumns;
+    this.nonKeyColumns = nonKeyColumns;
+    this.maxRows = maxRows;
+  }
+
+  /**
+   * Write all the supplied records, none of which may be a delete.
+   *
+   * @return an optional count of all updated rows or an empty optional if no info is available
+   */
+  Optional<Long> execute(List<SinkRecord> records) throws SQLException {
+    Optional<Long> count = Optional.empty();
+    for (List<SinkRecord> run : runsWithoutRepeatedKeys(records)) {
+      int index = 0;
+      if (run.size() >= maxRows) {
+        final PreparedStatement statement = statement(maxRows);
+        for (; run.size() - index >= maxRows; index += maxRows) {
+          bindRows(maxRows, run, index);
+          statement.addBatch();
+        }
+        for (int updateCount : statement.executeBatch()) {
+          count = addCount(count, updateCount);
+        }
+      }
+      while (index < run.size()) {
+        final int rows = Integer.highestOneBit(run.size() - index);
+        final PreparedStatement statement = statement(rows);
+        bindRows(rows, run, index);
+        count = addCount(count, statement.executeUpdate());
+        index += rows;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * @return the number of prepared statements currently held open
+   */
+  int openStatementCount() {
+    return statements.size();
+  }
+
+  void close() throws SQLException {
+    try {
+      for (PreparedStatement statement : statements.values()) {
+        statement.close();
+      }
+    } finally {
+      statements.clear();
+      binders.clear();
+    }
+  }
+
+  private void bindRows(int rows, List<SinkRecord> records, int offset) throws SQLException {
+    final StatementBinder binder = binders.get(rows);
+    int index = 1;
+    for (int i = offset; i < offset + rows; i++) {
+      index = binder.bindRecord(index, records.get(i));
+    }
+  }
+
+  private PreparedStatement statement(int rows) throws SQLException {
+    PreparedStatement statement = statements.get(rows);
+    if (statement == null) {
+      final String sql = sql(rows);
+      log.debug("{} sql for {} rows of {}: {}", config.insertMode, rows, tableId, sql);
+      statement = dbDialect.createPreparedStatement(connection, sql);
+      statements.put(rows, statement);
+      binders.put(rows, dbDialect.statementBinder(
+          statement,
+          config.pkMode,
+          schemaPair,
+          fieldsMetadata,
+          tableDefn,
+          config.insertMode
+      ));
+    }
+    return statement;
+  }
+
+  private String sql(int rows) {
+    if (config.insertMode == InsertMode.UPSERT) {
+      return dbDialect.buildUpsertQueryStatement(tableId, keyColumns, nonKeyColumns, rows);
+    }
+    return dbDialect.buildInsertStatement(tableId, keyColumns, nonKeyColumns, rows);
+  }
+
+  private List<List<SinkRecord>> runsWithoutRepeatedKeys(List<SinkRecord> records) {
+    if (config.insertMode != InsertMode.UPSERT) {
+      return Collections.singletonList(records);
+    }
+    final List<List<SinkRecord>> runs = new ArrayList<>();
+    final Set<List<Object>> keys = new HashSet<>();
+    int start = 0;
+    for (int i = 0; i < records.size(); i++) {
+      final List<Object> key = RecordKeys.keyValues(
+          config.pkMode,
+          fieldsMetadata,
+          records.get(i)
+      );
+      if (!keys.add(key)) {
+        runs.add(records.subList(start, i));
+        keys.clear();
+        keys.add(key);
+        start = i;
+      }
+    }
+    runs.add(records.subList(start, records.size()));
+    return runs;
+  }
+
+  private static Optional<Long> addCount(Optional<Long> count, int updateCount) {
+    if (updateCount == Statement.SUCCESS_NO_INFO) {
+      return count;
+    }
+    return Optional.of(count.orElse(0L) + updateCount);
+  }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.InsertMode;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.PrimaryKeyMode;
+import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
+import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
+import io.confluent.connect.jdbc.util.ColumnId;
+import io.confluent.connect.jdbc.util.ExpressionBuilder;
+import io.confluent.connect.jdbc.util.TableId;
+
+/**
+ * The table that stores the next offset to consume of each topic partition, so that records are
+ * written exactly once. The offsets are written in the transaction of the records.
+ *
+ * <p>The offsets in the table of the partitions assigned to the task are kept in a map that is
+ * shared by all writers of the task. A partition has a row in the table if and only if it is in
+ * that map. An offset is only updated if it still is the one in that map, so that a task that
+ * lost a partition to another task during a rebalance cannot write records of it again.
+ */
+class OffsetsTable {
+  private static final Logger log = LoggerFactory.getLogger(OffsetsTable.class);
+
+  static final String CONNECTOR_COLUMN = "connector";
+  static final String TOPIC_COLUMN = "topic";
+  static final String PARTITION_COLUMN = "partition";
+  static final String OFFSET_COLUMN = "offset";
+
+  static final Schema SCHEMA = SchemaBuilder.struct()
+      .name("io.confluent.connect.jdbc.Offset")
+      .field(CONNECTOR_COLUMN, Schema.STRING_SCHEMA)
+      .field(TOPIC_COLUMN, Schema.STRING_SCHEMA)
+      .field(PARTITION_COLUMN, Schema.INT32_SCHEMA)
+      .field(OFFSET_COLUMN, Schema.INT64_SCHEMA)
+      .build();
+
+  private static final SchemaPair SCHEMA_PAIR = new SchemaPair(null, SCHEMA);
+
+  private final JdbcSinkConfig config;
+  private final DatabaseDialect dbDialect;
+  private final DbStructure dbStructure;
+  private final Map<TopicPartition, Long> committedOffsets;
+  private final TableId tableId;
+  private final String connectorName;
+  private final FieldsMetadata fieldsMetadata;
+
+  /**
+   * @param committedOffsets the offsets in the table of the partitions assigned to the task
+   */
+  OffsetsTable(
+      JdbcSinkConfig config,
+      DatabaseDialect dbDialect,
+      DbStructure dbStructure,
+      Map<TopicPartition, Long> committedOffsets
+  ) {
+    this.config = config;
+    this.dbDialect = dbDialect;
+    this.dbStructure = dbStructure;
+    this.committedOffsets = committedOffsets;
+    this.tableId = dbDialect.parseTableIdentifier(config.exactlyOnceOffsetsTable);
+    this.connectorName = Objects.toString(config.connectorName, "");
+    this.fieldsMetadata = FieldsMetadata.extract(
+        tableId.tableName(),
+        PrimaryKeyMode.RECORD_VALUE,
+        Arrays.asList(CONNECTOR_COLUMN, TOPIC_COLUMN, PARTITION_COLUMN),
+        Collections.emptySet(),
+        SCHEMA_PAIR
+    );
+  }
+
+  TableId tableId() {
+    return tableId;
+  }
+
+  /**
+   * Read the stored offsets of the given partitions, and keep them as their committed offsets.
+   *
+   * @return the next offsets to consume of the partitions that have one
+   * @throws SQLException if there is any problem using the connection
+   */
+  Map<TopicPartition, Long> read(
+      Connection connection,
+      Collection<TopicPartition> partitions
+  ) throws SQLException {
+    final Map<TopicPartition, Long> offsets = new HashMap<>();
+    if (!dbDialect.tableExists(connection, tableId)) {
+      return offsets;
+    }
+    final ExpressionBuilder builder = dbDialect.expressionBuilder();
+    builder.append("SELECT ");
+    builder.appendColumnName(TOPIC_COLUMN);
+    builder.append(", ");
+    builder.appendColumnName(PARTITION_COLUMN);
+    builder.append(", ");
+    builder.appendColumnName(OFFSET_COLUMN);
+    builder.append(" FROM ");
+    builder.append(tableId);
+    builder.append(" WHERE ");
+    builder.appendColumnName(CONNECTOR_COLUMN);
+    builder.append(" = ?");
+    try (PreparedStatement statement = connection.prepareStatement(builder.toString())) {
+      statement.setString(1, connectorName);
+      try (ResultSet rs = statement.executeQuery()) {
+        while (rs.next()) {
+          final TopicPartition partition = new TopicPartition(rs.getString(1), rs.getInt(2));
+          if (partitions.contains(partition)) {
+            offsets.put(partition, rs.getLong(3));
+          }
+        }
+      }
+    }
+    committedOffsets.putAll(offsets);
+    return offsets;
+  }
+
+  /**
+   * @return the records that were not committed yet, grouped by destination table; tables without
+   *     any such records are left out
+   */
+  Map<TableId, List<SinkRecord>> unwritten(Map<TableId, List<SinkRecord>> recordsByTable) {
+    final Map<TableId, List<SinkRecord>> unwritten = new LinkedHashMap<>();
+    for (Map.Entry<TableId, List<SinkRecord>> entry : recordsByTable.entrySet()) {
+      final List<SinkRecord> records = entry.getValue().stream()
+          .filter(record -> record.kafkaOffset() >= committedOffsets.getOrDefault(
+              new TopicPartition(record.topic(), record.kafkaPartition()), 0L))
+          .collect(Collectors.toList());
+      if (records.size() < entry.getValue().size()) {
+        log.debug("Skipping {} records already written to table ID {}",
+            entry.getValue().size() - records.size(), entry.getKey());
+      }
+      if (!records.isEmpty()) {
+        unwritten.put(entry.getKey(), records);
+      }
+    }
+    return unwritten;
+  }
+
+  /**
+   * Write the next offsets to consume after the given records in the transaction of the
+   * connection. Call {@link #committed} with the returned offsets once the transaction is
+   * committed.
+   *
+   * @return the next offsets to consume of the partitions of the records
+   * @throws SQLException if there is any problem using the connection
+   * @throws ConnectException if another task has written any of the partitions since their
+   *     offsets were read
+   */
+  Map<TopicPartition, Long> write(
+      Connection connection,
+      Map<TableId, List<SinkRecord>> recordsByTable
+  ) throws SQLException {
+    final Map<TopicPartition, Long> offsets = new HashMap<>();
+    for (List<SinkRecord> records : recordsByTable.values()) {
+      for (SinkRecord record : records) {
+        offsets.merge(
+            new TopicPartition(record.topic(), record.kafkaPartition()),
+            record.kafkaOffset() + 1,
+            Math::max
+        );
+      }
+    }
+    dbStructure.createOrAmendIfNecessary(config, connection, tableId, fieldsMetadata);
+    final Map<TopicPartition, Long> updates = new LinkedHashMap<>();
+    final List<SinkRecord> inserts = new ArrayList<>();
+    for (Map.Entry<TopicPartition, Long> entry : offsets.entrySet()) {
+      final TopicPartition partition = entry.getKey();
+      if (committedOffsets.containsKey(partition)) {
+        updates.put(partition, entry.getValue());
+        continue;
+      }
+      final Struct row = new Struct(SCHEMA)
+          .put(CONNECTOR_COLUMN, connectorName)
+          .put(TOPIC_COLUMN, partition.topic())
+          .put(PARTITION_COLUMN, partition.partition())
+          .put(OFFSET_COLUMN, entry.getValue());
+      inserts.add(
+          new SinkRecord(partition.topic(), partition.partition(), null, null, SCHEMA, row, 0)
+      );
+    }
+    update(connection, updates);
+    // Another task that inserted the offset of a partition first fails this with a duplicate key
+    execute(
+        connection,
+        dbDialect.buildInsertStatement(
+            tableId,
+            asColumns(fieldsMetadata.keyFieldNames),
+            asColumns(fieldsMetadata.nonKeyFieldNames)
+        ),
+        InsertMode.INSERT,
+        inserts
+    );
+    return offsets;
+  }
+
+  /**
+   * Update the offsets of the given partitions, each only if it still is the committed offset.
+   *
+   * @throws ConnectException if the offset of any partition is no longer the committed offset
+   */
+  private void update(
+      Connection connection,
+      Map<TopicPartition, Long> offsets
+  ) throws SQLException {
+    if (offsets.isEmpty()) {
+      return;
+    }
+    final ExpressionBuilder builder = dbDialect.expressionBuilder();
+    builder.append("UPDATE ");
+    builder.append(tableId);
+    builder.append(" SET ");
+    builder.appendColumnName(OFFSET_COLUMN);
+    builder.append(" = ? WHERE ");
+    builder.appendColumnName(CONNECTOR_COLUMN);
+    builder.append(" = ? AND ");
+    builder.appendColumnName(TOPIC_COLUMN);
+    builder.append(" = ? AND ");
+    builder.appendColumnName(PARTITION_COLUMN);
+    builder.append(" = ? AND ");
+    builder.appendColumnName(OFFSET_COLUMN);
+    builder.append(" = ?");
+    try (PreparedStatement statement =
+             dbDialect.createPreparedStatement(connection, builder.toString())) {
+      for (Map.Entry<TopicPartition, Long> entry : offsets.entrySet()) {
+        final TopicPartition partition = entry.getKey();
+        statement.setLong(1, entry.getValue());
+        statement.setString(2, connectorName);
+        statement.setString(3, partition.topic());
+        statement.setInt(4, partition.partition());
+        statement.setLong(5, committedOffsets.get(partition));
+        statement.addBatch();
+      }
+      final int[] counts = statement.executeBatch();
+      final Iterator<TopicPartition> partitions = offsets.keySet().iterator();
+      for (int count : counts) {
+        final TopicPartition partition = partitions.next();
+        if (count == 0) {
+          throw new ConnectException(String.format(
+              "The offset of %s is no longer %d, as another task has written its records since "
+                  + "this task was assigned it",
+              partition,
+              committedOffsets.get(partition)
+          ));
+        }
+      }
+    }
+  }
+
+  /**
+   * Keep the offsets written with {@link #write} as committed, once their transaction is.
+   */
+  void committed(Map<TopicPartition, Long> offsets) {
+    committedOffsets.putAll(offsets);
+  }
+
+  private void execute(
+      Connection connection,
+      String sql,
+      InsertMode mode,
+      List<SinkRecord> records
+  ) throws SQLException {
+    if (records.isEmpty()) {
+      return;
+    }
+    try (PreparedStatement statement = dbDialect.createPreparedStatement(connection, sql)) {
+      final DatabaseDialect.StatementBinder binder = dbDialect.statementBinder(
+          statement,
+          PrimaryKeyMode.RECORD_VALUE,
+          SCHEMA_PAIR,
+          fieldsMetadata,
+          mode
+      );
+      for (SinkRecord record : records) {
+        binder.bindRecord(record);
+      }
+      statement.executeBatch();
+    }
+  }
+
+  private Collection<ColumnId> asColumns(Collection<String> names) {
+    return names.stream()
+        .map(name -> new ColumnId(tableId, name))
+        .collect(Collectors.toList());
+  }
+}
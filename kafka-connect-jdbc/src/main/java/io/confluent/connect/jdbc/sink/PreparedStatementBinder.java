@@ -23,22 +23,30 @@ import org.apache.kafka.connect.sink.SinkRecord;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialect;
 import io.confluent.connect.jdbc.dialect.DatabaseDialect.StatementBinder;
+import io.confluent.connect.jdbc.dialect.DatabaseDialect.ValueBinder;
 import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
 import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
+import io.confluent.connect.jdbc.util.ColumnDefinition;
+import io.confluent.connect.jdbc.util.TableDefinition;
 
 import static java.util.Objects.isNull;
 
+/**
+ * Binds records into a prepared statement with setters that are compiled once for the schemas of
+ * the statement. Each setter knows the position of its variable among the variables of a record
+ * and the field of the struct that it reads, so binding a record only reads the field values and
+ * calls the setters without looking up fields by name or resolving the type of each value.
+ */
 public class PreparedStatementBinder implements StatementBinder {
 
-  private final JdbcSinkConfig.PrimaryKeyMode pkMode;
   private final PreparedStatement statement;
-  private final SchemaPair schemaPair;
-  private final FieldsMetadata fieldsMetadata;
-  private final JdbcSinkConfig.InsertMode insertMode;
-  private final DatabaseDialect dialect;
+  private final FieldSetter[] recordSetters;
+  private final FieldSetter[] deleteSetters;
 
   public PreparedStatementBinder(
       DatabaseDialect dialect,
@@ -48,49 +56,75 @@ public class PreparedStatementBinder implements StatementBinder {
       FieldsMetadata fieldsMetadata,
       JdbcSinkConfig.InsertMode insertMode
   ) {
-    this.dialect = dialect;
-    this.pkMode = pkMode;
-    this.statement = statement;
-    this.schemaPair = schemaPair;
-    this.fieldsMetadata = fieldsMetadata;
-    this.insertMode = insertMode;
+    this(dialect, statement, pkMode, schemaPair, fieldsMetadata, null, insertMode);
   }
 
-  @Override
-  public void bindRecord(SinkRecord record) throws SQLException {
-    final Struct valueStruct = (Struct) record.value();
-    final boolean isDelete = isNull(valueStruct);
+  /**
+   * @param tableDefn the definition of the destination table, which decides how values are bound
+   *                  to the type of their column; may be null if not known
+   */
+  public PreparedStatementBinder(
+      DatabaseDialect dialect,
+      PreparedStatement statement,
+      JdbcSinkConfig.PrimaryKeyMode pkMode,
+      SchemaPair schemaPair,
+      FieldsMetadata fieldsMetadata,
+      TableDefinition tableDefn,
+      JdbcSinkConfig.InsertMode insertMode
+  ) {
+    this.statement = statement;
+
     // Assumption: the relevant SQL has placeholders for keyFieldNames first followed by
     //             nonKeyFieldNames, in iteration order for all INSERT/ UPSERT queries
     //             the relevant SQL has placeholders for keyFieldNames,
     //             in iteration order for all DELETE queries
     //             the relevant SQL has placeholders for nonKeyFieldNames first followed by
     //             keyFieldNames, in iteration order for all UPDATE queries
+    final List<FieldSetter> keySetters =
+        keySetters(dialect, pkMode, schemaPair, fieldsMetadata, tableDefn);
+    final List<FieldSetter> nonKeySetters =
+        nonKeySetters(dialect, schemaPair, fieldsMetadata, tableDefn);
+    final List<FieldSetter> setters = new ArrayList<>();
+    switch (insertMode) {
+      case INSERT:
+      case UPSERT:
+        setters.addAll(keySetters);
+        setters.addAll(nonKeySetters);
+        break;
+      case UPDATE:
+        setters.addAll(nonKeySetters);
+        setters.addAll(keySetters);
+        break;
+      default:
+        throw new AssertionError();
+    }
+    this.recordSetters = setters.toArray(new FieldSetter[0]);
+    this.deleteSetters = keySetters.toArray(new FieldSetter[0]);
+  }
 
-    int index = 1;
-    if (isDelete) {
-      bindKeyFields(record, index);
-    } else {
-      switch (insertMode) {
-        case INSERT:
-        case UPSERT:
-          index = bindKeyFields(record, index);
-          bindNonKeyFields(record, valueStruct, index);
-          break;
-
-        case UPDATE:
-          index = bindNonKeyFields(record, valueStruct, index);
-          bindKeyFields(record, index);
-          break;
-        default:
-          throw new AssertionError();
+  @Override
+  public void bindRecord(SinkRecord record) throws SQLException {
+    bindRecord(1, record);
+    statement.addBatch();
+  }
 
-      }
+  @Override
+  public int bindRecord(int index, SinkRecord record) throws SQLException {
+    final FieldSetter[] setters = isNull(record.value()) ? deleteSetters : recordSetters;
+    for (int i = 0; i < setters.length; i++) {
+      setters[i].bind(statement, index + i, record);
     }
-    statement.addBatch();
+    return index + setters.length;
   }
 
-  protected int bindKeyFields(SinkRecord record, int index) throws SQLException {
+  private static List<FieldSetter> keySetters(
+      DatabaseDialect dialect,
+      JdbcSinkConfig.PrimaryKeyMode pkMode,
+      SchemaPair schemaPair,
+      FieldsMetadata fieldsMetadata,
+      TableDefinition tableDefn
+  ) {
+    final List<FieldSetter> setters = new ArrayList<>();
     switch (pkMode) {
       case NONE:
         if (!fieldsMetadata.keyFieldNames.isEmpty()) {
@@ -100,20 +134,32 @@ public class PreparedStatementBinder implements StatementBinder {
 
       case KAFKA: {
         assert fieldsMetadata.keyFieldNames.size() == 3;
-        bindField(index++, Schema.STRING_SCHEMA, record.topic());
-        bindField(index++, Schema.INT32_SCHEMA, record.kafkaPartition());
-        bindField(index++, Schema.INT64_SCHEMA, record.kafkaOffset());
+        final ValueBinder topic = dialect.valueBinder(Schema.STRING_SCHEMA);
+        final ValueBinder partition = dialect.valueBinder(Schema.INT32_SCHEMA);
+        final ValueBinder offset = dialect.valueBinder(Schema.INT64_SCHEMA);
+        setters.add((statement, index, record) -> topic.bind(statement, index, record.topic()));
+        setters.add((statement, index, record) ->
+            partition.bind(statement, index, record.kafkaPartition()));
+        setters.add((statement, index, record) ->
+            offset.bind(statement, index, record.kafkaOffset()));
       }
       break;
 
       case RECORD_KEY: {
         if (schemaPair.keySchema.type().isPrimitive()) {
           assert fieldsMetadata.keyFieldNames.size() == 1;
-          bindField(index++, schemaPair.keySchema, record.key());
+          final ValueBinder binder = dialect.valueBinder(
+              schemaPair.keySchema,
+              column(tableDefn, fieldsMetadata.keyFieldNames.iterator().next())
+          );
+          setters.add((statement, index, record) -> binder.bind(statement, index, record.key()));
         } else {
           for (String fieldName : fieldsMetadata.keyFieldNames) {
             final Field field = schemaPair.keySchema.field(fieldName);
-            bindField(index++, field.schema(), ((Struct) record.key()).get(field));
+            final ValueBinder binder =
+                dialect.valueBinder(field.schema(), column(tableDefn, fieldName));
+            setters.add((statement, index, record) ->
+                binder.bind(statement, index, ((Struct) record.key()).get(field)));
           }
         }
       }
@@ -122,7 +168,7 @@ public class PreparedStatementBinder implements StatementBinder {
       case RECORD_VALUE: {
         for (String fieldName : fieldsMetadata.keyFieldNames) {
           final Field field = schemaPair.valueSchema.field(fieldName);
-          bindField(index++, field.schema(), ((Struct) record.value()).get(field));
+          setters.add(valueFieldSetter(dialect, field, tableDefn));
         }
       }
       break;
@@ -130,22 +176,46 @@ public class PreparedStatementBinder implements StatementBinder {
       default:
         throw new ConnectException("Unknown primary key mode: " + pkMode);
     }
-    return index;
+    return setters;
   }
 
-  protected int bindNonKeyFields(
-      SinkRecord record,
-      Struct valueStruct,
-      int index
-  ) throws SQLException {
+  private static List<FieldSetter> nonKeySetters(
+      DatabaseDialect dialect,
+      SchemaPair schemaPair,
+      FieldsMetadata fieldsMetadata,
+      TableDefinition tableDefn
+  ) {
+    final List<FieldSetter> setters = new ArrayList<>();
     for (final String fieldName : fieldsMetadata.nonKeyFieldNames) {
-      final Field field = record.valueSchema().field(fieldName);
-      bindField(index++, field.schema(), valueStruct.get(field));
+      setters.add(valueFieldSetter(dialect, schemaPair.valueSchema.field(fieldName), tableDefn));
     }
-    return index;
+    return setters;
+  }
+
+  /**
+   * @return a setter for the value field, which reads the field by its index in the struct; the
+   *     records that are bound have the value schema of the statement, so the index is the same
+   */
+  private static FieldSetter valueFieldSetter(
+      DatabaseDialect dialect,
+      Field field,
+      TableDefinition tableDefn
+  ) {
+    final ValueBinder binder =
+        dialect.valueBinder(field.schema(), column(tableDefn, field.name()));
+    return (statement, index, record) ->
+        binder.bind(statement, index, ((Struct) record.value()).get(field));
+  }
+
+  private static ColumnDefinition column(TableDefinition tableDefn, String name) {
+    return tableDefn == null ? null : tableDefn.definitionForColumn(name);
   }
 
-  protected void bindField(int index, Schema schema, Object value) throws SQLException {
-    dialect.bindField(statement, index, schema, value);
+  /**
+   * Binds one field of a record at a variable of the prepared statement.
+   */
+  @FunctionalInterface
+  private interface FieldSetter {
+    void bind(PreparedStatement statement, int index, SinkRecord record) throws SQLException;
   }
 }
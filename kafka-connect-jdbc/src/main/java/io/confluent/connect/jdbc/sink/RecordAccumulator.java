@@ -0,0 +1,228 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Time;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import io.confluent.connect.jdbc.util.TableId;
+
+/**
+ * Collects records across {@code put()} calls, so that tables that receive few records per call
+ * are still written in batches.
+ *
+ * <p>The records are ready to be written once a table has as many records as its batch size,
+ * the estimated size of all records reaches {@code buffer.memory.bytes}, or the oldest record
+ * has waited {@code linger.ms}. The records of all tables are then drained at once. Since every
+ * drain takes all records collected so far, the records of a topic partition are written in
+ * offset order, and the first collected record of each partition is the first one whose offset
+ * must not be committed yet.
+ *
+ * <p>Instances are not thread-safe.
+ */
+class RecordAccumulator {
+
+  /**
+   * The estimated size of a record apart from its key and value.
+   */
+  private static final long RECORD_OVERHEAD = 64;
+
+  private final JdbcSinkConfig config;
+  private final Function<SinkRecord, TableId> destinationTable;
+  private final ToIntFunction<TableId> batchSize;
+  private final SinkMetrics metrics;
+  private final Time time;
+  private final Map<TableId, List<SinkRecord>> recordsByTable = new LinkedHashMap<>();
+  private final Map<TableId, Long> bytesByTable = new HashMap<>();
+  private final Map<TopicPartition, Long> firstOffsets = new HashMap<>();
+  private long bufferedBytes;
+  private boolean batchFull;
+  private long firstRecordMs;
+
+  RecordAccumulator(
+      JdbcSinkConfig config,
+      Function<SinkRecord, TableId> destinationTable,
+      ToIntFunction<TableId> batchSize,
+      SinkMetrics metrics,
+      Time time
+  ) {
+    this.config = config;
+    this.destinationTable = destinationTable;
+    this.batchSize = batchSize;
+    this.metrics = metrics;
+    this.time = time;
+  }
+
+  void add(Collection<SinkRecord> records) {
+    if (records.isEmpty()) {
+      return;
+    }
+    if (isEmpty()) {
+      firstRecordMs = time.milliseconds();
+    }
+    for (SinkRecord record : records) {
+      final TableId tableId = destinationTable.apply(record);
+      final List<SinkRecord> tableRecords =
+          recordsByTable.computeIfAbsent(tableId, t -> new ArrayList<>());
+      tableRecords.add(record);
+      batchFull |= tableRecords.size() >= batchSize.applyAsInt(tableId);
+
+      final long size = estimateSize(record);
+      bufferedBytes += size;
+      bytesByTable.merge(tableId, size, Long::sum);
+      firstOffsets.putIfAbsent(
+          new TopicPartition(record.topic(), record.kafkaPartition()),
+          record.kafkaOffset()
+      );
+    }
+    for (Map.Entry<TableId, Long> entry : bytesByTable.entrySet()) {
+      metrics.table(entry.getKey()).recordBufferedBytes(entry.getValue());
+    }
+  }
+
+  boolean isEmpty() {
+    return recordsByTable.isEmpty();
+  }
+
+  /**
+   * @return whether the collected records should be written now
+   */
+  boolean isReady() {
+    return !isEmpty()
+           && (batchFull
+               || bufferedBytes >= config.bufferMemoryBytes
+               || lingerRemainingMs() == 0);
+  }
+
+  /**
+   * @return the time until the oldest record has waited {@code linger.ms}; never negative
+   */
+  long lingerRemainingMs() {
+    if (isEmpty()) {
+      return config.lingerMs;
+    }
+    return Math.max(0, firstRecordMs + config.lingerMs - time.milliseconds());
+  }
+
+  /**
+   * @return the offset of the first collected record of each topic partition, which is the
+   *     offset up to which the partition may be committed
+   */
+  Map<TopicPartition, Long> firstOffsets() {
+    return firstOffsets;
+  }
+
+  /**
+   * Take all collected records.
+   *
+   * @return the records grouped by destination table
+   */
+  Map<TableId, List<SinkRecord>> drain() {
+    final Map<TableId, List<SinkRecord>> records = new LinkedHashMap<>(recordsByTable);
+    clear();
+    return records;
+  }
+
+  /**
+   * Drop the collected records of the given partitions, which are delivered again to this or
+   * another task.
+   */
+  void discard(Collection<TopicPartition> partitions) {
+    if (isEmpty() || partitions.isEmpty()) {
+      return;
+    }
+    final Map<TableId, List<SinkRecord>> kept = new LinkedHashMap<>();
+    for (Map.Entry<TableId, List<SinkRecord>> entry : recordsByTable.entrySet()) {
+      for (SinkRecord record : entry.getValue()) {
+        if (!partitions.contains(new TopicPartition(record.topic(), record.kafkaPartition()))) {
+          kept.computeIfAbsent(entry.getKey(), t -> new ArrayList<>()).add(record);
+        }
+      }
+    }
+    final long oldestRecordMs = firstRecordMs;
+    clear();
+    for (List<SinkRecord> records : kept.values()) {
+      add(records);
+    }
+    firstRecordMs = oldestRecordMs;
+  }
+
+  private void clear() {
+    for (TableId tableId : bytesByTable.keySet()) {
+      metrics.table(tableId).recordBufferedBytes(0);
+    }
+    recordsByTable.clear();
+    bytesByTable.clear();
+    firstOffsets.clear();
+    bufferedBytes = 0;
+    batchFull = false;
+  }
+
+  /**
+   * @return a rough estimate of the memory used by the record
+   */
+  static long estimateSize(SinkRecord record) {
+    return RECORD_OVERHEAD + estimateSize(record.key()) + estimateSize(record.value());
+  }
+
+  private static long estimateSize(Object value) {
+    long size = 0;
+    if (value instanceof Struct) {
+      final Struct struct = (Struct) value;
+      for (Field field : struct.schema().fields()) {
+        size += 8 + estimateSize(struct.get(field));
+      }
+    } else if (value instanceof Collection) {
+      for (Object element : (Collection<?>) value) {
+        size += 8 + estimateSize(element);
+      }
+    } else if (value instanceof Map) {
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        size += 16 + estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+      }
+    } else {
+      size = estimateScalarSize(value);
+    }
+    return size;
+  }
+
+  private static long estimateScalarSize(Object value) {
+    if (value == null) {
+      return 0;
+    } else if (value instanceof String) {
+      return ((String) value).length();
+    } else if (value instanceof byte[]) {
+      return ((byte[]) value).length;
+    } else if (value instanceof ByteBuffer) {
+      return ((ByteBuffer) value).remaining();
+    } else {
+      return 16;
+    }
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.PrimaryKeyMode;
+import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
+
+/**
+ * Extracts the primary key of records as a list of values that can be compared and hashed, to
+ * find records for the same row within a batch.
+ */
+final class RecordKeys {
+
+  private RecordKeys() {
+  }
+
+  /**
+   * @return the values of the primary key fields of the record in the order of the key columns,
+   *     or null if the record has no struct to take the key fields from
+   */
+  static List<Object> keyValues(
+      PrimaryKeyMode pkMode,
+      FieldsMetadata fieldsMetadata,
+      SinkRecord record
+  ) {
+    switch (pkMode) {
+      case KAFKA:
+        return Arrays.asList(record.topic(), record.kafkaPartition(), record.kafkaOffset());
+      case RECORD_KEY:
+        if (record.key() instanceof Struct) {
+          return fieldValues((Struct) record.key(), fieldsMetadata.keyFieldNames);
+        }
+        return Collections.singletonList(comparable(record.key()));
+      case RECORD_VALUE:
+        if (record.value() instanceof Struct) {
+          return fieldValues((Struct) record.value(), fieldsMetadata.keyFieldNames);
+        }
+        return null;
+      default:
+        return Collections.emptyList();
+    }
+  }
+
+  private static List<Object> fieldValues(Struct struct, Collection<String> fieldNames) {
+    final List<Object> values = new ArrayList<>(fieldNames.size());
+    for (String fieldName : fieldNames) {
+      values.add(comparable(struct.get(fieldName)));
+    }
+    return values;
+  }
+
+  private static Object comparable(Object value) {
+    return value instanceof byte[] ? ByteBuffer.wrap((byte[]) value) : value;
+  }
+}
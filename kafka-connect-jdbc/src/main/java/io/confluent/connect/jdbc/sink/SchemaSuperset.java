@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Combines compatible versions of a value schema into a single schema with the fields of all of
+ * them, so that records of different versions can be written in the same batch.
+ *
+ * <p>Two struct schemas are compatible if the fields they have in common have equal schemas, and
+ * every field that only one of them has is optional or has a default value. Records are written
+ * with the superset schema, where the fields that their own schema lacks take the default value
+ * of the field, or null.
+ */
+final class SchemaSuperset {
+
+  private SchemaSuperset() {
+  }
+
+  /**
+   * @param current the schema of the records buffered so far; may not be null
+   * @param other   the schema of the next record; may not be null
+   * @return the schema with the fields of both schemas, which is {@code current} if the other
+   *     schema adds no fields; or null if the schemas are not compatible
+   */
+  static Schema merge(Schema current, Schema other) {
+    if (current.type() != Schema.Type.STRUCT || other.type() != Schema.Type.STRUCT) {
+      return null;
+    }
+    final List<Field> addedFields = new ArrayList<>();
+    for (Field field : other.fields()) {
+      final Field existing = current.field(field.name());
+      if (existing == null) {
+        if (!canBeMissing(field)) {
+          return null;
+        }
+        addedFields.add(field);
+      } else if (!Objects.equals(existing.schema(), field.schema())) {
+        return null;
+      }
+    }
+    for (Field field : current.fields()) {
+      if (other.field(field.name()) == null && !canBeMissing(field)) {
+        return null;
+      }
+    }
+    if (addedFields.isEmpty()) {
+      return current;
+    }
+
+    final SchemaBuilder builder = SchemaBuilder.struct()
+        .name(current.name())
+        .version(current.version())
+        .doc(current.doc());
+    if (current.isOptional()) {
+      builder.optional();
+    }
+    for (Field field : current.fields()) {
+      builder.field(field.name(), field.schema());
+    }
+    for (Field field : addedFields) {
+      builder.field(field.name(), field.schema());
+    }
+    return builder.build();
+  }
+
+  /**
+   * @return the record with its value converted to the superset schema, or the record itself if
+   *     it already has that schema or no value
+   */
+  static SinkRecord project(SinkRecord record, Schema superset) {
+    if (record.value() == null || Objects.equals(record.valueSchema(), superset)) {
+      return record;
+    }
+    final Struct value = (Struct) record.value();
+    final Struct projected = new Struct(superset);
+    for (Field field : value.schema().fields()) {
+      projected.put(field.name(), value.get(field));
+    }
+    return record.newRecord(
+        record.topic(),
+        record.kafkaPartition(),
+        record.keySchema(),
+        record.key(),
+        superset,
+        projected,
+        record.timestamp()
+    );
+  }
+
+  private static boolean canBeMissing(Field field) {
+    return field.schema().isOptional() || field.schema().defaultValue() != null;
+  }
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.JmxReporter;
+import org.apache.kafka.common.metrics.Measurable;
+import org.apache.kafka.common.metrics.MetricConfig;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.metrics.MetricsReporter;
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.metrics.stats.Avg;
+import org.apache.kafka.common.metrics.stats.CumulativeCount;
+import org.apache.kafka.common.metrics.stats.CumulativeSum;
+import org.apache.kafka.common.metrics.stats.Max;
+import org.apache.kafka.common.metrics.stats.Rate;
+import org.apache.kafka.common.metrics.stats.WindowedCount;
+import org.apache.kafka.common.utils.Time;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.confluent.connect.jdbc.util.TableId;
+
+/**
+ * The metrics of a sink task, kept in Kafka's metrics library and reported over JMX under the
+ * {@value #JMX_PREFIX} domain.
+ *
+ * <p>Task metrics are in the {@value #TASK_GROUP} group, tagged with the connector name and a
+ * task number. Metrics of each destination table are in the {@value #TABLE_GROUP} group, with
+ * the table as an additional tag. The task number is assigned in the order in which the tasks of
+ * the worker start, since the task context does not expose the task id. Times are in
+ * milliseconds.
+ *
+ * <p>The metrics of at most {@code table.metadata.max.tables} tables are kept. The metrics of the
+ * least recently used table are removed to make room for another one, and start from scratch if
+ * that table is written again.
+ */
+public class SinkMetrics implements AutoCloseable {
+
+  public static final String JMX_PREFIX = "kafka.connect.jdbc";
+  public static final String TASK_GROUP = "jdbc-sink-task-metrics";
+  public static final String TABLE_GROUP = "jdbc-sink-table-metrics";
+
+  private static final AtomicInteger TASK_NUMBERS = new AtomicInteger();
+
+  private final Metrics metrics;
+  private final Map<String, String> taskTags;
+  private final int maxTables;
+  private final Map<TableId, TableMetrics> tableMetrics = new LinkedHashMap<>(16, 0.75f, true);
+  private final AtomicLong flushCount = new AtomicLong();
+  private final Sensor flushesPerWrite;
+  private final Sensor commitTime;
+  private final Sensor retries;
+  private volatile int flushConcurrencyLimit;
+
+  /**
+   * @return the metrics of a task, registered with JMX until they are closed
+   */
+  public static SinkMetrics register(JdbcSinkConfig config) {
+    return new SinkMetrics(
+        Objects.toString(config.connectorName, "unknown"),
+        config.tableMetadataMaxTables,
+        Collections.singletonList(new JmxReporter(JMX_PREFIX))
+    );
+  }
+
+  /**
+   * @return metrics that are not reported anywhere, for writers that are used outside of a task
+   */
+  public static SinkMetrics inMemory() {
+    return new SinkMetrics("unknown", Collections.emptyList());
+  }
+
+  SinkMetrics(String connectorName, List<MetricsReporter> reporters) {
+    this(connectorName, Integer.MAX_VALUE, reporters);
+  }
+
+  SinkMetrics(String connectorName, int maxTables, List<MetricsReporter> reporters) {
+    this.maxTables = maxTables;
+    this.metrics = new Metrics(new MetricConfig(), reporters, Time.SYSTEM);
+    final Map<String, String> tags = new LinkedHashMap<>();
+    tags.put("connector", connectorName);
+    tags.put("task", String.valueOf(TASK_NUMBERS.getAndIncrement()));
+    this.taskTags = Collections.unmodifiableMap(tags);
+
+    flushesPerWrite = metrics.sensor("flushes-per-write");
+    addAvgMax(flushesPerWrite, "flushes-per-write", TASK_GROUP, taskTags,
+        "number of table flushes for each batch of records written");
+    commitTime = metrics.sensor("commit-time");
+    addAvgMax(commitTime, "commit-time", TASK_GROUP, taskTags,
+        "time to commit a transaction");
+    retries = metrics.sensor("retries");
+    retries.add(
+        metricName("retry-total", TASK_GROUP, "The number of retried writes", taskTags),
+        new CumulativeCount()
+    );
+    retries.add(
+        metricName("retry-rate", TASK_GROUP, "The number of retried writes per second", taskTags),
+        new Rate(TimeUnit.SECONDS, new WindowedCount())
+    );
+    metrics.addMetric(
+        metricName("flush-concurrency-limit", TASK_GROUP, "The number of tables that may be "
+            + "flushed at a time", taskTags),
+        (Measurable) (metricConfig, now) -> flushConcurrencyLimit
+    );
+  }
+
+  /**
+   * @return the metrics of the given destination table, which are created on first use
+   */
+  public TableMetrics table(TableId tableId) {
+    synchronized (tableMetrics) {
+      TableMetrics table = tableMetrics.get(tableId);
+      if (table == null) {
+        table = new TableMetrics(tableId);
+        tableMetrics.put(tableId, table);
+        final Iterator<TableMetrics> eldest = tableMetrics.values().iterator();
+        while (tableMetrics.size() > maxTables) {
+          eldest.next().remove();
+          eldest.remove();
+        }
+      }
+      return table;
+    }
+  }
+
+  /**
+   * @return the number of times records were flushed to any table so far
+   */
+  long flushCount() {
+    return flushCount.get();
+  }
+
+  void recordFlushesPerWrite(long flushes) {
+    flushesPerWrite.record(flushes);
+  }
+
+  void recordCommit(long nanos) {
+    commitTime.record(millis(nanos));
+  }
+
+  void recordRetry() {
+    retries.record();
+  }
+
+  void recordFlushConcurrencyLimit(int limit) {
+    flushConcurrencyLimit = limit;
+  }
+
+  @Override
+  public void close() {
+    metrics.close();
+  }
+
+  /**
+   * The metrics of a single destination table.
+   */
+  public final class TableMetrics {
+    private final List<String> sensorNames = new ArrayList<>();
+    private final List<MetricName> metricNames = new ArrayList<>();
+    private final Sensor bindTime;
+    private final Sensor executeTime;
+    private final Sensor flushRecords;
+    private final Sensor schemaChangeFlushes;
+    private final Sensor schemaFlushesAvoided;
+    private final Sensor ddlTime;
+    private final Sensor batchSizeBackoffs;
+    private final Sensor flushTimeBuckets;
+    private final Sensor badRecords;
+    private volatile long bufferedBytes;
+    private volatile int batchSize;
+
+    private TableMetrics(TableId tableId) {
+      final Map<String, String> tags = new LinkedHashMap<>(taskTags);
+      tags.put("table", tableId.toString());
+      final String prefix = "table." + tableId + ".";
+
+      bindTime = sensor(prefix + "bind-time");
+      addAvgMax(bindTime, "bind-time", TABLE_GROUP, tags,
+          "time to bind the records of a flush to prepared statements");
+      executeTime = sensor(prefix + "execute-time");
+      addAvgMax(executeTime, "execute-time", TABLE_GROUP, tags,
+          "time to execute the statements of a flush");
+      flushRecords = sensor(prefix + "flush-records");
+      addAvgMax(flushRecords, "flush-records", TABLE_GROUP, tags,
+          "number of records in a flush");
+      flushRecords.add(
+          metricName("record-total", TABLE_GROUP, "The number of records flushed", tags),
+          new CumulativeSum()
+      );
+      flushRecords.add(
+          metricName("record-rate", TABLE_GROUP, "The number of records flushed per second",
+              tags),
+          new Rate(TimeUnit.SECONDS)
+      );
+      schemaChangeFlushes = sensor(prefix + "schema-change-flushes");
+      schemaChangeFlushes.add(
+          metricName("schema-change-flush-total", TABLE_GROUP,
+              "The number of flushes forced by a change of the record schemas", tags),
+          new CumulativeCount()
+      );
+      schemaFlushesAvoided = sensor(prefix + "schema-flushes-avoided");
+      schemaFlushesAvoided.add(
+          metricName("schema-flush-avoided-total", TABLE_GROUP,
+              "The number of records with a compatible schema version added without a flush",
+              tags),
+          new CumulativeCount()
+      );
+      ddlTime = sensor(prefix + "ddl-time");
+      addAvgMax(ddlTime, "ddl-time", TABLE_GROUP, tags,
+          "time to create or alter the table");
+      ddlTime.add(
+          metricName("ddl-total", TABLE_GROUP, "The number of times the table was created or "
+              + "altered", tags),
+          new CumulativeCount()
+      );
+      addMetric(
+          metricName("buffered-bytes", TABLE_GROUP, "The estimated size in bytes of the records "
+              + "held back to be written with later records", tags),
+          (Measurable) (metricConfig, now) -> bufferedBytes
+      );
+      addMetric(
+          metricName("batch-size", TABLE_GROUP, "The number of records at which the table is "
+              + "flushed", tags),
+          (Measurable) (metricConfig, now) -> batchSize
+      );
+      batchSizeBackoffs = sensor(prefix + "batch-size-backoffs");
+      batchSizeBackoffs.add(
+          metricName("batch-size-backoff-total", TABLE_GROUP,
+              "The number of times the batch size was reduced after a slow or blocked flush",
+              tags),
+          new CumulativeCount()
+      );
+      flushTimeBuckets = sensor(prefix + "flush-time-buckets");
+      addAvgMax(flushTimeBuckets, "flush-time-buckets", TABLE_GROUP, tags,
+          "number of distinct chunk time ranges that the records of a flush are written to");
+      badRecords = sensor(prefix + "bad-records");
+      badRecords.add(
+          metricName("bad-record-total", TABLE_GROUP,
+              "The number of records that were skipped because they could not be written", tags),
+          new CumulativeCount()
+      );
+    }
+
+    private Sensor sensor(String name) {
+      sensorNames.add(name);
+      return metrics.sensor(name);
+    }
+
+    private void addMetric(MetricName name, Measurable measurable) {
+      metricNames.add(name);
+      metrics.addMetric(name, measurable);
+    }
+
+    /**
+     * Remove the metrics of the table; recording them afterwards has no effect on what is
+     * reported.
+     */
+    private void remove() {
+      for (String name : sensorNames) {
+        metrics.removeSensor(name);
+      }
+      for (MetricName name : metricNames) {
+        metrics.removeMetric(name);
+      }
+    }
+
+    void recordFlush(int records, long bindNanos, long executeNanos) {
+      flushCount.incrementAndGet();
+      flushRecords.record(records);
+      bindTime.record(millis(bindNanos));
+      executeTime.record(millis(executeNanos));
+    }
+
+    void recordSchemaChangeFlush() {
+      schemaChangeFlushes.record();
+    }
+
+    void recordSchemaFlushAvoided() {
+      schemaFlushesAvoided.record();
+    }
+
+    void recordDdl(long nanos) {
+      ddlTime.record(millis(nanos));
+    }
+
+    void recordBufferedBytes(long bytes) {
+      bufferedBytes = bytes;
+    }
+
+    void recordBatchSize(int size) {
+      batchSize = size;
+    }
+
+    void recordBatchSizeBackoff() {
+      batchSizeBackoffs.record();
+    }
+
+    void recordFlushTimeBuckets(int buckets) {
+      flushTimeBuckets.record(buckets);
+    }
+
+    void recordBadRecord() {
+      badRecords.record();
+    }
+  }
+
+  private void addAvgMax(
+      Sensor sensor,
+      String name,
+      String group,
+      Map<String, String> tags,
+      String description
+  ) {
+    sensor.add(
+        metricName(name + "-avg", group, "The average " + description, tags),
+        new Avg()
+    );
+    sensor.add(
+        metricName(name + "-max", group, "The maximum " + description, tags),
+        new Max()
+    );
+  }
+
+  private MetricName metricName(
+      String name,
+      String group,
+      String description,
+      Map<String, String> tags
+  ) {
+    return metrics.metricName(name, group, description, tags);
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.common.TopicPartition;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import io.confluent.connect.jdbc.util.TableId;
+
+/**
+ * Signals that the records of some tables could not be written while the records of all other
+ * tables in the same batch were committed.
+ */
+public class TableWriteException extends SQLException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final Set<TableId> failedTables;
+  private final Map<TopicPartition, Long> failedOffsets;
+
+  public TableWriteException(
+      Set<TableId> failedTables,
+      Map<TopicPartition, Long> failedOffsets,
+      SQLException cause
+  ) {
+    super("Failed to write records to tables " + failedTables, cause);
+    this.failedTables = Collections.unmodifiableSet(failedTables);
+    this.failedOffsets = Collections.unmodifiableMap(failedOffsets);
+  }
+
+  /**
+   * @return the tables whose records were not written
+   */
+  public Set<TableId> failedTables() {
+    return failedTables;
+  }
+
+  /**
+   * @return the offset of the earliest record that was not written, for each topic partition
+   *     that fed a failed table
+   */
+  public Map<TopicPartition, Long> failedOffsets() {
+    return failedOffsets;
+  }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.util.CachedConnectionProvider;
+import io.confluent.connect.jdbc.util.TableDefinition;
+import io.confluent.connect.jdbc.util.TableId;
+
+/**
+ * A database connection together with the long-lived writers for the tables written on it.
+ *
+ * <p>Instances are not thread-safe; each one is used by at most one thread at a time.
+ */
+class TableWriters {
+  private static final Logger log = LoggerFactory.getLogger(TableWriters.class);
+
+  private final JdbcSinkConfig config;
+  private final DatabaseDialect dbDialect;
+  private final DbStructure dbStructure;
+  private final SinkMetrics metrics;
+  private final FlushControl flushControl;
+  private final BadRecords badRecords;
+  private final OffsetsTable offsetsTable;
+  /**
+   * The number of prepared statements this writer may keep open. The configured limit is divided
+   * between the writers of the task, as each one has its own connection.
+   */
+  private final int statementCacheSize;
+  final CachedConnectionProvider cachedConnectionProvider;
+
+  /**
+   * The writers for each destination table, in least-recently-used order. Each writer keeps its
+   * prepared statements and binders until the record schema changes, the connection is replaced,
+   * or it is evicted to keep the number of open statements within the limit.
+   */
+  private final Map<TableId, BufferedRecords> bufferByTable =
+      new LinkedHashMap<>(16, 0.75f, true);
+  private Connection writerConnection;
+
+  TableWriters(
+      final JdbcSinkConfig config,
+      DatabaseDialect dbDialect,
+      DbStructure dbStructure,
+      SinkMetrics metrics,
+      FlushControl flushControl,
+      Map<TopicPartition, Long> committedOffsets
+  ) {
+    this.config = config;
+    this.dbDialect = dbDialect;
+    this.dbStructure = dbStructure;
+    this.metrics = metrics;
+    this.flushControl = flushControl;
+    this.badRecords = new BadRecords(config, dbDialect, dbStructure, metrics);
+    this.offsetsTable = committedOffsets == null
+                        ? null
+                        : new OffsetsTable(config, dbDialect, dbStructure, committedOffsets);
+    this.statementCacheSize = config.preparedStatementCacheSize / config.tableFlushParallelism;
+
+    this.cachedConnectionProvider = new CachedConnectionProvider(this.dbDialect) {
+      @Override
+      protected void onConnect(Connection connection) throws SQLException {
+        log.info("JdbcDbWriter Connected");
+        connection.setAutoCommit(false);
+      }
+    };
+  }
+
+  /**
+   * Write the records of each table and commit them in a single transaction. With exactly-once
+   * delivery, records that were already committed are skipped and the next offsets to consume
+   * are written in the same transaction.
+   *
+   * @param records the records to write, grouped by destination table
+   * @throws SQLException if any of the records could not be written; none of them are committed
+   */
+  void write(final Map<TableId, List<SinkRecord>> records) throws SQLException {
+    final Map<TableId, List<SinkRecord>> recordsByTable =
+        offsetsTable == null ? records : offsetsTable.unwritten(records);
+    if (recordsByTable.isEmpty()) {
+      return;
+    }
+    final Connection connection = cachedConnectionProvider.getConnection();
+    if (connection != writerConnection) {
+      // Statements prepared on a previous connection can no longer be used
+      closeWriters();
+      writerConnection = connection;
+    }
+
+    try {
+      dbStructure.prefetchTableDefinitions(connection, recordsByTable.keySet());
+      dbStructure.lockForDdl(connection, fieldNames(recordsByTable));
+      for (Map.Entry<TableId, List<SinkRecord>> entry : recordsByTable.entrySet()) {
+        final TableId tableId = entry.getKey();
+        final long start = System.nanoTime();
+        if (config.badRecordsIsolate) {
+          writeIsolated(connection, tableId, entry.getValue());
+        } else {
+          writeTable(connection, tableId, entry.getValue());
+        }
+        log.debug(
+            "Flushed {} records to table ID {} in {} ms",
+            entry.getValue().size(),
+            tableId,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        );
+      }
+      final Map<TopicPartition, Long> nextOffsets = offsetsTable == null
+          ? null
+          : offsetsTable.write(connection, recordsByTable);
+      final long commitStart = System.nanoTime();
+      connection.commit();
+      metrics.recordCommit(System.nanoTime() - commitStart);
+      dbStructure.committed(connection);
+      if (offsetsTable != null) {
+        offsetsTable.committed(nextOffsets);
+      }
+    } catch (SQLException | RuntimeException e) {
+      // Tables created or altered in the transaction no longer are once it is rolled back.
+      // Roll back before closing the writers, as closing them runs statements such as dropping
+      // staging tables that would fail in the aborted transaction. Anything buffered or prepared
+      // as part of the failed write cannot be trusted.
+      dbStructure.rolledBack(connection);
+      rollbackQuietly(connection);
+      closeWriters();
+      throw e;
+    }
+    evictWriters();
+  }
+
+  /**
+   * @return the names of the value fields that are written to each table, including no fields of
+   *     the tables that bad records and offsets are written to, which are created when missing
+   */
+  private Map<TableId, Set<String>> fieldNames(Map<TableId, List<SinkRecord>> recordsByTable) {
+    final Map<TableId, Set<String>> fieldNames = new LinkedHashMap<>();
+    for (Map.Entry<TableId, List<SinkRecord>> entry : recordsByTable.entrySet()) {
+      final Set<String> names = new HashSet<>();
+      Schema previous = null;
+      for (SinkRecord record : entry.getValue()) {
+        if (record.valueSchema() != previous) {
+          previous = record.valueSchema();
+          addFieldNames(names, previous);
+        }
+      }
+      fieldNames.put(entry.getKey(), names);
+    }
+    if (config.badRecordsIsolate && badRecords.tableId() != null) {
+      fieldNames.putIfAbsent(badRecords.tableId(), Collections.emptySet());
+    }
+    if (offsetsTable != null) {
+      fieldNames.putIfAbsent(offsetsTable.tableId(), Collections.emptySet());
+    }
+    return fieldNames;
+  }
+
+  private void addFieldNames(Set<String> names, Schema valueSchema) {
+    if (valueSchema == null || valueSchema.type() != Schema.Type.STRUCT) {
+      return;
+    }
+    for (Field field : valueSchema.fields()) {
+      if (config.fieldsWhitelist.isEmpty() || config.fieldsWhitelist.contains(field.name())) {
+        names.add(field.name());
+      }
+    }
+  }
+
+  private void writeTable(
+      final Connection connection,
+      final TableId tableId,
+      final List<SinkRecord> records
+  ) throws SQLException {
+    BufferedRecords buffer = bufferByTable.get(tableId);
+    if (buffer == null) {
+      buffer = new BufferedRecords(
+          config,
+          tableId,
+          dbDialect,
+          dbStructure,
+          connection,
+          metrics.table(tableId),
+          flushControl.batchSize(tableId)
+      );
+      bufferByTable.put(tableId, buffer);
+    }
+    for (SinkRecord record : records) {
+      buffer.add(record);
+    }
+    log.debug("Flushing records in JDBC Writer for table ID: {}", tableId);
+    buffer.flush();
+  }
+
+  /**
+   * Write the records of a table within a savepoint. If that fails because of the values of some
+   * records, roll back to the savepoint and write each half of the records the same way, until
+   * the single records that fail are found. Those are reported as bad records instead.
+   */
+  private void writeIsolated(
+      final Connection connection,
+      final TableId tableId,
+      final List<SinkRecord> records
+  ) throws SQLException {
+    final Map<TableId, TableDefinition> defnsAtSavepoint =
+        dbStructure.uncommittedDefinitions(connection);
+    final Savepoint savepoint = connection.setSavepoint();
+    try {
+      writeTable(connection, tableId, records);
+      connection.releaseSavepoint(savepoint);
+      return;
+    } catch (SQLException e) {
+      if (!BadRecords.isBadRecordFailure(e)) {
+        throw e;
+      }
+      // Rolling back also undoes creating or altering the table, and staging tables, since the
+      // savepoint, so the next attempt does that again
+      dbStructure.rolledBackTo(connection, defnsAtSavepoint);
+      connection.rollback(savepoint);
+      // The buffered records and prepared statements of the failed attempt cannot be trusted
+      final BufferedRecords failed = bufferByTable.remove(tableId);
+      if (failed != null) {
+        closeQuietly(failed);
+      }
+      if (records.size() == 1) {
+        badRecords.report(connection, tableId, records.get(0), e);
+        return;
+      }
+      log.debug("Writing {} records to table ID {} in halves to isolate bad records",
+          records.size(), tableId);
+    }
+    final int half = records.size() / 2;
+    writeIsolated(connection, tableId, records.subList(0, half));
+    writeIsolated(connection, tableId, records.subList(half, records.size()));
+  }
+
+  /**
+   * Close the least recently used table writers until the number of open prepared statements is
+   * within the share of the configured limit of this writer.
+   */
+  private void evictWriters() {
+    int openStatements = 0;
+    for (BufferedRecords buffer : bufferByTable.values()) {
+      openStatements += buffer.openStatementCount();
+    }
+    Iterator<Map.Entry<TableId, BufferedRecords>> iterator = bufferByTable.entrySet().iterator();
+    while (openStatements > statementCacheSize && iterator.hasNext()) {
+      Map.Entry<TableId, BufferedRecords> eldest = iterator.next();
+      log.debug("Evicting writer for table ID: {}", eldest.getKey());
+      openStatements -= eldest.getValue().openStatementCount();
+      closeQuietly(eldest.getValue());
+      iterator.remove();
+    }
+  }
+
+  private void closeWriters() {
+    for (BufferedRecords buffer : bufferByTable.values()) {
+      closeQuietly(buffer);
+    }
+    bufferByTable.clear();
+    writerConnection = null;
+  }
+
+  private void closeQuietly(BufferedRecords buffer) {
+    try {
+      buffer.close();
+    } catch (SQLException e) {
+      log.warn("Ignoring error closing prepared statements", e);
+    }
+  }
+
+  private void rollbackQuietly(Connection connection) {
+    try {
+      connection.rollback();
+    } catch (SQLException e) {
+      log.warn("Ignoring error rolling back the failed transaction", e);
+    }
+  }
+
+  /**
+   * @return the cached writer for the given table, or null if there is none
+   */
+  BufferedRecords cachedWriter(TableId tableId) {
+    return bufferByTable.get(tableId);
+  }
+
+  void closeQuietly() {
+    closeWriters();
+    cachedConnectionProvider.close();
+  }
+}
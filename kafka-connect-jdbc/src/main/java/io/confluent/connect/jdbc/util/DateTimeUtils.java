@@ -15,62 +15,64 @@
 
 package io.confluent.connect.jdbc.util;
 
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DateTimeUtils {
 
   private static final ThreadLocal<Map<TimeZone, Calendar>> TIMEZONE_CALENDARS =
       ThreadLocal.withInitial(HashMap::new);
 
-  private static final ThreadLocal<Map<TimeZone, SimpleDateFormat>> TIMEZONE_DATE_FORMATS =
-      ThreadLocal.withInitial(HashMap::new);
+  // Formatters are immutable and thread-safe, so a single one is shared for each time zone
+  private static final Map<TimeZone, DateTimeFormatter> TIMEZONE_DATE_FORMATS =
+      new ConcurrentHashMap<>();
 
-  private static final ThreadLocal<Map<TimeZone, SimpleDateFormat>> TIMEZONE_TIME_FORMATS =
-      ThreadLocal.withInitial(HashMap::new);
+  private static final Map<TimeZone, DateTimeFormatter> TIMEZONE_TIME_FORMATS =
+      new ConcurrentHashMap<>();
 
-  private static final ThreadLocal<Map<TimeZone, SimpleDateFormat>> TIMEZONE_TIMESTAMP_FORMATS =
-      ThreadLocal.withInitial(HashMap::new);
+  private static final Map<TimeZone, DateTimeFormatter> TIMEZONE_TIMESTAMP_FORMATS =
+      new ConcurrentHashMap<>();
+
+  private static final Map<TimeZone, DateTimeFormatter> TIMEZONE_TIMESTAMPTZ_FORMATS =
+      new ConcurrentHashMap<>();
 
   public static Calendar getTimeZoneCalendar(final TimeZone timeZone) {
     return TIMEZONE_CALENDARS.get().computeIfAbsent(timeZone, GregorianCalendar::new);
   }
 
   public static String formatDate(Date date, TimeZone timeZone) {
-    return TIMEZONE_DATE_FORMATS.get().computeIfAbsent(timeZone, aTimeZone -> {
-      SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-      sdf.setTimeZone(aTimeZone);
-      return sdf;
-    }).format(date);
+    return format(TIMEZONE_DATE_FORMATS, "yyyy-MM-dd", date, timeZone);
   }
 
   public static String formatTime(Date date, TimeZone timeZone) {
-    return TIMEZONE_TIME_FORMATS.get().computeIfAbsent(timeZone, aTimeZone -> {
-      SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss.SSS");
-      sdf.setTimeZone(aTimeZone);
-      return sdf;
-    }).format(date);
+    return format(TIMEZONE_TIME_FORMATS, "HH:mm:ss.SSS", date, timeZone);
   }
 
   public static String formatTimestamp(Date date, TimeZone timeZone) {
-    return TIMEZONE_TIMESTAMP_FORMATS.get().computeIfAbsent(timeZone, aTimeZone -> {
-      SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
-      sdf.setTimeZone(aTimeZone);
-      return sdf;
-    }).format(date);
+    return format(TIMEZONE_TIMESTAMP_FORMATS, "yyyy-MM-dd HH:mm:ss.SSS", date, timeZone);
   }
 
   public static String formatTimestamptz(Date date, TimeZone timeZone) {
-    return TIMEZONE_TIMESTAMP_FORMATS.get().computeIfAbsent(timeZone, aTimeZone -> {
-      SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSSX");
-      sdf.setTimeZone(aTimeZone);
-      return sdf;
-    }).format(date);
+    return format(TIMEZONE_TIMESTAMPTZ_FORMATS, "yyyy-MM-dd HH:mm:ss.SSSXXX", date, timeZone);
+  }
+
+  private static String format(
+      Map<TimeZone, DateTimeFormatter> formats,
+      String pattern,
+      Date date,
+      TimeZone timeZone
+  ) {
+    return formats.computeIfAbsent(
+        timeZone,
+        aTimeZone -> DateTimeFormatter.ofPattern(pattern).withZone(aTimeZone.toZoneId())
+    ).format(Instant.ofEpochMilli(date.getTime()));
   }
 
   private DateTimeUtils() {
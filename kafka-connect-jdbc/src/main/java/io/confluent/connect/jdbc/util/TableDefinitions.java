@@ -15,33 +15,118 @@
 
 package io.confluent.connect.jdbc.util;
 
+import org.apache.kafka.common.utils.Time;
+import org.apache.kafka.connect.errors.ConnectException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialect;
 
 /**
- * A simple cache of {@link TableDefinition} keyed.
+ * A cache of {@link TableDefinition} keyed by {@link TableId}. It may be shared by threads
+ * writing to different tables, and by all tasks of a worker that use the same database with
+ * the same cache settings with {@link #shared}. Shared caches are dropped once every instance
+ * using them is {@link #release released}.
+ *
+ * <p>Definitions are read from the database again once they are older than the time to live,
+ * and the least recently used ones are evicted when there are more than the maximum number of
+ * tables. When several threads miss the same table at the same time, only the first one reads
+ * its definition and the others wait for it. Tables that do not exist are not cached.
  */
 public class TableDefinitions {
 
   private static final Logger log = LoggerFactory.getLogger(TableDefinitions.class);
 
-  private final Map<TableId, TableDefinition> cache = new HashMap<>();
+  /**
+   * The caches shared by the tasks of this worker, by the key passed to {@link #shared} and their
+   * settings.
+   */
+  private static final Map<String, Cache> SHARED = new ConcurrentHashMap<>();
+
+  private final Cache cache;
   private final DatabaseDialect dialect;
+  private final String sharedKey;
 
   /**
-   * Create an instance that uses the specified database dialect.
+   * Create an instance that uses the specified database dialect and keeps the definitions until
+   * they are refreshed.
    *
    * @param dialect the database dialect; may not be null
    */
   public TableDefinitions(DatabaseDialect dialect) {
+    this(dialect, Long.MAX_VALUE, Integer.MAX_VALUE, Time.SYSTEM);
+  }
+
+  /**
+   * Create an instance that uses the specified database dialect.
+   *
+   * @param dialect   the database dialect; may not be null
+   * @param ttlMs     the time in milliseconds after which a definition is read again
+   * @param maxTables the maximum number of cached definitions
+   * @param time      the clock for the time to live; may not be null
+   */
+  public TableDefinitions(DatabaseDialect dialect, long ttlMs, int maxTables, Time time) {
+    this(dialect, new Cache(ttlMs, maxTables, time), null);
+  }
+
+  private TableDefinitions(DatabaseDialect dialect, Cache cache, String sharedKey) {
     this.dialect = dialect;
+    this.cache = cache;
+    this.sharedKey = sharedKey;
+  }
+
+  /**
+   * Create an instance that shares its definitions with all other instances in this JVM that
+   * were created with the same key, time to live and maximum number of tables, and that were not
+   * released yet. Call {@link #release} once the instance is no longer used.
+   *
+   * @param key       identifies the database, for example its URL and user; may not be null
+   * @param dialect   the database dialect; may not be null
+   * @param ttlMs     the time in milliseconds after which a definition is read again
+   * @param maxTables the maximum number of cached definitions
+   * @return the instance; never null
+   */
+  public static TableDefinitions shared(
+      String key,
+      DatabaseDialect dialect,
+      long ttlMs,
+      int maxTables
+  ) {
+    final String sharedKey = key + " for " + ttlMs + " ms up to " + maxTables + " tables";
+    final Cache cache = SHARED.compute(sharedKey, (k, shared) -> {
+      final Cache result = shared != null ? shared : new Cache(ttlMs, maxTables, Time.SYSTEM);
+      result.references++;
+      return result;
+    });
+    return new TableDefinitions(dialect, cache, sharedKey);
+  }
+
+  /**
+   * Stop using the definitions shared with {@link #shared}, and drop them once no other instance
+   * uses them. This must be called at most once, and does nothing for instances that are not
+   * shared.
+   */
+  public void release() {
+    if (sharedKey == null) {
+      return;
+    }
+    SHARED.computeIfPresent(sharedKey, (k, shared) -> {
+      if (shared != cache) {
+        return shared;
+      }
+      return --shared.references == 0 ? null : shared;
+    });
   }
 
   /**
@@ -56,17 +141,66 @@ public class TableDefinitions {
       Connection connection,
       final TableId tableId
   ) throws SQLException {
-    TableDefinition dbTable = cache.get(tableId);
-    if (dbTable == null) {
+    final CompletableFuture<TableDefinition> lookup = new CompletableFuture<>();
+    final CompletableFuture<TableDefinition> cached = cache.putIfAbsent(tableId, lookup);
+    if (cached != null) {
+      try {
+        return await(tableId, cached);
+      } catch (ExecutionException e) {
+        // The failure may be specific to the connection of the thread that read the definition
+        log.debug("Reading the definition of table {} failed on another connection", tableId);
+        return get(connection, tableId);
+      }
+    }
+    try {
+      TableDefinition dbTable = null;
       if (dialect.tableExists(connection, tableId)) {
         dbTable = dialect.describeTable(connection, tableId);
-        if (dbTable != null) {
-          log.info("Setting metadata for table {} to {}", tableId, dbTable);
-          cache.put(tableId, dbTable);
-        }
       }
+      complete(tableId, lookup, dbTable);
+      return dbTable;
+    } catch (SQLException | RuntimeException e) {
+      cache.remove(tableId, lookup);
+      lookup.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Read the definitions of those of the given tables that are not cached, all at once if the
+   * dialect supports it, so that later calls to {@link #get} find them in the cache.
+   *
+   * @param connection the JDBC connection to use; may not be null
+   * @param tableIds   the table identifiers; may not be null
+   * @throws SQLException if there is any problem using the connection
+   */
+  public void prefetch(
+      Connection connection,
+      Collection<TableId> tableIds
+  ) throws SQLException {
+    final Map<TableId, CompletableFuture<TableDefinition>> lookups = new LinkedHashMap<>();
+    for (TableId tableId : tableIds) {
+      final CompletableFuture<TableDefinition> lookup = new CompletableFuture<>();
+      if (cache.putIfAbsent(tableId, lookup) == null) {
+        lookups.put(tableId, lookup);
+      }
+    }
+    if (lookups.isEmpty()) {
+      return;
+    }
+    try {
+      final Map<TableId, TableDefinition> dbTables =
+          dialect.describeTables(connection, new ArrayList<>(lookups.keySet()));
+      for (Map.Entry<TableId, CompletableFuture<TableDefinition>> entry : lookups.entrySet()) {
+        complete(entry.getKey(), entry.getValue(), dbTables.get(entry.getKey()));
+      }
+    } catch (SQLException | RuntimeException e) {
+      for (Map.Entry<TableId, CompletableFuture<TableDefinition>> entry : lookups.entrySet()) {
+        cache.remove(entry.getKey(), entry.getValue());
+        entry.getValue().completeExceptionally(e);
+      }
+      throw e;
     }
-    return dbTable;
   }
 
   /**
@@ -84,10 +218,130 @@ public class TableDefinitions {
     TableDefinition dbTable = dialect.describeTable(connection, tableId);
     if (dbTable != null) {
       log.info("Refreshing metadata for table {} to {}", tableId, dbTable);
-      cache.put(dbTable.id(), dbTable);
+      cache.put(dbTable.id(), CompletableFuture.completedFuture(dbTable));
     } else {
       log.warn("Failed to refresh metadata for table {}", tableId);
     }
     return dbTable;
   }
+
+  /**
+   * Cache the given {@link TableDefinition}, for example once the transaction that created or
+   * altered its table is committed.
+   *
+   * @param dbTable the table definition; may not be null
+   */
+  public void put(TableDefinition dbTable) {
+    log.info("Setting metadata for table {} to {}", dbTable.id(), dbTable);
+    cache.put(dbTable.id(), CompletableFuture.completedFuture(dbTable));
+  }
+
+  /**
+   * Remove the cached {@link TableDefinition} for the given table, so that it is read from the
+   * database on next use; for example after the table was created or altered.
+   *
+   * @param tableId the table identifier; may not be null
+   */
+  public void invalidate(TableId tableId) {
+    cache.remove(tableId);
+  }
+
+  private void complete(
+      TableId tableId,
+      CompletableFuture<TableDefinition> lookup,
+      TableDefinition dbTable
+  ) {
+    if (dbTable != null) {
+      log.info("Setting metadata for table {} to {}", tableId, dbTable);
+    } else {
+      // Tables that do not exist yet are looked up again
+      cache.remove(tableId, lookup);
+    }
+    lookup.complete(dbTable);
+  }
+
+  private static TableDefinition await(
+      TableId tableId,
+      CompletableFuture<TableDefinition> definition
+  ) throws ExecutionException {
+    try {
+      return definition.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ConnectException(
+          "Interrupted while waiting for the definition of table " + tableId,
+          e
+      );
+    }
+  }
+
+  /**
+   * The definitions, or the pending reads of definitions, in least-recently-used order.
+   */
+  private static final class Cache {
+    private final long ttlMs;
+    private final int maxTables;
+    private final Time time;
+    private final Map<TableId, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * The number of shared instances that use this cache, only changed while computing the
+     * entry in {@link #SHARED}.
+     */
+    private int references;
+
+    Cache(long ttlMs, int maxTables, Time time) {
+      this.ttlMs = ttlMs;
+      this.maxTables = maxTables;
+      this.time = time;
+    }
+
+    /**
+     * @return the pending or unexpired definition of the table, or null if the given lookup was
+     *     added in its place
+     */
+    synchronized CompletableFuture<TableDefinition> putIfAbsent(
+        TableId tableId,
+        CompletableFuture<TableDefinition> lookup
+    ) {
+      final Entry entry = entries.get(tableId);
+      if (entry != null
+          && (!entry.definition.isDone() || entry.expiresMs > time.milliseconds())) {
+        return entry.definition;
+      }
+      put(tableId, lookup);
+      return null;
+    }
+
+    synchronized void put(TableId tableId, CompletableFuture<TableDefinition> definition) {
+      final long now = time.milliseconds();
+      final long expiresMs = ttlMs > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + ttlMs;
+      entries.put(tableId, new Entry(definition, expiresMs));
+      final Iterator<TableId> eldest = entries.keySet().iterator();
+      while (entries.size() > maxTables) {
+        eldest.next();
+        eldest.remove();
+      }
+    }
+
+    synchronized void remove(TableId tableId, CompletableFuture<TableDefinition> definition) {
+      final Entry entry = entries.get(tableId);
+      if (entry != null && entry.definition == definition) {
+        entries.remove(tableId);
+      }
+    }
+
+    synchronized void remove(TableId tableId) {
+      entries.remove(tableId);
+    }
+  }
+
+  private static final class Entry {
+    final CompletableFuture<TableDefinition> definition;
+    final long expiresMs;
+
+    Entry(CompletableFuture<TableDefinition> definition, long expiresMs) {
+      this.definition = definition;
+      this.expiresMs = expiresMs;
+    }
+  }
 }
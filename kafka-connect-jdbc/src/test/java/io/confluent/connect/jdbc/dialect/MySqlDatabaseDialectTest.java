@@ -23,6 +23,7 @@ import org.apache.kafka.connect.data.Time;
 import org.apache.kafka.connect.data.Timestamp;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.List;
 
 import io.confluent.connect.jdbc.util.QuoteMethod;
@@ -174,6 +175,26 @@ public class MySqlDatabaseDialectTest extends BaseDialectTest<MySqlDatabaseDiale
         System.lineSeparator() + "ADD `newcol2` INT DEFAULT 42");
   }
 
+  @Test
+  public void shouldBuildMultiRowUpsertStatement() {
+    String expected = "insert into `myTable`(`id1`,`id2`,`columnA`) values(?,?,?),(?,?,?) "
+                      + "on duplicate key update `columnA`=values(`columnA`)";
+    String sql = dialect.buildUpsertQueryStatement(tableId, pkColumns, Arrays.asList(columnA), 2);
+    assertEquals(expected, sql);
+    assertEquals(
+        dialect.buildUpsertQueryStatement(tableId, pkColumns, columnsAtoD),
+        dialect.buildUpsertQueryStatement(tableId, pkColumns, columnsAtoD, 1)
+    );
+  }
+
+  @Test
+  public void shouldBuildMultiRowInsertStatement() {
+    String expected = "INSERT INTO `myTable`(`id1`,`id2`,`columnA`) VALUES(?,?,?),(?,?,?)";
+    String sql = dialect.buildInsertStatement(tableId, pkColumns, Arrays.asList(columnA), 2);
+    assertEquals(expected, sql);
+    assertEquals(65535, dialect.maxBindParameters());
+  }
+
   @Test
   public void upsert() {
     TableId actor = tableId("actor");
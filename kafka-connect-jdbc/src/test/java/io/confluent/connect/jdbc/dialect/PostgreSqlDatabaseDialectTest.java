@@ -15,6 +15,11 @@
 
 package io.confluent.connect.jdbc.dialect;
 
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
 import org.apache.kafka.connect.data.Date;
 import org.apache.kafka.connect.data.Decimal;
@@ -23,13 +28,35 @@ import org.apache.kafka.connect.data.Schema.Type;
 import org.apache.kafka.connect.data.Time;
 import org.apache.kafka.connect.data.Timestamp;
 import org.junit.Test;
+import org.mockito.InOrder;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.TypeInfo;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
 
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig.CopyFormat;
+import io.confluent.connect.jdbc.util.ColumnDefinition;
+import io.confluent.connect.jdbc.util.ColumnDefinition.Nullability;
 import io.confluent.connect.jdbc.util.QuoteMethod;
+import io.confluent.connect.jdbc.util.TableDefinition;
 import io.confluent.connect.jdbc.util.TableId;
+import io.confluent.connect.jdbc.util.TableType;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class PostgreSqlDatabaseDialectTest extends BaseDialectTest<PostgreSqlDatabaseDialect> {
 
@@ -195,6 +222,111 @@ public class PostgreSqlDatabaseDialectTest extends BaseDialectTest<PostgreSqlDat
     );
   }
 
+  @Test
+  public void shouldBuildMultiRowUpsertStatement() {
+    assertEquals(
+        "INSERT INTO \"myTable\" (\"id1\",\"id2\",\"columnA\") VALUES (?,?,?),(?,?,?) "
+        + "ON CONFLICT (\"id1\",\"id2\") DO UPDATE SET \"columnA\"=EXCLUDED.\"columnA\"",
+        dialect.buildUpsertQueryStatement(tableId, pkColumns, Arrays.asList(columnA), 2)
+    );
+    assertEquals(
+        dialect.buildUpsertQueryStatement(tableId, pkColumns, columnsAtoD),
+        dialect.buildUpsertQueryStatement(tableId, pkColumns, columnsAtoD, 1)
+    );
+  }
+
+  @Test
+  public void shouldBuildMultiRowInsertStatement() {
+    assertEquals(
+        "INSERT INTO \"myTable\"(\"id1\",\"id2\",\"columnA\") VALUES(?,?,?),(?,?,?),(?,?,?)",
+        dialect.buildInsertStatement(tableId, pkColumns, Arrays.asList(columnA), 3)
+    );
+    assertEquals(Short.MAX_VALUE, dialect.maxBindParameters());
+  }
+
+  @Test
+  public void shouldBuildCopyStatement() {
+    assertEquals(
+        "COPY \"myTable\" (\"id1\",\"id2\",\"columnA\",\"columnB\") FROM STDIN",
+        dialect.buildCopyStatement(
+            tableId,
+            Arrays.asList(columnPK1, columnPK2, columnA, columnB),
+            CopyFormat.TEXT
+        )
+    );
+    assertEquals(
+        "COPY \"myTable\" (\"id1\",\"columnA\") FROM STDIN WITH (FORMAT binary)",
+        dialect.buildCopyStatement(
+            tableId,
+            Arrays.asList(columnPK1, columnA),
+            CopyFormat.BINARY
+        )
+    );
+  }
+
+  @Test
+  public void shouldOnlyCopyBinaryValuesOfTheColumnType() {
+    assertTrue(PostgreSqlCopyWriter.supportsBinary(Schema.INT32_SCHEMA, "int4"));
+    assertTrue(PostgreSqlCopyWriter.supportsBinary(Schema.INT16_SCHEMA, "int2"));
+    assertTrue(PostgreSqlCopyWriter.supportsBinary(Schema.STRING_SCHEMA, "varchar"));
+    assertTrue(PostgreSqlCopyWriter.supportsBinary(Decimal.schema(2), "numeric"));
+    assertTrue(PostgreSqlCopyWriter.supportsBinary(Timestamp.SCHEMA, "timestamptz"));
+    assertTrue(PostgreSqlCopyWriter.supportsBinary(Date.SCHEMA, "date"));
+
+    // The database would cast these in INSERT statements and text COPY, but not in binary COPY
+    assertFalse(PostgreSqlCopyWriter.supportsBinary(Schema.INT32_SCHEMA, "text"));
+    assertFalse(PostgreSqlCopyWriter.supportsBinary(Schema.INT64_SCHEMA, "varchar"));
+    assertFalse(PostgreSqlCopyWriter.supportsBinary(Schema.INT32_SCHEMA, "int8"));
+    assertFalse(PostgreSqlCopyWriter.supportsBinary(Schema.FLOAT64_SCHEMA, "numeric"));
+    assertFalse(PostgreSqlCopyWriter.supportsBinary(Schema.INT64_SCHEMA, "timestamptz"));
+    assertFalse(PostgreSqlCopyWriter.supportsBinary(Decimal.schema(2), "bytea"));
+    assertFalse(PostgreSqlCopyWriter.supportsBinary(Date.SCHEMA, "int4"));
+    assertFalse(PostgreSqlCopyWriter.supportsBinary(Schema.STRING_SCHEMA, "uuid"));
+    assertFalse(PostgreSqlCopyWriter.supportsBinary(Schema.STRING_SCHEMA, null));
+  }
+
+  @Test
+  public void shouldBuildStagingTableStatements() {
+    TableId stagingTable = new TableId(null, null, "connect_stage_1");
+    assertEquals(
+        Arrays.asList(
+            "CREATE TEMPORARY TABLE \"connect_stage_1\" AS SELECT \"id1\",\"columnA\" "
+            + "FROM \"myTable\" WITH NO DATA",
+            "ALTER TABLE \"connect_stage_1\" ADD COLUMN \"__connect_seq\" BIGSERIAL"
+        ),
+        dialect.buildCreateStagingTableStatements(
+            stagingTable,
+            tableId,
+            Arrays.asList(columnPK1, columnA)
+        )
+    );
+    assertEquals(
+        "INSERT INTO \"myTable\" (\"id1\",\"id2\",\"columnA\",\"columnB\") "
+        + "SELECT DISTINCT ON (\"id1\",\"id2\") \"id1\",\"id2\",\"columnA\",\"columnB\" "
+        + "FROM \"connect_stage_1\" ORDER BY \"id1\",\"id2\",\"__connect_seq\" DESC "
+        + "ON CONFLICT (\"id1\",\"id2\") DO UPDATE SET "
+        + "\"columnA\"=EXCLUDED.\"columnA\",\"columnB\"=EXCLUDED.\"columnB\"",
+        dialect.buildMergeFromStagingStatement(
+            tableId,
+            stagingTable,
+            pkColumns,
+            Arrays.asList(columnA, columnB)
+        )
+    );
+    assertEquals(
+        "INSERT INTO \"myTable\" (\"id1\",\"id2\") "
+        + "SELECT DISTINCT ON (\"id1\",\"id2\") \"id1\",\"id2\" "
+        + "FROM \"connect_stage_1\" ORDER BY \"id1\",\"id2\",\"__connect_seq\" DESC "
+        + "ON CONFLICT (\"id1\",\"id2\") DO NOTHING",
+        dialect.buildMergeFromStagingStatement(
+            tableId,
+            stagingTable,
+            pkColumns,
+            Collections.emptyList()
+        )
+    );
+  }
+
   @Test
   public void createOneColNoPk() {
     verifyCreateOneColNoPk(
@@ -285,6 +417,93 @@ public class PostgreSqlDatabaseDialectTest extends BaseDialectTest<PostgreSqlDat
     );
   }
 
+  @Test
+  public void shouldLockSchemaForDdl() throws SQLException {
+    final Connection connection = mock(Connection.class);
+    final PreparedStatement statement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(PostgreSqlDatabaseDialect.DDL_LOCK_STATEMENT))
+        .thenReturn(statement);
+
+    assertTrue(dialect.lockForDdl(connection, new TableId(null, "project_a", "heart_rate")));
+    assertTrue(dialect.lockForDdl(connection, new TableId(null, "project_a", "step_count")));
+    verify(statement, times(2)).setInt(1, PostgreSqlDatabaseDialect.DDL_LOCK_CLASS);
+    verify(statement, times(2)).setInt(2, "project_a".hashCode());
+    verify(statement, times(2)).execute();
+  }
+
+  @Test
+  public void shouldLockSchemasForDdlInTheOrderOfTheirKeys() throws SQLException {
+    final Connection connection = mock(Connection.class);
+    final PreparedStatement statement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(PostgreSqlDatabaseDialect.DDL_LOCK_STATEMENT))
+        .thenReturn(statement);
+    final int first = Math.min("project_a".hashCode(), "project_b".hashCode());
+    final int second = Math.max("project_a".hashCode(), "project_b".hashCode());
+
+    assertTrue(dialect.lockForDdl(connection, Arrays.asList(
+        new TableId(null, "project_b", "heart_rate"),
+        new TableId(null, "project_a", "heart_rate"),
+        new TableId(null, "project_a", "step_count")
+    )));
+    final InOrder inOrder = inOrder(statement);
+    inOrder.verify(statement).setInt(2, first);
+    inOrder.verify(statement).execute();
+    inOrder.verify(statement).setInt(2, second);
+    inOrder.verify(statement).execute();
+    verify(statement, times(2)).execute();
+  }
+
+  @Test
+  public void shouldDescribeTablesWithOneCatalogQuery() throws SQLException {
+    final Connection connection = mock(Connection.class);
+    final BaseConnection baseConnection = mock(BaseConnection.class);
+    final TypeInfo typeInfo = mock(TypeInfo.class);
+    final PreparedStatement statement = mock(PreparedStatement.class);
+    final ResultSet rs = mock(ResultSet.class);
+    when(connection.isWrapperFor(BaseConnection.class)).thenReturn(true);
+    when(connection.unwrap(BaseConnection.class)).thenReturn(baseConnection);
+    when(connection.createArrayOf(eq("text"), any(Object[].class))).thenReturn(mock(Array.class));
+    when(connection.prepareStatement(anyString())).thenReturn(statement);
+    when(baseConnection.getTypeInfo()).thenReturn(typeInfo);
+    when(typeInfo.getSQLType(20)).thenReturn(Types.BIGINT);
+    when(typeInfo.getPrecision(20, -1)).thenReturn(19);
+    when(typeInfo.getSQLType(1184)).thenReturn(Types.TIMESTAMP);
+    when(typeInfo.getPrecision(1184, -1)).thenReturn(35);
+    when(statement.executeQuery()).thenReturn(rs);
+    when(rs.next()).thenReturn(true, true, false);
+    when(rs.getString(1)).thenReturn("project_a");
+    when(rs.getString(2)).thenReturn("heart_rate");
+    when(rs.getString(3)).thenReturn("project_a");
+    when(rs.getString(4)).thenReturn("r");
+    when(rs.getString(5)).thenReturn("key", "time");
+    when(rs.getLong(6)).thenReturn(20L, 1184L);
+    when(rs.getInt(7)).thenReturn(-1);
+    when(rs.getString(8)).thenReturn("int8", "timestamptz");
+    when(rs.getString(9)).thenReturn("b");
+    when(rs.getBoolean(10)).thenReturn(true, false);
+    when(rs.getBoolean(11)).thenReturn(false);
+    when(rs.getBoolean(12)).thenReturn(true, false);
+
+    final TableId heartRate = new TableId(null, "project_a", "heart_rate");
+    final TableId missing = new TableId(null, "project_a", "missing");
+    final Map<TableId, TableDefinition> definitions =
+        dialect.describeTables(connection, Arrays.asList(heartRate, missing));
+
+    verify(connection).prepareStatement(contains("c.relkind IN ('r', 'p')"));
+    assertEquals(Collections.singleton(heartRate), definitions.keySet());
+    final TableDefinition definition = definitions.get(heartRate);
+    assertEquals(TableType.TABLE, definition.type());
+    assertEquals(Arrays.asList("key"), new ArrayList<>(definition.primaryKeyColumnNames()));
+    final ColumnDefinition key = definition.definitionForColumn("key");
+    assertEquals(Types.BIGINT, key.type());
+    assertEquals(19, key.precision());
+    assertEquals(Nullability.NOT_NULL, key.nullability());
+    final ColumnDefinition time = definition.definitionForColumn("time");
+    assertEquals(Types.TIMESTAMP, time.type());
+    assertEquals("timestamptz", time.typeName());
+    assertEquals(Nullability.NULL, time.nullability());
+  }
+
   @Test
   public void shouldSanitizeUrlWithoutCredentialsInProperties() {
     assertSanitizedUrl(
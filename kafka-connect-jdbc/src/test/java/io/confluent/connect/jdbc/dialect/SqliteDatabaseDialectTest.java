@@ -27,6 +27,7 @@ import org.junit.Test;
 
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.TimeZone;
 import java.util.regex.Matcher;
@@ -232,6 +233,26 @@ public class SqliteDatabaseDialectTest extends BaseDialectTest<SqliteDatabaseDia
                           "ALTER TABLE `myTable` ADD `newcol2` INTEGER DEFAULT 42");
   }
 
+  @Test
+  public void shouldBuildMultiRowUpsertStatement() {
+    String expected = "INSERT OR REPLACE INTO `myTable`(`id1`,`id2`,`columnA`) "
+                      + "VALUES(?,?,?),(?,?,?)";
+    String sql = dialect.buildUpsertQueryStatement(tableId, pkColumns, Arrays.asList(columnA), 2);
+    assertEquals(expected, sql);
+    assertEquals(
+        dialect.buildUpsertQueryStatement(tableId, pkColumns, columnsAtoD),
+        dialect.buildUpsertQueryStatement(tableId, pkColumns, columnsAtoD, 1)
+    );
+  }
+
+  @Test
+  public void shouldBuildMultiRowInsertStatement() {
+    String expected = "INSERT INTO `myTable`(`id1`,`id2`,`columnA`) VALUES(?,?,?),(?,?,?)";
+    String sql = dialect.buildInsertStatement(tableId, pkColumns, Arrays.asList(columnA), 2);
+    assertEquals(expected, sql);
+    assertEquals(999, dialect.maxBindParameters());
+  }
+
   @Test
   public void upsert() {
     TableId book = new TableId(null, null, "Book");
@@ -0,0 +1,591 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.dialect;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.TimeZone;
+
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.confluent.connect.jdbc.sink.metadata.SinkRecordField;
+import io.confluent.connect.jdbc.util.ColumnDefinition;
+import io.confluent.connect.jdbc.util.DateTimeUtils;
+import io.confluent.connect.jdbc.util.TableId;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TimescaleDBDatabaseDialectTest {
+
+  private TimescaleDBDatabaseDialect dialect;
+
+  @Before
+  public void setup() {
+    Map<String, String> props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, "jdbc:postgresql://something");
+    props.put(JdbcSinkConfig.DB_TIMEZONE_CONFIG, "Europe/Amsterdam");
+    dialect = new TimescaleDBDatabaseDialect(new JdbcSinkConfig(props));
+  }
+
+  @Test
+  public void bindTimestampAsOffsetDateTimeOnlyForTimestamptzColumns() throws SQLException {
+    OffsetDateTime expected = OffsetDateTime.of(2020, 3, 1, 12, 30, 15, 123000000, ZoneOffset.UTC);
+    java.util.Date value = new java.util.Date(expected.toInstant().toEpochMilli());
+    ColumnDefinition timestamptz = mock(ColumnDefinition.class);
+    when(timestamptz.typeName()).thenReturn("timestamptz");
+    ColumnDefinition timestamp = mock(ColumnDefinition.class);
+    when(timestamp.typeName()).thenReturn("timestamp");
+
+    PreparedStatement statement = mock(PreparedStatement.class);
+    dialect.valueBinder(Timestamp.SCHEMA, timestamptz).bind(statement, 1, value);
+    dialect.valueBinder(Timestamp.SCHEMA, timestamptz).bind(statement, 2, null);
+    dialect.valueBinder(Schema.INT64_SCHEMA, timestamptz).bind(statement, 3, 42L);
+    dialect.valueBinder(Timestamp.SCHEMA, timestamp).bind(statement, 4, value);
+    dialect.valueBinder(Timestamp.SCHEMA).bind(statement, 5, value);
+    dialect.bindField(statement, 6, Timestamp.SCHEMA, value);
+
+    verify(statement).setObject(1, expected);
+    verify(statement).setObject(2, null);
+    verify(statement).setLong(3, 42L);
+    java.sql.Timestamp sqlTimestamp = new java.sql.Timestamp(value.getTime());
+    for (int index = 4; index <= 6; index++) {
+      verify(statement).setTimestamp(
+          eq(index),
+          eq(sqlTimestamp),
+          eq(DateTimeUtils.getTimeZoneCalendar(TimeZone.getTimeZone("Europe/Amsterdam")))
+      );
+    }
+  }
+
+  @Test
+  public void createHypertableWithConfiguredTimeColumnAndInterval() {
+    Map<String, String> props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, "jdbc:postgresql://something");
+    props.put(JdbcSinkConfig.HYPERTABLE_TIME_COLUMN_OVERRIDES, "questionnaire=timeCompleted");
+    props.put(JdbcSinkConfig.HYPERTABLE_CHUNK_TIME_INTERVAL_OVERRIDES, "acceleration=auto");
+    props.put(JdbcSinkConfig.HYPERTABLE_CHUNK_TIME_INTERVAL, "2592000000");
+    dialect = new TimescaleDBDatabaseDialect(new JdbcSinkConfig(props));
+
+    assertEquals(
+        "SELECT create_hypertable('\"project_a\".\"questionnaire\"', 'timeCompleted', "
+            + "migrate_data => TRUE, chunk_time_interval => INTERVAL '2592000000 milliseconds');",
+        dialect.buildCreateHyperTableStatement(new TableId(null, "project_a", "questionnaire"))
+    );
+    assertEquals(
+        "SELECT create_hypertable('\"project_a\".\"acceleration\"', 'time', "
+            + "migrate_data => TRUE, chunk_time_interval => INTERVAL '86400000 milliseconds');",
+        dialect.buildCreateHyperTableStatement(new TableId(null, "project_a", "acceleration"))
+    );
+    assertEquals(
+        "SELECT set_chunk_time_interval('\"project_a\".\"acceleration\"', "
+            + "INTERVAL '3600000 milliseconds')",
+        dialect.buildSetChunkTimeIntervalStatement(
+            new TableId(null, "project_a", "acceleration"),
+            3600000L,
+            false
+        )
+    );
+  }
+
+  @Test
+  public void createHypertableWithCompressionAndRetentionPolicies() {
+    Map<String, String> props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, "jdbc:postgresql://something");
+    props.put(JdbcSinkConfig.HYPERTABLE_COMPRESS_AFTER_MS, "604800000");
+    props.put(JdbcSinkConfig.HYPERTABLE_COMPRESS_AFTER_MS_OVERRIDES, "questionnaire=-1");
+    props.put(JdbcSinkConfig.HYPERTABLE_RETENTION_MS_OVERRIDES, "questionnaire=31536000000");
+    dialect = new TimescaleDBDatabaseDialect(new JdbcSinkConfig(props));
+    List<SinkRecordField> fields = Arrays.asList(
+        new SinkRecordField(Timestamp.SCHEMA, "time", true),
+        new SinkRecordField(Schema.STRING_SCHEMA, "userId", true),
+        new SinkRecordField(Schema.STRING_SCHEMA, "projectId", true),
+        new SinkRecordField(Schema.OPTIONAL_INT32_SCHEMA, "heartRate", false)
+    );
+
+    List<String> statements =
+        dialect.buildCreateTableStatements(new TableId(null, "project_a", "heart_rate"), fields);
+    assertEquals(5, statements.size());
+    assertEquals(
+        "ALTER TABLE \"project_a\".\"heart_rate\" SET (timescaledb.compress, "
+            + "timescaledb.compress_segmentby = '\"userId\", \"projectId\"')",
+        statements.get(3)
+    );
+    assertEquals(
+        "SELECT add_compression_policy('\"project_a\".\"heart_rate\"', "
+            + "INTERVAL '604800000 milliseconds')",
+        statements.get(4)
+    );
+
+    assertEquals(
+        Collections.singletonList(
+            "SELECT add_retention_policy('\"project_a\".\"questionnaire\"', "
+                + "INTERVAL '31536000000 milliseconds')"
+        ),
+        dialect.buildHyperTablePolicyStatements(
+            new TableId(null, "project_a", "questionnaire"),
+            fields
+        )
+    );
+  }
+
+  @Test
+  public void createContinuousAggregatesOfConfiguredTables() {
+    Map<String, String> props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, "jdbc:postgresql://something");
+    props.put(JdbcSinkConfig.HYPERTABLE_AGGREGATE_TABLES, "heart_rate");
+    props.put(JdbcSinkConfig.HYPERTABLE_AGGREGATE_BUCKETS_MS, "3600000");
+    dialect = new TimescaleDBDatabaseDialect(new JdbcSinkConfig(props));
+    TableId table = new TableId(null, "project_a", "heart_rate");
+    SinkRecordField heartRate =
+        new SinkRecordField(Schema.OPTIONAL_INT32_SCHEMA, "heartRate", false);
+    SinkRecordField source =
+        new SinkRecordField(Schema.OPTIONAL_STRING_SCHEMA, "source", false);
+    List<SinkRecordField> fields = Arrays.asList(
+        new SinkRecordField(Timestamp.SCHEMA, "time", true),
+        new SinkRecordField(Schema.STRING_SCHEMA, "userId", true),
+        heartRate,
+        source
+    );
+
+    List<String> statements = dialect.buildCreateTableStatements(table, fields);
+    assertEquals(5, statements.size());
+    assertEquals(
+        "CREATE MATERIALIZED VIEW \"project_a\".\"heart_rate_1h\" WITH (timescaledb.continuous, "
+            + "timescaledb.materialized_only = false) "
+            + "AS SELECT time_bucket(INTERVAL '3600000 milliseconds', \"time\") AS \"bucket\", "
+            + "\"userId\", avg(\"heartRate\") AS \"heartRate_avg\", "
+            + "min(\"heartRate\") AS \"heartRate_min\", max(\"heartRate\") AS \"heartRate_max\", "
+            + "count(*) AS \"row_count\" FROM \"project_a\".\"heart_rate\" "
+            + "GROUP BY \"bucket\", \"userId\" WITH NO DATA",
+        statements.get(3)
+    );
+    assertEquals(
+        "SELECT add_continuous_aggregate_policy('\"project_a\".\"heart_rate_1h\"', "
+            + "start_offset => INTERVAL '604800000 milliseconds', "
+            + "end_offset => INTERVAL '3600000 milliseconds', "
+            + "schedule_interval => INTERVAL '3600000 milliseconds')",
+        statements.get(4)
+    );
+
+    List<String> amendStatements =
+        dialect.buildAmendTableStatements(table, Collections.singleton(heartRate), fields);
+    assertEquals(6, amendStatements.size());
+    assertEquals(
+        "CREATE OR REPLACE PROCEDURE \"project_a\".\"refresh_continuous_aggregate_once\"("
+            + "job_id INT, config JSONB) LANGUAGE plpgsql AS $$ BEGIN "
+            + "CALL refresh_continuous_aggregate((config ->> 'view')::regclass, NULL, NULL); "
+            + "PERFORM alter_job(job_id, scheduled => false); END $$",
+        amendStatements.get(1)
+    );
+    assertEquals(
+        "DROP MATERIALIZED VIEW IF EXISTS \"project_a\".\"heart_rate_1h\"",
+        amendStatements.get(2)
+    );
+    assertEquals(statements.get(3), amendStatements.get(3));
+    assertEquals(statements.get(4), amendStatements.get(4));
+    assertEquals(
+        "SELECT add_job('\"project_a\".\"refresh_continuous_aggregate_once\"', "
+            + "INTERVAL '1 day', "
+            + "config => '{\"view\": \"\\\"project_a\\\".\\\"heart_rate_1h\\\"\"}')",
+        amendStatements.get(5)
+    );
+    assertEquals(
+        dialect.buildAlterTable(table, Collections.singleton(source)),
+        dialect.buildAmendTableStatements(table, Collections.singleton(source), fields)
+    );
+    assertEquals(
+        3,
+        dialect.buildCreateTableStatements(new TableId(null, "project_a", "acceleration"), fields)
+            .size()
+    );
+  }
+
+  @Test
+  public void createContinuousAggregatesOfIntegerTimeTables() {
+    Map<String, String> props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, "jdbc:postgresql://something");
+    props.put(JdbcSinkConfig.HYPERTABLE_AGGREGATE_TABLES, "heart_rate");
+    props.put(JdbcSinkConfig.HYPERTABLE_AGGREGATE_BUCKETS_MS, "3600000");
+    dialect = new TimescaleDBDatabaseDialect(new JdbcSinkConfig(props));
+    TableId table = new TableId(null, "project_a", "heart_rate");
+    SinkRecordField heartRate =
+        new SinkRecordField(Schema.OPTIONAL_INT32_SCHEMA, "heartRate", false);
+    List<SinkRecordField> fields = Arrays.asList(
+        new SinkRecordField(Schema.INT64_SCHEMA, "time", true),
+        new SinkRecordField(Schema.STRING_SCHEMA, "userId", true),
+        heartRate
+    );
+    List<String> integerNowStatements = dialect.buildIntegerNowStatements(table, fields);
+    assertEquals(
+        "SELECT set_integer_now_func('\"project_a\".\"heart_rate\"', "
+            + "'\"project_a\".\"unix_now_ms\"', replace_if_exists => TRUE)",
+        integerNowStatements.get(1)
+    );
+    String policy = "SELECT add_continuous_aggregate_policy('\"project_a\".\"heart_rate_1h\"', "
+        + "start_offset => 604800000, end_offset => 3600000, "
+        + "schedule_interval => INTERVAL '3600000 milliseconds')";
+
+    // The refresh policy needs the current time in the unit of the time column
+    List<String> statements = dialect.buildCreateTableStatements(table, fields);
+    assertEquals(7, statements.size());
+    assertEquals(integerNowStatements, statements.subList(3, 5));
+    assertEquals(policy, statements.get(6));
+
+    // The hypertable may have been created without it
+    List<String> amendStatements =
+        dialect.buildAmendTableStatements(table, Collections.singleton(heartRate), fields);
+    assertEquals(8, amendStatements.size());
+    assertEquals(integerNowStatements, amendStatements.subList(1, 3));
+    assertEquals(policy, amendStatements.get(6));
+  }
+
+  @Test
+  public void partitionHypertableByKeyColumn() {
+    Map<String, String> props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, "jdbc:postgresql://something");
+    props.put(JdbcSinkConfig.HYPERTABLE_PARTITION_COLUMN, "userId");
+    props.put(JdbcSinkConfig.HYPERTABLE_PARTITION_COLUMN_OVERRIDES, "questionnaire=projectId");
+    props.put(JdbcSinkConfig.HYPERTABLE_PARTITIONS, "8");
+    dialect = new TimescaleDBDatabaseDialect(new JdbcSinkConfig(props));
+    TableId table = new TableId(null, "project_a", "heart_rate");
+    List<SinkRecordField> fields = Arrays.asList(
+        new SinkRecordField(Timestamp.SCHEMA, "time", true),
+        new SinkRecordField(Schema.STRING_SCHEMA, "userId", true),
+        new SinkRecordField(Schema.OPTIONAL_INT32_SCHEMA, "heartRate", false)
+    );
+
+    List<String> statements = dialect.buildCreateTableStatements(table, fields);
+    assertEquals(4, statements.size());
+    assertEquals(
+        "SELECT add_dimension('\"project_a\".\"heart_rate\"', 'userId', number_partitions => 8)",
+        statements.get(3)
+    );
+    assertEquals(
+        3,
+        dialect.buildCreateTableStatements(new TableId(null, "project_a", "questionnaire"), fields)
+            .size()
+    );
+
+    Schema keySchema = SchemaBuilder.struct()
+        .field("userId", Schema.STRING_SCHEMA)
+        .build();
+    List<SinkRecord> records = Arrays.asList(
+        new SinkRecord("heart_rate", 0, keySchema, new Struct(keySchema).put("userId", "a"),
+            null, null, 0),
+        new SinkRecord("heart_rate", 0, keySchema, new Struct(keySchema).put("userId", "b"),
+            null, null, 1),
+        new SinkRecord("heart_rate", 0, keySchema, new Struct(keySchema).put("userId", "a"),
+            null, null, 2)
+    );
+    List<SinkRecord> ordered = dialect.orderForWrite(table, records);
+    assertEquals(Arrays.asList(0L, 2L, 1L), Arrays.asList(
+        ordered.get(0).kafkaOffset(),
+        ordered.get(1).kafkaOffset(),
+        ordered.get(2).kafkaOffset()
+    ));
+  }
+
+  @Test
+  public void sortWritesByChunkThenPartitionThenTime() {
+    Map<String, String> props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, "jdbc:postgresql://something");
+    props.put(JdbcSinkConfig.HYPERTABLE_PARTITION_COLUMN, "userId");
+    props.put(JdbcSinkConfig.HYPERTABLE_CHUNK_TIME_INTERVAL, "1000");
+    props.put(JdbcSinkConfig.HYPERTABLE_SORT_WRITES, "true");
+    dialect = new TimescaleDBDatabaseDialect(new JdbcSinkConfig(props));
+    TableId table = new TableId(null, "project_a", "heart_rate");
+    Schema valueSchema = SchemaBuilder.struct()
+        .field("time", Timestamp.SCHEMA)
+        .field("userId", Schema.STRING_SCHEMA)
+        .build();
+    List<SinkRecord> records = Arrays.asList(
+        heartRateRecord(valueSchema, 2500, "a", 0),
+        heartRateRecord(valueSchema, 1500, "b", 1),
+        heartRateRecord(valueSchema, 1200, "a", 2),
+        heartRateRecord(valueSchema, 1100, "b", 3),
+        heartRateRecord(valueSchema, 2200, "a", 4)
+    );
+
+    List<SinkRecord> ordered = dialect.orderForWrite(table, records);
+    assertEquals(Arrays.asList(2L, 3L, 1L, 4L, 0L), Arrays.asList(
+        ordered.get(0).kafkaOffset(),
+        ordered.get(1).kafkaOffset(),
+        ordered.get(2).kafkaOffset(),
+        ordered.get(3).kafkaOffset(),
+        ordered.get(4).kafkaOffset()
+    ));
+    assertEquals(OptionalInt.of(2), dialect.countTimeBuckets(table, records));
+  }
+
+  @Test
+  public void useIntegerIntervalsForIntegerTimeColumns() {
+    Map<String, String> props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, "jdbc:postgresql://something");
+    props.put(JdbcSinkConfig.HYPERTABLE_CHUNK_TIME_INTERVAL, "3600000");
+    props.put(JdbcSinkConfig.HYPERTABLE_COMPRESS_AFTER_MS, "604800000");
+    props.put(JdbcSinkConfig.HYPERTABLE_SORT_WRITES, "true");
+    dialect = new TimescaleDBDatabaseDialect(new JdbcSinkConfig(props));
+    TableId table = new TableId(null, "project_a", "heart_rate");
+    List<SinkRecordField> fields = Arrays.asList(
+        new SinkRecordField(Schema.INT64_SCHEMA, "time", true),
+        new SinkRecordField(Schema.STRING_SCHEMA, "userId", true)
+    );
+
+    List<String> statements = dialect.buildCreateTableStatements(table, fields);
+    assertEquals(7, statements.size());
+    assertEquals(
+        "SELECT create_hypertable('\"project_a\".\"heart_rate\"', 'time', "
+            + "migrate_data => TRUE, chunk_time_interval => 3600000);",
+        statements.get(2)
+    );
+    // The policies need the current time in the unit of the time column
+    assertEquals(
+        "CREATE OR REPLACE FUNCTION \"project_a\".\"unix_now_ms\"() RETURNS BIGINT "
+            + "LANGUAGE SQL STABLE AS $$ SELECT (extract(epoch FROM now()) * 1000)::BIGINT $$",
+        statements.get(3)
+    );
+    assertEquals(
+        "SELECT set_integer_now_func('\"project_a\".\"heart_rate\"', "
+            + "'\"project_a\".\"unix_now_ms\"', replace_if_exists => TRUE)",
+        statements.get(4)
+    );
+    assertEquals(
+        "SELECT add_compression_policy('\"project_a\".\"heart_rate\"', 604800000)",
+        statements.get(6)
+    );
+    assertEquals(
+        "SELECT set_chunk_time_interval('\"project_a\".\"heart_rate\"', 60000)",
+        dialect.buildSetChunkTimeIntervalStatement(table, 60000L, true)
+    );
+
+    Schema valueSchema = SchemaBuilder.struct()
+        .field("time", Schema.INT64_SCHEMA)
+        .field("userId", Schema.STRING_SCHEMA)
+        .build();
+    List<SinkRecord> records = Arrays.asList(
+        integerTimeRecord(valueSchema, 7200001L, 0),
+        integerTimeRecord(valueSchema, 5L, 1),
+        integerTimeRecord(valueSchema, 7200000L, 2)
+    );
+    List<SinkRecord> ordered = dialect.orderForWrite(table, records);
+    assertEquals(Arrays.asList(1L, 2L, 0L), Arrays.asList(
+        ordered.get(0).kafkaOffset(),
+        ordered.get(1).kafkaOffset(),
+        ordered.get(2).kafkaOffset()
+    ));
+    assertEquals(OptionalInt.of(2), dialect.countTimeBuckets(table, records));
+  }
+
+  @Test(expected = ConnectException.class)
+  public void rejectPoliciesOfIntegerTimeColumnsTooNarrowForEpochMillis() {
+    Map<String, String> props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, "jdbc:postgresql://something");
+    props.put(JdbcSinkConfig.HYPERTABLE_RETENTION_MS, "31536000000");
+    dialect = new TimescaleDBDatabaseDialect(new JdbcSinkConfig(props));
+    TableId table = new TableId(null, "project_a", "heart_rate");
+    List<SinkRecordField> fields = Arrays.asList(
+        new SinkRecordField(Schema.INT32_SCHEMA, "time", true),
+        new SinkRecordField(Schema.STRING_SCHEMA, "userId", true)
+    );
+
+    dialect.buildCreateTableStatements(table, fields);
+  }
+
+  @Test
+  public void countTimeBucketsOfTunedChunkTimeInterval() throws SQLException {
+    Map<String, String> props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, "jdbc:postgresql://something");
+    props.put(JdbcSinkConfig.HYPERTABLE_CHUNK_TIME_INTERVAL, "auto");
+    props.put(JdbcSinkConfig.HYPERTABLE_CHUNK_TARGET_BYTES, "1000000");
+    dialect = new TimescaleDBDatabaseDialect(new JdbcSinkConfig(props));
+    TableId table = new TableId(null, "project_a", "heart_rate");
+    Schema valueSchema = SchemaBuilder.struct()
+        .field("time", Schema.INT64_SCHEMA)
+        .field("userId", Schema.STRING_SCHEMA)
+        .build();
+    List<SinkRecord> records = new ArrayList<>();
+    for (int i = 0; i < ChunkIntervalTuner.MIN_SAMPLE_ROWS; i++) {
+      records.add(integerTimeRecord(valueSchema, i * 1000L, i));
+    }
+    List<SinkRecord> twoRecords = Arrays.asList(
+        integerTimeRecord(valueSchema, 0L, 0),
+        integerTimeRecord(valueSchema, 1000000L, 1)
+    );
+    assertEquals(OptionalInt.of(1), dialect.countTimeBuckets(table, twoRecords));
+
+    Connection connection = mock(Connection.class);
+    PreparedStatement query = mock(PreparedStatement.class);
+    ResultSet resultSet = mock(ResultSet.class);
+    Statement statement = mock(Statement.class);
+    when(connection.prepareStatement(anyString())).thenReturn(query);
+    when(query.executeQuery()).thenReturn(resultSet);
+    when(resultSet.next()).thenReturn(true);
+    when(resultSet.getLong(1)).thenReturn(10000L);
+    when(resultSet.getLong(2)).thenReturn(10000000L);
+    when(connection.createStatement()).thenReturn(statement);
+
+    dialect.afterWrite(connection, table, records);
+    verify(query).setLong(1, 0L);
+    verify(query).setLong(2, 9999000L);
+    verify(query).setInt(3, ChunkIntervalTuner.MAX_MEASURED_ROWS);
+    verify(statement).execute(
+        "SELECT set_chunk_time_interval('\"project_a\".\"heart_rate\"', 999900)"
+    );
+    // The interval is only used once it is committed
+    assertEquals(OptionalInt.of(1), dialect.countTimeBuckets(table, twoRecords));
+    dialect.committed(connection);
+    assertEquals(OptionalInt.of(2), dialect.countTimeBuckets(table, twoRecords));
+  }
+
+  @Test
+  public void sampleAgainWhenTheTunedChunkTimeIntervalIsRolledBack() throws SQLException {
+    Map<String, String> props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, "jdbc:postgresql://something");
+    props.put(JdbcSinkConfig.HYPERTABLE_CHUNK_TIME_INTERVAL, "auto");
+    props.put(JdbcSinkConfig.HYPERTABLE_CHUNK_TARGET_BYTES, "1000000");
+    dialect = new TimescaleDBDatabaseDialect(new JdbcSinkConfig(props));
+    TableId table = new TableId(null, "project_a", "heart_rate");
+    Schema valueSchema = SchemaBuilder.struct()
+        .field("time", Schema.INT64_SCHEMA)
+        .field("userId", Schema.STRING_SCHEMA)
+        .build();
+    List<SinkRecord> records = new ArrayList<>();
+    for (int i = 0; i < ChunkIntervalTuner.MIN_SAMPLE_ROWS; i++) {
+      records.add(integerTimeRecord(valueSchema, i * 1000L, i));
+    }
+    List<SinkRecord> twoRecords = Arrays.asList(
+        integerTimeRecord(valueSchema, 0L, 0),
+        integerTimeRecord(valueSchema, 950000L, 1)
+    );
+
+    Connection connection = mock(Connection.class);
+    PreparedStatement query = mock(PreparedStatement.class);
+    ResultSet resultSet = mock(ResultSet.class);
+    Statement statement = mock(Statement.class);
+    when(connection.prepareStatement(anyString())).thenReturn(query);
+    when(query.executeQuery()).thenReturn(resultSet);
+    when(resultSet.next()).thenReturn(true);
+    // Only the newest rows are measured, which were written in the last 9000 seconds
+    when(resultSet.getLong(1)).thenReturn((long) ChunkIntervalTuner.MAX_MEASURED_ROWS);
+    when(resultSet.getLong(2)).thenReturn(10000000L);
+    when(resultSet.getLong(3)).thenReturn(999000L);
+    when(resultSet.getLong(4)).thenReturn(9999000L);
+    when(connection.createStatement()).thenReturn(statement);
+
+    dialect.afterWrite(connection, table, records);
+    dialect.rolledBack(connection);
+    dialect.committed(connection);
+    assertEquals(OptionalInt.of(1), dialect.countTimeBuckets(table, twoRecords));
+
+    dialect.afterWrite(connection, table, records);
+    dialect.committed(connection);
+    verify(statement, times(2)).execute(
+        "SELECT set_chunk_time_interval('\"project_a\".\"heart_rate\"', 900000)"
+    );
+    assertEquals(OptionalInt.of(2), dialect.countTimeBuckets(table, twoRecords));
+  }
+
+  private static SinkRecord integerTimeRecord(Schema schema, long timeMs, long offset) {
+    Struct value = new Struct(schema)
+        .put("time", timeMs)
+        .put("userId", "a");
+    return new SinkRecord("heart_rate", 0, null, null, schema, value, offset);
+  }
+
+  private static SinkRecord heartRateRecord(
+      Schema schema,
+      long timeMs,
+      String userId,
+      long offset
+  ) {
+    Struct value = new Struct(schema)
+        .put("time", new java.util.Date(timeMs))
+        .put("userId", userId);
+    return new SinkRecord("heart_rate", 0, null, null, schema, value, offset);
+  }
+
+  @Test
+  public void applyDdlStatementsThatReturnResults() throws SQLException {
+    Connection connection = mock(Connection.class);
+    Statement statement = mock(Statement.class);
+    when(connection.createStatement()).thenReturn(statement);
+
+    dialect.applyDdlStatements(connection, Arrays.asList("CREATE TABLE a (b INT)", "SELECT 1"));
+    verify(statement).execute("CREATE TABLE a (b INT)");
+    verify(statement).execute("SELECT 1");
+    verify(statement, never()).executeUpdate(anyString());
+  }
+
+  @Test
+  public void chooseChunkTimeIntervalForTargetSize() {
+    ChunkIntervalTuner tuner = new ChunkIntervalTuner(dialect, 256 * 1024 * 1024L);
+    // 32 Hz of 100 byte rows from 100 devices
+    assertEquals(838860L, tuner.chunkTimeIntervalMs(100L * 32 * 100, 1000L));
+    // A small questionnaire table gets the largest interval
+    assertEquals(
+        ChunkIntervalTuner.MAX_CHUNK_TIME_INTERVAL_MS,
+        tuner.chunkTimeIntervalMs(10000L, 86400000L)
+    );
+    assertEquals(
+        ChunkIntervalTuner.MIN_CHUNK_TIME_INTERVAL_MS,
+        tuner.chunkTimeIntervalMs(1024 * 1024 * 1024L, 1000L)
+    );
+  }
+
+  @Test
+  public void formatTimestamptzInTimeZone() {
+    java.util.Date value = new java.util.Date(
+        OffsetDateTime.of(2020, 3, 1, 12, 30, 15, 123000000, ZoneOffset.UTC)
+            .toInstant()
+            .toEpochMilli()
+    );
+    assertEquals(
+        "2020-03-01 13:30:15.123+01:00",
+        DateTimeUtils.formatTimestamptz(value, TimeZone.getTimeZone("Europe/Amsterdam"))
+    );
+    assertEquals(
+        "2020-03-01 12:30:15.123Z",
+        DateTimeUtils.formatTimestamptz(value, TimeZone.getTimeZone(ZoneOffset.UTC))
+    );
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.common.config.ConfigException;
+import org.junit.Test;
+
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.confluent.connect.jdbc.util.TableId;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveBatchSizeTest {
+
+  private final SinkMetrics metrics = SinkMetrics.inMemory();
+
+  @Test
+  public void growsWhileFullBatchesAreNotSlower() {
+    final AdaptiveBatchSize batchSize = batchSize("true", "100", "50", "130");
+    assertEquals(100, batchSize.current());
+
+    batchSize.onFlush(100, 100_000);
+    assertEquals(100, batchSize.current());
+    batchSize.onFlush(100, 90_000);
+    assertEquals(110, batchSize.current());
+    // Not a full batch
+    batchSize.onFlush(60, 50_000);
+    assertEquals(110, batchSize.current());
+    batchSize.onFlush(110, 80_000);
+    assertEquals(120, batchSize.current());
+    batchSize.onFlush(120, 80_000);
+    assertEquals(130, batchSize.current());
+    batchSize.onFlush(130, 80_000);
+    assertEquals(130, batchSize.current());
+    assertFalse(batchSize.isCongested());
+  }
+
+  @Test
+  public void halvesWhenFlushesAreSlowOrBlocked() {
+    final AdaptiveBatchSize batchSize = batchSize("true", "400", "150", "1000");
+    batchSize.onFlush(400, 400_000);
+    batchSize.onFlush(400, 800_000);
+    assertTrue(batchSize.isCongested());
+    assertEquals(200, batchSize.current());
+
+    batchSize.onFailure(new SQLException("syntax error", "42601"));
+    assertFalse(batchSize.isCongested());
+    assertEquals(200, batchSize.current());
+
+    final BatchUpdateException failure = new BatchUpdateException();
+    failure.setNextException(new SQLException("canceling statement due to lock timeout", "55P03"));
+    batchSize.onFailure(failure);
+    assertTrue(batchSize.isCongested());
+    assertEquals(150, batchSize.current());
+  }
+
+  @Test
+  public void fixedWhenNotEnabled() {
+    final AdaptiveBatchSize batchSize = batchSize("false", "400", "500", "1000");
+    assertEquals(400, batchSize.current());
+    batchSize.onFlush(400, 400_000);
+    batchSize.onFlush(400, 100_000);
+    batchSize.onFlush(400, 800_000);
+    batchSize.onFailure(new SQLException("deadlock detected", "40P01"));
+    assertEquals(400, batchSize.current());
+  }
+
+  @Test(expected = ConfigException.class)
+  public void minimumMustNotExceedMaximum() {
+    batchSize("true", "400", "500", "100");
+  }
+
+  private AdaptiveBatchSize batchSize(String enabled, String size, String min, String max) {
+    final Map<String, String> props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, "stub");
+    props.put(JdbcSinkConfig.ADAPTIVE_FLUSH_ENABLED, enabled);
+    props.put(JdbcSinkConfig.BATCH_SIZE, size);
+    props.put(JdbcSinkConfig.BATCH_SIZE_MIN, min);
+    props.put(JdbcSinkConfig.BATCH_SIZE_MAX, max);
+    return new AdaptiveBatchSize(
+        new JdbcSinkConfig(props),
+        metrics.table(new TableId(null, null, "mytable"))
+    );
+  }
+}
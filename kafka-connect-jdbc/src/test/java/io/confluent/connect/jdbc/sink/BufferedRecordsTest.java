@@ -16,6 +16,8 @@
 package io.confluent.connect.jdbc.sink;
 
 import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.metrics.KafkaMetric;
+import org.apache.kafka.common.metrics.MetricsReporter;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.SchemaBuilder;
 import org.apache.kafka.connect.data.Struct;
@@ -30,8 +32,10 @@ import org.mockito.Mockito;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -116,6 +120,135 @@ public class BufferedRecordsTest {
     assertEquals(Collections.singletonList(recordA), buffer.flush());
   }
 
+  @Test
+  public void flushesAndSchemaChangesAreRecordedInMetrics() throws SQLException {
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+    final Map<String, KafkaMetric> reported = new HashMap<>();
+    final SinkMetrics metrics = new SinkMetrics(
+        "my-connector",
+        Collections.singletonList(new MetricsReporter() {
+          @Override
+          public void configure(Map<String, ?> configs) {
+          }
+
+          @Override
+          public void init(List<KafkaMetric> initial) {
+          }
+
+          @Override
+          public void metricChange(KafkaMetric metric) {
+            reported.put(metric.metricName().name(), metric);
+          }
+
+          @Override
+          public void metricRemoval(KafkaMetric metric) {
+          }
+
+          @Override
+          public void close() {
+          }
+        })
+    );
+
+    final String url = sqliteHelper.sqliteUri();
+    final DatabaseDialect dbDialect = DatabaseDialects.findBestFor(url, config);
+    final DbStructure dbStructure = new DbStructure(dbDialect, metrics);
+
+    final TableId tableId = new TableId(null, null, "dummy");
+    final BufferedRecords buffer = new BufferedRecords(
+        config,
+        tableId,
+        dbDialect,
+        dbStructure,
+        sqliteHelper.connection,
+        metrics.table(tableId)
+    );
+
+    final Schema schemaA = SchemaBuilder.struct()
+        .field("name", Schema.STRING_SCHEMA)
+        .build();
+    final SinkRecord recordA = new SinkRecord("dummy", 0, null, null, schemaA,
+        new Struct(schemaA).put("name", "cuba"), 0);
+    final Schema schemaB = SchemaBuilder.struct()
+        .field("name", Schema.STRING_SCHEMA)
+        .field("age", Schema.OPTIONAL_INT32_SCHEMA)
+        .build();
+    final SinkRecord recordB = new SinkRecord("dummy", 1, null, null, schemaB,
+        new Struct(schemaB).put("name", "cuba").put("age", 4), 1);
+
+    // (schemaA,schemaA,schemaA,schemaB,schemaA) -> ([schemaA,schemaA,schemaA],[schemaB],[schemaA])
+    buffer.add(recordA);
+    buffer.add(recordA);
+    buffer.add(recordA);
+    buffer.add(recordB);
+    buffer.add(recordA);
+    buffer.flush();
+
+    try {
+      assertEquals(5.0, reported.get("record-total").metricValue());
+      assertEquals(3.0, reported.get("flush-records-max").metricValue());
+      assertEquals(2.0, reported.get("schema-change-flush-total").metricValue());
+      // The table is created for the first schema and altered for the second
+      assertEquals(2.0, reported.get("ddl-total").metricValue());
+    } finally {
+      metrics.close();
+    }
+  }
+
+  @Test
+  public void compatibleSchemaVersionsAreBatchedTogether() throws SQLException {
+    props.put("schema.superset.enabled", true);
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+
+    final String url = sqliteHelper.sqliteUri();
+    final DatabaseDialect dbDialect = DatabaseDialects.findBestFor(url, config);
+    final DbStructure dbStructure = new DbStructure(dbDialect);
+
+    final TableId tableId = new TableId(null, null, "dummy");
+    final BufferedRecords buffer = new BufferedRecords(config, tableId, dbDialect, dbStructure, sqliteHelper.connection);
+
+    final Schema schemaA = SchemaBuilder.struct()
+        .field("name", Schema.STRING_SCHEMA)
+        .build();
+    final SinkRecord recordA = new SinkRecord("dummy", 0, null, null, schemaA,
+        new Struct(schemaA).put("name", "cuba"), 0);
+
+    final Schema schemaB = SchemaBuilder.struct()
+        .field("name", Schema.STRING_SCHEMA)
+        .field("age", Schema.OPTIONAL_INT32_SCHEMA)
+        .build();
+    final SinkRecord recordB = new SinkRecord("dummy", 0, null, null, schemaB,
+        new Struct(schemaB).put("name", "cuba").put("age", 4), 1);
+
+    final Schema schemaC = SchemaBuilder.struct()
+        .field("name", Schema.INT32_SCHEMA)
+        .build();
+    final SinkRecord recordC = new SinkRecord("dummy", 0, null, null, schemaC,
+        new Struct(schemaC).put("name", 5), 2);
+
+    // compatible versions of the schema are kept in one batch
+    assertEquals(Collections.emptyList(), buffer.add(recordA));
+    assertEquals(Collections.emptyList(), buffer.add(recordB));
+    assertEquals(Collections.emptyList(), buffer.add(recordA));
+    assertEquals(Collections.emptyList(), buffer.add(recordB));
+    assertEquals(3, buffer.schemaFlushesAvoided());
+
+    // an incompatible schema still triggers a flush
+    assertEquals(Arrays.asList(recordA, recordB, recordA, recordB), buffer.add(recordC));
+    assertEquals(Collections.singletonList(recordC), buffer.flush());
+
+    final List<Object> ages = new ArrayList<>();
+    sqliteHelper.select("SELECT age FROM dummy WHERE name = 'cuba'",
+        new SqliteHelper.ResultSetReadCallback() {
+          @Override
+          public void read(ResultSet rs) throws SQLException {
+            ages.add(rs.getObject("age"));
+          }
+        });
+    assertEquals(4, ages.size());
+    assertEquals(2, Collections.frequency(ages, null));
+  }
+
   @Test(expected = ConfigException.class)
   public void configParsingFailsIfDeleteWithWrongPKMode() {
     props.put("delete.enabled", true);
@@ -237,7 +370,7 @@ public class BufferedRecordsTest {
   }
   
   @Test
-  public void insertThenDeleteThenInsertInBatchFlush() throws SQLException {
+  public void insertThenDeleteThenInsertInBatchNoFlush() throws SQLException {
     props.put("delete.enabled", true);
     props.put("insert.mode", "upsert");
     props.put("pk.mode", "record_key");
@@ -278,11 +411,11 @@ public class BufferedRecordsTest {
     // delete should not cause a flush (i.e. not treated as a schema change)
     assertEquals(Collections.emptyList(), buffer.add(recordADelete));
 
-    // insert after delete should flush to insure insert isn't lost in batching
-    assertEquals(Arrays.asList(recordA, recordA, recordADelete), buffer.add(recordA));
+    // insert after delete should not flush, the batch is compacted instead
+    assertEquals(Collections.emptyList(), buffer.add(recordA));
 
     // schema change should trigger flush
-    assertEquals(Collections.singletonList(recordA), buffer.add(recordB));
+    assertEquals(Arrays.asList(recordA, recordA, recordADelete, recordA), buffer.add(recordB));
 
     // second schema change should trigger flush
     assertEquals(Collections.singletonList(recordB), buffer.add(recordA));
@@ -291,7 +424,7 @@ public class BufferedRecordsTest {
   }
 
   @Test
-  public void insertThenDeleteWithSchemaThenInsertInBatchFlush() throws SQLException {
+  public void insertThenDeleteWithSchemaThenInsertInBatchNoFlush() throws SQLException {
 	    props.put("delete.enabled", true);
 	    props.put("insert.mode", "upsert");
 	    props.put("pk.mode", "record_key");
@@ -332,11 +465,11 @@ public class BufferedRecordsTest {
 	    // delete should not cause a flush (i.e. not treated as a schema change)
 	    assertEquals(Collections.emptyList(), buffer.add(recordADeleteWithSchema));
 
-	    // insert after delete should flush to insure insert isn't lost in batching
-	    assertEquals(Arrays.asList(recordA, recordA, recordADeleteWithSchema), buffer.add(recordA));
+	    // insert after delete should not flush, the batch is compacted instead
+	    assertEquals(Collections.emptyList(), buffer.add(recordA));
 
 	    // schema change should trigger flush
-	    assertEquals(Collections.singletonList(recordA), buffer.add(recordB));
+	    assertEquals(Arrays.asList(recordA, recordA, recordADeleteWithSchema, recordA), buffer.add(recordB));
 
 	    // second schema change should trigger flush
 	    assertEquals(Collections.singletonList(recordB), buffer.add(recordA));
@@ -390,10 +523,10 @@ public class BufferedRecordsTest {
     assertEquals(Collections.emptyList(), buffer.add(recordADelete));
     assertEquals(Collections.emptyList(), buffer.add(recordBDelete));
 
-    // insert after delete should flush to insure insert isn't lost in batching
-    assertEquals(Arrays.asList(recordB, recordADelete, recordBDelete), buffer.add(recordB));
+    // insert after delete should not flush, the batch is compacted instead
+    assertEquals(Collections.emptyList(), buffer.add(recordB));
 
-    assertEquals(Collections.singletonList(recordB), buffer.flush());
+    assertEquals(Arrays.asList(recordB, recordADelete, recordBDelete, recordB), buffer.flush());
   }
 
   @Test
@@ -444,12 +577,144 @@ public class BufferedRecordsTest {
 	    // schema change should trigger flush
 	    assertEquals(Collections.singletonList(recordADeleteWithSchema), buffer.add(recordBDeleteWithSchema));
 
-	    // insert after delete should flush to insure insert isn't lost in batching
-	    assertEquals(Collections.singletonList(recordBDeleteWithSchema), buffer.add(recordB));
+	    // insert after delete should not flush, the batch is compacted instead
+	    assertEquals(Collections.emptyList(), buffer.add(recordB));
 
-	    assertEquals(Collections.singletonList(recordB), buffer.flush());
+	    assertEquals(Arrays.asList(recordBDeleteWithSchema, recordB), buffer.flush());
   }
   
+  @Test
+  public void lastRecordForEachKeyInBatchIsWritten() throws SQLException {
+    props.put("delete.enabled", true);
+    props.put("insert.mode", "upsert");
+    props.put("pk.mode", "record_key");
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+
+    final String url = sqliteHelper.sqliteUri();
+    final DatabaseDialect dbDialect = DatabaseDialects.findBestFor(url, config);
+    final DbStructure dbStructure = new DbStructure(dbDialect);
+
+    final TableId tableId = new TableId(null, null, "dummy");
+    final BufferedRecords buffer = new BufferedRecords(config, tableId, dbDialect, dbStructure, sqliteHelper.connection);
+
+    final Schema keySchema = SchemaBuilder.struct()
+        .field("id", Schema.INT64_SCHEMA)
+        .build();
+    final Schema valueSchema = SchemaBuilder.struct()
+        .field("name", Schema.STRING_SCHEMA)
+        .build();
+    final List<SinkRecord> records = Arrays.asList(
+        record(keySchema, 1L, valueSchema, "first", 0),
+        record(keySchema, 2L, valueSchema, "second", 1),
+        record(keySchema, 1L, valueSchema, "first again", 2),
+        record(keySchema, 2L, valueSchema, null, 3),
+        record(keySchema, 3L, valueSchema, "third", 4),
+        record(keySchema, 3L, valueSchema, null, 5),
+        record(keySchema, 3L, valueSchema, "third again", 6)
+    );
+    for (SinkRecord record : records) {
+      assertEquals(Collections.emptyList(), buffer.add(record));
+    }
+    assertEquals(records, buffer.flush());
+
+    final Map<Long, String> names = new HashMap<>();
+    sqliteHelper.select("SELECT * FROM dummy", new SqliteHelper.ResultSetReadCallback() {
+      @Override
+      public void read(ResultSet rs) throws SQLException {
+        names.put(rs.getLong("id"), rs.getString("name"));
+      }
+    });
+    final Map<Long, String> expected = new HashMap<>();
+    expected.put(1L, "first again");
+    expected.put(3L, "third again");
+    assertEquals(expected, names);
+  }
+
+  @Test(expected = SQLException.class)
+  public void insertModeDoesNotCompactRecordsWithTheSameKey() throws SQLException {
+    props.put("delete.enabled", true);
+    props.put("pk.mode", "record_key");
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+
+    final String url = sqliteHelper.sqliteUri();
+    final DatabaseDialect dbDialect = DatabaseDialects.findBestFor(url, config);
+    final DbStructure dbStructure = new DbStructure(dbDialect);
+
+    final TableId tableId = new TableId(null, null, "dummy");
+    final BufferedRecords buffer = new BufferedRecords(config, tableId, dbDialect, dbStructure, sqliteHelper.connection);
+
+    final Schema keySchema = SchemaBuilder.struct()
+        .field("id", Schema.INT64_SCHEMA)
+        .build();
+    final Schema valueSchema = SchemaBuilder.struct()
+        .field("name", Schema.STRING_SCHEMA)
+        .build();
+    assertEquals(Collections.emptyList(), buffer.add(record(keySchema, 1L, valueSchema, "first", 0)));
+    assertEquals(Collections.emptyList(), buffer.add(record(keySchema, 1L, valueSchema, "again", 1)));
+
+    // both records are inserted, so the second one fails on the primary key
+    buffer.flush();
+  }
+
+  @Test
+  public void insertModeFlushesInsertAfterDelete() throws SQLException {
+    props.put("delete.enabled", true);
+    props.put("delete.compaction.enabled", true);
+    props.put("pk.mode", "record_key");
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+
+    final String url = sqliteHelper.sqliteUri();
+    final DatabaseDialect dbDialect = DatabaseDialects.findBestFor(url, config);
+    final DbStructure dbStructure = new DbStructure(dbDialect);
+
+    final TableId tableId = new TableId(null, null, "dummy");
+    final BufferedRecords buffer = new BufferedRecords(config, tableId, dbDialect, dbStructure, sqliteHelper.connection);
+
+    final Schema keySchema = SchemaBuilder.struct()
+        .field("id", Schema.INT64_SCHEMA)
+        .build();
+    final Schema valueSchema = SchemaBuilder.struct()
+        .field("name", Schema.STRING_SCHEMA)
+        .build();
+    final List<SinkRecord> records = Arrays.asList(
+        record(keySchema, 1L, valueSchema, "first", 0),
+        record(keySchema, 2L, valueSchema, "second", 1),
+        record(keySchema, 1L, valueSchema, null, 2),
+        record(keySchema, 1L, valueSchema, null, 3)
+    );
+    for (SinkRecord record : records) {
+      assertEquals(Collections.emptyList(), buffer.add(record));
+    }
+    // insert after delete should flush, so that the deletes do not remove the inserted row
+    final SinkRecord again = record(keySchema, 1L, valueSchema, "first again", 4);
+    assertEquals(records, buffer.add(again));
+    assertEquals(Collections.singletonList(again), buffer.flush());
+
+    final Map<Long, String> names = new HashMap<>();
+    sqliteHelper.select("SELECT * FROM dummy", new SqliteHelper.ResultSetReadCallback() {
+      @Override
+      public void read(ResultSet rs) throws SQLException {
+        names.put(rs.getLong("id"), rs.getString("name"));
+      }
+    });
+    final Map<Long, String> expected = new HashMap<>();
+    expected.put(1L, "first again");
+    expected.put(2L, "second");
+    assertEquals(expected, names);
+  }
+
+  private static SinkRecord record(
+      Schema keySchema,
+      long id,
+      Schema valueSchema,
+      String name,
+      long offset
+  ) {
+    final Struct key = new Struct(keySchema).put("id", id);
+    final Struct value = name == null ? null : new Struct(valueSchema).put("name", name);
+    return new SinkRecord("dummy", 0, keySchema, key, valueSchema, value, offset);
+  }
+
   @Test
   public void testFlushSuccessNoInfo() throws SQLException {
     final String url = sqliteHelper.sqliteUri();
@@ -1,19 +1,41 @@
 package io.confluent.connect.jdbc.sink;
 
 import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
 import org.junit.Test;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
+import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
 import io.confluent.connect.jdbc.sink.metadata.SinkRecordField;
+import io.confluent.connect.jdbc.util.ColumnDefinition;
+import io.confluent.connect.jdbc.util.ColumnId;
+import io.confluent.connect.jdbc.util.TableDefinition;
+import io.confluent.connect.jdbc.util.TableDefinitions;
+import io.confluent.connect.jdbc.util.TableId;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class DbStructureTest {
 
@@ -41,6 +63,137 @@ public class DbStructureTest {
     assertTrue(missingFields(sinkRecords("AaA", "bBb"), columns("aAa", "BbB")).isEmpty());
   }
 
+  @Test
+  public void tableCreatedByAnotherTaskWhileWaitingForTheLockIsNotCreated() throws SQLException {
+    final TableId tableId = new TableId(null, "project_a", "heart_rate");
+    final DatabaseDialect dialect = mock(DatabaseDialect.class);
+    final Connection connection = mock(Connection.class);
+    when(dialect.lockForDdl(connection, tableId)).thenReturn(true);
+    when(dialect.tableExists(connection, tableId)).thenReturn(false, true);
+    when(dialect.describeTable(connection, tableId)).thenReturn(table(tableId, "time", "value"));
+
+    assertFalse(new DbStructure(dialect).createOrAmendIfNecessary(
+        config(), connection, tableId, fieldsMetadata("time", "value")));
+    verify(dialect).lockForDdl(connection, tableId);
+    verify(dialect, never()).applyDdlStatements(any(Connection.class), anyListOf(String.class));
+  }
+
+  @Test
+  public void fieldsAddedByAnotherTaskWhileWaitingForTheLockAreNotAdded() throws SQLException {
+    final TableId tableId = new TableId(null, "project_a", "heart_rate");
+    final DatabaseDialect dialect = mock(DatabaseDialect.class);
+    final Connection connection = mock(Connection.class);
+    when(dialect.lockForDdl(connection, tableId)).thenReturn(true);
+    when(dialect.tableExists(connection, tableId)).thenReturn(true);
+    when(dialect.describeTable(connection, tableId))
+        .thenReturn(table(tableId, "time"), table(tableId, "time", "value"));
+
+    assertFalse(new DbStructure(dialect).createOrAmendIfNecessary(
+        config(), connection, tableId, fieldsMetadata("time", "value")));
+    verify(dialect).lockForDdl(connection, tableId);
+    verify(dialect, never()).applyDdlStatements(any(Connection.class), anyListOf(String.class));
+  }
+
+  @Test
+  public void tablesThatNeedDdlAreLockedAtOnce() throws SQLException {
+    final TableId missing = new TableId(null, "project_b", "step_count");
+    final TableId incomplete = new TableId(null, "project_a", "heart_rate");
+    final TableId complete = new TableId(null, "project_a", "battery_level");
+    final DatabaseDialect dialect = mock(DatabaseDialect.class);
+    final Connection connection = mock(Connection.class);
+    when(dialect.tableExists(connection, incomplete)).thenReturn(true);
+    when(dialect.tableExists(connection, complete)).thenReturn(true);
+    when(dialect.describeTable(connection, incomplete)).thenReturn(table(incomplete, "time"));
+    when(dialect.describeTable(connection, complete))
+        .thenReturn(table(complete, "TIME", "value"));
+    final Map<TableId, Set<String>> fieldNames = new LinkedHashMap<>();
+    fieldNames.put(missing, columns("time"));
+    fieldNames.put(incomplete, columns("time", "value"));
+    fieldNames.put(complete, columns("time", "value"));
+
+    new DbStructure(dialect).lockForDdl(connection, fieldNames);
+    verify(dialect).lockForDdl(connection, Arrays.asList(missing, incomplete));
+  }
+
+  @Test
+  public void amendedDefinitionIsSharedOnceCommitted() throws SQLException {
+    final TableId tableId = new TableId(null, "project_a", "heart_rate");
+    final DatabaseDialect dialect = mock(DatabaseDialect.class);
+    final Connection connection = mock(Connection.class);
+    final Connection other = mock(Connection.class);
+    when(dialect.tableExists(connection, tableId)).thenReturn(true);
+    when(dialect.describeTable(connection, tableId))
+        .thenReturn(table(tableId, "time"), table(tableId, "time", "value"));
+    final DbStructure structure =
+        new DbStructure(dialect, SinkMetrics.inMemory(), new TableDefinitions(dialect));
+
+    assertTrue(structure.createOrAmendIfNecessary(
+        config(), connection, tableId, fieldsMetadata("time", "value")));
+    assertEquals(
+        columns("time", "value"),
+        structure.tableDefinition(connection, tableId).columnNames()
+    );
+    assertEquals(columns("time"), structure.tableDefinition(other, tableId).columnNames());
+
+    structure.committed(connection);
+    assertEquals(
+        columns("time", "value"),
+        structure.tableDefinition(other, tableId).columnNames()
+    );
+  }
+
+  @Test
+  public void amendedDefinitionIsDiscardedOnRollback() throws SQLException {
+    final TableId tableId = new TableId(null, "project_a", "heart_rate");
+    final DatabaseDialect dialect = mock(DatabaseDialect.class);
+    final Connection connection = mock(Connection.class);
+    when(dialect.tableExists(connection, tableId)).thenReturn(true);
+    when(dialect.describeTable(connection, tableId)).thenReturn(
+        table(tableId, "time"),
+        table(tableId, "time", "value"),
+        table(tableId, "time")
+    );
+    final DbStructure structure =
+        new DbStructure(dialect, SinkMetrics.inMemory(), new TableDefinitions(dialect));
+
+    assertTrue(structure.createOrAmendIfNecessary(
+        config(), connection, tableId, fieldsMetadata("time", "value")));
+    structure.rolledBack(connection);
+    assertEquals(columns("time"), structure.tableDefinition(connection, tableId).columnNames());
+  }
+
+  private static JdbcSinkConfig config() {
+    final Map<String, String> props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, "stub");
+    props.put(JdbcSinkConfig.AUTO_CREATE, "true");
+    props.put(JdbcSinkConfig.AUTO_EVOLVE, "true");
+    return new JdbcSinkConfig(props);
+  }
+
+  private static FieldsMetadata fieldsMetadata(String... names) {
+    final SchemaBuilder valueSchema = SchemaBuilder.struct();
+    for (String name : names) {
+      valueSchema.field(name, Schema.OPTIONAL_STRING_SCHEMA);
+    }
+    return FieldsMetadata.extract(
+        "heart_rate",
+        JdbcSinkConfig.PrimaryKeyMode.NONE,
+        Collections.<String>emptyList(),
+        Collections.<String>emptySet(),
+        new SchemaPair(null, valueSchema.build())
+    );
+  }
+
+  private static TableDefinition table(TableId tableId, String... columnNames) {
+    final List<ColumnDefinition> columns = new ArrayList<>();
+    for (String name : columnNames) {
+      final ColumnDefinition column = mock(ColumnDefinition.class);
+      when(column.id()).thenReturn(new ColumnId(tableId, name));
+      columns.add(column);
+    }
+    return new TableDefinition(tableId, columns);
+  }
+
   private Set<SinkRecordField> missingFields(
       Collection<SinkRecordField> fields,
       Set<String> dbColumnNames
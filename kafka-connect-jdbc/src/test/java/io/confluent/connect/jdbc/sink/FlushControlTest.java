@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.confluent.connect.jdbc.util.TableId;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class FlushControlTest {
+
+  @Test
+  public void concurrencyIsHalvedOnCongestionAndGrowsBack() throws InterruptedException {
+    final FlushControl flushControl = flushControl("true");
+    assertEquals(4, flushControl.concurrencyLimit());
+
+    flushControl.acquire();
+    flushControl.release(true);
+    assertEquals(2, flushControl.concurrencyLimit());
+    flushControl.acquire();
+    flushControl.release(true);
+    flushControl.acquire();
+    flushControl.release(true);
+    assertEquals(1, flushControl.concurrencyLimit());
+
+    flushControl.acquire();
+    flushControl.release(false);
+    assertEquals(2, flushControl.concurrencyLimit());
+    flushControl.acquire();
+    flushControl.release(false);
+    assertEquals(2, flushControl.concurrencyLimit());
+    flushControl.acquire();
+    flushControl.release(false);
+    assertEquals(3, flushControl.concurrencyLimit());
+  }
+
+  @Test
+  public void concurrencyIsFixedWhenNotEnabled() throws InterruptedException {
+    final FlushControl flushControl = flushControl("false");
+    flushControl.acquire();
+    flushControl.release(true);
+    assertEquals(4, flushControl.concurrencyLimit());
+  }
+
+  @Test
+  public void batchSizeIsKeptPerTable() {
+    final FlushControl flushControl = flushControl("true");
+    final TableId tableId = new TableId(null, null, "mytable");
+    assertSame(flushControl.batchSize(tableId), flushControl.batchSize(tableId));
+  }
+
+  @Test
+  public void leastRecentlyUsedTablesAreDropped() {
+    final Map<String, String> props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, "stub");
+    props.put(JdbcSinkConfig.TABLE_METADATA_MAX_TABLES, "2");
+    final SinkMetrics metrics = new SinkMetrics("my-connector", 2, Collections.emptyList());
+    final FlushControl flushControl = new FlushControl(new JdbcSinkConfig(props), metrics);
+    final TableId a = new TableId(null, null, "a");
+    final TableId b = new TableId(null, null, "b");
+    final TableId c = new TableId(null, null, "c");
+
+    final AdaptiveBatchSize batchSizeA = flushControl.batchSize(a);
+    final AdaptiveBatchSize batchSizeB = flushControl.batchSize(b);
+    final SinkMetrics.TableMetrics metricsA = metrics.table(a);
+    final SinkMetrics.TableMetrics metricsB = metrics.table(b);
+    assertSame(batchSizeA, flushControl.batchSize(a));
+    assertSame(metricsA, metrics.table(a));
+    flushControl.batchSize(c);
+    metrics.table(c);
+
+    assertSame(metricsA, metrics.table(a));
+    assertNotSame(metricsB, metrics.table(b));
+    assertSame(batchSizeA, flushControl.batchSize(a));
+    assertNotSame(batchSizeB, flushControl.batchSize(b));
+    metrics.close();
+  }
+
+  private FlushControl flushControl(String enabled) {
+    final Map<String, String> props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, "stub");
+    props.put(JdbcSinkConfig.ADAPTIVE_FLUSH_ENABLED, enabled);
+    props.put(JdbcSinkConfig.TABLE_FLUSH_PARALLELISM, "4");
+    return new FlushControl(new JdbcSinkConfig(props), SinkMetrics.inMemory());
+  }
+}
@@ -15,6 +15,7 @@
 
 package io.confluent.connect.jdbc.sink;
 
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.connect.data.Date;
 import org.apache.kafka.connect.data.Decimal;
 import org.apache.kafka.connect.data.Field;
@@ -23,6 +24,7 @@ import org.apache.kafka.connect.data.SchemaBuilder;
 import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.data.Time;
 import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.errors.ConnectException;
 import org.apache.kafka.connect.sink.SinkRecord;
 import org.junit.After;
 import org.junit.Before;
@@ -30,11 +32,18 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialect;
@@ -435,4 +444,452 @@ public class JdbcDbWriterTest {
     );
   }
 
-}
\ No newline at end of file
+
+  @Test
+  public void writersAreReusedAcrossWrites() throws SQLException {
+    String topic = "books";
+    TableId tableId = new TableId(null, null, topic);
+
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("auto.create", "true");
+    props.put("pk.mode", "record_key");
+    props.put("pk.fields", "id");
+    props.put("insert.mode", "upsert");
+
+    writer = newWriter(props);
+
+    Schema valueSchema = SchemaBuilder.struct()
+        .field("title", Schema.STRING_SCHEMA)
+        .build();
+
+    writer.write(Collections.singleton(new SinkRecord(topic, 0, Schema.INT64_SCHEMA, 1L,
+        valueSchema, new Struct(valueSchema).put("title", "Villa Incognito"), 0)));
+    BufferedRecords buffer = writer.cachedWriter(tableId);
+    assertNotNull(buffer);
+    assertEquals(1, buffer.openStatementCount());
+
+    writer.write(Collections.singleton(new SinkRecord(topic, 0, Schema.INT64_SCHEMA, 2L,
+        valueSchema, new Struct(valueSchema).put("title", "Fierce Invalids"), 1)));
+    assertSame(buffer, writer.cachedWriter(tableId));
+    assertEquals(1, buffer.openStatementCount());
+
+    assertEquals(2, sqliteHelper.select("SELECT * FROM " + topic,
+        new SqliteHelper.ResultSetReadCallback() {
+          @Override
+          public void read(ResultSet rs) throws SQLException {
+          }
+        }));
+  }
+
+  @Test
+  public void leastRecentlyUsedWritersAreEvicted() throws SQLException {
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("auto.create", "true");
+    props.put("pk.mode", "kafka");
+    props.put("prepared.statement.cache.size", "1");
+
+    writer = newWriter(props);
+
+    Schema valueSchema = SchemaBuilder.struct()
+        .field("title", Schema.STRING_SCHEMA)
+        .build();
+    Struct value = new Struct(valueSchema).put("title", "Villa Incognito");
+
+    writer.write(Collections.singleton(
+        new SinkRecord("first", 0, null, null, valueSchema, value, 0)));
+    assertNotNull(writer.cachedWriter(new TableId(null, null, "first")));
+
+    writer.write(Collections.singleton(
+        new SinkRecord("second", 0, null, null, valueSchema, value, 0)));
+    assertNull(writer.cachedWriter(new TableId(null, null, "first")));
+    assertNotNull(writer.cachedWriter(new TableId(null, null, "second")));
+
+    writer.write(Collections.singleton(
+        new SinkRecord("first", 0, null, null, valueSchema, value, 1)));
+    assertNotNull(writer.cachedWriter(new TableId(null, null, "first")));
+    assertNull(writer.cachedWriter(new TableId(null, null, "second")));
+  }
+
+  @Test
+  public void multiRowInsertWritesFullAndRemainderStatements() throws SQLException {
+    String topic = "books";
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("auto.create", "true");
+    props.put("pk.mode", "kafka");
+    props.put("batch.size", "10");
+    props.put("insert.multi.row.enabled", "true");
+
+    writer = newWriter(props);
+
+    Schema valueSchema = SchemaBuilder.struct()
+        .field("title", Schema.STRING_SCHEMA)
+        .build();
+    List<SinkRecord> records = new ArrayList<>();
+    for (int i = 0; i < 25; i++) {
+      records.add(new SinkRecord(topic, 0, null, null, valueSchema,
+          new Struct(valueSchema).put("title", "title " + i), i));
+    }
+    writer.write(records);
+
+    final Set<Long> offsets = new HashSet<>();
+    assertEquals(25, sqliteHelper.select("SELECT * FROM " + topic,
+        new SqliteHelper.ResultSetReadCallback() {
+          @Override
+          public void read(ResultSet rs) throws SQLException {
+            long offset = rs.getLong("__connect_offset");
+            assertEquals("title " + offset, rs.getString("title"));
+            offsets.add(offset);
+          }
+        }));
+    assertEquals(25, offsets.size());
+    // the full 10 row statement and the 4 and 1 row statements for the remainder
+    assertEquals(3, writer.cachedWriter(new TableId(null, null, topic)).openStatementCount());
+  }
+
+  @Test
+  public void multiRowUpsertKeepsLastRecordForRepeatedKeys() throws SQLException {
+    String topic = "books";
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("auto.create", "true");
+    props.put("pk.mode", "record_key");
+    props.put("pk.fields", "id");
+    props.put("insert.mode", "upsert");
+    props.put("insert.multi.row.enabled", "true");
+
+    writer = newWriter(props);
+
+    Schema valueSchema = SchemaBuilder.struct()
+        .field("title", Schema.STRING_SCHEMA)
+        .build();
+    long[] keys = {1L, 2L, 1L, 3L, 2L, 4L};
+    List<SinkRecord> records = new ArrayList<>();
+    for (int i = 0; i < keys.length; i++) {
+      records.add(new SinkRecord(topic, 0, Schema.INT64_SCHEMA, keys[i], valueSchema,
+          new Struct(valueSchema).put("title", "title " + i), i));
+    }
+    writer.write(records);
+
+    final Map<Long, String> titles = new HashMap<>();
+    assertEquals(4, sqliteHelper.select("SELECT * FROM " + topic,
+        new SqliteHelper.ResultSetReadCallback() {
+          @Override
+          public void read(ResultSet rs) throws SQLException {
+            titles.put(rs.getLong("id"), rs.getString("title"));
+          }
+        }));
+    assertEquals("title 2", titles.get(1L));
+    assertEquals("title 4", titles.get(2L));
+    assertEquals("title 3", titles.get(3L));
+    assertEquals("title 5", titles.get(4L));
+  }
+
+  @Test
+  public void tablesAreFlushedConcurrentlyAndFailIndependently() throws SQLException {
+    sqliteHelper.createTable(
+        "CREATE TABLE broken (title TEXT NOT NULL CHECK (length(title) < 3))");
+
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("auto.create", "true");
+    props.put("table.flush.parallelism", "2");
+
+    writer = newWriter(props);
+
+    Schema valueSchema = SchemaBuilder.struct()
+        .field("title", Schema.STRING_SCHEMA)
+        .build();
+    Struct value = new Struct(valueSchema).put("title", "Villa Incognito");
+
+    try {
+      writer.write(Arrays.asList(
+          new SinkRecord("books", 0, null, null, valueSchema, value, 0),
+          new SinkRecord("broken", 1, null, null, valueSchema, value, 5),
+          new SinkRecord("broken", 1, null, null, valueSchema, value, 6),
+          new SinkRecord("books", 0, null, null, valueSchema, value, 1)
+      ));
+      fail("Writing to the broken table should fail");
+    } catch (TableWriteException e) {
+      assertEquals(Collections.singleton(new TableId(null, null, "broken")), e.failedTables());
+      assertEquals(
+          Collections.singletonMap(new TopicPartition("broken", 1), 5L),
+          e.failedOffsets()
+      );
+    }
+
+    SqliteHelper.ResultSetReadCallback ignore = new SqliteHelper.ResultSetReadCallback() {
+      @Override
+      public void read(ResultSet rs) throws SQLException {
+      }
+    };
+    assertEquals(2, sqliteHelper.select("SELECT * FROM books", ignore));
+    assertEquals(0, sqliteHelper.select("SELECT * FROM broken", ignore));
+  }
+
+  @Test
+  public void isolateBadRecords() throws SQLException {
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("auto.create", "true");
+    props.put("bad.records.isolate", "true");
+    props.put("bad.records.table", "bad_records");
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+    dialect = rejectingEmptyTitles(config);
+    writer = new JdbcDbWriter(config, dialect, new DbStructure(dialect));
+
+    Schema valueSchema = SchemaBuilder.struct()
+        .field("title", Schema.STRING_SCHEMA)
+        .build();
+    List<SinkRecord> records = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      Struct value = new Struct(valueSchema).put("title", i == 3 ? "" : "Title " + i);
+      records.add(new SinkRecord("books", 0, null, null, valueSchema, value, i));
+    }
+    writer.write(records);
+
+    assertEquals(
+        1,
+        sqliteHelper.select("select count(*) from books", new SqliteHelper.ResultSetReadCallback() {
+          @Override
+          public void read(ResultSet rs) throws SQLException {
+            assertEquals(4, rs.getInt(1));
+          }
+        })
+    );
+    assertEquals(
+        1,
+        sqliteHelper.select(
+            "select topic, \"offset\", error from bad_records",
+            new SqliteHelper.ResultSetReadCallback() {
+              @Override
+              public void read(ResultSet rs) throws SQLException {
+                assertEquals("books", rs.getString(1));
+                assertEquals(3, rs.getLong(2));
+                assertEquals("Empty title", rs.getString(3));
+              }
+            }
+        )
+    );
+  }
+
+  @Test
+  public void isolateBadRecordsOfTableCreatedByTheWrite() throws SQLException {
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("auto.create", "true");
+    props.put("bad.records.isolate", "true");
+    props.put("bad.records.table", "bad_records");
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+    dialect = rejectingEmptyTitles(config);
+    writer = new JdbcDbWriter(config, dialect, new DbStructure(dialect));
+
+    Schema valueSchema = SchemaBuilder.struct()
+        .field("title", Schema.STRING_SCHEMA)
+        .build();
+    // Rolling back the first attempt also drops the table that it created
+    writer.write(Arrays.asList(
+        new SinkRecord("books", 0, null, null, valueSchema,
+            new Struct(valueSchema).put("title", ""), 0),
+        new SinkRecord("books", 0, null, null, valueSchema,
+            new Struct(valueSchema).put("title", "Title 1"), 1)
+    ));
+    writer.write(Collections.singletonList(
+        new SinkRecord("books", 0, null, null, valueSchema,
+            new Struct(valueSchema).put("title", "Title 2"), 2)
+    ));
+
+    assertEquals(
+        1,
+        sqliteHelper.select("select count(*) from books", new SqliteHelper.ResultSetReadCallback() {
+          @Override
+          public void read(ResultSet rs) throws SQLException {
+            assertEquals(2, rs.getInt(1));
+          }
+        })
+    );
+    assertEquals(
+        1,
+        sqliteHelper.select(
+            "select \"offset\" from bad_records",
+            new SqliteHelper.ResultSetReadCallback() {
+              @Override
+              public void read(ResultSet rs) throws SQLException {
+                assertEquals(0, rs.getLong(1));
+              }
+            }
+        )
+    );
+  }
+
+  /**
+   * @return a dialect that fails writing records with an empty title as a database that rejects a
+   *     value would, as SQLite reports no SQLSTATE
+   */
+  private static DatabaseDialect rejectingEmptyTitles(JdbcSinkConfig config) {
+    return new SqliteDatabaseDialect(config) {
+      @Override
+      public void afterWrite(
+          Connection connection,
+          TableId tableId,
+          Collection<SinkRecord> records
+      ) throws SQLException {
+        for (SinkRecord record : records) {
+          if (((Struct) record.value()).getString("title").isEmpty()) {
+            throw new SQLException("Empty title", "23514");
+          }
+        }
+      }
+    };
+  }
+
+  @Test
+  public void exactlyOnceSkipsRecordsThatWereWritten() throws SQLException {
+    Map<String, String> props = new HashMap<>();
+    props.put("name", "my-connector");
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("auto.create", "true");
+    props.put("exactly.once.enabled", "true");
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+    dialect = new SqliteDatabaseDialect(config);
+    final SinkMetrics metrics = SinkMetrics.inMemory();
+    final Map<TopicPartition, Long> committedOffsets = new HashMap<>();
+    writer = new JdbcDbWriter(
+        config,
+        dialect,
+        new DbStructure(dialect),
+        metrics,
+        new FlushControl(config, metrics),
+        committedOffsets
+    );
+
+    Schema valueSchema = SchemaBuilder.struct()
+        .field("title", Schema.STRING_SCHEMA)
+        .build();
+    List<SinkRecord> records = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      Struct value = new Struct(valueSchema).put("title", "Title " + i);
+      records.add(new SinkRecord("books", 0, null, null, valueSchema, value, i));
+    }
+    final TopicPartition partition = new TopicPartition("books", 0);
+    writer.write(records.subList(0, 3));
+    assertEquals(Collections.singletonMap(partition, 3L), committedOffsets);
+
+    // Records 1 and 2 are delivered again, as if the consumer offsets were not committed
+    writer.write(records.subList(1, 5));
+
+    assertEquals(Collections.singletonMap(partition, 5L), committedOffsets);
+    assertEquals(
+        1,
+        sqliteHelper.select("select count(*) from books", new SqliteHelper.ResultSetReadCallback() {
+          @Override
+          public void read(ResultSet rs) throws SQLException {
+            assertEquals(5, rs.getInt(1));
+          }
+        })
+    );
+    assertEquals(
+        1,
+        sqliteHelper.select(
+            "select connector, topic, \"partition\", \"offset\" from kafka_connect_offsets",
+            new SqliteHelper.ResultSetReadCallback() {
+              @Override
+              public void read(ResultSet rs) throws SQLException {
+                assertEquals("my-connector", rs.getString(1));
+                assertEquals("books", rs.getString(2));
+                assertEquals(0, rs.getInt(3));
+                assertEquals(5, rs.getLong(4));
+              }
+            }
+        )
+    );
+
+    final Map<TopicPartition, Long> readOffsets = new HashMap<>();
+    final OffsetsTable offsetsTable =
+        new OffsetsTable(config, dialect, new DbStructure(dialect), readOffsets);
+    try (Connection connection = dialect.getConnection()) {
+      assertEquals(
+          Collections.singletonMap(partition, 5L),
+          offsetsTable.read(connection, Collections.singleton(partition))
+      );
+      assertTrue(offsetsTable.read(
+          connection,
+          Collections.singleton(new TopicPartition("books", 1))
+      ).isEmpty());
+    }
+    assertEquals(Collections.singletonMap(partition, 5L), readOffsets);
+  }
+
+  @Test
+  public void exactlyOnceFailsWhenAnotherTaskWroteThePartition() throws SQLException {
+    Map<String, String> props = new HashMap<>();
+    props.put("name", "my-connector");
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("auto.create", "true");
+    props.put("exactly.once.enabled", "true");
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+    dialect = new SqliteDatabaseDialect(config);
+    final SinkMetrics metrics = SinkMetrics.inMemory();
+    final Map<TopicPartition, Long> committedOffsets = new HashMap<>();
+    writer = new JdbcDbWriter(
+        config,
+        dialect,
+        new DbStructure(dialect),
+        metrics,
+        new FlushControl(config, metrics),
+        committedOffsets
+    );
+
+    Schema valueSchema = SchemaBuilder.struct()
+        .field("title", Schema.STRING_SCHEMA)
+        .build();
+    List<SinkRecord> records = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      Struct value = new Struct(valueSchema).put("title", "Title " + i);
+      records.add(new SinkRecord("books", 0, null, null, valueSchema, value, i));
+    }
+    final TopicPartition partition = new TopicPartition("books", 0);
+    writer.write(records.subList(0, 3));
+
+    // The partition is assigned to another task, which writes the next records first
+    final Map<TopicPartition, Long> otherOffsets = new HashMap<>();
+    final JdbcDbWriter otherWriter = new JdbcDbWriter(
+        config,
+        dialect,
+        new DbStructure(dialect),
+        metrics,
+        new FlushControl(config, metrics),
+        otherOffsets
+    );
+    try (Connection connection = dialect.getConnection()) {
+      new OffsetsTable(config, dialect, new DbStructure(dialect), otherOffsets)
+          .read(connection, Collections.singleton(partition));
+    }
+    try {
+      otherWriter.write(records.subList(3, 5));
+    } finally {
+      otherWriter.closeQuietly();
+    }
+    assertEquals(Collections.singletonMap(partition, 5L), otherOffsets);
+
+    try {
+      writer.write(records.subList(3, 5));
+      fail("The records of the partition were written by another task");
+    } catch (ConnectException e) {
+      // expected
+    }
+
+    assertEquals(Collections.singletonMap(partition, 3L), committedOffsets);
+    assertEquals(
+        1,
+        sqliteHelper.select("select count(*) from books", new SqliteHelper.ResultSetReadCallback() {
+          @Override
+          public void read(ResultSet rs) throws SQLException {
+            assertEquals(5, rs.getInt(1));
+          }
+        })
+    );
+  }
+}
@@ -18,6 +18,7 @@ import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.OptionalLong;
 
 import io.confluent.connect.jdbc.util.TableType;
 
@@ -107,6 +108,42 @@ public class JdbcSinkConfigTest {
     assertTableTypes(TableType.TABLE);
   }
 
+  @Test
+  public void shouldCreateConfigWithHypertableOverrides() {
+    props.put("hypertable.time.column.overrides", "questionnaire_response=timeCompleted");
+    props.put(
+        "hypertable.chunk.time.interval.overrides",
+        "questionnaire_response=2592000000, android_empatica_e4_acceleration = auto"
+    );
+    createConfig();
+    assertEquals("timeCompleted", config.hypertableTimeColumn("questionnaire_response"));
+    assertEquals("time", config.hypertableTimeColumn("android_phone_battery_level"));
+    assertEquals(
+        OptionalLong.of(2592000000L),
+        config.hypertableChunkTimeIntervalMs("questionnaire_response")
+    );
+    assertEquals(
+        OptionalLong.empty(),
+        config.hypertableChunkTimeIntervalMs("android_empatica_e4_acceleration")
+    );
+    assertEquals(
+        OptionalLong.of(86400000L),
+        config.hypertableChunkTimeIntervalMs("android_phone_battery_level")
+    );
+  }
+
+  @Test(expected = ConfigException.class)
+  public void shouldFailToCreateConfigWithInvalidChunkTimeInterval() {
+    props.put("hypertable.chunk.time.interval.overrides", "questionnaire_response=monthly");
+    createConfig();
+  }
+
+  @Test(expected = ConfigException.class)
+  public void shouldFailToCreateConfigWithInvalidTimeColumnOverride() {
+    props.put("hypertable.time.column.overrides", "questionnaire_response");
+    createConfig();
+  }
+
   protected void createConfig() {
     config = new JdbcSinkConfig(props);
   }
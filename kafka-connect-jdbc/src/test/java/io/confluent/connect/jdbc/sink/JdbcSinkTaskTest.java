@@ -15,8 +15,11 @@
 
 package io.confluent.connect.jdbc.sink;
 
+import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -26,13 +29,19 @@ import java.io.StringWriter;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
 
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.SchemaBuilder;
 import org.apache.kafka.connect.data.Struct;
@@ -47,6 +56,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import io.confluent.connect.jdbc.util.DateTimeUtils;
+import io.confluent.connect.jdbc.util.TableId;
 
 public class JdbcSinkTaskTest extends EasyMockSupport {
   private final SqliteHelper sqliteHelper = new SqliteHelper(getClass().getSimpleName());
@@ -291,4 +301,196 @@ public class JdbcSinkTaskTest extends EasyMockSupport {
     verifyAll();
   }
 
+  @Test
+  public void failedTablesWithholdOffsetsOfTheirPartitions() throws SQLException {
+    final int retryBackoffMs = 1000;
+    final TopicPartition failed = new TopicPartition("broken", 0);
+    final TopicPartition written = new TopicPartition("books", 0);
+    final List<SinkRecord> records = Arrays.asList(
+        new SinkRecord(written.topic(), 0, null, null, null, null, 10),
+        new SinkRecord(failed.topic(), 0, null, null, null, null, 20),
+        new SinkRecord(failed.topic(), 0, null, null, null, null, 21)
+    );
+    final List<SinkRecord> redelivered = records.subList(1, 3);
+    final Map<TopicPartition, Long> failedOffsets = Collections.singletonMap(failed, 20L);
+
+    final JdbcDbWriter mockWriter = createMock(JdbcDbWriter.class);
+    SinkTaskContext ctx = createMock(SinkTaskContext.class);
+
+    mockWriter.write(records);
+    expectLastCall().andThrow(new TableWriteException(
+        Collections.singleton(new TableId(null, null, failed.topic())),
+        failedOffsets,
+        new SQLException("cause")
+    ));
+    ctx.timeout(retryBackoffMs);
+    expectLastCall();
+    ctx.offset(failedOffsets);
+    expectLastCall();
+    mockWriter.write(redelivered);
+    expectLastCall();
+
+    JdbcSinkTask task = new JdbcSinkTask() {
+      @Override
+      void initWriter() {
+        this.writer = mockWriter;
+      }
+    };
+    task.initialize(ctx);
+
+    Map<String, String> props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, "stub");
+    props.put(JdbcSinkConfig.RETRY_BACKOFF_MS, String.valueOf(retryBackoffMs));
+    task.start(props);
+
+    replayAll();
+
+    final Map<TopicPartition, OffsetAndMetadata> currentOffsets = new HashMap<>();
+    currentOffsets.put(written, new OffsetAndMetadata(11));
+    currentOffsets.put(failed, new OffsetAndMetadata(22));
+
+    task.put(records);
+    assertEquals(
+        Collections.singletonMap(written, new OffsetAndMetadata(11)),
+        task.preCommit(currentOffsets)
+    );
+
+    task.put(redelivered);
+    assertEquals(currentOffsets, task.preCommit(currentOffsets));
+
+    verifyAll();
+  }
+
+  @Test
+  public void asyncPutCommitsOffsetsOfWrittenRecords() throws Exception {
+    final TopicPartition partition = new TopicPartition("atopic", 0);
+    final Schema schema = SchemaBuilder.struct()
+        .field("title", Schema.STRING_SCHEMA)
+        .build();
+
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("auto.create", "true");
+    props.put("pk.mode", "kafka");
+    props.put("write.queue.size", "1");
+
+    SinkTaskContext ctx = createNiceMock(SinkTaskContext.class);
+    expect(ctx.assignment()).andReturn(Collections.singleton(partition)).anyTimes();
+    replayAll();
+
+    JdbcSinkTask task = new JdbcSinkTask();
+    task.initialize(ctx);
+    task.start(props);
+
+    final Map<TopicPartition, OffsetAndMetadata> currentOffsets =
+        Collections.singletonMap(partition, new OffsetAndMetadata(8));
+    try {
+      assertEquals(Collections.emptyMap(), task.preCommit(currentOffsets));
+
+      List<SinkRecord> records = new ArrayList<>();
+      for (int offset = 5; offset < 8; offset++) {
+        records.add(new SinkRecord(partition.topic(), partition.partition(), null, null, schema,
+            new Struct(schema).put("title", "title " + offset), offset));
+      }
+      task.put(records);
+      task.asyncWriter.awaitIdle();
+
+      assertEquals(currentOffsets, task.preCommit(currentOffsets));
+    } finally {
+      task.stop();
+    }
+
+    assertEquals(3, sqliteHelper.select("SELECT * FROM " + partition.topic(),
+        new SqliteHelper.ResultSetReadCallback() {
+          @Override
+          public void read(ResultSet rs) throws SQLException {
+          }
+        }));
+  }
+
+  @Test
+  public void rebalanceResetsThePausedPartitions() throws Exception {
+    final TopicPartition kept = new TopicPartition("atopic", 0);
+    final TopicPartition revoked = new TopicPartition("atopic", 1);
+    final TopicPartition assigned = new TopicPartition("atopic", 2);
+
+    final AsyncDbWriter asyncWriter = createMock(AsyncDbWriter.class);
+    SinkTaskContext ctx = createMock(SinkTaskContext.class);
+
+    asyncWriter.awaitIdle();
+    expectLastCall();
+    expect(asyncWriter.committedOffsets()).andReturn(new HashMap<TopicPartition, Long>());
+    expect(ctx.assignment()).andReturn(new LinkedHashSet<>(Arrays.asList(kept, revoked)));
+    ctx.resume(kept);
+    expectLastCall();
+    expect(asyncWriter.isFull()).andReturn(true);
+    expect(ctx.assignment()).andReturn(new LinkedHashSet<>(Arrays.asList(kept, assigned)));
+    ctx.pause(kept, assigned);
+    expectLastCall();
+
+    JdbcSinkTask task = new JdbcSinkTask();
+    task.initialize(ctx);
+    task.asyncWriter = asyncWriter;
+    task.paused = true;
+
+    replayAll();
+
+    task.close(Collections.singleton(revoked));
+    assertFalse(task.paused);
+    task.open(Collections.singleton(assigned));
+    assertTrue(task.paused);
+
+    verifyAll();
+  }
+
+  @Test
+  public void lingerWritesRecordsOfSeveralPutsTogether() throws Exception {
+    final TopicPartition partition = new TopicPartition("atopic", 0);
+    final Schema schema = SchemaBuilder.struct()
+        .field("title", Schema.STRING_SCHEMA)
+        .build();
+
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("auto.create", "true");
+    props.put("pk.mode", "kafka");
+    props.put("batch.size", "3");
+    props.put("linger.ms", "60000");
+
+    SinkTaskContext ctx = createNiceMock(SinkTaskContext.class);
+    replayAll();
+
+    JdbcSinkTask task = new JdbcSinkTask();
+    task.initialize(ctx);
+    task.start(props);
+
+    List<SinkRecord> records = new ArrayList<>();
+    for (int offset = 5; offset < 8; offset++) {
+      records.add(new SinkRecord(partition.topic(), partition.partition(), null, null, schema,
+          new Struct(schema).put("title", "title " + offset), offset));
+    }
+    final SqliteHelper.ResultSetReadCallback ignoreRows = new SqliteHelper.ResultSetReadCallback() {
+      @Override
+      public void read(ResultSet rs) throws SQLException {
+      }
+    };
+
+    try {
+      task.put(records.subList(0, 2));
+      task.put(Collections.<SinkRecord>emptyList());
+      assertNull(task.writer.cachedWriter(new TableId(null, null, partition.topic())));
+      assertEquals(
+          Collections.singletonMap(partition, new OffsetAndMetadata(5)),
+          task.preCommit(Collections.singletonMap(partition, new OffsetAndMetadata(7)))
+      );
+
+      task.put(records.subList(2, 3));
+      assertEquals(3, sqliteHelper.select("SELECT * FROM " + partition.topic(), ignoreRows));
+      final Map<TopicPartition, OffsetAndMetadata> currentOffsets =
+          Collections.singletonMap(partition, new OffsetAndMetadata(8));
+      assertEquals(currentOffsets, task.preCommit(currentOffsets));
+    } finally {
+      task.stop();
+    }
+  }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.confluent.common.utils.IntegrationTest;
+import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.dialect.PostgreSqlDatabaseDialect;
+import io.zonky.test.db.postgres.junit.EmbeddedPostgresRules;
+import io.zonky.test.db.postgres.junit.SingleInstancePostgresRule;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Integration tests for the locks that serialize creating tables across tasks.
+ */
+@Category(IntegrationTest.class)
+public class PostgresDdlLockIT {
+
+  private static final Schema SCHEMA = SchemaBuilder.struct().name("com.example.Reading")
+      .field("time", Schema.INT64_SCHEMA)
+      .field("value", Schema.FLOAT64_SCHEMA)
+      .build();
+
+  @Rule
+  public SingleInstancePostgresRule pg = EmbeddedPostgresRules.singleInstance();
+
+  private Map<String, String> props;
+
+  @Before
+  public void before() throws SQLException {
+    props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, String.format(
+        "jdbc:postgresql://localhost:%s/postgres", pg.getEmbeddedPostgres().getPort()));
+    props.put(JdbcSinkConfig.CONNECTION_USER, "postgres");
+    props.put(JdbcSinkConfig.AUTO_CREATE, "true");
+    execute("CREATE SCHEMA project_a");
+    execute("CREATE SCHEMA project_b");
+  }
+
+  @Test
+  public void tasksCreatingTablesInOppositeOrderDoNotDeadlock() throws Exception {
+    // Each writer waits after its first DDL statements until the other one has run its own
+    final CyclicBarrier firstDdl = new CyclicBarrier(2);
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final Future<?> first = executor.submit(
+          () -> write(firstDdl, "project_a.readings", "project_b.readings"));
+      final Future<?> second = executor.submit(
+          () -> write(firstDdl, "project_b.readings", "project_a.readings"));
+      first.get(60, TimeUnit.SECONDS);
+      second.get(60, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(2, count("project_a.readings"));
+    assertEquals(2, count("project_b.readings"));
+  }
+
+  private Void write(CyclicBarrier firstDdl, String... topics) throws SQLException {
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+    final DatabaseDialect dialect = new PostgreSqlDatabaseDialect(config) {
+      private boolean waited;
+
+      @Override
+      public void applyDdlStatements(
+          Connection connection,
+          List<String> statements
+      ) throws SQLException {
+        super.applyDdlStatements(connection, statements);
+        if (!waited) {
+          waited = true;
+          awaitOtherWriter(firstDdl);
+        }
+      }
+    };
+    final JdbcDbWriter writer = new JdbcDbWriter(config, dialect, new DbStructure(dialect));
+    try {
+      final List<SinkRecord> records = new ArrayList<>();
+      for (String topic : topics) {
+        final Struct value = new Struct(SCHEMA).put("time", 1L).put("value", 1.0);
+        records.add(new SinkRecord(topic, 0, null, null, SCHEMA, value, 0));
+      }
+      writer.write(records);
+    } finally {
+      writer.closeQuietly();
+      dialect.close();
+    }
+    return null;
+  }
+
+  private static void awaitOtherWriter(CyclicBarrier barrier) throws SQLException {
+    try {
+      barrier.await(5, TimeUnit.SECONDS);
+    } catch (TimeoutException | BrokenBarrierException e) {
+      // The other writer is waiting for the lock held by this one
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException(e);
+    }
+  }
+
+  private void execute(String sql) throws SQLException {
+    try (Connection c = pg.getEmbeddedPostgres().getPostgresDatabase().getConnection();
+         Statement s = c.createStatement()) {
+      s.execute(sql);
+    }
+  }
+
+  private long count(String table) throws SQLException {
+    try (Connection c = pg.getEmbeddedPostgres().getPostgresDatabase().getConnection();
+         Statement s = c.createStatement();
+         ResultSet rs = s.executeQuery("SELECT COUNT(*) FROM " + table)) {
+      assertTrue(rs.next());
+      return rs.getLong(1);
+    }
+  }
+}
@@ -45,11 +45,13 @@ import java.util.concurrent.ThreadLocalRandom;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialect;
 import io.confluent.connect.jdbc.dialect.GenericDatabaseDialect;
+import io.confluent.connect.jdbc.dialect.SybaseDatabaseDialect;
 import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
 import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
 import io.confluent.connect.jdbc.source.JdbcSourceConnectorConfig;
 import io.confluent.connect.jdbc.util.DateTimeUtils;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -234,4 +236,43 @@ public class PreparedStatementBinderTest {
         verify(statement, times(1)).setLong(index++, valueStruct.getInt64("long"));
     }
 
+  @Test
+  public void dialectFieldBindingOverridesAreUsed() throws SQLException {
+    Map<String, String> props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, "jdbc:jtds:sybase://localhost:5000/db");
+    DatabaseDialect sybaseDialect = new SybaseDatabaseDialect(new JdbcSinkConfig(props));
+
+    Schema valueSchema = SchemaBuilder.struct().name("com.example.Person")
+        .field("id", Schema.INT64_SCHEMA)
+        .field("byte", Schema.INT8_SCHEMA)
+        .build();
+    Struct first = new Struct(valueSchema).put("id", 1L).put("byte", (byte) 8);
+    Struct second = new Struct(valueSchema).put("id", 2L).put("byte", (byte) -8);
+
+    SchemaPair schemaPair = new SchemaPair(null, valueSchema);
+    JdbcSinkConfig.PrimaryKeyMode pkMode = JdbcSinkConfig.PrimaryKeyMode.RECORD_VALUE;
+    FieldsMetadata fieldsMetadata = FieldsMetadata.extract("people", pkMode,
+        Collections.singletonList("id"), Collections.<String>emptySet(), schemaPair);
+
+    PreparedStatement statement = mock(PreparedStatement.class);
+    PreparedStatementBinder binder = new PreparedStatementBinder(
+        sybaseDialect,
+        statement,
+        pkMode,
+        schemaPair,
+        fieldsMetadata,
+        JdbcSinkConfig.InsertMode.INSERT
+    );
+
+    int index = binder.bindRecord(1, new SinkRecord("topic", 0, null, null, valueSchema, first, 0));
+    index = binder.bindRecord(index, new SinkRecord("topic", 0, null, null, valueSchema, second, 1));
+
+    assertEquals(5, index);
+    verify(statement, times(1)).setLong(1, 1L);
+    // Sybase binds INT8 as a short, which the compiled setters must not bypass
+    verify(statement, times(1)).setShort(2, (short) 8);
+    verify(statement, times(1)).setLong(3, 2L);
+    verify(statement, times(1)).setShort(4, (short) -8);
+  }
+
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.confluent.connect.jdbc.source.MockTime;
+import io.confluent.connect.jdbc.util.TableId;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RecordAccumulatorTest {
+
+  private final MockTime time = new MockTime();
+
+  @Test
+  public void readyWhenLingerTimeHasPassed() {
+    final RecordAccumulator accumulator = accumulator("1000", "100000");
+    assertFalse(accumulator.isReady());
+    assertEquals(1000, accumulator.lingerRemainingMs());
+
+    accumulator.add(Collections.singletonList(record("a", 0, 3, "x")));
+    time.sleep(400);
+    accumulator.add(Collections.singletonList(record("b", 0, 4, "y")));
+    assertFalse(accumulator.isReady());
+    assertEquals(600, accumulator.lingerRemainingMs());
+
+    time.sleep(600);
+    assertTrue(accumulator.isReady());
+    final Map<TableId, List<SinkRecord>> records = accumulator.drain();
+    assertEquals(2, records.size());
+    assertTrue(accumulator.isEmpty());
+    assertFalse(accumulator.isReady());
+  }
+
+  @Test
+  public void readyWhenBatchSizeOrMemoryIsReached() {
+    final RecordAccumulator batchAccumulator = accumulator("1000", "100000");
+    batchAccumulator.add(Arrays.asList(record("a", 0, 0, "x"), record("b", 0, 1, "y")));
+    assertFalse(batchAccumulator.isReady());
+    batchAccumulator.add(Collections.singletonList(record("a", 0, 2, "z")));
+    assertTrue(batchAccumulator.isReady());
+
+    final SinkRecord record = record("a", 0, 0, "x");
+    final RecordAccumulator memoryAccumulator =
+        accumulator("1000", String.valueOf(RecordAccumulator.estimateSize(record) + 1));
+    memoryAccumulator.add(Collections.singletonList(record));
+    assertFalse(memoryAccumulator.isReady());
+    memoryAccumulator.add(Collections.singletonList(record("b", 0, 1, "y")));
+    assertTrue(memoryAccumulator.isReady());
+  }
+
+  @Test
+  public void firstOffsetsExcludeDiscardedPartitions() {
+    final RecordAccumulator accumulator = accumulator("1000", "100000");
+    accumulator.add(Arrays.asList(
+        record("a", 0, 5, "x"),
+        record("a", 1, 7, "y"),
+        record("b", 0, 6, "z")
+    ));
+
+    final Map<TopicPartition, Long> offsets = new HashMap<>();
+    offsets.put(new TopicPartition("a", 0), 5L);
+    offsets.put(new TopicPartition("a", 1), 7L);
+    offsets.put(new TopicPartition("b", 0), 6L);
+    assertEquals(offsets, accumulator.firstOffsets());
+
+    accumulator.discard(Collections.singleton(new TopicPartition("a", 0)));
+    offsets.remove(new TopicPartition("a", 0));
+    assertEquals(offsets, accumulator.firstOffsets());
+    assertEquals(2, accumulator.drain().size());
+  }
+
+  private RecordAccumulator accumulator(String lingerMs, String bufferMemoryBytes) {
+    final Map<String, String> props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, "stub");
+    props.put(JdbcSinkConfig.LINGER_MS, lingerMs);
+    props.put(JdbcSinkConfig.BUFFER_MEMORY_BYTES, bufferMemoryBytes);
+    return new RecordAccumulator(
+        new JdbcSinkConfig(props),
+        record -> new TableId(null, null, record.topic()),
+        tableId -> 2,
+        SinkMetrics.inMemory(),
+        time
+    );
+  }
+
+  private static SinkRecord record(String topic, int partition, long offset, String value) {
+    return new SinkRecord(topic, partition, null, null, Schema.STRING_SCHEMA, value, offset);
+  }
+}
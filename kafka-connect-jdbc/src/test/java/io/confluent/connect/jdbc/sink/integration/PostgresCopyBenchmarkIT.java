@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.confluent.common.utils.IntegrationTest;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.confluent.connect.jdbc.sink.JdbcSinkTask;
+import io.zonky.test.db.postgres.junit.EmbeddedPostgresRules;
+import io.zonky.test.db.postgres.junit.SingleInstancePostgresRule;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.connect.data.Date;
+import org.apache.kafka.connect.data.Decimal;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares writing batches with INSERT statements against writing them with COPY in the text
+ * and binary formats, and checks that all three produce the same rows. The timings are only
+ * logged, as wall-clock comparisons are not reliable on shared build machines; the JMH benchmarks
+ * measure the write path properly.
+ */
+@Category(IntegrationTest.class)
+public class PostgresCopyBenchmarkIT {
+
+  private static final Logger log = LoggerFactory.getLogger(PostgresCopyBenchmarkIT.class);
+
+  private static final int NUM_RECORDS = 50000;
+  private static final int RECORDS_PER_PUT = 5000;
+  private static final long START_TIME = 1577836800000L;
+
+  private static final Schema SCHEMA = SchemaBuilder.struct().name("com.example.Measurement")
+      .field("id", Schema.INT64_SCHEMA)
+      .field("sensor", Schema.INT32_SCHEMA)
+      .field("value", Schema.FLOAT64_SCHEMA)
+      .field("valid", Schema.BOOLEAN_SCHEMA)
+      .field("label", Schema.STRING_SCHEMA)
+      .field("note", Schema.OPTIONAL_STRING_SCHEMA)
+      .field("payload", Schema.BYTES_SCHEMA)
+      .field("amount", Decimal.schema(3))
+      .field("day", Date.SCHEMA)
+      .field("time", Timestamp.SCHEMA)
+      .build();
+
+  @Rule
+  public SingleInstancePostgresRule pg = EmbeddedPostgresRules.singleInstance();
+
+  @Test
+  public void copyWritesTheSameRowsAsInsert() throws SQLException {
+    final List<SinkRecord> records = new ArrayList<>(NUM_RECORDS);
+    for (int i = 0; i < NUM_RECORDS; i++) {
+      records.add(new SinkRecord("ignored", 0, null, null, SCHEMA, measurement(i), i));
+    }
+
+    // Warm up the JIT and the database before measuring
+    write("warmup_insert", "none", records.subList(0, RECORDS_PER_PUT));
+    write("warmup_copy", "binary", records.subList(0, RECORDS_PER_PUT));
+
+    final long insertNanos = write("measurements_insert", "none", records);
+    final long textNanos = write("measurements_text", "text", records);
+    final long binaryNanos = write("measurements_binary", "binary", records);
+    log.info(
+        "Wrote {} records with INSERT in {} ms, COPY text in {} ms, COPY binary in {} ms",
+        NUM_RECORDS,
+        insertNanos / 1000000,
+        textNanos / 1000000,
+        binaryNanos / 1000000
+    );
+
+    assertEquals(NUM_RECORDS, count("SELECT COUNT(*) FROM measurements_insert"));
+    assertEquals(0, count(
+        "SELECT COUNT(*) FROM (TABLE measurements_insert EXCEPT TABLE measurements_text) d"));
+    assertEquals(0, count(
+        "SELECT COUNT(*) FROM (TABLE measurements_insert EXCEPT TABLE measurements_binary) d"));
+    assertEquals(NUM_RECORDS, count(
+        "SELECT COUNT(*) FROM (TABLE measurements_text UNION TABLE measurements_binary) d"));
+  }
+
+  private static Struct measurement(int i) {
+    return new Struct(SCHEMA)
+        .put("id", (long) i)
+        .put("sensor", i % 100)
+        .put("value", i * 0.25d - 1000d)
+        .put("valid", i % 3 == 0)
+        .put("label", "sensor\t" + (i % 100) + "\\\n\"quoted\"")
+        .put("note", i % 2 == 0 ? null : "note " + i)
+        .put("payload", new byte[] {(byte) i, (byte) (i >> 8), 0, -1})
+        .put("amount", BigDecimal.valueOf(i * 1000L - 7, 3).negate())
+        .put("day", new java.util.Date((START_TIME / 86400000L + i % 365) * 86400000L))
+        .put("time", new java.util.Date(START_TIME + i * 20L));
+  }
+
+  private long write(String table, String copyFormat, List<SinkRecord> records) {
+    final Map<String, String> props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, String.format(
+        "jdbc:postgresql://localhost:%s/postgres", pg.getEmbeddedPostgres().getPort()));
+    props.put(JdbcSinkConfig.CONNECTION_USER, "postgres");
+    props.put(JdbcSinkConfig.AUTO_CREATE, "true");
+    props.put(JdbcSinkConfig.TABLE_NAME_FORMAT, table);
+    props.put(JdbcSinkConfig.INSERT_COPY_FORMAT, copyFormat);
+    props.put("pk.mode", "kafka");
+    props.put("topics", "ignored");
+
+    final JdbcSinkTask task = new JdbcSinkTask();
+    task.start(props);
+    try {
+      // Create the table outside of the measurement
+      task.put(records.subList(0, 1));
+      final long start = System.nanoTime();
+      for (int i = 1; i < records.size(); i += RECORDS_PER_PUT) {
+        task.put(records.subList(i, Math.min(i + RECORDS_PER_PUT, records.size())));
+      }
+      return System.nanoTime() - start;
+    } finally {
+      task.stop();
+    }
+  }
+
+  private long count(String query) throws SQLException {
+    try (Connection c = pg.getEmbeddedPostgres().getPostgresDatabase().getConnection();
+         Statement s = c.createStatement();
+         ResultSet rs = s.executeQuery(query)) {
+      assertTrue(rs.next());
+      return rs.getLong(1);
+    }
+  }
+}
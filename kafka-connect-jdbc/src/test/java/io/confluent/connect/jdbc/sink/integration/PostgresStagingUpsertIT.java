@@ -0,0 +1,137 @@
+/*
+ * Copyright 2020 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.confluent.common.utils.IntegrationTest;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.confluent.connect.jdbc.sink.JdbcSinkTask;
+import io.zonky.test.db.postgres.junit.EmbeddedPostgresRules;
+import io.zonky.test.db.postgres.junit.SingleInstancePostgresRule;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Integration tests for upserts through a staging table.
+ */
+@Category(IntegrationTest.class)
+public class PostgresStagingUpsertIT {
+
+  private static final String TOPIC = "readings";
+
+  private static final Schema SCHEMA = SchemaBuilder.struct().name("com.example.Reading")
+      .field("user", Schema.STRING_SCHEMA)
+      .field("seq", Schema.INT64_SCHEMA)
+      .field("value", Schema.FLOAT64_SCHEMA)
+      .build();
+
+  @Rule
+  public SingleInstancePostgresRule pg = EmbeddedPostgresRules.singleInstance();
+
+  private Map<String, String> props;
+  private JdbcSinkTask task;
+
+  @Before
+  public void before() {
+    props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, String.format(
+        "jdbc:postgresql://localhost:%s/postgres", pg.getEmbeddedPostgres().getPort()));
+    props.put(JdbcSinkConfig.CONNECTION_USER, "postgres");
+    props.put(JdbcSinkConfig.AUTO_CREATE, "true");
+    props.put(JdbcSinkConfig.INSERT_MODE, "upsert");
+    props.put(JdbcSinkConfig.UPSERT_STRATEGY, "staging");
+    props.put(JdbcSinkConfig.PK_MODE, "record_value");
+    props.put(JdbcSinkConfig.PK_FIELDS, "user,seq");
+    props.put("topics", TOPIC);
+  }
+
+  @After
+  public void after() {
+    if (task != null) {
+      task.stop();
+    }
+  }
+
+  @Test
+  public void shouldKeepLastRecordForEachKeyInTextFormat() throws SQLException {
+    props.put(JdbcSinkConfig.INSERT_COPY_FORMAT, "text");
+    shouldKeepLastRecordForEachKey();
+  }
+
+  @Test
+  public void shouldKeepLastRecordForEachKeyInBinaryFormat() throws SQLException {
+    shouldKeepLastRecordForEachKey();
+  }
+
+  private void shouldKeepLastRecordForEachKey() throws SQLException {
+    task = new JdbcSinkTask();
+    task.start(props);
+
+    task.put(Arrays.asList(
+        record("a", 1, 1.0, 0),
+        record("a", 2, 2.0, 1),
+        record("a", 1, 1.5, 2)
+    ));
+    // The staging table is reused and must start empty for the next batch
+    task.put(Arrays.asList(
+        record("a", 2, 2.5, 3),
+        record("b", 1, 3.0, 4)
+    ));
+
+    try (Connection c = pg.getEmbeddedPostgres().getPostgresDatabase().getConnection();
+         Statement s = c.createStatement();
+         ResultSet rs = s.executeQuery(
+             "SELECT \"user\", seq, value FROM " + TOPIC + " ORDER BY \"user\", seq")) {
+      assertRow(rs, "a", 1, 1.5);
+      assertRow(rs, "a", 2, 2.5);
+      assertRow(rs, "b", 1, 3.0);
+      assertFalse(rs.next());
+    }
+  }
+
+  private static SinkRecord record(String user, long seq, double value, long offset) {
+    final Struct struct = new Struct(SCHEMA)
+        .put("user", user)
+        .put("seq", seq)
+        .put("value", value);
+    return new SinkRecord(TOPIC, 0, null, null, SCHEMA, struct, offset);
+  }
+
+  private static void assertRow(ResultSet rs, String user, long seq, double value)
+      throws SQLException {
+    assertTrue(rs.next());
+    assertEquals(user, rs.getString(1));
+    assertEquals(seq, rs.getLong(2));
+    assertEquals(value, rs.getDouble(3), 0.0);
+  }
+}
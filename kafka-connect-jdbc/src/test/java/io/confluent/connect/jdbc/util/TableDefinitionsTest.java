@@ -0,0 +1,178 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.source.MockTime;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TableDefinitionsTest {
+
+  private final TableId tableA = new TableId(null, null, "a");
+  private final TableId tableB = new TableId(null, null, "b");
+  private final TableDefinition definitionA =
+      new TableDefinition(tableA, Collections.<ColumnDefinition>emptyList());
+  private final TableDefinition definitionB =
+      new TableDefinition(tableB, Collections.<ColumnDefinition>emptyList());
+  private final MockTime time = new MockTime();
+  private final Connection connection = mock(Connection.class);
+  private DatabaseDialect dialect;
+
+  @Before
+  public void setUp() throws Exception {
+    dialect = mock(DatabaseDialect.class);
+    when(dialect.tableExists(connection, tableA)).thenReturn(true);
+    when(dialect.tableExists(connection, tableB)).thenReturn(true);
+    when(dialect.describeTable(connection, tableA)).thenReturn(definitionA);
+    when(dialect.describeTable(connection, tableB)).thenReturn(definitionB);
+  }
+
+  @Test
+  public void definitionsAreReadAgainAfterTheirTimeToLive() throws Exception {
+    final TableDefinitions definitions = new TableDefinitions(dialect, 1000, 10, time);
+    assertSame(definitionA, definitions.get(connection, tableA));
+    time.sleep(999);
+    assertSame(definitionA, definitions.get(connection, tableA));
+    verify(dialect, times(1)).describeTable(connection, tableA);
+
+    time.sleep(1);
+    assertSame(definitionA, definitions.get(connection, tableA));
+    verify(dialect, times(2)).describeTable(connection, tableA);
+  }
+
+  @Test
+  public void leastRecentlyUsedDefinitionsAreEvicted() throws Exception {
+    final TableDefinitions definitions = new TableDefinitions(dialect, 1000, 1, time);
+    definitions.get(connection, tableA);
+    definitions.get(connection, tableB);
+    definitions.get(connection, tableB);
+    verify(dialect, times(1)).describeTable(connection, tableB);
+
+    definitions.get(connection, tableA);
+    verify(dialect, times(2)).describeTable(connection, tableA);
+  }
+
+  @Test
+  public void invalidatedAndMissingTablesAreReadAgain() throws Exception {
+    final TableDefinitions definitions = new TableDefinitions(dialect, 1000, 10, time);
+    definitions.get(connection, tableA);
+    definitions.invalidate(tableA);
+    definitions.get(connection, tableA);
+    verify(dialect, times(2)).describeTable(connection, tableA);
+
+    final TableId missing = new TableId(null, null, "missing");
+    assertNull(definitions.get(connection, missing));
+    assertNull(definitions.get(connection, missing));
+    verify(dialect, times(2)).tableExists(connection, missing);
+  }
+
+  @Test
+  public void prefetchDescribesTablesThatAreNotCachedAtOnce() throws Exception {
+    final TableDefinitions definitions = new TableDefinitions(dialect, 1000, 10, time);
+    definitions.get(connection, tableA);
+    final TableId missing = new TableId(null, null, "missing");
+    when(dialect.describeTables(connection, Arrays.asList(tableB, missing)))
+        .thenReturn(Collections.singletonMap(tableB, definitionB));
+
+    definitions.prefetch(connection, Arrays.asList(tableA, tableB, missing));
+    assertSame(definitionB, definitions.get(connection, tableB));
+    verify(dialect, never()).describeTable(connection, tableB);
+    verify(dialect, times(1)).describeTables(connection, Arrays.asList(tableB, missing));
+
+    assertNull(definitions.get(connection, missing));
+    verify(dialect, times(1)).tableExists(connection, missing);
+  }
+
+  @Test
+  public void concurrentMissesReadTheDefinitionOnce() throws Exception {
+    final CountDownLatch reading = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    when(dialect.describeTable(connection, tableA)).thenAnswer(invocation -> {
+      reading.countDown();
+      release.await();
+      return definitionA;
+    });
+    final TableDefinitions first = TableDefinitions.shared("concurrent", dialect, 1000, 10);
+    final TableDefinitions second = TableDefinitions.shared("concurrent", dialect, 1000, 10);
+
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final Future<TableDefinition> firstLookup =
+          executor.submit(() -> first.get(connection, tableA));
+      assertTrue(reading.await(10, TimeUnit.SECONDS));
+      final Future<TableDefinition> secondLookup =
+          executor.submit(() -> second.get(connection, tableA));
+      release.countDown();
+
+      assertSame(definitionA, firstLookup.get(10, TimeUnit.SECONDS));
+      assertSame(definitionA, secondLookup.get(10, TimeUnit.SECONDS));
+      verify(dialect, times(1)).describeTable(connection, tableA);
+    } finally {
+      executor.shutdownNow();
+      first.release();
+      second.release();
+    }
+  }
+
+  @Test
+  public void sharedDefinitionsAreDroppedOnceReleased() throws Exception {
+    final TableDefinitions first = TableDefinitions.shared("released", dialect, 1000, 10);
+    final TableDefinitions second = TableDefinitions.shared("released", dialect, 1000, 10);
+    final TableDefinitions otherSettings = TableDefinitions.shared("released", dialect, 2000, 10);
+    try {
+      first.get(connection, tableA);
+      second.get(connection, tableA);
+      verify(dialect, times(1)).describeTable(connection, tableA);
+      otherSettings.get(connection, tableA);
+      verify(dialect, times(2)).describeTable(connection, tableA);
+
+      first.release();
+      second.get(connection, tableA);
+      verify(dialect, times(2)).describeTable(connection, tableA);
+    } finally {
+      second.release();
+      otherSettings.release();
+    }
+
+    final TableDefinitions third = TableDefinitions.shared("released", dialect, 1000, 10);
+    try {
+      third.get(connection, tableA);
+      verify(dialect, times(3)).describeTable(connection, tableA);
+    } finally {
+      third.release();
+    }
+  }
+}